@@ -11,12 +11,50 @@ import io.varcode.dom.VarNameAudit;
  *   <LI>parsing Markup into a {@code Dom}
  *   <LI>filling a {@code Dom} as a tailored document  
  * </UL>   
+ * 
+ * The CORE and CORE_LIBRARY bindings (the core libraries, expression 
+ * evaluator, resolvers...) are built ONCE, frozen and shared by every
+ * {@code VarContext} (and copied on write if a context modifies them), 
+ * so creating a new {@code VarContext} is cheap. 
+ * 
  * @author M. Eric DeFazio eric@varcode.io
  */
 public enum Bootstrap 
 {
-	;	
+	;
+	
+	/** the CORE and CORE_LIBRARY bindings shared by all contexts */
+	private static class Shared
+	{
+		private static final VarBindings CORE;
+		
+		private static final VarBindings CORE_LIBRARY;
+		
+		static
+		{
+			VarContext context = new VarContext( new ScopeBindings(), false );
+			load( context );
+			CORE = context.getBindings( VarScope.CORE ).freeze();
+			CORE_LIBRARY = context.getBindings( VarScope.CORE_LIBRARY ).freeze();
+		}
+	}
+	
 	public static void init( VarContext context )
+	{
+		ScopeBindings scopeBindings = context.getScopeBindings();
+		scopeBindings.shareBindings( 
+			Shared.CORE_LIBRARY, VarScope.CORE_LIBRARY.getValue() );
+		scopeBindings.shareBindings( 
+			Shared.CORE, VarScope.CORE.getValue() );
+		
+		context.set( 
+			VarContext.METADATA_NAME,
+			new Metadata.SimpleMetadata(),
+			VarScope.INSTANCE );
+	}
+	
+	/** loads the CORE and CORE_LIBRARY bindings into the context */
+	private static void load( VarContext context )
 	{
 		//load all the core libraries into the context
 		CoreLib.INSTANCE.load( context );
@@ -24,7 +62,7 @@ public enum Bootstrap
 		//set the expression evaluator in the context
 		context.set( 
 			VarContext.EXPRESSION_EVALUATOR_NAME, 
-			ExpressionEvaluator_JavaScript.INSTANCE, 
+			ExpressionEvaluator_CompiledJavaScript.INSTANCE, 
 			VarScope.CORE );
 		
 		context.set( 
@@ -34,17 +72,12 @@ public enum Bootstrap
 
 		context.set( 
 			VarContext.VAR_RESOLVER_NAME,
-			Resolve.SmartVarResolver.INSTANCE,
+			Resolve.DirectVarResolver.INSTANCE,
 			VarScope.CORE );
 		
 		context.set( 
 			VarContext.SCRIPT_RESOLVER_NAME,
 			Resolve.SmartScriptResolver.INSTANCE,
 			VarScope.CORE );
-		
-		context.set( 
-			VarContext.METADATA_NAME,
-			new Metadata.SimpleMetadata(),
-			VarScope.INSTANCE );
 	}
 }
@@ -0,0 +1,257 @@
+package io.varcode.context;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+import io.varcode.VarException;
+
+/**
+ * Evaluates String expressions using Java's built in "JavaScript"
+ * engine, compiling each (distinct) expression ONCE
+ * (via {@code javax.script.Compilable}) and keeping the
+ * {@code CompiledScript} in a bounded (least recently used) cache
+ * keyed by the expression text.
+ *
+ * Templates re-evaluate the same (small set of) expressions for every
+ * tailor, so rather than re-parsing the expression text on every
+ * {@code evaluate} call, the compiled script is evaluated against the
+ * bindings.
+ *
+ * The hit / miss counts are exposed to monitor how effective the
+ * cache is.
+ *
+ * Compiled scripts are only evaluated by the engine that compiled them
+ * (each engine in the {@code ScriptEnginePool} has its own cache) since
+ * the JavaScript global of a {@code Bindings} is bound to an engine;
+ * an engine that is not thread-safe is used by one thread at a time
+ * (see {@code ScriptEnginePool} for the concurrency contract).
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class ExpressionEvaluator_CompiledJavaScript
+	implements ExpressionEvaluator
+{
+	/** the default maximum number of compiled expressions to cache */
+	public static final int DEFAULT_MAX_CACHED_EXPRESSIONS = 512;
+
+	public static final ExpressionEvaluator_CompiledJavaScript INSTANCE =
+		new ExpressionEvaluator_CompiledJavaScript(
+			DEFAULT_MAX_CACHED_EXPRESSIONS );
+
+	private final ScriptEnginePool enginePool;
+
+	/** the max number of compiled expressions cached (per engine) */
+	private final int maxCachedExpressions;
+
+	/**
+	 * (for each engine in the pool) expression text to compiled script
+	 * (in least recently used order)
+	 */
+	private final CompiledCache[] compiledCaches;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	public ExpressionEvaluator_CompiledJavaScript(
+		final int maxCachedExpressions )
+	{
+		this( ScriptEnginePool.JAVASCRIPT, maxCachedExpressions );
+	}
+
+	public ExpressionEvaluator_CompiledJavaScript(
+		ScriptEnginePool enginePool, final int maxCachedExpressions )
+	{
+		if( maxCachedExpressions < 1 )
+		{
+			throw new VarException(
+				"maxCachedExpressions (" + maxCachedExpressions
+				+ ") must be > 0" );
+		}
+		this.enginePool = enginePool;
+		this.maxCachedExpressions = maxCachedExpressions;
+		this.compiledCaches = new CompiledCache[ enginePool.getPoolSize() ];
+		for( int i = 0; i < compiledCaches.length; i++ )
+		{
+			compiledCaches[ i ] = new CompiledCache( maxCachedExpressions );
+		}
+	}
+
+	/** least recently used cache of compiled expressions (for an engine) */
+	private static class CompiledCache
+		extends LinkedHashMap<String, CompiledScript>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int maxCachedExpressions;
+
+		public CompiledCache( int maxCachedExpressions )
+		{
+			super( 16, 0.75f, true );
+			this.maxCachedExpressions = maxCachedExpressions;
+		}
+
+		protected boolean removeEldestEntry(
+			Map.Entry<String, CompiledScript> eldest )
+		{
+			return size() > maxCachedExpressions;
+		}
+	}
+
+	/**
+	 * gets the compiled script for the expression from the cache,
+	 * or compiles and caches it
+	 *
+	 * @param engineIndex the index of the engine in the pool
+	 * @param expression the expression text
+	 * @return the compiled script or null if the engine is not
+	 * {@code Compilable}
+	 */
+	private CompiledScript getCompiled( int engineIndex, String expression )
+		throws ScriptException
+	{
+		CompiledCache cache = compiledCaches[ engineIndex ];
+		synchronized( cache )
+		{
+			CompiledScript compiled = cache.get( expression );
+			if( compiled != null )
+			{
+				hitCount.increment();
+				return compiled;
+			}
+		}
+		missCount.increment();
+		ScriptEngine engine = enginePool.getEngine( engineIndex );
+		if( !( engine instanceof Compilable ) )
+		{
+			return null;
+		}
+		CompiledScript compiled = ((Compilable)engine).compile( expression );
+		synchronized( cache )
+		{
+			cache.put( expression, compiled );
+		}
+		return compiled;
+	}
+
+	private Object evaluate( 
+		int engineIndex, Bindings bindings, String expressionText )
+		throws ScriptException
+	{
+		CompiledScript compiled = getCompiled( engineIndex, expressionText );
+		if( compiled == null )
+		{
+			return enginePool.getEngine( engineIndex ).eval( 
+				expressionText, bindings );
+		}
+		return compiled.eval( bindings );
+	}
+
+	@Override
+	public Object evaluate( VarContext context, String expressionText )
+		throws VarException
+	{
+		return evaluate( context.getScopeBindings(), expressionText );
+	}
+
+	@Override
+	public Object evaluate( Bindings bindings, String expressionText )
+		throws VarException
+	{
+		int engineIndex = enginePool.indexFor( bindings );
+		try
+		{
+			if( enginePool.isMultithreaded( engineIndex ) )
+			{
+				return evaluate( engineIndex, bindings, expressionText );
+			}
+			synchronized( enginePool.getLock( engineIndex ) )
+			{   //the engine is NOT thread-safe
+				return evaluate( engineIndex, bindings, expressionText );
+			}
+		}
+		catch( ScriptException e )
+		{
+			if( e.getCause() instanceof VarException )
+			{
+				throw (VarException)e.getCause();
+			}
+			throw new EvalException( e.getCause() );
+		}
+	}
+
+	/** @return the number of evaluations that used a cached compiled script */
+	public long getHitCount()
+	{
+		return hitCount.sum();
+	}
+
+	/** @return the number of evaluations that had to compile the expression */
+	public long getMissCount()
+	{
+		return missCount.sum();
+	}
+
+	/** @return the number of compiled expressions in the cache(s) */
+	public int getCachedCount()
+	{
+		int count = 0;
+		for( int i = 0; i < compiledCaches.length; i++ )
+		{
+			synchronized( compiledCaches[ i ] )
+			{
+				count += compiledCaches[ i ].size();
+			}
+		}
+		return count;
+	}
+
+	/** @return the max number of compiled expressions cached per engine */
+	public int getMaxCachedExpressions()
+	{
+		return maxCachedExpressions;
+	}
+
+	/** clears all compiled expressions from the cache and resets the counts*/
+	public void clearCache()
+	{
+		for( int i = 0; i < compiledCaches.length; i++ )
+		{
+			synchronized( compiledCaches[ i ] )
+			{
+				compiledCaches[ i ].clear();
+			}
+		}
+		hitCount.reset();
+		missCount.reset();
+	}
+
+	@Override
+	public boolean isReservedWord( String name )
+	{
+		return ExpressionEvaluator_JavaScript.RESERVED_WORDS.contains( name );
+	}
+
+	public String getName()
+	{
+		return "CompiledJavaScript_ExpressionEvaluator";
+	}
+
+	public String getVersion()
+	{
+		return "0.1";
+	}
+
+	public String toString()
+	{
+		return this.getName() + "." + getVersion()
+			+ " (hits:" + getHitCount() + ", misses:" + getMissCount() + ")";
+	}
+}
@@ -3,11 +3,9 @@ package io.varcode.context;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.script.Bindings;
 import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
 
 import io.varcode.VarException;
@@ -23,27 +21,20 @@ public enum ExpressionEvaluator_JavaScript
 {
     INSTANCE;
 	  
-    private AtomicBoolean isLoaded = new AtomicBoolean( false );
-    
-    private ScriptEngineManager scriptManager = null; 
-    
-    private ScriptEngine JSEngine = null;
-                   
-    private ExpressionEvaluator_JavaScript()
-    { }
-    
     /**
-     * Added this Lazy load, since it was taking 3+ seconds to bootstrap 
-     * Nashorn engine, and (quite frankly) we arent using the 
+     * Each Bindings is always evaluated by the same engine in the pool 
+     * (threads evaluating bindings mapped to different engines do not 
+     * contend on a single engine; see {@code ScriptEnginePool}).
+     *  
+     * The engines are loaded lazily, since it was taking 3+ seconds to 
+     * bootstrap Nashorn engine, and (quite frankly) we arent using the 
      * Javascript engine THAT much (so lets only load it Lazily when needed)
      * (After bootstrap everything works fine, anyways) 
      */
-    private synchronized void loadLazily()
-    {
-        scriptManager = new ScriptEngineManager();
-        JSEngine = scriptManager.getEngineByName( "JavaScript" );
-        isLoaded.set( true );
-    }
+    private final ScriptEnginePool enginePool = ScriptEnginePool.JAVASCRIPT;
+                   
+    private ExpressionEvaluator_JavaScript()
+    { }
     
 	@Override
 	public Object evaluate( VarContext context, String expressionText ) 
@@ -56,13 +47,18 @@ public enum ExpressionEvaluator_JavaScript
     public Object evaluate( Bindings bindings, String expression )
     	throws VarException
     {
-        if( ! isLoaded.get() )
-        {
-            loadLazily();
-        }
+        int engineIndex = enginePool.indexFor( bindings );
+        ScriptEngine JSEngine = enginePool.getEngine( engineIndex );
         try
         {
-            return JSEngine.eval( expression, bindings );
+            if( enginePool.isMultithreaded( engineIndex ) )
+            {
+                return JSEngine.eval( expression, bindings );
+            }
+            synchronized( enginePool.getLock( engineIndex ) )
+            {   //the engine is NOT thread-safe
+                return JSEngine.eval( expression, bindings );
+            }
         }
         catch( ScriptException e )
         {
@@ -74,7 +70,7 @@ public enum ExpressionEvaluator_JavaScript
         	{
         		throw new EvalException( e.getCause() );
         	}         	          
-        }        
+        }
     }
 
 	public String getName() 
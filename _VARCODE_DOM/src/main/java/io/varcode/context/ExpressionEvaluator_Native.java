@@ -0,0 +1,1411 @@
+package io.varcode.context;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.script.Bindings;
+
+import io.varcode.VarException;
+
+/**
+ * Evaluates (the common subset of JavaScript) expressions natively
+ * (without a {@code ScriptEngine}); each distinct expression is parsed ONCE
+ * into a tree of {@code Node}s (cached by the expression text) which is
+ * evaluated directly against the {@code Bindings} (i.e. {@code ScopeBindings}).
+ *
+ * The subset:
+ * <UL>
+ *  <LI>literals: numbers {@code 42, 3.14, 0xFF}, strings {@code 'a', "b"},
+ *  {@code true, false, null}
+ *  <LI>vars (identifiers) bound in the {@code Bindings}
+ *  <LI>arithmetic {@code + - * / %}, string concatenation {@code +}
+ *  <LI>bitwise {@code | & ^ ~ << >> >>>} (i.e. {@code (a + b) | 0})
+ *  <LI>comparison {@code == != === !== < <= > >=}
+ *  <LI>boolean logic {@code && || !}
+ *  <LI>the ternary {@code cond ? a : b}
+ *  <LI>{@code .length} (of a String or array) and {@code .equals( ... )}
+ *  (on a String)
+ * </UL>
+ *
+ * Anything outside of the subset (i.e. function calls, {@code Math.max(a,b)},
+ * vars not bound in the {@code Bindings}, Java objects as operands) is
+ * evaluated by the {@code fallback} {@code ExpressionEvaluator}, so the
+ * result is the same as the JavaScript engine, with one exception: an 
+ * integral numeric result is returned as an {@code Integer} (the engine 
+ * may return a {@code Double}, so {@code a + b} is "3" rather than "3.0" 
+ * without the {@code | 0} idiom).
+ *
+ * To use the native evaluator, set it in the {@code VarContext}:
+ * <PRE>
+ * context.set(
+ *     VarContext.EXPRESSION_EVALUATOR_NAME,
+ *     ExpressionEvaluator_Native.INSTANCE,
+ *     VarScope.CORE );
+ * </PRE>
+ *
+ * The parsed expression trees are immutable, so the evaluator can be
+ * used by many threads.
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class ExpressionEvaluator_Native
+	implements ExpressionEvaluator
+{
+	/** the default maximum number of parsed expressions to cache */
+	public static final int DEFAULT_MAX_CACHED_EXPRESSIONS = 512;
+
+	/** native evaluator falling back to the (compiled) JavaScript evaluator */
+	public static final ExpressionEvaluator_Native INSTANCE =
+		new ExpressionEvaluator_Native(
+			ExpressionEvaluator_CompiledJavaScript.INSTANCE,
+			DEFAULT_MAX_CACHED_EXPRESSIONS );
+
+	/** evaluates expressions outside of the native subset */
+	private final ExpressionEvaluator fallback;
+
+	private final int maxCachedExpressions;
+
+	/** expression text to parsed Node (in least recently used order) */
+	private final ParsedCache parsedCache;
+
+	private final LongAdder nativeCount = new LongAdder();
+
+	private final LongAdder fallbackCount = new LongAdder();
+
+	public ExpressionEvaluator_Native(
+		ExpressionEvaluator fallback, int maxCachedExpressions )
+	{
+		if( fallback == null )
+		{
+			throw new VarException( "the fallback ExpressionEvaluator is null" );
+		}
+		if( maxCachedExpressions < 1 )
+		{
+			throw new VarException(
+				"maxCachedExpressions (" + maxCachedExpressions
+				+ ") must be > 0" );
+		}
+		this.fallback = fallback;
+		this.maxCachedExpressions = maxCachedExpressions;
+		this.parsedCache = new ParsedCache( maxCachedExpressions );
+	}
+
+	/** least recently used cache of parsed expressions */
+	private static class ParsedCache
+		extends LinkedHashMap<String, Node>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int maxCachedExpressions;
+
+		public ParsedCache( int maxCachedExpressions )
+		{
+			super( 16, 0.75f, true );
+			this.maxCachedExpressions = maxCachedExpressions;
+		}
+
+		protected boolean removeEldestEntry( Map.Entry<String, Node> eldest )
+		{
+			return size() > maxCachedExpressions;
+		}
+	}
+
+	/**
+	 * gets the parsed expression from the cache or parses and caches it
+	 *
+	 * @param expression the expression text
+	 * @return the parsed Node or {@code UNSUPPORTED} if the expression is
+	 * not in the native subset
+	 */
+	private Node getParsed( String expression )
+	{
+		synchronized( parsedCache )
+		{
+			Node parsed = parsedCache.get( expression );
+			if( parsed != null )
+			{
+				return parsed;
+			}
+		}
+		Node parsed = parse( expression );
+		synchronized( parsedCache )
+		{
+			parsedCache.put( expression, parsed );
+		}
+		return parsed;
+	}
+
+	@Override
+	public Object evaluate( VarContext context, String expressionText )
+		throws VarException
+	{
+		return evaluate( context.getScopeBindings(), expressionText );
+	}
+
+	@Override
+	public Object evaluate( Bindings bindings, String expressionText )
+		throws VarException
+	{
+		Node parsed = getParsed( expressionText );
+		if( parsed != UNSUPPORTED )
+		{
+			try
+			{
+				Object result = parsed.eval( bindings );
+				nativeCount.increment();
+				return result;
+			}
+			catch( NotNative nn )
+			{   //(i.e. a var not bound or a Java object operand),
+				// evaluation has no side effects, so it's safe to fallback
+			}
+		}
+		fallbackCount.increment();
+		return fallback.evaluate( bindings, expressionText );
+	}
+
+	/**
+	 * @param expressionText the expression
+	 * @return true if the expression is in the native subset (it may still
+	 * fallback when evaluated, i.e. if a var is not bound)
+	 */
+	public boolean isNative( String expressionText )
+	{
+		return getParsed( expressionText ) != UNSUPPORTED;
+	}
+
+	/**
+	 * @param expressionText the expression
+	 * @return the names of the vars the expression refers to (i.e. 
+	 * {"a", "b"} for "a + b > 0") or null if the expression is not in the 
+	 * native subset (and the vars cannot be determined)
+	 */
+	public static Set<String> getVarNames( String expressionText )
+	{
+		try
+		{
+			Parser parser = new Parser( expressionText );
+			parser.parse();
+			return parser.varNames;
+		}
+		catch( NotNative nn )
+		{
+			return null;
+		}
+	}
+
+	@Override
+	public boolean isReservedWord( String name )
+	{
+		return fallback.isReservedWord( name );
+	}
+
+	public ExpressionEvaluator getFallback()
+	{
+		return fallback;
+	}
+
+	/** @return the number of expressions evaluated natively */
+	public long getNativeCount()
+	{
+		return nativeCount.sum();
+	}
+
+	/** @return the number of expressions evaluated by the fallback */
+	public long getFallbackCount()
+	{
+		return fallbackCount.sum();
+	}
+
+	/** @return the number of parsed expressions in the cache */
+	public int getCachedCount()
+	{
+		synchronized( parsedCache )
+		{
+			return parsedCache.size();
+		}
+	}
+
+	/** @return the max number of parsed expressions cached */
+	public int getMaxCachedExpressions()
+	{
+		return maxCachedExpressions;
+	}
+
+	/** clears all parsed expressions from the cache and resets the counts */
+	public void clearCache()
+	{
+		synchronized( parsedCache )
+		{
+			parsedCache.clear();
+		}
+		nativeCount.reset();
+		fallbackCount.reset();
+	}
+
+	public String getName()
+	{
+		return "Native_ExpressionEvaluator";
+	}
+
+	public String getVersion()
+	{
+		return "0.1";
+	}
+
+	public String toString()
+	{
+		return this.getName() + "." + getVersion()
+			+ " (native:" + getNativeCount()
+			+ ", fallback:" + getFallbackCount() + ") fallback to " + fallback;
+	}
+
+	/**
+	 * thrown (without a stack trace) when an expression cannot be parsed or
+	 * evaluated natively (the expression is evaluated by the fallback)
+	 */
+	private static final class NotNative
+		extends RuntimeException
+	{
+		private static final long serialVersionUID = 1L;
+
+		private NotNative()
+		{
+			super( "not native", null, false, false );
+		}
+	}
+
+	private static final NotNative NOT_NATIVE = new NotNative();
+
+	/** a node in a parsed expression tree */
+	private static abstract class Node
+	{
+		/**
+		 * @param bindings the bindings (for resolving vars)
+		 * @return the result (String, Boolean, Integer, Double, null or
+		 * the value of a var)
+		 * @throws NotNative if the expression cannot be evaluated natively
+		 */
+		abstract Object eval( Bindings bindings )
+			throws NotNative;
+	}
+
+	/** (cached) for expressions that are not in the native subset */
+	private static final Node UNSUPPORTED = new Node()
+	{
+		Object eval( Bindings bindings )
+		{
+			throw NOT_NATIVE;
+		}
+	};
+
+	private static final class Literal
+		extends Node
+	{
+		private final Object value;
+
+		private Literal( Object value )
+		{
+			this.value = value;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			return value;
+		}
+	}
+
+	private static final class Var
+		extends Node
+	{
+		private final String name;
+
+		private Var( String name )
+		{
+			this.name = name;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			Object value = bindings.get( name );
+			if( value == null && !bindings.containsKey( name ) )
+			{   //(i.e. a JavaScript global like Math, or a ReferenceError)
+				throw NOT_NATIVE;
+			}
+			return value;
+		}
+	}
+
+	private static final class Unary
+		extends Node
+	{
+		private final char op;
+
+		private final Node operand;
+
+		private Unary( char op, Node operand )
+		{
+			this.op = op;
+			this.operand = operand;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			Object value = primitive( operand.eval( bindings ) );
+			switch( op )
+			{
+				case '!' :
+					return !truthy( value );
+				case '-' :
+					return number( -toNumber( value ) );
+				case '+' :
+					return number( toNumber( value ) );
+				default : //'~'
+					return ~toInt32( value );
+			}
+		}
+	}
+
+	private static final class Binary
+		extends Node
+	{
+		private final Op op;
+
+		private final Node left;
+
+		private final Node right;
+
+		private Binary( Op op, Node left, Node right )
+		{
+			this.op = op;
+			this.left = left;
+			this.right = right;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			return op.apply(
+				primitive( left.eval( bindings ) ),
+				primitive( right.eval( bindings ) ) );
+		}
+	}
+
+	/** {@code &&} (returns the deciding operand, like JavaScript) */
+	private static final class And
+		extends Node
+	{
+		private final Node left;
+
+		private final Node right;
+
+		private And( Node left, Node right )
+		{
+			this.left = left;
+			this.right = right;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			Object value = left.eval( bindings );
+			if( !truthy( value ) )
+			{
+				return value;
+			}
+			return right.eval( bindings );
+		}
+	}
+
+	/** {@code ||} (returns the deciding operand, like JavaScript) */
+	private static final class Or
+		extends Node
+	{
+		private final Node left;
+
+		private final Node right;
+
+		private Or( Node left, Node right )
+		{
+			this.left = left;
+			this.right = right;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			Object value = left.eval( bindings );
+			if( truthy( value ) )
+			{
+				return value;
+			}
+			return right.eval( bindings );
+		}
+	}
+
+	/** {@code condition ? ifTrue : ifFalse} */
+	private static final class Conditional
+		extends Node
+	{
+		private final Node condition;
+
+		private final Node ifTrue;
+
+		private final Node ifFalse;
+
+		private Conditional( Node condition, Node ifTrue, Node ifFalse )
+		{
+			this.condition = condition;
+			this.ifTrue = ifTrue;
+			this.ifFalse = ifFalse;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			if( truthy( condition.eval( bindings ) ) )
+			{
+				return ifTrue.eval( bindings );
+			}
+			return ifFalse.eval( bindings );
+		}
+	}
+
+	/** {@code target.length} (of a String or array) */
+	private static final class Length
+		extends Node
+	{
+		private final Node target;
+
+		private Length( Node target )
+		{
+			this.target = target;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			Object value = target.eval( bindings );
+			if( value instanceof String )
+			{
+				return ( (String)value ).length();
+			}
+			if( value != null && value.getClass().isArray() )
+			{
+				return Array.getLength( value );
+			}
+			throw NOT_NATIVE;
+		}
+	}
+
+	/** {@code target.equals( argument )} (where target is a String) */
+	private static final class Equals
+		extends Node
+	{
+		private final Node target;
+
+		private final Node argument;
+
+		private Equals( Node target, Node argument )
+		{
+			this.target = target;
+			this.argument = argument;
+		}
+
+		Object eval( Bindings bindings )
+		{
+			Object value = target.eval( bindings );
+			if( !( value instanceof String ) )
+			{
+				throw NOT_NATIVE;
+			}
+			return value.equals( argument.eval( bindings ) );
+		}
+	}
+
+	/** binary operators (on primitive operands) */
+	private enum Op
+	{
+		ADD( "+" )
+		{
+			Object apply( Object left, Object right )
+			{
+				if( left instanceof String || right instanceof String )
+				{
+					return toJsString( left ) + toJsString( right );
+				}
+				return number( toNumber( left ) + toNumber( right ) );
+			}
+		},
+		SUBTRACT( "-" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return number( toNumber( left ) - toNumber( right ) );
+			}
+		},
+		MULTIPLY( "*" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return number( toNumber( left ) * toNumber( right ) );
+			}
+		},
+		DIVIDE( "/" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return number( toNumber( left ) / toNumber( right ) );
+			}
+		},
+		REMAINDER( "%" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return number( toNumber( left ) % toNumber( right ) );
+			}
+		},
+		EQUALS( "==" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return looseEquals( left, right );
+			}
+		},
+		NOT_EQUALS( "!=" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return !looseEquals( left, right );
+			}
+		},
+		STRICT_EQUALS( "===" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return strictEquals( left, right );
+			}
+		},
+		STRICT_NOT_EQUALS( "!==" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return !strictEquals( left, right );
+			}
+		},
+		LESS( "<" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return compare( left, right, false ) < 0;
+			}
+		},
+		LESS_OR_EQUAL( "<=" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return compare( left, right, false ) <= 0;
+			}
+		},
+		GREATER( ">" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return compare( left, right, true ) > 0;
+			}
+		},
+		GREATER_OR_EQUAL( ">=" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return compare( left, right, true ) >= 0;
+			}
+		},
+		BIT_OR( "|" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return toInt32( left ) | toInt32( right );
+			}
+		},
+		BIT_XOR( "^" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return toInt32( left ) ^ toInt32( right );
+			}
+		},
+		BIT_AND( "&" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return toInt32( left ) & toInt32( right );
+			}
+		},
+		SHIFT_LEFT( "<<" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return toInt32( left ) << toInt32( right );
+			}
+		},
+		SHIFT_RIGHT( ">>" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return toInt32( left ) >> toInt32( right );
+			}
+		},
+		UNSIGNED_SHIFT_RIGHT( ">>>" )
+		{
+			Object apply( Object left, Object right )
+			{
+				return number(
+					( toInt32( left ) & 0xFFFFFFFFL ) >>> ( toInt32( right ) & 31 ) );
+			}
+		};
+
+		private final String symbol;
+
+		private Op( String symbol )
+		{
+			this.symbol = symbol;
+		}
+
+		abstract Object apply( Object left, Object right );
+	}
+
+	/**
+	 * @return the value if it is a JavaScript "primitive" (null, String,
+	 * Boolean, or a Number the engine converts to a double)
+	 * @throws NotNative for any other object
+	 */
+	private static Object primitive( Object value )
+	{
+		if( value == null
+			|| value instanceof String
+			|| value instanceof Boolean
+			|| value instanceof Integer
+			|| value instanceof Double
+			|| value instanceof Short
+			|| value instanceof Byte
+			|| value instanceof Float )
+		{
+			return value;
+		}
+		throw NOT_NATIVE;
+	}
+
+	/** JavaScript "truthiness" of a value */
+	private static boolean truthy( Object value )
+	{
+		value = primitive( value );
+		if( value == null )
+		{
+			return false;
+		}
+		if( value instanceof Boolean )
+		{
+			return (Boolean)value;
+		}
+		if( value instanceof String )
+		{
+			return ( (String)value ).length() > 0;
+		}
+		double d = ( (Number)value ).doubleValue();
+		return d != 0 && !Double.isNaN( d );
+	}
+
+	/**
+	 * normalizes a numeric result (like the engine); integral values
+	 * are returned as {@code Integer}s (so 5 + 4 is "9" not "9.0")
+	 */
+	private static Object number( double value )
+	{
+		int i = (int)value;
+		if( i == value )
+		{
+			return i;
+		}
+		return value;
+	}
+
+	/** JavaScript ToNumber for a primitive */
+	private static double toNumber( Object value )
+	{
+		if( value == null )
+		{
+			return 0;
+		}
+		if( value instanceof Number )
+		{
+			return ( (Number)value ).doubleValue();
+		}
+		if( value instanceof Boolean )
+		{
+			return ( (Boolean)value ) ? 1 : 0;
+		}
+		return toNumber( (String)value );
+	}
+
+	/** JavaScript ToNumber for a String */
+	private static double toNumber( String value )
+	{
+		String s = value.trim();
+		if( s.length() == 0 )
+		{
+			return 0;
+		}
+		if( s.length() > 2 && s.charAt( 0 ) == '0'
+			&& ( s.charAt( 1 ) == 'x' || s.charAt( 1 ) == 'X' ) )
+		{
+			try
+			{
+				return Long.parseLong( s.substring( 2 ), 16 );
+			}
+			catch( NumberFormatException nfe )
+			{
+				return Double.NaN;
+			}
+		}
+		if( s.equals( "Infinity" ) || s.equals( "+Infinity" ) )
+		{
+			return Double.POSITIVE_INFINITY;
+		}
+		if( s.equals( "-Infinity" ) )
+		{
+			return Double.NEGATIVE_INFINITY;
+		}
+		//Java parses some things JavaScript does not ("NaN", "1d", "0x1p3")
+		for( int i = 0; i < s.length(); i++ )
+		{
+			char c = s.charAt( i );
+			if( !( ( c >= '0' && c <= '9' )
+				|| c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-' ) )
+			{
+				return Double.NaN;
+			}
+		}
+		try
+		{
+			return Double.parseDouble( s );
+		}
+		catch( NumberFormatException nfe )
+		{
+			return Double.NaN;
+		}
+	}
+
+	/** JavaScript ToInt32 */
+	private static int toInt32( Object value )
+	{
+		double d = toNumber( value );
+		if( Double.isNaN( d ) || Double.isInfinite( d ) )
+		{
+			return 0;
+		}
+		d = ( d < 0 ) ? Math.ceil( d ) : Math.floor( d );
+		return (int)(long)( d % 4294967296.0 );
+	}
+
+	/** JavaScript ToString for a primitive */
+	private static String toJsString( Object value )
+	{
+		if( value == null )
+		{
+			return "null";
+		}
+		if( value instanceof String )
+		{
+			return (String)value;
+		}
+		if( value instanceof Boolean )
+		{
+			return value.toString();
+		}
+		if( value instanceof Integer
+			|| value instanceof Short
+			|| value instanceof Byte )
+		{
+			return value.toString();
+		}
+		double d = ( (Number)value ).doubleValue();
+		if( Double.isNaN( d ) )
+		{
+			return "NaN";
+		}
+		if( Double.isInfinite( d ) )
+		{
+			return d > 0 ? "Infinity" : "-Infinity";
+		}
+		if( d == Math.rint( d ) && Math.abs( d ) < 9007199254740992.0 )
+		{   //integral (and exactly representable)
+			return Long.toString( (long)d );
+		}
+		String s = Double.toString( d );
+		if( s.indexOf( 'E' ) >= 0 || Math.abs( d ) >= 9007199254740992.0 )
+		{   //JavaScript formats exponents differently (1e+21 vs 1.0E21)
+			throw NOT_NATIVE;
+		}
+		return s;
+	}
+
+	/** JavaScript == (on primitives) */
+	private static boolean looseEquals( Object left, Object right )
+	{
+		if( left == null || right == null )
+		{
+			return left == right;
+		}
+		if( left instanceof Boolean )
+		{
+			left = toNumber( left );
+		}
+		if( right instanceof Boolean )
+		{
+			right = toNumber( right );
+		}
+		if( left instanceof String && right instanceof String )
+		{
+			return left.equals( right );
+		}
+		return toNumber( left ) == toNumber( right );
+	}
+
+	/** JavaScript === (on primitives) */
+	private static boolean strictEquals( Object left, Object right )
+	{
+		if( left == null || right == null )
+		{
+			return left == right;
+		}
+		if( left instanceof Number && right instanceof Number )
+		{
+			return ( (Number)left ).doubleValue() == ( (Number)right ).doubleValue();
+		}
+		if( left instanceof String && right instanceof String
+			|| left instanceof Boolean && right instanceof Boolean )
+		{
+			return left.equals( right );
+		}
+		return false;
+	}
+
+	/**
+	 * JavaScript relational comparison (on primitives)
+	 *
+	 * @param nanLess if true NaN compares as "less" else as "greater"
+	 * (so the comparison is always false)
+	 */
+	private static int compare( Object left, Object right, boolean nanLess )
+	{
+		if( left instanceof String && right instanceof String )
+		{
+			return ( (String)left ).compareTo( (String)right );
+		}
+		double l = toNumber( left );
+		double r = toNumber( right );
+		if( Double.isNaN( l ) || Double.isNaN( r ) )
+		{
+			return nanLess ? -1 : 1;
+		}
+		return l < r ? -1 : ( l > r ? 1 : 0 );
+	}
+
+	/**
+	 * @param expression the expression text
+	 * @return the parsed Node or {@code UNSUPPORTED} if the expression is
+	 * not in the native subset
+	 */
+	private static Node parse( String expression )
+	{
+		try
+		{
+			return new Parser( expression ).parse();
+		}
+		catch( NotNative nn )
+		{
+			return UNSUPPORTED;
+		}
+	}
+
+	/**
+	 * recursive descent parser (using JavaScript operator precedence)
+	 * throws {@code NotNative} for anything outside of the subset
+	 */
+	private static final class Parser
+	{
+		private static final int NUMBER = 0;
+		private static final int STRING = 1;
+		private static final int NAME = 2;
+		private static final int OPERATOR = 3;
+		private static final int END = 4;
+
+		/** JavaScript keywords (and globals) that are not in the subset */
+		private static final Set<String> KEYWORDS = new HashSet<String>(
+			Arrays.asList( "typeof", "new", "this", "void", "in", "instanceof",
+				"delete", "function", "undefined", "NaN", "Infinity", "var",
+				"let", "const", "class", "super", "import", "export", "if",
+				"else", "return", "do", "while", "for", "switch", "case",
+				"default", "break", "continue", "throw", "try", "catch",
+				"finally", "with", "debugger", "enum", "yield" ) );
+
+		/** operators (longest first, so ">>>" is matched before ">>") */
+		private static final String[] OPERATORS = {
+			"===", "!==", ">>>",
+			"==", "!=", "<=", ">=", "&&", "||", "<<", ">>", "++", "--",
+			"(", ")", "?", ":", "|", "^", "&", "<", ">",
+			"+", "-", "*", "/", "%", "!", "~", ".", ",", "=" };
+
+		private final String text;
+
+		private final List<Object[]> tokens = new ArrayList<Object[]>();
+
+		/** the names of the vars in the expression */
+		private final Set<String> varNames = new LinkedHashSet<String>();
+
+		private int index = 0;
+
+		private Parser( String text )
+		{
+			this.text = text;
+			tokenize();
+		}
+
+		private Node parse()
+		{
+			Node node = conditional();
+			if( type() != END )
+			{
+				throw NOT_NATIVE;
+			}
+			return node;
+		}
+
+		private Node conditional()
+		{
+			Node condition = or();
+			if( accept( "?" ) )
+			{
+				Node ifTrue = conditional();
+				expect( ":" );
+				return new Conditional( condition, ifTrue, conditional() );
+			}
+			return condition;
+		}
+
+		private Node or()
+		{
+			Node node = and();
+			while( accept( "||" ) )
+			{
+				node = new Or( node, and() );
+			}
+			return node;
+		}
+
+		private Node and()
+		{
+			Node node = bitOr();
+			while( accept( "&&" ) )
+			{
+				node = new And( node, bitOr() );
+			}
+			return node;
+		}
+
+		private Node bitOr()
+		{
+			Node node = bitXor();
+			while( accept( "|" ) )
+			{
+				node = new Binary( Op.BIT_OR, node, bitXor() );
+			}
+			return node;
+		}
+
+		private Node bitXor()
+		{
+			Node node = bitAnd();
+			while( accept( "^" ) )
+			{
+				node = new Binary( Op.BIT_XOR, node, bitAnd() );
+			}
+			return node;
+		}
+
+		private Node bitAnd()
+		{
+			Node node = equality();
+			while( accept( "&" ) )
+			{
+				node = new Binary( Op.BIT_AND, node, equality() );
+			}
+			return node;
+		}
+
+		private Node equality()
+		{
+			Node node = relational();
+			Op op;
+			while( ( op = acceptOp(
+				Op.EQUALS, Op.NOT_EQUALS, Op.STRICT_EQUALS, Op.STRICT_NOT_EQUALS ) ) != null )
+			{
+				node = new Binary( op, node, relational() );
+			}
+			return node;
+		}
+
+		private Node relational()
+		{
+			Node node = shift();
+			Op op;
+			while( ( op = acceptOp(
+				Op.LESS, Op.LESS_OR_EQUAL, Op.GREATER, Op.GREATER_OR_EQUAL ) ) != null )
+			{
+				node = new Binary( op, node, shift() );
+			}
+			return node;
+		}
+
+		private Node shift()
+		{
+			Node node = additive();
+			Op op;
+			while( ( op = acceptOp(
+				Op.SHIFT_LEFT, Op.SHIFT_RIGHT, Op.UNSIGNED_SHIFT_RIGHT ) ) != null )
+			{
+				node = new Binary( op, node, additive() );
+			}
+			return node;
+		}
+
+		private Node additive()
+		{
+			Node node = multiplicative();
+			Op op;
+			while( ( op = acceptOp( Op.ADD, Op.SUBTRACT ) ) != null )
+			{
+				node = new Binary( op, node, multiplicative() );
+			}
+			return node;
+		}
+
+		private Node multiplicative()
+		{
+			Node node = unary();
+			Op op;
+			while( ( op = acceptOp(
+				Op.MULTIPLY, Op.DIVIDE, Op.REMAINDER ) ) != null )
+			{
+				node = new Binary( op, node, unary() );
+			}
+			return node;
+		}
+
+		private Node unary()
+		{
+			if( type() == OPERATOR )
+			{
+				String op = (String)tokens.get( index )[ 1 ];
+				if( op.equals( "!" ) || op.equals( "-" )
+					|| op.equals( "+" ) || op.equals( "~" ) )
+				{
+					index++;
+					return new Unary( op.charAt( 0 ), unary() );
+				}
+			}
+			return postfix();
+		}
+
+		private Node postfix()
+		{
+			Node node = primary();
+			while( accept( "." ) )
+			{
+				if( type() != NAME )
+				{
+					throw NOT_NATIVE;
+				}
+				String member = (String)tokens.get( index++ )[ 1 ];
+				if( member.equals( "length" ) )
+				{
+					node = new Length( node );
+				}
+				else if( member.equals( "equals" ) )
+				{
+					expect( "(" );
+					Node argument = conditional();
+					expect( ")" );
+					node = new Equals( node, argument );
+				}
+				else
+				{
+					throw NOT_NATIVE;
+				}
+			}
+			return node;
+		}
+
+		private Node primary()
+		{
+			Object[] token = tokens.get( index++ );
+			switch( (Integer)token[ 0 ] )
+			{
+				case NUMBER :
+				case STRING :
+					return new Literal( token[ 1 ] );
+				case NAME :
+					String name = (String)token[ 1 ];
+					if( name.equals( "true" ) )
+					{
+						return new Literal( Boolean.TRUE );
+					}
+					if( name.equals( "false" ) )
+					{
+						return new Literal( Boolean.FALSE );
+					}
+					if( name.equals( "null" ) )
+					{
+						return new Literal( null );
+					}
+					if( KEYWORDS.contains( name ) )
+					{
+						throw NOT_NATIVE;
+					}
+					varNames.add( name );
+					return new Var( name );
+				case OPERATOR :
+					if( token[ 1 ].equals( "(" ) )
+					{
+						Node node = conditional();
+						expect( ")" );
+						return node;
+					}
+					throw NOT_NATIVE;
+				default :
+					throw NOT_NATIVE;
+			}
+		}
+
+		private int type()
+		{
+			return (Integer)tokens.get( index )[ 0 ];
+		}
+
+		private boolean accept( String operator )
+		{
+			Object[] token = tokens.get( index );
+			if( (Integer)token[ 0 ] == OPERATOR && token[ 1 ].equals( operator ) )
+			{
+				index++;
+				return true;
+			}
+			return false;
+		}
+
+		private Op acceptOp( Op...ops )
+		{
+			for( int i = 0; i < ops.length; i++ )
+			{
+				if( accept( ops[ i ].symbol ) )
+				{
+					return ops[ i ];
+				}
+			}
+			return null;
+		}
+
+		private void expect( String operator )
+		{
+			if( !accept( operator ) )
+			{
+				throw NOT_NATIVE;
+			}
+		}
+
+		private void tokenize()
+		{
+			int pos = 0;
+			while( true )
+			{
+				while( pos < text.length() && Character.isWhitespace( text.charAt( pos ) ) )
+				{
+					pos++;
+				}
+				if( pos >= text.length() )
+				{
+					tokens.add( new Object[] { END, null } );
+					return;
+				}
+				char c = text.charAt( pos );
+				if( ( c >= '0' && c <= '9' )
+					|| ( c == '.' && pos + 1 < text.length()
+						&& Character.isDigit( text.charAt( pos + 1 ) ) ) )
+				{
+					pos = scanNumber( pos );
+				}
+				else if( c == '\'' || c == '"' )
+				{
+					pos = scanString( pos, c );
+				}
+				else if( Character.isJavaIdentifierStart( c ) )
+				{
+					int start = pos++;
+					while( pos < text.length()
+						&& Character.isJavaIdentifierPart( text.charAt( pos ) ) )
+					{
+						pos++;
+					}
+					tokens.add( new Object[] { NAME, text.substring( start, pos ) } );
+				}
+				else
+				{
+					pos = scanOperator( pos );
+				}
+			}
+		}
+
+		private int scanOperator( int pos )
+		{
+			for( int i = 0; i < OPERATORS.length; i++ )
+			{
+				if( text.startsWith( OPERATORS[ i ], pos ) )
+				{
+					tokens.add( new Object[] { OPERATOR, OPERATORS[ i ] } );
+					return pos + OPERATORS[ i ].length();
+				}
+			}
+			throw NOT_NATIVE;
+		}
+
+		private int scanNumber( int pos )
+		{
+			int start = pos;
+			if( text.startsWith( "0x", pos ) || text.startsWith( "0X", pos ) )
+			{
+				pos += 2;
+				while( pos < text.length()
+					&& Character.digit( text.charAt( pos ), 16 ) >= 0 )
+				{
+					pos++;
+				}
+				if( pos == start + 2 || pos - start > 10 )
+				{
+					throw NOT_NATIVE;
+				}
+				tokens.add( new Object[] { NUMBER,
+					number( Long.parseLong( text.substring( start + 2, pos ), 16 ) ) } );
+				return endOfNumber( pos );
+			}
+			while( pos < text.length() && Character.isDigit( text.charAt( pos ) ) )
+			{
+				pos++;
+			}
+			if( pos - start > 1 && text.charAt( start ) == '0' )
+			{   //(legacy octal)
+				throw NOT_NATIVE;
+			}
+			if( pos < text.length() && text.charAt( pos ) == '.' )
+			{
+				pos++;
+				while( pos < text.length() && Character.isDigit( text.charAt( pos ) ) )
+				{
+					pos++;
+				}
+			}
+			if( pos < text.length()
+				&& ( text.charAt( pos ) == 'e' || text.charAt( pos ) == 'E' ) )
+			{
+				pos++;
+				if( pos < text.length()
+					&& ( text.charAt( pos ) == '+' || text.charAt( pos ) == '-' ) )
+				{
+					pos++;
+				}
+				int exponentStart = pos;
+				while( pos < text.length() && Character.isDigit( text.charAt( pos ) ) )
+				{
+					pos++;
+				}
+				if( pos == exponentStart )
+				{
+					throw NOT_NATIVE;
+				}
+			}
+			tokens.add( new Object[] { NUMBER,
+				number( Double.parseDouble( text.substring( start, pos ) ) ) } );
+			return endOfNumber( pos );
+		}
+
+		/** a number cannot be immediately followed by an identifier (i.e. "3in") */
+		private int endOfNumber( int pos )
+		{
+			if( pos < text.length()
+				&& Character.isJavaIdentifierPart( text.charAt( pos ) ) )
+			{
+				throw NOT_NATIVE;
+			}
+			return pos;
+		}
+
+		private int scanString( int pos, char quote )
+		{
+			StringBuilder sb = new StringBuilder();
+			pos++;
+			while( pos < text.length() )
+			{
+				char c = text.charAt( pos++ );
+				if( c == quote )
+				{
+					tokens.add( new Object[] { STRING, sb.toString() } );
+					return pos;
+				}
+				if( c == '\n' || c == '\r' || ( c == '\\' && pos >= text.length() ) )
+				{
+					throw NOT_NATIVE;
+				}
+				if( c != '\\' )
+				{
+					sb.append( c );
+					continue;
+				}
+				char escaped = text.charAt( pos++ );
+				switch( escaped )
+				{
+					case 'n' : sb.append( '\n' ); break;
+					case 't' : sb.append( '\t' ); break;
+					case 'r' : sb.append( '\r' ); break;
+					case 'b' : sb.append( '\b' ); break;
+					case 'f' : sb.append( '\f' ); break;
+					case 'v' : sb.append( '\u000B' ); break;
+					case '\\' :
+					case '\'' :
+					case '"' : sb.append( escaped ); break;
+					case 'u' :
+						if( pos + 4 > text.length() )
+						{
+							throw NOT_NATIVE;
+						}
+						try
+						{
+							sb.append( (char)Integer.parseInt(
+								text.substring( pos, pos + 4 ), 16 ) );
+						}
+						catch( NumberFormatException nfe )
+						{
+							throw NOT_NATIVE;
+						}
+						pos += 4;
+						break;
+					default :
+						throw NOT_NATIVE;
+				}
+			}
+			throw NOT_NATIVE;
+		}
+	}
+}
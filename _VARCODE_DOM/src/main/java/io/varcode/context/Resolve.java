@@ -1,9 +1,17 @@
 package io.varcode.context;
 
+import java.lang.ref.WeakReference;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -112,25 +120,358 @@ public enum Resolve
 		}		
 	}
 	
+	/**
+	 * Adapts a Static Method call (via a {@code MethodHandle} rather than
+	 * reflection) to the {@code VarScript} interface; (like 
+	 * {@code StaticMethodScriptAdapter} the method is called with the 
+	 * context and input the script was resolved with)
+	 */
+	public static class MethodHandleScriptAdapter
+		implements VarScript
+	{
+		/** the type all method handles are adapted to */
+		public static final MethodType SCRIPT_TYPE = 
+			MethodType.methodType( Object.class, VarContext.class, String.class );
+		
+		/**
+		 * adapts the static method to a {@code MethodHandle} of 
+		 * {@code SCRIPT_TYPE}
+		 * 
+		 * @param method the static method accepting 
+		 * (VarContext, String), (VarContext), (String), (Object) or ()
+		 * @return the method handle
+		 * @throws IllegalAccessException if the method is not accessible
+		 */
+		public static MethodHandle adapt( Method method )
+			throws IllegalAccessException
+		{
+			if( !Modifier.isPublic( method.getDeclaringClass().getModifiers() ) )
+			{
+				method.setAccessible( true );
+			}
+			MethodHandle mh = MethodHandles.publicLookup().unreflect( method );
+			Class<?>[] params = method.getParameterTypes();
+			if( params.length == 0 )
+			{
+				mh = MethodHandles.dropArguments( 
+					mh, 0, VarContext.class, String.class );
+			}
+			else if( params.length == 1 )
+			{
+				if( params[ 0 ] == VarContext.class )
+				{
+					mh = MethodHandles.dropArguments( mh, 1, String.class );
+				}
+				else
+				{
+					mh = MethodHandles.dropArguments( mh, 0, VarContext.class );
+				}
+			}
+			//boxes primitive results, (void methods return null)
+			return mh.asType( SCRIPT_TYPE );
+		}
+		
+		private final Method method;
+		
+		/** the method adapted to {@code SCRIPT_TYPE} */
+		private final MethodHandle handle;
+		
+		private final VarContext context;
+		
+		private final String input;
+		
+		public MethodHandleScriptAdapter( 
+			Method method, MethodHandle handle, VarContext context, String input )
+		{
+			this.method = method;
+			this.handle = handle;
+			this.context = context;
+			this.input = input;
+		}
+		
+		@Override
+		public ScriptInputParser getInputParser() 
+		{
+			return VarScript.IGNORE_INPUT;
+		}
+
+		@Override
+		public Object eval( VarContext context, String input ) 
+		{
+			try 
+			{
+				return (Object)handle.invokeExact( this.context, this.input );
+			} 
+			catch( VarException e )
+			{
+				throw e;
+			}
+			catch( Throwable t ) 
+			{
+				throw new EvalException( t );
+			}
+		}
+		
+		public String toString()
+		{
+			return "Wrapper to " + method.toString();
+		}		
+	}
+	
+	/**
+	 * Resolves scripts:
+	 * <OL>
+	 *   <LI>bound in the context (as "$" + scriptName)
+	 *   <LI>by class name (a VarScript enum, INSTANCE or no-arg constructor)
+	 *   <LI>by static method name (i.e. "com.acme.Names.toConst")
+	 * </OL>
+	 * 
+	 * Resolving a script by class / method name (loading the class, 
+	 * finding the method) is done ONCE per script name and ClassLoader
+	 * (the thread context ClassLoader) and the result is cached (including
+	 * names that are not resolved); static methods are called via a 
+	 * {@code MethodHandle} (rather than reflection).
+	 * 
+	 * The cache does not keep a ClassLoader (or its classes) reachable: 
+	 * each resolution is held by (a {@code ClassValue} of) the class it 
+	 * resolved to, and only weakly by the ClassLoader's cache.
+	 * 
+	 * NOTE: names that are not resolved are cached for as long as the 
+	 * ClassLoader is reachable; call {@code clearCache()} after classes 
+	 * are introduced to a ClassLoader (i.e. compiled to an 
+	 * {@code InMemoryJavaClassLoader}) that were resolved before.
+	 */
 	public enum SmartScriptResolver
 		implements ScriptResolver
 	{
 		INSTANCE;
 		
-		private static Class<?> getClassForName( String className )
+		/** resolves the script for a context (a cached resolution) */
+		private interface Resolved
+		{
+			public VarScript resolve( VarContext context, String scriptInput );
+		}
+		
+		/** the script name could not be resolved to a class / method */
+		private static final Resolved NOT_RESOLVED = new Resolved()
+		{
+			public VarScript resolve( VarContext context, String scriptInput )
+			{
+				return null;
+			}
+			
+			public String toString()
+			{
+				return "NOT_RESOLVED";
+			}
+		};
+		
+		/** a singleton (enum or INSTANCE field) VarScript */
+		private static class ResolvedScript
+			implements Resolved
+		{
+			private final VarScript script;
+			
+			private ResolvedScript( VarScript script )
+			{
+				this.script = script;
+			}
+			
+			public VarScript resolve( VarContext context, String scriptInput )
+			{
+				return script;
+			}
+			
+			public String toString()
+			{
+				return script.toString();
+			}
+		}
+		
+		/** a static method (adapted to a {@code MethodHandle}) */
+		private static class ResolvedMethod
+			implements Resolved
+		{
+			private final Method method;
+			
+			private final MethodHandle handle;
+			
+			private ResolvedMethod( Method method )
+				throws IllegalAccessException
+			{
+				this.method = method;
+				this.handle = MethodHandleScriptAdapter.adapt( method );
+			}
+			
+			public VarScript resolve( VarContext context, String scriptInput )
+			{
+				return new MethodHandleScriptAdapter( 
+					method, handle, context, scriptInput );
+			}
+			
+			public String toString()
+			{
+				return method.toString();
+			}
+		}
+		
+		/** creates a new VarScript instance (no-arg constructor) */
+		private static class ResolvedConstructor
+			implements Resolved
+		{
+			private final Class<?> clazz;
+			
+			private ResolvedConstructor( Class<?> clazz )
+			{
+				this.clazz = clazz;
+			}
+			
+			public VarScript resolve( VarContext context, String scriptInput )
+			{
+				try
+				{
+					LOG.trace( "  trying to create (no-arg) instance of \"" + clazz  + "\" as VarScript" );
+					return (VarScript)clazz.newInstance();
+				}
+				catch( Exception e )
+				{
+					LOG.trace( "  failed creating a (no-arg) instance of \"" + clazz  + "\" as VarScript" );
+					return null;
+				}
+			}
+			
+			public String toString()
+			{
+				return "new " + clazz.getName() + "()";
+			}
+		}
+		
+		/** 
+		 * the cached resolutions by script name (for each ClassLoader) 
+		 * held weakly (the resolutions reference the loader's classes)
+		 */
+		private static final Map<ClassLoader, ConcurrentHashMap<String, WeakReference<Resolved>>> 
+			LOADER_TO_RESOLVED = Collections.synchronizedMap( 
+				new WeakHashMap<ClassLoader, ConcurrentHashMap<String, WeakReference<Resolved>>>() );
+		
+		/** 
+		 * holds the resolutions (strongly) for the class they resolved to
+		 * (so they are reachable as long as the class is)  
+		 */
+		private static final ClassValue<ConcurrentHashMap<String, Resolved>> 
+			CLASS_TO_RESOLVED = new ClassValue<ConcurrentHashMap<String, Resolved>>()
+			{
+				protected ConcurrentHashMap<String, Resolved> computeValue( Class<?> clazz )
+				{
+					return new ConcurrentHashMap<String, Resolved>();
+				}
+			};
+		
+		/** the script name was not resolved (never collected) */
+		private static final WeakReference<Resolved> NOT_RESOLVED_REF = 
+			new WeakReference<Resolved>( NOT_RESOLVED );
+			
+		private static ConcurrentHashMap<String, WeakReference<Resolved>> resolvedFor( 
+			ClassLoader classLoader )
+		{
+			synchronized( LOADER_TO_RESOLVED )
+			{
+				ConcurrentHashMap<String, WeakReference<Resolved>> resolved = 
+					LOADER_TO_RESOLVED.get( classLoader );
+				if( resolved == null )
+				{
+					resolved = new ConcurrentHashMap<String, WeakReference<Resolved>>();
+					LOADER_TO_RESOLVED.put( classLoader, resolved );
+				}
+				return resolved;
+			}
+		}
+		
+		/** 
+		 * clears all cached resolutions (i.e. after classes are reloaded or 
+		 * introduced to a ClassLoader)
+		 */
+		public static void clearCache()
+		{
+			LOADER_TO_RESOLVED.clear();
+		}
+		
+		/** 
+		 * @return the number of cached resolutions (including script names 
+		 * that were not resolved)
+		 */
+		public static int getCachedCount()
+		{
+			synchronized( LOADER_TO_RESOLVED )
+			{
+				int count = 0;
+				for( ConcurrentHashMap<String, WeakReference<Resolved>> resolved : 
+					LOADER_TO_RESOLVED.values() )
+				{
+					for( WeakReference<Resolved> ref : resolved.values() )
+					{
+						if( ref.get() != null )
+						{
+							count++;
+						}
+					}
+				}
+				return count;
+			}
+		}
+		
+		/** 
+		 * caches the resolution (held by the class it was resolved to)
+		 * 
+		 * @return the reference to cache for the ClassLoader
+		 */
+		private static WeakReference<Resolved> hold( 
+			Class<?> clazz, String scriptName, Resolved resolved )
+		{
+			Resolved existing = 
+				CLASS_TO_RESOLVED.get( clazz ).putIfAbsent( scriptName, resolved );
+			if( existing != null )
+			{
+				return new WeakReference<Resolved>( existing );
+			}
+			return new WeakReference<Resolved>( resolved );
+		}
+		
+		private static ClassLoader getClassLoader()
+		{
+			ClassLoader classLoader = 
+				Thread.currentThread().getContextClassLoader();
+			if( classLoader == null )
+			{
+				return Resolve.class.getClassLoader();
+			}
+			return classLoader;
+		}
+		
+		private static Class<?> getClassForName( 
+			ClassLoader classLoader, String className )
 		{
 			try 
 			{
-				Class<?>c = Class.forName( className ); 
+				Class<?>c = Class.forName( className, true, classLoader ); 
 				LOG.debug( "found class : \""+ className +"\"");
 				
 				return c;
 			} 
-			catch ( ClassNotFoundException e ) 
+			catch( ClassNotFoundException e ) 
 			{
+				if( classLoader != Resolve.class.getClassLoader() )
+				{
+					return getClassForName( Resolve.class.getClassLoader(), className );
+				}
 				LOG.debug( "class \"" + className + "\" not found " );
 				return null;
 			}
+			catch( LinkageError e )
+			{
+				LOG.debug( "class \"" + className + "\" could not be loaded ", e );
+				return null;
+			}
 		}
 		
 		private static Method tryAndGetMethod( 
@@ -138,7 +479,12 @@ public enum Resolve
 		{
 			try 
 			{
-				return clazz.getMethod( name, params );
+				Method m = clazz.getMethod( name, params );
+				if( Modifier.isStatic( m.getModifiers() ) )
+				{
+					return m;
+				}
+				return null;
 			} 
 			catch( NoSuchMethodException e ) 
 			{
@@ -150,50 +496,39 @@ public enum Resolve
 			}
 		}
 		
-		private static VarScript findStaticMethod( 
-			VarContext context,  
-			Class<?> clazz, 
-			String methodName,
-			String scriptInput )
+		private static Resolved findStaticMethod( 
+			Class<?> clazz, String methodName )
 		{
-			try
+			Method m = tryAndGetMethod( 
+				clazz, methodName, VarContext.class, String.class );
+			if( m == null )
+			{
+				m = tryAndGetMethod( clazz, methodName, VarContext.class );
+			}
+			if( m == null )
+			{
+				m = tryAndGetMethod( clazz, methodName, String.class );
+			}
+			if( m == null )
+			{
+				m = tryAndGetMethod( clazz, methodName, Object.class );
+			}
+			if( m == null )
 			{
-				Method m = tryAndGetMethod( 
-					clazz, methodName, VarContext.class, String.class );
-				if( m != null )
-				{
-					return new StaticMethodScriptAdapter( m, context, scriptInput );
-				}
-				m = tryAndGetMethod( 
-					clazz, methodName, VarContext.class );
-				if( m != null )
-				{
-					return new StaticMethodScriptAdapter( m, context );
-				}
-				m = tryAndGetMethod( 
-						clazz, methodName, String.class );
-				if( m != null )
-				{
-					return new StaticMethodScriptAdapter( m, scriptInput );
-				}
-				
-				m = tryAndGetMethod( 
-						clazz, methodName, Object.class );
-				if( m != null )
-				{
-					return new StaticMethodScriptAdapter( m, scriptInput );
-				}
-				
 				m = tryAndGetMethod( clazz, methodName );
-				if( m != null )
-				{
-					return new StaticMethodScriptAdapter( m );
-				}
-				return null;				
+			}
+			if( m == null )
+			{
+				return NOT_RESOLVED;
+			}
+			try
+			{
+				return new ResolvedMethod( m );
 			}
 			catch( Exception e )
 			{
-				return null;
+				LOG.debug( "unable to access method \"" + m + "\"", e );
+				return NOT_RESOLVED;
 			}
 		}
 		
@@ -214,6 +549,85 @@ public enum Resolve
 				return null;
 			}	
 		}
+		
+		/**
+		 * resolves the script name to a class / static method (the result
+		 * is cached, so this is called once per script name and ClassLoader)
+		 * 
+		 * @return a reference to the resolution (held by the class)
+		 */
+		private static WeakReference<Resolved> resolveByName( 
+			ClassLoader classLoader, String scriptName )
+		{
+			int indexOfLastDot = scriptName.lastIndexOf( '.' );
+			if( indexOfLastDot <= 0 )
+			{
+				return NOT_RESOLVED_REF;
+			}
+			String theMethodName = scriptName.substring( 
+				indexOfLastDot + 1, 
+				scriptName.length() );
+			
+			String theClassName = scriptName.substring( 0, indexOfLastDot );
+			
+			if( LOG.isTraceEnabled() ) { 
+				LOG.trace( "   trying to resolve class \"" + theClassName + "\"" );
+			}
+			Class<?> clazz = getClassForName( classLoader, theClassName );
+			if( clazz == null )
+			{
+				return NOT_RESOLVED_REF;
+			}
+			if( LOG.isTraceEnabled() ) {
+				LOG.trace( "  resolved class \"" + clazz  + "\"" );
+			}
+			Resolved resolved = resolveInClass( clazz, theMethodName );
+			if( resolved == NOT_RESOLVED )
+			{
+				return NOT_RESOLVED_REF;
+			}
+			return hold( clazz, scriptName, resolved );
+		}
+		
+		/** 
+		 * resolves the class as a VarScript, or the static method on the 
+		 * class
+		 */
+		private static Resolved resolveInClass( 
+			Class<?> clazz, String theMethodName )
+		{
+			//does the class implement VarScript?
+			if( VarScript.class.isAssignableFrom( clazz  ) )
+			{
+				if( LOG.isTraceEnabled() ) {
+					LOG.trace( "  class \"" + clazz  + "\" is a VarScript" );
+				}
+				if( clazz.isEnum() )
+				{
+					if( LOG.isTraceEnabled() ) {
+						LOG.trace( "  class \"" + clazz  + "\" is a VarScript & an enum " );
+					}
+					return new ResolvedScript( 
+						(VarScript)clazz.getEnumConstants()[ 0 ] );
+				}
+				VarScript singleton = getSingletonField( clazz );
+				if( singleton != null )
+				{
+					if( LOG.isTraceEnabled() ) {
+						LOG.trace( "  returning INSTANCE field on \"" + clazz  + "\" as VarScript" );
+					}
+					return new ResolvedScript( singleton );
+				}
+				return new ResolvedConstructor( clazz );
+			}
+			//found a class, now find the method, (just chooses the first one by this name)
+			if( LOG.isTraceEnabled() ) {
+				LOG.trace( "  resolving static Method \"" + theMethodName 
+					+ "\" on class \"" + clazz + "\"" );
+			}
+			return findStaticMethod( clazz, theMethodName );
+		}
+		
 		@Override
 		public VarScript resolveScript( 
 			VarContext context, String scriptName, String scriptInput ) 
@@ -234,67 +648,23 @@ public enum Resolve
 			//I COULD have ScriptBindings where I "manually" REgister/
 			// assign scripts (i.e. ExpressionScript)s to names
 			
-			// IF the name contains a '.' (run (2) and (3) 
-			int indexOfLastDot = scriptName.lastIndexOf( '.' );
-			
-			if( indexOfLastDot > 0 )
+			// IF the name contains a '.' (run (2) and (3) ONCE and cache)
+			if( scriptName.lastIndexOf( '.' ) <= 0 )
 			{
-				String theMethodName = scriptName.substring( 
-					indexOfLastDot + 1, 
-					scriptName.length() );
-				
-				String theClassName = scriptName.substring( 0, indexOfLastDot );
-				
-				if( LOG.isTraceEnabled() ) { 
-					LOG.trace( "   trying to resolve class \"" + theClassName + "\"" );
-				}
-				Class<?> clazz = getClassForName( theClassName );
-				
-				if( clazz != null )
-				{	
-					if( LOG.isTraceEnabled() ) {
-						LOG.trace( "  resolved class \"" + clazz  + "\"" );
-					}
-					//does the class implement VarScript?
-					if( VarScript.class.isAssignableFrom( clazz  ) )
-					{
-						if( LOG.isTraceEnabled() ) {
-							LOG.trace( "  class \"" + clazz  + "\" is a VarScript" );
-						}
-						if( clazz.isEnum() )
-						{
-							if( LOG.isTraceEnabled() ) {
-								LOG.trace( "  class \"" + clazz  + "\" is a VarScript & an enum " );
-							}
-							return (VarScript)clazz.getEnumConstants()[ 0 ];
-						}
-						Object singleton = getSingletonField( clazz );
-						if( singleton != null && LOG.isTraceEnabled() ) 
-						{
-							LOG.trace( "  returning INSTANCE field on \"" + clazz  + "\" as VarScript" );
-						}
-						try
-						{   LOG.trace( "  trying to create (no-arg) instance of \"" + clazz  + "\" as VarScript" );
-							return (VarScript)clazz.newInstance();
-						}
-						catch( Exception e )
-						{
-							LOG.trace( "  failed creating a (no-arg) instance of \"" + clazz  + "\" as VarScript" );
-							return null;
-						}
-					}
-					else
-					{   //found a class, now find the method, (just chooses the first one by this name)
-						if( LOG.isTraceEnabled() ) {
-							LOG.trace( "  resolving static Method \"" + theMethodName 
-								+ "\" on class \"" + clazz + "\"" );
-						}
-						return findStaticMethod( 
-							context, clazz, theMethodName, scriptInput );
-					}					
-				}				
+				return null;
+			}
+			ClassLoader classLoader = getClassLoader();
+			ConcurrentHashMap<String, WeakReference<Resolved>> resolvedByName = 
+				resolvedFor( classLoader );
+			WeakReference<Resolved> ref = resolvedByName.get( scriptName );
+			Resolved resolved = ( ref == null ) ? null : ref.get();
+			if( resolved == null )
+			{   //(not resolved, or the class it resolved to was unloaded)
+				ref = resolveByName( classLoader, scriptName );
+				resolved = ref.get();
+				resolvedByName.put( scriptName, ref );
 			}
-			return null;			
+			return resolved.resolve( context, scriptInput );
 		}		
 	}
 	
@@ -352,5 +722,37 @@ public enum Resolve
 				
 			return null;
 		}
-	}	
+	}
+	
+	/**
+	 * Resolves the Var by looking it up directly in the {@code ScopeBindings} 
+	 * of the {@code VarContext}, only falling back to the 
+	 * {@code SmartVarResolver} (which evaluates the var name as an expression 
+	 * within the {@code ExpressionEvaluator}) when the var is NOT bound 
+	 * (i.e. vars that were defined within script expressions:
+	 * "{((var a = 100;))}" or var names that are expressions "{+a.length+}")
+	 * 
+	 * Most vars are bound in the {@code ScopeBindings}, so this avoids 
+	 * running ( 2 ) expressions through the {@code ExpressionEvaluator} 
+	 * to resolve each var.
+	 */
+	public enum DirectVarResolver
+		implements VarResolver
+	{
+		INSTANCE;
+		
+		public Object resolveVar( VarContext context, String varName ) 
+		{
+			if( varName == null || varName.trim().length() == 0 )
+			{
+				return null;
+			}
+			Object value = context.getScopeBindings().get( varName );
+			if( value != null )
+			{
+				return value;
+			}
+			return SmartVarResolver.INSTANCE.resolveVar( context, varName );
+		}
+	}
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -29,6 +30,24 @@ import io.varcode.tailor.Directive;
  * ENGINE -> {engine=javascript}
  * INSTANCE -> {fieldName=aName}
  * 
+ * Bindings at a scope may be frozen {@code VarBindings} shared by many
+ * {@code ScopeBindings} (i.e. the CORE and CORE_LIBRARY bindings created 
+ * ONCE by {@code Bootstrap}); shared bindings are copied on write (a 
+ * private copy replaces the shared bindings the first time they are 
+ * modified or returned by {@code getBindings} / {@code getOrCreateBindings})
+ * 
+ * Lookups ({@code get}, {@code getScopeOf}, {@code containsKey}) by name 
+ * are memoized in an index (including names that are not bound) so 
+ * each scope is only searched the first time a name is looked up (or 
+ * after the name is bound/ removed in any scope); the {@code VarBindings} 
+ * created by the {@code ScopeBindings} notify the index when a name is 
+ * modified, other (mutable) bindings (i.e. shared by many contexts with
+ * {@code setBindings}) are NOT observed, their modification counts are
+ * checked on each lookup (and all lookups are invalidated if modified)
+ * 
+ * NOTE: the {@code TreeMap} passed to the constructor is owned by the 
+ * {@code ScopeBindings} (it must not be modified directly)
+ * 
  * @see VarScope
  */
 public class ScopeBindings
@@ -40,6 +59,9 @@ public class ScopeBindings
 	/*-}*/
 	
     private final TreeMap<Integer, VarBindings> scopeToBindings; 
+    
+    /** memoized lookups by name (over all scopes) */
+    private final LookupIndex index;
 
     /** All of the Supported scopes for the Bindings */
     public static final List<Integer>ALL_SCOPES 
@@ -53,6 +75,225 @@ public class ScopeBindings
     public ScopeBindings( TreeMap<Integer, VarBindings> scopeToBindings )
     {
         this.scopeToBindings = scopeToBindings;
+        this.index = new LookupIndex( scopeToBindings );
+    }
+    
+    /**
+     * The result of looking up a name over all scopes 
+     * (the value and scope of the first / narrowest scope it is bound)
+     * 
+     * (updated in place when the name is modified, to avoid allocating
+     * as LOOP vars are rebound)
+     */
+    private static final class Lookup
+    {
+        private Object value;
+        
+        /** the scope of the value (or -1 if not found) */
+        private int scope;
+        
+        /** is the name a key in any scope (even if bound to null) */
+        private boolean containsKey;
+        
+        /** false if the name was modified (since it was looked up) */
+        private boolean valid;
+    }
+    
+    /**
+     * Memoizes the {@code Lookup} of each name over all scopes; the 
+     * lookup for a name is invalidated when the name is modified in the
+     * {@code VarBindings} owned by the index, all lookups are removed when
+     * bindings are added / replaced at a scope, or when (mutable) bindings
+     * not owned by the index are modified
+     */
+    private static final class LookupIndex
+        implements VarBindings.Observer
+    {
+        /** the max number of names in the index (before it is cleared) */
+        private static final int MAX_LOOKUPS = 4096;
+        
+        private final TreeMap<Integer, VarBindings> scopeToBindings;
+        
+        private final HashMap<String, Lookup> nameToLookup = 
+            new HashMap<String, Lookup>();
+        
+        /** scopes (in order of precedence) (null if bindings changed) */
+        private int[] scopes;
+        
+        /** bindings for each of the scopes */
+        private VarBindings[] layers;
+        
+        /** the mutable layers NOT owned (observed) by the index */
+        private VarBindings[] watched;
+        
+        /** the sum of the watched layers modification counts */
+        private long watchedModCount;
+        
+        private LookupIndex( TreeMap<Integer, VarBindings> scopeToBindings )
+        {
+            this.scopeToBindings = scopeToBindings;
+        }
+        
+        private Lookup lookup( String name )
+        {
+            initLayers();
+            if( watched.length > 0 )
+            {
+                long modCount = watchedModCount();
+                if( modCount != watchedModCount )
+                {
+                    nameToLookup.clear();
+                    watchedModCount = modCount;
+                }
+            }
+            Lookup lookup = nameToLookup.get( name );
+            if( lookup == null )
+            {
+                lookup = new Lookup();
+                search( name, lookup );
+                if( nameToLookup.size() >= MAX_LOOKUPS )
+                {
+                    nameToLookup.clear();
+                }
+                nameToLookup.put( name, lookup );
+            }
+            else if( !lookup.valid )
+            {
+                search( name, lookup );
+            }
+            return lookup;
+        }
+        
+        /** 
+         * @return the value of the name in the narrowest scope (or null),
+         * without memoizing the lookup 
+         */
+        private Object peek( String name )
+        {
+            //(walk the keys, the layers may be rebuilt when bindings are added)
+            Integer scope = scopeToBindings.isEmpty() ? null : scopeToBindings.firstKey();
+            while( scope != null )
+            {
+                Object value = scopeToBindings.get( scope ).get( name );
+                if( value != null )
+                {
+                    return value;
+                }
+                scope = scopeToBindings.higherKey( scope );
+            }
+            return null;
+        }
+        
+        private void initLayers()
+        {
+            if( layers == null )
+            {
+                layers = new VarBindings[ scopeToBindings.size() ];
+                scopes = new int[ layers.length ];
+                Iterator<Map.Entry<Integer, VarBindings>> it = 
+                    scopeToBindings.entrySet().iterator();
+                for( int i = 0; i < layers.length; i++ )
+                {
+                    Map.Entry<Integer, VarBindings> entry = it.next();
+                    scopes[ i ] = entry.getKey();
+                    layers[ i ] = entry.getValue();
+                }
+                List<VarBindings> notOwned = new ArrayList<VarBindings>();
+                for( int i = 0; i < layers.length; i++ )
+                {
+                    if( !layers[ i ].isFrozen() && !layers[ i ].isOwner( this ) )
+                    {
+                        notOwned.add( layers[ i ] );
+                    }
+                }
+                watched = notOwned.toArray( new VarBindings[ 0 ] );
+                watchedModCount = watchedModCount();
+            }
+        }
+        
+        private long watchedModCount()
+        {
+            long modCount = 0L;
+            for( int i = 0; i < watched.length; i++ )
+            {
+                modCount += watched[ i ].getModCount();
+            }
+            return modCount;
+        }
+        
+        /** search each scope (starting with the narrowest) for the name */
+        private void search( String name, Lookup lookup )
+        {
+            lookup.valid = true;
+            lookup.containsKey = false;
+            for( int i = 0; i < layers.length; i++ )
+            {
+                Object value = layers[ i ].get( name );
+                if( value != null )
+                {
+                    lookup.value = value;
+                    lookup.scope = scopes[ i ];
+                    lookup.containsKey = true;
+                    return;
+                }
+                if( !lookup.containsKey && layers[ i ].containsKey( name ) )
+                {
+                    lookup.containsKey = true;
+                }
+            }
+            lookup.value = null;
+            lookup.scope = -1;
+        }
+        
+        public void onChange( VarBindings bindings, String name )
+        {
+            Lookup lookup = nameToLookup.get( name );
+            if( lookup != null )
+            {
+                lookup.valid = false;
+            }
+        }
+        
+        public void onClear( VarBindings bindings )
+        {
+            nameToLookup.clear();
+        }
+        
+        /** bindings were added / replaced at a scope */
+        private void onBindingsChanged()
+        {
+            nameToLookup.clear();
+            layers = null;
+            scopes = null;
+            watched = null;
+        }
+    }
+    
+    /**
+     * sets the bindings at the scope (updating the index)
+     * 
+     * @return the bindings replaced (or null)
+     */
+    private VarBindings setLayer( int scope, VarBindings bindings )
+    {
+        VarBindings last = scopeToBindings.put( scope, bindings );
+        if( last != null && last != bindings )
+        {
+            last.disown( index );
+        }
+        index.onBindingsChanged();
+        return last;
+    }
+    
+    /** 
+     * @param bindings bindings created by (and only notifying) this 
+     * {@code ScopeBindings}
+     * @return the bindings 
+     */
+    private VarBindings own( VarBindings bindings )
+    {
+        bindings.setOwner( index );
+        return bindings;
     }
 
     public void setBindings( VarBindings bindings, int scope )
@@ -62,7 +303,7 @@ public class ScopeBindings
             throw new VarException(
                 "Invalid Scope \"" + scope + "\" for bindings" );
         }
-        VarBindings last = scopeToBindings.put( scope, bindings ); 
+        VarBindings last = setLayer( scope, bindings ); 
     	/*{-?(removeLog==true):*/
         if( last != null && LOG.isInfoEnabled() )
         {
@@ -76,15 +317,51 @@ public class ScopeBindings
         return getOrCreateBindings( scope.getValue() );
     }
     
+    /**
+     * Shares (frozen) bindings at a scope (if bindings already exist at the 
+     * scope, the shared bindings are added to them) 
+     * 
+     * @param sharedBindings frozen bindings (copied on write)
+     * @param scope the scope
+     */
+    void shareBindings( VarBindings sharedBindings, int scope )
+    {
+        VarBindings vb = scopeToBindings.get( scope );
+        if( vb == null )
+        {
+            setLayer( scope, sharedBindings );
+            return;
+        }
+        writableBindings( scope ).putAll( sharedBindings );
+    }
+    
+    /**
+     * gets the bindings at the scope (replacing shared / frozen bindings 
+     * with a private copy so they can be modified)
+     * 
+     * @param scope the scope
+     * @return the (mutable) bindings or null if no bindings exist at scope
+     */
+    private VarBindings writableBindings( int scope )
+    {
+        VarBindings vb = scopeToBindings.get( scope );
+        if( vb != null && vb.isFrozen() )
+        {
+            vb = own( vb.copy() );
+            setLayer( scope, vb );
+        }
+        return vb;
+    }
+    
     public VarBindings getOrCreateBindings( int scope )    
     {
-        VarBindings vb = scopeToBindings.get( scope ) ;
+        VarBindings vb = writableBindings( scope ) ;
         if( vb != null )
         {
             return vb;
         }
         
-        vb = new VarBindings();
+        vb = own( new VarBindings() );
         setBindings( vb,  scope );
         
         return vb;
@@ -92,12 +369,12 @@ public class ScopeBindings
     
     public VarBindings getBindings( VarScope varScope )
     {
-        return scopeToBindings.get( varScope.getValue() );
+        return writableBindings( varScope.getValue() );
     }
     
     public VarBindings getBindings( int scope )
     {
-        return scopeToBindings.get( scope );
+        return writableBindings( scope );
     }
 
     public void put( String name, Object value, VarScope scope )
@@ -107,7 +384,7 @@ public class ScopeBindings
     
     public void put( String name, Object value, int scope )
     {
-        VarBindings bindings = getBindings( scope );
+        VarBindings bindings = writableBindings( scope );
         if( bindings == null )
         {   //bindings for this scope doesn't exist yet, create one and add 
             // it to the internal scopeBindings
@@ -117,20 +394,20 @@ public class ScopeBindings
             	LOG.debug( "Created Bindings at scope " + scope );
             }
         	/*-}*/
-            bindings = new VarBindings();
-            scopeToBindings.put( scope, bindings );
+            bindings = own( new VarBindings() );
+            setLayer( scope, bindings );
         }
         bindings.put( name, value );        
     }
 
     public Object remove( String name, int scope )
     {
-        Bindings bindings = getBindings( scope );
-        if( bindings == null )
+        Bindings bindings = scopeToBindings.get( scope );
+        if( bindings == null || !bindings.containsKey( name ) )
         {   
             return null;
         }
-        return bindings.remove( name );
+        return writableBindings( scope ).remove( name );
     }   
 
     /**
@@ -142,21 +419,7 @@ public class ScopeBindings
      */
     public int getScopeOf( String varName )
     {
-    	//only seach non-null scopeBindings
-        Iterator<Integer> scopeIterator 
-            = scopeToBindings.keySet().iterator();
-        
-        while ( scopeIterator.hasNext() )
-        {
-            int scope = scopeIterator.next();
-            Bindings bindingsForThisScope = scopeToBindings.get( scope );
-            Object value = bindingsForThisScope.get( varName );
-            if( value != null )
-            {
-                return scope;
-            }
-        }
-        return -1;        
+        return index.lookup( varName ).scope;
     }
 
     @Override
@@ -210,7 +473,14 @@ public class ScopeBindings
         {
         	
             int scope = scopeIterator.next();
-            scopeToBindings.get( scope ).clear();
+            if( scopeToBindings.get( scope ).isFrozen() )
+            {   //dont clear (or copy) shared bindings
+                setLayer( scope, own( new VarBindings() ) );
+            }
+            else
+            {
+                scopeToBindings.get( scope ).clear();
+            }
         	/*{-?(removeLog==true):*/
             if( getBindings( scope ) != null )
             {
@@ -279,6 +549,10 @@ public class ScopeBindings
     @Override
     public boolean containsKey( Object key )
     {
+        if( key instanceof String )
+        {
+            return index.lookup( (String)key ).containsKey;
+        }
         Iterator<Integer> scopeIterator 
             = scopeToBindings.keySet().iterator();
         while ( scopeIterator.hasNext() )
@@ -299,7 +573,7 @@ public class ScopeBindings
     
     public Object get( String name, int scope )
     {
-        Bindings bindings = getBindings( scope );
+        Bindings bindings = scopeToBindings.get( scope );
         if( bindings == null )
         {   
             return null;
@@ -321,22 +595,20 @@ public class ScopeBindings
      */
     public Object get( String name )
     {
-        Iterator<Integer> scopeIterator 
-            = scopeToBindings.keySet().iterator();
-        while ( scopeIterator.hasNext() )
-        {
-            int scope = scopeIterator.next();
-            Bindings bindingsForThisScope = scopeToBindings.get( scope );
-            if( bindingsForThisScope != null)
-            {    
-                Object value = bindingsForThisScope.get( name );
-                if( value != null )
-                {
-                    return value;
-                }
-            }
-        }
-        return null;        
+        return index.lookup( name ).value;
+    }
+    
+    /**
+     * gets the value of the name (like {@code get( name )}) without 
+     * memoizing the lookup (for names checked once per tailor, that are 
+     * rarely bound, i.e. {@code VarContext.TAILOR_LISTENER_NAME})
+     * 
+     * @param name the name
+     * @return the value in the narrowest scope (or null)
+     */
+    public Object peek( String name )
+    {
+        return index.peek( name );
     }
     
     @Override
@@ -348,7 +620,11 @@ public class ScopeBindings
         while ( scopeIterator.hasNext() )
         {
             int scope = scopeIterator.next();
-            Object removed = scopeToBindings.get( scope ).remove( key );
+            if( !scopeToBindings.get( scope ).containsKey( key ) )
+            {
+                continue;
+            }
+            Object removed = writableBindings( scope ).remove( key );
             if( removed != null )
             {
                 lastRemoved = removed;
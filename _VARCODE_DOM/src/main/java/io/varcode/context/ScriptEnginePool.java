@@ -0,0 +1,180 @@
+package io.varcode.context;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.script.Bindings;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+/**
+ * Fixed size pool of {@code ScriptEngine}s (by name), so that threads
+ * evaluating expressions do not all contend on one single global
+ * {@code ScriptEngine}.
+ *
+ * Each {@code Bindings} (i.e. the {@code ScopeBindings} of a
+ * {@code VarContext}) is always evaluated by the same engine in the pool
+ * (Nashorn stores the JavaScript "global" for the Bindings IN the
+ * Bindings, and a global can only be used by the engine that created it,
+ * so vars defined in expressions "{((var a = 100;))}" are only visible
+ * if the same engine evaluates later expressions with the same Bindings).
+ * Different {@code Bindings} are spread across the engines in the pool.
+ *
+ * Concurrency contract: a {@code Bindings} (and the {@code VarContext} that
+ * owns it) must only be used by one thread at a time. An engine is used
+ * by one thread at a time (callers hold the engine's {@link #getLock(int)}
+ * while compiling / evaluating), UNLESS the engine's factory reports 
+ * {@code THREADING} as {@code "MULTITHREADED"} (Nashorn reports null, 
+ * it is NOT thread-safe); so threads evaluating {@code Bindings} mapped to
+ * DIFFERENT engines run concurrently, and threads evaluating 
+ * {@code Bindings} mapped to the same engine take turns.
+ *
+ * Engines are created lazily (it can take seconds to bootstrap Nashorn)
+ * and selecting an engine is lock-free.
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class ScriptEnginePool
+{
+	/** the shared pool of JavaScript engines */
+	public static final ScriptEnginePool JAVASCRIPT =
+		new ScriptEnginePool(
+			"JavaScript", Runtime.getRuntime().availableProcessors() );
+
+	private final String engineName;
+
+	private final AtomicReferenceArray<ScriptEngine> engines;
+
+	/** the lock for each engine (held while using the engine) */
+	private final Object[] locks;
+
+	/**
+	 * lazily created (creating the manager looks up all engine factories
+	 * through the ServiceLoader)
+	 */
+	private volatile ScriptEngineManager scriptManager;
+
+	public ScriptEnginePool( String engineName, int poolSize )
+	{
+		if( poolSize < 1 )
+		{
+			throw new EvalException(
+				"poolSize (" + poolSize + ") must be > 0" );
+		}
+		this.engineName = engineName;
+		this.engines = new AtomicReferenceArray<ScriptEngine>( poolSize );
+		this.locks = new Object[ poolSize ];
+		for( int i = 0; i < poolSize; i++ )
+		{
+			this.locks[ i ] = new Object();
+		}
+	}
+
+	private ScriptEngineManager getScriptManager()
+	{
+		ScriptEngineManager manager = scriptManager;
+		if( manager == null )
+		{
+			synchronized( this )
+			{
+				manager = scriptManager;
+				if( manager == null )
+				{
+					manager = new ScriptEngineManager();
+					scriptManager = manager;
+				}
+			}
+		}
+		return manager;
+	}
+
+	/**
+	 * @param bindings the bindings to be evaluated
+	 * @return the index of the engine (in the pool) that ALWAYS evaluates
+	 * the {@code bindings}
+	 */
+	public int indexFor( Bindings bindings )
+	{
+		return ( System.identityHashCode( bindings ) & 0x7fffffff )
+			% engines.length();
+	}
+
+	/**
+	 * @param bindings the bindings to be evaluated
+	 * @return the engine that evaluates the bindings
+	 * @throws EvalException if no engine by the name exists
+	 */
+	public ScriptEngine engineFor( Bindings bindings )
+		throws EvalException
+	{
+		return getEngine( indexFor( bindings ) );
+	}
+
+	/**
+	 * gets (or lazily creates) the engine at {@code index} in the pool
+	 *
+	 * @param index the index of the engine in the pool
+	 * @return the engine
+	 * @throws EvalException if no engine by the name exists
+	 */
+	public ScriptEngine getEngine( int index )
+		throws EvalException
+	{
+		ScriptEngine engine = engines.get( index );
+		if( engine != null )
+		{
+			return engine;
+		}
+		engine = getScriptManager().getEngineByName( engineName );
+		if( engine == null )
+		{
+			throw new EvalException(
+				"No \"" + engineName + "\" ScriptEngine available" );
+		}
+		if( engines.compareAndSet( index, null, engine ) )
+		{
+			return engine;
+		}
+		//another thread created the engine first
+		return engines.get( index );
+	}
+
+	/**
+	 * @param index the index of the engine in the pool
+	 * @return the lock to hold while compiling / evaluating with the engine 
+	 * (unless the engine {@link #isMultithreaded(int)})
+	 */
+	public Object getLock( int index )
+	{
+		return locks[ index ];
+	}
+
+	/**
+	 * @param index the index of the engine in the pool
+	 * @return true if the engine can be used by many threads concurrently
+	 * (its factory reports {@code THREADING} as {@code "MULTITHREADED"})
+	 * @throws EvalException if no engine by the name exists
+	 */
+	public boolean isMultithreaded( int index )
+		throws EvalException
+	{
+		return "MULTITHREADED".equals(
+			getEngine( index ).getFactory().getParameter( "THREADING" ) );
+	}
+
+	/** @return the number of engines in the pool */
+	public int getPoolSize()
+	{
+		return engines.length();
+	}
+
+	public String getEngineName()
+	{
+		return engineName;
+	}
+
+	public String toString()
+	{
+		return "ScriptEnginePool \"" + engineName + "\" ("
+			+ getPoolSize() + " engines)";
+	}
+}
@@ -4,7 +4,10 @@ import java.beans.BeanInfo;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -23,6 +26,18 @@ import io.varcode.tailor.Directive;
 /**
  * Simple implementation of JSR-223 {@code Bindings} 
  * 
+ * Bindings can be "frozen" (made immutable) with {@code freeze()} so they 
+ * can be shared (read) by many {@code VarContext}s; 
+ * (i.e. the CORE and CORE_LIBRARY bindings created by {@code Bootstrap})
+ * a {@code ScopeBindings} makes a (mutable) {@code copy()} of frozen 
+ * bindings before they are modified.
+ * 
+ * Each modification (including through the {@code keySet()}, 
+ * {@code values()} and {@code entrySet()} views, which are read-only 
+ * when frozen) increments a modification count and notifies the 
+ * {@code ScopeBindings} that created (and owns) the bindings, so the 
+ * lookup index of any {@code ScopeBindings} can be kept current
+ * 
  * @author M. Eric DeFazio eric@varcode.io
  */
 public class VarBindings
@@ -34,6 +49,34 @@ public class VarBindings
 	/*-}*/
 	
     private final TreeMap<String, Object> kvMap;
+    
+    /** when frozen, the bindings cannot be modified */
+    private boolean frozen = false;
+    
+    /** 
+     * notified when a binding is modified (i.e. so the {@code ScopeBindings}
+     * that owns the bindings can invalidate its lookup index)
+     */
+    interface Observer
+    {
+        /** the binding for {@code name} was added, changed or removed */
+        public void onChange( VarBindings bindings, String name );
+        
+        /** all bindings were removed */
+        public void onClear( VarBindings bindings );
+    }
+    
+    /** 
+     * the (only) observer notified of changes, (set when created by a 
+     * {@code ScopeBindings}, otherwise null) 
+     */
+    private Observer owner;
+    
+    /** incremented each time the bindings are modified */
+    private int modCount;
+    
+    /** the (mutable) views (created on demand) */
+    private Views views;
  
     public VarBindings( )
     {
@@ -46,6 +89,85 @@ public class VarBindings
         this.kvMap.putAll( keyValuePairMap );
     }
     
+    /**
+     * makes these bindings immutable (so they can be shared 
+     * by many contexts / threads)
+     * 
+     * @return this (frozen) bindings
+     */
+    public VarBindings freeze()
+    {
+        this.frozen = true;
+        return this;
+    }
+    
+    public boolean isFrozen()
+    {
+        return frozen;
+    }
+    
+    /** @return a new (mutable) copy of these bindings */
+    public VarBindings copy()
+    {
+        return new VarBindings( kvMap );
+    }
+    
+    /** sets the owner (notified when the bindings are modified) */
+    void setOwner( Observer owner )
+    {
+        this.owner = owner;
+    }
+    
+    boolean isOwner( Observer observer )
+    {
+        return owner == observer;
+    }
+    
+    /** removes the owner (if it is {@code owner}) */
+    void disown( Observer owner )
+    {
+        if( this.owner == owner )
+        {
+            this.owner = null;
+        }
+    }
+    
+    /** 
+     * @return the number of times the bindings have been modified 
+     * (i.e. to detect changes to bindings shared by many contexts)
+     */
+    int getModCount()
+    {
+        return modCount;
+    }
+    
+    /** the binding for key was added, changed or removed */
+    private void changed( String key )
+    {
+        modCount++;
+        if( owner != null )
+        {
+            owner.onChange( this, key );
+        }
+    }
+    
+    /** binds the value to the key and notifies the owner */
+    private Object bind( String key, Object value )
+    {
+        Object replaced = kvMap.put( key, value );
+        changed( key );
+        return replaced;
+    }
+    
+    private void checkNotFrozen()
+    {
+        if( frozen )
+        {
+            throw new VarException( 
+                "VarBindings are frozen and cannot be modified" );
+        }
+    }
+    
     public boolean containsKey( Object key )
     {
         return kvMap.containsKey( key );         
@@ -73,22 +195,150 @@ public class VarBindings
 
     public void clear()
     {
+        checkNotFrozen();
         kvMap.clear();
+        modCount++;
+        if( owner != null )
+        {
+            owner.onClear( this );
+        }
     }
 
     public Set<String> keySet()
     {
-        return kvMap.keySet();
+        if( frozen )
+        {
+            return Collections.unmodifiableSet( kvMap.keySet() );
+        }
+        return views().keySet();
     }
 
     public Collection<Object> values()
     {
-        return kvMap.values();
+        if( frozen )
+        {
+            return Collections.unmodifiableCollection( kvMap.values() );
+        }
+        return views().values();
     }
 
     public Set<java.util.Map.Entry<String, Object>> entrySet()
     {
-        return kvMap.entrySet();
+        if( frozen )
+        {
+            return Collections.unmodifiableMap( kvMap ).entrySet();
+        }
+        return views().entrySet();
+    }
+    
+    private Views views()
+    {
+        if( views == null )
+        {
+            views = new Views();
+        }
+        return views;
+    }
+    
+    /** 
+     * the keySet, values and entrySet views over the bindings 
+     * (modifications through the views are written through and notified)
+     */
+    private final class Views
+        extends AbstractMap<String, Object>
+    {
+        private final Entries entries = new Entries();
+        
+        public Set<Map.Entry<String, Object>> entrySet()
+        {
+            return entries;
+        }
+        
+        public int size()
+        {
+            return kvMap.size();
+        }
+        
+        public boolean containsKey( Object key )
+        {
+            return kvMap.containsKey( key );
+        }
+        
+        public boolean containsValue( Object value )
+        {
+            return kvMap.containsValue( value );
+        }
+        
+        public Object get( Object key )
+        {
+            return kvMap.get( key );
+        }
+    }
+    
+    private final class Entries
+        extends AbstractSet<Map.Entry<String, Object>>
+    {
+        public int size()
+        {
+            return kvMap.size();
+        }
+        
+        public boolean contains( Object o )
+        {
+            return kvMap.entrySet().contains( o );
+        }
+        
+        public Iterator<Map.Entry<String, Object>> iterator()
+        {
+            final Iterator<Map.Entry<String, Object>> it = 
+                kvMap.entrySet().iterator();
+            return new Iterator<Map.Entry<String, Object>>()
+            {
+                private Map.Entry<String, Object> last;
+                
+                public boolean hasNext()
+                {
+                    return it.hasNext();
+                }
+                
+                public Map.Entry<String, Object> next()
+                {
+                    last = it.next();
+                    return new Entry( last );
+                }
+                
+                public void remove()
+                {
+                    checkNotFrozen();
+                    it.remove();
+                    changed( last.getKey() );
+                }
+            };
+        }
+    }
+    
+    /** an entry (setting the value is written through and notified) */
+    private final class Entry
+        extends AbstractMap.SimpleEntry<String, Object>
+    {
+        private static final long serialVersionUID = 1L;
+        
+        private final transient Map.Entry<String, Object> entry;
+        
+        private Entry( Map.Entry<String, Object> entry )
+        {
+            super( entry );
+            this.entry = entry;
+        }
+        
+        public Object setValue( Object value )
+        {
+            checkNotFrozen();
+            super.setValue( value );
+            Object replaced = entry.setValue( value );
+            changed( entry.getKey() );
+            return replaced;
+        }
     }
 
     /** 
@@ -244,41 +494,44 @@ public class VarBindings
     
     public Object putScript( String name, VarScript script )
     {
+        checkNotFrozen();
         if( name == null )
         {
             throw new VarException( "VarBinding name cannot be null" ); 
         }
         if( name.startsWith( "$" ) )
         {
-        	return kvMap.put( name, script );
+        	return bind( name, script );
         }
-        return kvMap.put( "$" + name, script );       
+        return bind( "$" + name, script );       
     }
     
     public Object putDirective( String name, Directive directive ) 
 	{
+        checkNotFrozen();
     	if( name == null )
         {
             throw new VarException( "VarBinding name cannot be null" ); 
         }
         if( name.startsWith( "$" ) )
         {
-        	return kvMap.put( name, directive );
+        	return bind( name, directive );
         }
-        return kvMap.put( "$" + name, directive );       
+        return bind( "$" + name, directive );       
 	}
     
     public Object put( String name, Object value )
     {
+        checkNotFrozen();
     	if( value instanceof VarScript || value instanceof Directive )
     	{
     		if( name.startsWith( "$" ) )
     		{
-    			return kvMap.put( name, value );
+    			return bind( name, value );
     		}
-    		return kvMap.put( "$" + name, value );
+    		return bind( "$" + name, value );
     	}
-        return kvMap.put( name, value );
+        return bind( name, value );
     }
 
     public void putAll( Map<? extends String, ? extends Object> toMerge )
@@ -294,7 +547,14 @@ public class VarBindings
 
     public Object remove( Object key )
     {
-        return kvMap.remove( key );
+        checkNotFrozen();
+        if( !kvMap.containsKey( key ) )
+        {
+            return null;
+        }
+        Object removed = kvMap.remove( key );
+        changed( (String)key );
+        return removed;
     }
     
     public String toString()
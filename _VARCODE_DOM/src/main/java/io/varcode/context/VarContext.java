@@ -9,6 +9,7 @@ import io.varcode.context.Resolve.VarResolver;
 import io.varcode.context.lib.Library;
 import io.varcode.dom.VarNameAudit;
 import io.varcode.tailor.Directive;
+import io.varcode.tailor.TailorListener;
 
 /**
  * Container for (vars, scripts) for applying "specializations" 
@@ -22,6 +23,9 @@ import io.varcode.tailor.Directive;
  *   <LI>Form(s) {@code VarForm}  
  * </UL> 
  * 
+ * A {@code VarContext} is mutable (vars are bound while tailoring) and is 
+ * NOT thread-safe; use a separate {@code VarContext} per thread.
+ * 
  * @author M. Eric DeFazio eric@varcode.io
  */
 public class VarContext
@@ -82,10 +86,24 @@ public class VarContext
 
     public VarContext( ScopeBindings scopeBindings )
     {
-        this.scopeBindings = scopeBindings;
-        Bootstrap.init( this );   
+        this( scopeBindings, true );
     }  
     
+    /**
+     * @param scopeBindings the bindings
+     * @param bootstrap if true, initialize the context with the (shared) 
+     * CORE and CORE_LIBRARY bindings (false only used by {@code Bootstrap}
+     * to build the shared bindings)
+     */
+    VarContext( ScopeBindings scopeBindings, boolean bootstrap )
+    {
+        this.scopeBindings = scopeBindings;
+        if( bootstrap )
+        {
+            Bootstrap.init( this );
+        }
+    }
+    
     public ScopeBindings getScopeBindings()
     {
         return scopeBindings;
@@ -177,12 +195,7 @@ public class VarContext
 
     public Object clear( String name, int scope )
     {
-        VarBindings vb = scopeBindings.getBindings( scope );
-        if( vb != null )
-        {
-            return vb.remove( name );
-        }
-        return null;
+        return scopeBindings.remove( name, scope );
     }
     
     public String toString()
@@ -205,11 +218,21 @@ public class VarContext
     
     public static final String METADATA_NAME = "_METADATA";
     
+    /** the (optional) listener instrumenting tailoring (see {@code TailorListener}) */
+    public static final String TAILOR_LISTENER_NAME = "_TAILOR_LISTENER";
+    
     public Metadata getMetadata()
     {
     	return (Metadata)get( METADATA_NAME );
     }
 
+	/** @return the listener instrumenting tailoring (null if none) */
+	public TailorListener getTailorListener()
+	{
+		//(the listener is rarely bound, so the lookup is not memoized)
+		return (TailorListener)scopeBindings.peek( TAILOR_LISTENER_NAME );
+	}
+	
 	public Object resolveVar( String varName ) 
 	{
 		return getVarResolver().resolveVar( this, varName );
@@ -40,6 +40,22 @@ public interface VarScript
     public static final ScriptInputParser.SmartInputParser SMART_INPUT = 
             ScriptInputParser.SmartInputParser.INSTANCE;
     
+    /**
+     * A script that can evaluate an input already parsed by its 
+     * {@code getInputParser()} (so a {@code Mark} calling the script can 
+     * parse the input ONCE into an {@code InputPlan}, when the parser is an
+     * {@code InputPlanner}) 
+     */
+    public interface ParsedInputScript
+    	extends VarScript
+    {
+    	/** 
+    	 * Evaluate the script given the context and the parsed input 
+    	 * (the result of the {@code getInputParser()} parsing the input)
+    	 */
+    	public Object evalParsed( VarContext context, Object parsedInput );
+    }
+    
     public static abstract class ChainInputScript
     	implements VarScript
     {
@@ -108,6 +124,123 @@ public interface VarScript
     	
     	public Set<String> getAllVarNames( String input ); 
     	
+    	/** 
+    	 * A script input that has been parsed ONCE (i.e. by the 
+    	 * {@code Mark} calling the script) to be evaluated (without 
+    	 * re-parsing) each time the script is evaluated 
+    	 */
+    	public interface InputPlan
+    	{
+    		public Object parse( VarContext context );
+    	}
+    	
+    	/** the input is returned as is (a String literal) */
+    	public static class LiteralInput
+    		implements InputPlan
+    	{
+    		private final Object literal;
+    		
+    		public LiteralInput( Object literal )
+    		{
+    			this.literal = literal;
+    		}
+    		
+    		public Object parse( VarContext context )
+    		{
+    			return literal;
+    		}
+    		
+    		public String toString()
+    		{
+    			return "LiteralInput \"" + literal + "\"";
+    		}
+    	}
+    	
+    	/** 
+    	 * A parser that parses the script input ONCE into an 
+    	 * {@code InputPlan} (which is evaluated each time the script is)
+    	 */
+    	public interface InputPlanner
+    		extends ScriptInputParser
+    	{
+    		/** 
+    		 * @param scriptInput the script input
+    		 * @return the plan for evaluating the input
+    		 */
+    		public InputPlan plan( String scriptInput );
+    	}
+    	
+    	/**
+    	 * The input passed (by a {@code Mark} or a chained script) to a 
+    	 * script; the input is parsed ONCE (the first time the script is 
+    	 * evaluated) by the script's {@code InputPlanner} into an 
+    	 * {@code InputPlan}, that is evaluated each time the script is.
+    	 * 
+    	 * (if the script is not a {@code ParsedInputScript} or its parser is 
+    	 * not an {@code InputPlanner} the script parses the input itself)
+    	 */
+    	public static final class PlannedInput
+    	{
+    		/** the plan and the planner that created it */
+    		private static final class Plan
+    		{
+    			private final InputPlanner planner;
+    			
+    			private final InputPlan inputPlan;
+    			
+    			private Plan( InputPlanner planner, InputPlan inputPlan )
+    			{
+    				this.planner = planner;
+    				this.inputPlan = inputPlan;
+    			}
+    		}
+    		
+    		private final String scriptInput;
+    		
+    		/** 
+    		 * the plan (null until the script is evaluated), scripts are 
+    		 * resolved for each context, so the plan is replaced if the 
+    		 * planner changes
+    		 */
+    		private volatile Plan plan;
+    		
+    		public PlannedInput( String scriptInput )
+    		{
+    			this.scriptInput = scriptInput;
+    		}
+    		
+    		/**
+    		 * @param script the script
+    		 * @param context the context
+    		 * @return the result of evaluating the script with the input
+    		 */
+    		public Object eval( VarScript script, VarContext context )
+    		{
+    			if( script instanceof ParsedInputScript )
+    			{
+    				ScriptInputParser parser = script.getInputParser();
+    				if( parser instanceof InputPlanner )
+    				{
+    					Plan thePlan = plan;
+    					if( thePlan == null || thePlan.planner != parser )
+    					{
+    						InputPlanner planner = (InputPlanner)parser;
+    						thePlan = new Plan( planner, planner.plan( scriptInput ) );
+    						plan = thePlan;
+    					}
+    					return ( (ParsedInputScript)script ).evalParsed( 
+    						context, thePlan.inputPlan.parse( context ) );
+    				}
+    			}
+    			return script.eval( context, scriptInput );
+    		}
+    		
+    		public String toString()
+    		{
+    			return scriptInput;
+    		}
+    	}
+    	
     	/**
          * If I have something like this:
          * {#$quote($uuid())#}
@@ -117,9 +250,12 @@ public interface VarScript
          * the Input Interpreter for $quote()
          * needs to realize that it must first call the uuid() script
          * and (given the result) it will THEN call quote 
+         * 
+         * (the script name and the inner script input are split into a 
+         * {@code ChainedInput} plan)
          */
         public enum ChainedInputParser
-        	implements ScriptInputParser
+        	implements InputPlanner
         {
     		INSTANCE;
     		
@@ -131,9 +267,16 @@ public interface VarScript
     		@Override
     		public Object parse( VarContext context, String scriptInput ) 
     		{
+    			return plan( scriptInput ).parse( context );
+    		}
     		
-    			if( scriptInput != null && 
-    				scriptInput.startsWith( "$" ) &&    				
+    		public InputPlan plan( String scriptInput )
+    		{
+    			if( scriptInput == null )
+    			{
+    				return new LiteralInput( null );
+    			}
+    			if( scriptInput.startsWith( "$" ) &&    				
     				scriptInput.endsWith( ")" ) &&
     				scriptInput.indexOf( '(' ) > 0 )
     			{
@@ -143,42 +286,85 @@ public interface VarScript
     				
     				//               (
     				int openIndex = scriptInput.indexOf( '(' );
-    				String scriptName = scriptInput.substring( 1, openIndex ); 
-    				VarScript innerScript = context.resolveScript( scriptName, scriptInput ); //( scriptName );
-    				
-    				
-    				String innerScriptInput = 
-    					scriptInput.substring( 
-    						openIndex + 1,
-    						scriptInput.length() -1 );
-    				
-    				Object innerScriptResult = 
-    					innerScript.eval( context, innerScriptInput );
-    				
-    				return innerScriptResult;
+    				return new ChainedInput( 
+    					scriptInput, 
+    					scriptInput.substring( 1, openIndex ), 
+    					scriptInput.substring( openIndex + 1, scriptInput.length() -1 ) );
     			}
-    			return scriptInput;    			
+    			return new LiteralInput( scriptInput );
     		}
         }
         
-       
+        /** 
+         * calls the inner script (i.e. "$uuid()") and returns the result 
+         * (the script is resolved in the context it is evaluated in, 
+         * since scripts can be bound to a specific context)
+         */
+        public static class ChainedInput
+        	implements InputPlan
+        {
+        	private final String scriptInput;
+        	private final String scriptName;
+        	private final String innerScriptInput;
+        	
+        	/** the inner script input (parsed ONCE) */
+        	private final PlannedInput innerInput;
+        	
+        	public ChainedInput( 
+        		String scriptInput, String scriptName, String innerScriptInput )
+        	{
+        		this.scriptInput = scriptInput;
+        		this.scriptName = scriptName;
+        		this.innerScriptInput = innerScriptInput;
+        		this.innerInput = new PlannedInput( innerScriptInput );
+        	}
+        	
+        	public Object parse( VarContext context )
+        	{
+        		VarScript innerScript = 
+        			context.resolveScript( scriptName, scriptInput );
+        		return innerInput.eval( innerScript, context );
+        	}
+        	
+        	public String toString()
+        	{
+        		return "ChainedInput $" + scriptName + "(" + innerScriptInput + ")";
+        	}
+        }
+        
+        /**
+         * The input can be:
+         * <UL>
+         *   <LI>a chained script "$uuid()" (the result of the script)
+         *   <LI>a Form "{+name+}_{+type+}" (the derived form)
+         *   <LI>a var name "name" (the value of the var if bound, otherwise 
+         *   the literal input)
+         * </UL>
+         * the input is parsed (i.e. the Form is compiled) to an 
+         * {@code InputPlan} (a {@code Mark} keeps the plan, to parse the 
+         * input ONCE)
+         */
         enum SmartInputParser
-        	implements ScriptInputParser
+        	implements InputPlanner
         {
         	INSTANCE;
 
 			@Override
 			public Object parse( VarContext context, String scriptInput ) 
+			{
+				return plan( scriptInput ).parse( context );
+			}
+			
+			public InputPlan plan( String scriptInput )
 			{
 				if( scriptInput == null || scriptInput.trim().length() == 0 )
 				{
-					return "";
+					return new LiteralInput( "" );
 				}
 				if( scriptInput.startsWith( "$" ) 
 					&& scriptInput.endsWith( ")" ) )
 				{
-					return ChainedInputParser.INSTANCE.parse( 
-						context, scriptInput );
+					return ChainedInputParser.INSTANCE.plan( scriptInput );
 				}
 				try
 				{
@@ -186,18 +372,13 @@ public interface VarScript
 						ForMLCompiler.INSTANCE.compile( scriptInput );
 					if( form instanceof StaticForm )
 					{
-						Object value = context.resolveVar( scriptInput );
-						if( value != null )
-						{
-							return value;
-						}
-						return scriptInput;
+						return new VarOrLiteralInput( scriptInput );
 					}
-					return form.derive( context );							
+					return new FormInput( scriptInput, form );
 				}
 				catch( Exception e )
 				{
-					return scriptInput;
+					return new LiteralInput( scriptInput );
 				}
 			}
 
@@ -210,6 +391,71 @@ public interface VarScript
 			}        	        	
         }
         
+        /** the value of the var (if bound) otherwise the literal input */
+        public static class VarOrLiteralInput
+        	implements InputPlan
+        {
+        	private final String scriptInput;
+        	
+        	public VarOrLiteralInput( String scriptInput )
+        	{
+        		this.scriptInput = scriptInput;
+        	}
+        	
+        	public Object parse( VarContext context )
+        	{
+        		try
+        		{
+        			Object value = context.resolveVar( scriptInput );
+        			if( value != null )
+        			{
+        				return value;
+        			}
+        		}
+        		catch( Exception e )
+        		{
+        			//the input is not a (resolvable) var name
+        		}
+        		return scriptInput;
+        	}
+        	
+        	public String toString()
+        	{
+        		return "VarOrLiteralInput \"" + scriptInput + "\"";
+        	}
+        }
+        
+        /** the (pre-compiled) form derived with the context */
+        public static class FormInput
+        	implements InputPlan
+        {
+        	private final String scriptInput;
+        	private final Form form;
+        	
+        	public FormInput( String scriptInput, Form form )
+        	{
+        		this.scriptInput = scriptInput;
+        		this.form = form;
+        	}
+        	
+        	public Object parse( VarContext context )
+        	{
+        		try
+        		{
+        			return form.derive( context );
+        		}
+        		catch( Exception e )
+        		{
+        			return scriptInput;
+        		}
+        	}
+        	
+        	public String toString()
+        	{
+        		return "FormInput \"" + scriptInput + "\"";
+        	}
+        }
+        
     	/** the Script ignores any input passed to it*/
     	public enum InputIgnored
     		implements ScriptInputParser
@@ -10,14 +10,19 @@ import org.slf4j.LoggerFactory;
 
 import io.varcode.Metadata;
 import io.varcode.VarException;
+import io.varcode.dom.Dom;
 import io.varcode.tailor.Directive;
 import io.varcode.tailor.TailorState;
+import io.varcode.text.DigestBuffer;
+import io.varcode.text.TextBuffer;
+import io.varcode.text.TextFilter;
 
 /**
  * Generates SHA-1 Checksums of: 
  * <UL>
- *  <LI>the Dom (based on the Original Markup Text) during Directive pre-processing
- *  <LI>the tailored text during post-processing  
+ *  <LI>the Dom (based on the Original Markup Text) computed once when the 
+ *  Dom is compiled, and bound during Directive pre-processing
+ *  <LI>the tailored text, digested as it is written (see {@code DigestBuffer})  
  * </UL>
  * 
  * https://docs.oracle.com/javase/7/docs/api/java/security/MessageDigest.html
@@ -25,7 +30,7 @@ import io.varcode.tailor.TailorState;
  * @author M. Eric DeFazio eric@varcode.io
  */
 public enum SHA1Checksum
-	implements Directive
+	implements Directive.Streaming
 {
 	INSTANCE;
 	
@@ -45,34 +50,50 @@ public enum SHA1Checksum
 		Metadata.PropertyLabel.of( Metadata.TAILOR, "checksum", "sha1" );
 	
 	/** Hierarchical Property Name to bind the Dom SHA1 checksum to in the metadata */
-	public static final String DOM_CHECKSUM_SHA1_NAME = 
-		Metadata.PropertyLabel.of( Metadata.DOM, "checksum", "sha1" );
+	public static final String DOM_CHECKSUM_SHA1_NAME = Dom.DOM_CHECKSUM_SHA1;
 
+	/** 
+	 * binds the checksum of the Dom (computed once when the Dom was 
+	 * compiled, see {@code Dom.DOM_CHECKSUM_SHA1}) in the metadata
+	 */
 	@Override
 	public void preProcess( TailorState tailorState )
 	{
-		//LOG.trace( "    In Checksum Pre Process" );		
-		ByteArrayInputStream domInputStream = 
-			new ByteArrayInputStream 
-				( tailorState.getDom().getMarkupText().getBytes() );
+		String domChecksum = tailorState.getDom().getChecksumSHA1();
 		
-		String domChecksum = generateChecksum( domInputStream );
-		
-		LOG.debug( DOM_CHECKSUM_SHA1_NAME + ":" + domChecksum );
+		if( LOG.isDebugEnabled() ) { LOG.debug( DOM_CHECKSUM_SHA1_NAME + ":" + domChecksum ); }
 		tailorState.getContext().getMetadata().put( DOM_CHECKSUM_SHA1_NAME, domChecksum );
-	    	
 	}
 	
+	/** 
+	 * (only called if the checksum is not streamed, i.e. after a 
+	 * directive that post-processes the whole document)
+	 */
 	@Override
 	public void postProcess( TailorState tailorState ) 
 	{
-		//LOG.debug( "    In Checksum Post Process" );
-		ByteArrayInputStream bais = new ByteArrayInputStream 
-			( tailorState.getTextBuffer().toString().getBytes() );
-				
-		String tailorChecksum = generateChecksum( bais );
-		
-		LOG.debug( TAILOR_CHECKSUM_SHA1_NAME + ":" + tailorChecksum );
+		DigestBuffer sha1 = new DigestBuffer( null, SHA1 );
+		sha1.append( tailorState.getTextBuffer().toString() );
+		putTailorChecksum( tailorState, sha1.getHexDigest() );
+	}
+	
+	/** digests the tailored text as it is written */
+	@Override
+	public TextFilter filter( final TailorState tailorState, TextBuffer out ) 
+	{
+		return new DigestBuffer( out, SHA1 )
+		{
+			@Override
+			protected void onFinish()
+			{
+				putTailorChecksum( tailorState, getHexDigest() );
+			}
+		};
+	}
+	
+	private static void putTailorChecksum( TailorState tailorState, String tailorChecksum )
+	{
+		if( LOG.isDebugEnabled() ) { LOG.debug( TAILOR_CHECKSUM_SHA1_NAME + ":" + tailorChecksum ); }
 		tailorState.getContext().getMetadata().put( TAILOR_CHECKSUM_SHA1_NAME, tailorChecksum );
 	}
 	
@@ -7,7 +7,7 @@ import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
 
 public enum AllCap
-	implements VarScript
+	implements VarScript.ParsedInputScript
 {
 	INSTANCE;
 
@@ -69,8 +69,14 @@ public enum AllCap
 	@Override
 	public Object eval( VarContext context, String input )
 	{
-		return doAllCaps( 
-			getInputParser().parse( context, input ) );
+		return evalParsed( context, getInputParser().parse( context, input ) );
+	}
+	
+	@Override
+	
+	public Object evalParsed( VarContext context, Object parsedInput )
+	{
+		return doAllCaps( parsedInput );
 	}
 
 	@Override
@@ -22,7 +22,7 @@ import io.varcode.context.VarScript;
  * @author M. Eric DeFazio eric@varcode.io
  */
 public enum EscapeString 
-	implements VarScript
+	implements VarScript.ParsedInputScript
 {
 	INSTANCE;
 	
@@ -152,9 +152,14 @@ public enum EscapeString
 	@Override
 	public Object eval( VarContext context, String input)
 	{
-		Object resolved = 
-			this.getInputParser().parse( context, input );
-	    return doEscapeString( resolved );
+		return evalParsed( context, getInputParser().parse( context, input ) );
+	}
+	
+	@Override
+	
+	public Object evalParsed( VarContext context, Object parsedInput )
+	{
+		return doEscapeString( parsedInput );
 	}
 	
 	@Override
@@ -7,7 +7,7 @@ import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
 
 public enum FirstLower
-    implements VarScript
+    implements VarScript.ParsedInputScript
 {
     INSTANCE;
 
@@ -90,8 +90,14 @@ public enum FirstLower
     @Override
     public Object eval( VarContext context, String input)
     {
-        return doFirstLower(
-        	this.getInputParser().parse( context, input ) );
+        return evalParsed( context, getInputParser().parse( context, input ) );
+    }
+    
+    @Override
+    
+    public Object evalParsed( VarContext context, Object parsedInput )
+    {
+        return doFirstLower( parsedInput );
     }
     
 	@Override
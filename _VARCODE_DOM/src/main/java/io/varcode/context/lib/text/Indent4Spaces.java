@@ -1,15 +1,12 @@
 package io.varcode.context.lib.text;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
-
-import io.varcode.VarException;
 import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
 import io.varcode.tailor.Directive;
 import io.varcode.tailor.TailorState;
+import io.varcode.text.TextBuffer;
 import io.varcode.text.TextBuffer.FillBuffer;
+import io.varcode.text.TextFilter;
 
 /**
  * Given a String, indents each line a number of spaces
@@ -17,10 +14,12 @@ import io.varcode.text.TextBuffer.FillBuffer;
  * @author M. Eric DeFazio
  */
 public enum Indent4Spaces 
-	implements VarScript, Directive
+	implements VarScript.ParsedInputScript, Directive.Streaming
 {
 	INSTANCE;
 	
+	private static final String INDENT = "    ";
+	
 	@Override
 	public void preProcess( TailorState tailorState ) 
 	{
@@ -40,33 +39,18 @@ public enum Indent4Spaces
 		{
 			return new StringBuilder();
 		}
-		StringBuilder fb = new StringBuilder();
-		
-		BufferedReader br = new BufferedReader( 
-			new StringReader( input ) );
-		
-		String line;
-		try 
-		{
-			line = br.readLine();
-			boolean firstLine = true;
-			while( line != null )
-			{
-				if(! firstLine )
-				{
-					fb.append( System.lineSeparator() );					
-				}
-				fb.append( "    " );
-				fb.append( line );
-				firstLine = false;
-				line = br.readLine();
-			}
-			return fb;
-		} 
-		catch( IOException e ) 
-		{
-			throw new VarException( "Error indenting spaces" );
-		}	
+		FillBuffer fb = new FillBuffer();
+		PrefixEachLineWith.Filter filter = new PrefixEachLineWith.Filter( fb, INDENT );
+		filter.append( input, 0, input.length() );
+		filter.finish();
+		return fb.buffer;
+	}
+	
+	/** indents the lines of the tailored text as it is written */
+	@Override
+	public TextFilter filter( TailorState tailorState, TextBuffer out )
+	{
+		return new PrefixEachLineWith.Filter( out, INDENT );
 	}
 	
 	@Override
@@ -78,8 +62,13 @@ public enum Indent4Spaces
 	@Override
 	public Object eval( VarContext context, String input ) 
 	{
-		String s = (String)this.getInputParser().parse( context, input );		
-		return doIndent( s ).toString();
+		return evalParsed( context, getInputParser().parse( context, input ) );
+	}
+	
+	@Override
+	public Object evalParsed( VarContext context, Object parsedInput ) 
+	{
+		return doIndent( (String)parsedInput ).toString();
 	}
 	
 	public String toString()
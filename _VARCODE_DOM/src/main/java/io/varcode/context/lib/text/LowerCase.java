@@ -7,7 +7,7 @@ import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
 
 public enum LowerCase
-	implements VarScript
+	implements VarScript.ParsedInputScript
 {
 	INSTANCE;
 
@@ -65,8 +65,14 @@ public enum LowerCase
 	public Object eval( 
 		VarContext context, String input )
 	{
-    	return doLowercase( 
-    		this.getInputParser().parse( context, input ) );
+    	return evalParsed( context, getInputParser().parse( context, input ) );
+	}
+	
+	@Override
+	
+	public Object evalParsed( VarContext context, Object parsedInput )
+	{
+    	return doLowercase( parsedInput );
 	}
 
 	@Override
@@ -1,14 +1,13 @@
 package io.varcode.context.lib.text;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.HashSet;
 import java.util.Set;
 
-import io.varcode.VarException;
 import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
+import io.varcode.text.TextBuffer;
+import io.varcode.text.TextBuffer.FillBuffer;
+import io.varcode.text.TextFilter;
 
 /**
  * To prefix each of the lines with "    " ((4) spaces
@@ -78,33 +77,107 @@ public enum PrefixEachLineWith
 		{
 			return null;
 		}
-		StringBuilder fb = new StringBuilder();
+		FillBuffer fb = new FillBuffer();
+		Filter filter = new Filter( fb, prefix );
+		filter.append( input, 0, input.length() );
+		filter.finish();
+		return fb.toString();
+	}
+	
+	/**
+	 * Prefixes each line of the text appended (streamed) to it 
+	 * (a line ends with "\n", "\r" or "\r\n", like 
+	 * {@code BufferedReader.readLine()}) and writes the lines separated by
+	 * {@code System.lineSeparator()} (a trailing line terminator is dropped)
+	 */
+	public static final class Filter
+		extends TextFilter
+	{
+		private static final String LINE_SEPARATOR = System.lineSeparator();
+		
+		private final String prefix;
 		
-		BufferedReader br = new BufferedReader( 
-			new StringReader( input ) );
+		/** no line has been started */
+		private boolean firstLine;
 		
-		String line;
-		try 
+		/** a line has been started (prefixed) and not yet ended */
+		private boolean inLine;
+		
+		/** the last char was '\r' (so a '\n' is part of the terminator) */
+		private boolean afterCR;
+		
+		public Filter( TextBuffer out, String prefix )
 		{
-			line = br.readLine();
-			boolean firstLine = true;
-			while( line != null )
+			super( out );
+			this.prefix = prefix;
+			this.firstLine = true;
+			this.inLine = false;
+			this.afterCR = false;
+		}
+		
+		@Override
+		public TextBuffer append( CharSequence text, int start, int end )
+		{
+			int i = start;
+			while( i < end )
 			{
-				if(! firstLine )
+				char c = text.charAt( i );
+				if( c == '\n' || c == '\r' )
+				{
+					if( !( c == '\n' && afterCR ) )
+					{   //("\r\n" is a single line terminator)
+						endLine();
+					}
+					afterCR = c == '\r';
+					i++;
+					continue;
+				}
+				afterCR = false;
+				if( !inLine )
+				{
+					startLine();
+				}
+				int runEnd = i + 1;
+				while( runEnd < end 
+					&& text.charAt( runEnd ) != '\n' 
+					&& text.charAt( runEnd ) != '\r' )
 				{
-					fb.append( System.lineSeparator() );					
+					runEnd++;
 				}
-				fb.append( prefix );
-				fb.append( line );
-				firstLine = false;
-				line = br.readLine();
+				out.append( text, i, runEnd );
+				i = runEnd;
 			}
-			return fb.toString();
-		} 
-		catch( IOException e ) 
+			return this;
+		}
+		
+		private void startLine()
+		{
+			if( !firstLine )
+			{
+				out.append( LINE_SEPARATOR );
+			}
+			out.append( prefix );
+			firstLine = false;
+			inLine = true;
+		}
+		
+		private void endLine()
+		{
+			if( !inLine )
+			{   //empty line
+				startLine();
+			}
+			inLine = false;
+		}
+		
+		@Override
+		public TextBuffer clear()
 		{
-			throw new VarException( "Error indenting spaces" );
-		}	
+			firstLine = true;
+			inLine = false;
+			afterCR = false;
+			return super.clear();
+		}
 	}
 	
 	public String toString()
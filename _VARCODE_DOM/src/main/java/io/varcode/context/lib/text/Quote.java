@@ -7,7 +7,7 @@ import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
 
 public enum Quote
-    implements VarScript
+    implements VarScript.ParsedInputScript
     {
     	INSTANCE;
 
@@ -66,8 +66,14 @@ public enum Quote
     @Override
     public Object eval( VarContext context, String input )
     {
-        return doDoubleQuote( 
-        	this.getInputParser().parse( context, input) );
+        return evalParsed( context, getInputParser().parse( context, input ) );
+    }
+    
+    @Override
+    
+    public Object evalParsed( VarContext context, Object parsedInput )
+    {
+        return doDoubleQuote( parsedInput );
     }
     
 	@Override
@@ -2,9 +2,11 @@ package io.varcode.context.lib.text;
 
 import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
-import io.varcode.dom.ParseState.Lines;
 import io.varcode.tailor.Directive;
 import io.varcode.tailor.TailorState;
+import io.varcode.text.TextBuffer;
+import io.varcode.text.TextBuffer.FillBuffer;
+import io.varcode.text.TextFilter;
 
 /**
  * Accepts String (code) as input, removes any empty lines 
@@ -29,7 +31,7 @@ import io.varcode.tailor.TailorState;
  * 
  */
 public enum RemoveEmptyLines
-    implements VarScript, Directive
+    implements VarScript, Directive.Streaming
 {
 	INSTANCE;
 
@@ -54,26 +56,190 @@ public enum RemoveEmptyLines
     
     public static final String from( String sourceCode )
     {
-        String[] lines = separateOmitBlanks( sourceCode );
-        StringBuilder sb = new StringBuilder();
+        FillBuffer fb = new FillBuffer();
+        Filter filter = new Filter( fb );
+        filter.append( sourceCode, 0, sourceCode.length() );
+        filter.finish();
+        return fb.toString();
+    }
+    
+    /**
+     * Removes empty lines from the text appended (streamed) to it; produces 
+     * the same text as splitting the whole text into lines (on "\r?\n")
+     * and re-joining the non-empty lines with {@code System.lineSeparator()}:
+     * <UL>
+     *  <LI>a line containing only whitespace (chars <= ' ') is empty
+     *  <LI>a separator is written after a (non-empty) line only if more 
+     *  (non-empty or whitespace) text follows it
+     *  <LI>if the text had more than one line but the result has a single
+     *  line, a separator is written at the end  
+     * </UL>
+     * Only the leading whitespace of the current line is held back (until
+     * it is known whether the line is empty) 
+     */
+    public static final class Filter
+        extends TextFilter
+    {
+        private static final String LINE_SEPARATOR = System.lineSeparator();
+        
+        /** leading whitespace of the current line (not yet written) */
+        private final StringBuilder leadingWhitespace;
+        
+        /** the current line has a non whitespace char (and is written) */
+        private boolean lineWritten;
+        
+        /** the last char was '\r' (content, unless followed by '\n') */
+        private boolean afterCR;
+        
+        /** a separator is written if more text follows */
+        private boolean separatorPending;
+        
+        /** the number of line terminators so far */
+        private int terminatorCount;
+        
+        /** the (0-based) line of the last text (-1 if none) */
+        private int lastTextLine;
+        
+        /** any (non-empty) line has been written */
+        private boolean anyWritten;
         
-        for( int i = 0; i < lines.length; i++ )
+        /** a separator containing '\n' was written */
+        private boolean newlineWritten;
+        
+        public Filter( TextBuffer out )
+        {
+            super( out );
+            this.leadingWhitespace = new StringBuilder();
+            reset();
+        }
+        
+        private void reset()
         {
-            if( !( lines[ i ].trim().length() == 0 ) )
+            leadingWhitespace.setLength( 0 );
+            lineWritten = false;
+            afterCR = false;
+            separatorPending = false;
+            terminatorCount = 0;
+            lastTextLine = -1;
+            anyWritten = false;
+            newlineWritten = false;
+        }
+        
+        @Override
+        public TextBuffer append( CharSequence text, int start, int end )
+        {
+            int i = start;
+            while( i < end )
             {
-                sb.append( lines[ i ] );
-                if( i < lines.length - 1)
+                char c = text.charAt( i );
+                if( afterCR )
+                {
+                    afterCR = false;
+                    if( c == '\n' )
+                    {   //"\r\n" terminator
+                        endLine();
+                        i++;
+                        continue;
+                    }
+                    onText( '\r' );
+                }
+                if( c == '\r' )
+                {
+                    afterCR = true;
+                    i++;
+                    continue;
+                }
+                if( c == '\n' )
                 {
-                    sb.append( System.lineSeparator() );
-                }                
-            }            
+                    endLine();
+                    i++;
+                    continue;
+                }
+                if( lineWritten )
+                {   //write the run of chars to the end of the line
+                    int runEnd = i + 1;
+                    while( runEnd < end 
+                        && text.charAt( runEnd ) != '\n' 
+                        && text.charAt( runEnd ) != '\r' )
+                    {
+                        runEnd++;
+                    }
+                    out.append( text, i, runEnd );
+                    i = runEnd;
+                    continue;
+                }
+                onText( c );
+                i++;
+            }
+            return this;
         }
-        String res = sb.toString(); 
-        if( ( lines.length > 1 ) && Lines.countTotal( res ) == 1 )
+        
+        /** a char in a line (not yet written) */
+        private void onText( char c )
         {
-            return res + System.lineSeparator();
+            if( separatorPending )
+            {
+                writeSeparator();
+            }
+            lastTextLine = terminatorCount;
+            if( lineWritten )
+            {
+                out.append( String.valueOf( c ) );
+            }
+            else if( c <= ' ' )
+            {
+                leadingWhitespace.append( c );
+            }
+            else
+            {
+                out.append( leadingWhitespace, 0, leadingWhitespace.length() );
+                leadingWhitespace.setLength( 0 );
+                out.append( String.valueOf( c ) );
+                lineWritten = true;
+                anyWritten = true;
+            }
+        }
+        
+        private void endLine()
+        {
+            if( lineWritten )
+            {
+                separatorPending = true;
+            }
+            lineWritten = false;
+            leadingWhitespace.setLength( 0 );
+            terminatorCount++;
+        }
+        
+        private void writeSeparator()
+        {
+            out.append( LINE_SEPARATOR );
+            newlineWritten |= LINE_SEPARATOR.indexOf( '\n' ) >= 0;
+            separatorPending = false;
+        }
+        
+        @Override
+        protected void onFinish()
+        {
+            if( afterCR )
+            {
+                afterCR = false;
+                onText( '\r' );
+            }
+            //(the number of lines, ignoring trailing empty lines)
+            int lineCount = lastTextLine + 1;
+            if( lineCount > 1 && anyWritten && !newlineWritten )
+            {
+                out.append( LINE_SEPARATOR );
+            }
+        }
+        
+        @Override
+        public TextBuffer clear()
+        {
+            reset();
+            return super.clear();
         }
-        return res;
     }
     
     public Object eval( VarContext context, String input )
@@ -95,6 +261,13 @@ public enum RemoveEmptyLines
 		tailorState.getTextBuffer().append( theResult );
 	}
 	
+	/** removes empty lines from the tailored text as it is written */
+	@Override
+	public TextFilter filter( TailorState tailorState, TextBuffer out )
+	{
+		return new Filter( out );
+	}
+	
 	@Override
 	public ScriptInputParser getInputParser() 
 	{
@@ -7,6 +7,7 @@ import io.varcode.context.VarBindings;
 import io.varcode.dom.Dom;
 import io.varcode.dom.FillInTheBlanks;
 import io.varcode.dom.FillInTheBlanks.FillTemplate;
+import io.varcode.dom.FillInTheBlanks.SegmentIterator;
 import io.varcode.dom.mark.Mark;
 import io.varcode.dom.mark.Mark.WrapsContent;
 import io.varcode.tailor.Directive;
@@ -27,18 +28,20 @@ public enum StripMarks
 	{
 		FillTemplate allMarksTemplate = markup.allMarksTemplate; 
 		Mark[] markActions = markup.getAllMarks();
+		String staticText = allMarksTemplate.getStaticText();
 		
-		int blanksCount = allMarksTemplate.getBlanksCount();
 		StringBuilder sb = new StringBuilder();
-		sb.append( allMarksTemplate.getTextBeforeBlank( 0 ) );
-		for( int i = 0; i < blanksCount; i++ )
+		SegmentIterator segments = allMarksTemplate.segments();
+		while( segments.hasNext() )
 		{
-			if( markActions[ i ] instanceof WrapsContent )
+			segments.next();
+			sb.append( staticText, segments.getStart(), segments.getEnd() );
+			if( segments.isBeforeBlank() 
+				&& markActions[ segments.getIndex() ] instanceof WrapsContent )
 			{
-				WrapsContent wc = (WrapsContent)markActions[ i ];
+				WrapsContent wc = (WrapsContent)markActions[ segments.getIndex() ];
 				sb.append( wc.getWrappedContent() );
 			}
-			sb.append( allMarksTemplate.getTextAfterBlank( i ) );
 		}		
 		return sb.toString();
 	}
@@ -47,18 +50,20 @@ public enum StripMarks
 	{
 		FillTemplate allMarksTemplate = dom.allMarksTemplate; 
 		Mark[] markActions = dom.getAllMarks();
+		String staticText = allMarksTemplate.getStaticText();
 		
-		int blanksCount = allMarksTemplate.getBlanksCount();
 		StringBuilder sb = new StringBuilder();
-		sb.append( allMarksTemplate.getTextBeforeBlank( 0 ) );
-		for( int i = 0; i < blanksCount; i++ )
+		SegmentIterator segments = allMarksTemplate.segments();
+		while( segments.hasNext() )
 		{
-			if( markActions[ i ] instanceof WrapsContent )
-			{				
-				WrapsContent wc = (WrapsContent)markActions[ i ];
+			segments.next();
+			sb.append( staticText, segments.getStart(), segments.getEnd() );
+			if( segments.isBeforeBlank() 
+				&& markActions[ segments.getIndex() ] instanceof WrapsContent )
+			{
+				WrapsContent wc = (WrapsContent)markActions[ segments.getIndex() ];
 				sb.append( wc.getWrappedContent() );
 			}
-			sb.append( allMarksTemplate.getTextAfterBlank( i ) );
 		}		
 		return sb.toString();
 	}
@@ -7,7 +7,7 @@ import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
 
 public enum Trim
-	implements VarScript
+	implements VarScript.ParsedInputScript
 {
 	INSTANCE;
 
@@ -64,8 +64,14 @@ public enum Trim
 	@Override
 	public Object eval( VarContext context, String input )
 	{
-		return doTrim( 
-			getInputParser().parse( context, input ) );
+		return evalParsed( context, getInputParser().parse( context, input ) );
+	}
+	
+	@Override
+	
+	public Object evalParsed( VarContext context, Object parsedInput )
+	{
+		return doTrim( parsedInput );
 	}
 
 	@Override
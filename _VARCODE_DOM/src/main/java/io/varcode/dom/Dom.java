@@ -23,17 +23,19 @@ import java.util.Set;
 
 import io.varcode.Lang;
 import io.varcode.Metadata;
-import io.varcode.VarException;
 import io.varcode.context.VarBindings;
 import io.varcode.context.VarContext;
 import io.varcode.dom.FillInTheBlanks.FillTemplate;
+import io.varcode.dom.FillInTheBlanks.SegmentIterator;
 import io.varcode.dom.form.Form;
 import io.varcode.dom.mark.Mark;
 import io.varcode.dom.mark.Mark.BlankFiller;
 import io.varcode.dom.mark.Mark.HasForm;
 import io.varcode.dom.mark.Mark.HasVars;
-import io.varcode.dom.mark.TailorDirective;
 import io.varcode.tailor.Directive;
+import io.varcode.text.DigestBuffer;
+import io.varcode.text.SmartBuffer;
+import io.varcode.text.TextBuffer;
 
 /**
  * <A HREF="https://en.wikipedia.org/wiki/Document_Object_Model">Document Object Model</A>-
@@ -78,6 +80,9 @@ import io.varcode.tailor.Directive;
  *         "className", "MyClass" ) ); // = "public class MyClass {}";
  * 
  * </PRE>
+ * 
+ * A {@code Dom} is immutable once compiled, and can be shared and tailored
+ * concurrently by many threads (each with its own {@code VarContext}).
  */
 public class Dom 
     implements FillDom
@@ -99,6 +104,13 @@ public class Dom
     public static final String DOM_COMPILE_TIMESTAMP = 
     	Metadata.PropertyLabel.of( "dom", "compile", "timestamp" ); //"dom.compile.timestamp";
     
+    /** 
+     * The SHA-1 checksum of the markup text (computed once when the DOM 
+     * is compiled, see {@code computeChecksumSHA1()}) 
+     */
+    public static final String DOM_CHECKSUM_SHA1 = 
+    	Metadata.PropertyLabel.of( Metadata.DOM, "checksum", "sha1" ); //"dom.checksum.sha1";
+    
 	/** the Language of the Code (nullable) */
 	private final Lang language;
 	
@@ -160,6 +172,9 @@ public class Dom
 	/** Statically bound Vars, Forms, Scripts for this Markup */
 	private final VarBindings staticBindings;
 	
+	/** the (precomputed) plan for tailoring this Dom */
+	private final TailorPlan tailorPlan;
+	
 	/**
 	 * Creates a {@code Dom} containing {@code Mark}s and text 
 	 * 
@@ -213,6 +228,13 @@ public class Dom
 		}
 		this.allBlankFillers = embeddedMarkSequence.toArray( 
 		    new Mark.BlankFiller[ embeddedMarkSequence.size() ] );
+		this.tailorPlan = TailorPlan.of( allMarksSequence );
+	}
+	
+	/** @return the (precomputed) plan for tailoring this Dom */
+	public TailorPlan getTailorPlan()
+	{
+		return tailorPlan;
 	}
 
 	/** get Metadata about the source */
@@ -308,12 +330,60 @@ public class Dom
      */
     public String getMarkupText()
     {
-         String[] markFills = new String[ this.allMarkIndicies.cardinality() ];
-         for( int i = 0; i < markFills.length; i++ )
+         SmartBuffer markupText = new SmartBuffer();
+         writeMarkupText( markupText );
+         return markupText.toString();
+    }
+    
+    /**
+     * Writes the "Original" Markup Text (including the {@code Mark}s) to
+     * the {@code out} buffer (without building the whole text)
+     * 
+     * @param out the buffer to write the markup text to
+     */
+    public void writeMarkupText( TextBuffer out )
+    {
+         SegmentIterator segments = this.allMarksTemplate.segments();
+         while( segments.hasNext() )
          {
-             markFills[ i ] = allMarks[ i ].getText();
+             segments.next().appendTo( out );
+             if( segments.isBeforeBlank() )
+             {
+                 out.append( allMarks[ segments.getIndex() ].getText() );
+             }
          }
-         return this.allMarksTemplate.fill( (Object[])markFills );         
+    }
+    
+    /**
+     * Computes the SHA-1 checksum of the markup text (encoded in the 
+     * default charset) by digesting the markup as it is written
+     * (the compilers store the checksum in the {@code Metadata} as 
+     * {@code DOM_CHECKSUM_SHA1})
+     * 
+     * @return the SHA-1 checksum (as a lowercase hex String)
+     */
+    public String computeChecksumSHA1()
+    {
+        DigestBuffer sha1 = new DigestBuffer( null, "SHA-1" );
+        writeMarkupText( SmartBuffer.createInstance( sha1 ) );
+        return sha1.getHexDigest();
+    }
+    
+    /**
+     * @return the SHA-1 checksum of the markup text (from the 
+     * {@code Metadata} if computed when compiled, otherwise computed)
+     */
+    public String getChecksumSHA1()
+    {
+        if( metadata != null )
+        {
+            Object checksum = metadata.get( DOM_CHECKSUM_SHA1 );
+            if( checksum instanceof String )
+            {
+                return (String)checksum;
+            }
+        }
+        return computeChecksumSHA1();
     }
     
 	public String toString()
@@ -340,26 +410,6 @@ public class Dom
 	 */
 	public Directive[] getDirectives( VarContext context )
 	{
-	    List<Directive> directives = 
-	        new ArrayList<Directive>();
-	    
-	    for( int i = 0; i < allMarks.length; i++ )
-	    {   
-	    	if( allMarks[ i ] instanceof TailorDirective )
-	        {
-	    		TailorDirective directiveMark = (TailorDirective)allMarks[ i ];	
-	    		Directive d = context.getDirective( directiveMark.getName() );
-	    		if( d == null )
-	    		{
-	    			throw new VarException( 
-	    			   "Could not find Directive by name \"" + directiveMark.getName() + "\"" 
-	    		      +" for Mark : " + System.lineSeparator() + 
-	    		      directiveMark.getText() + System.lineSeparator() +
-	    		      "on line [" + directiveMark.getLineNumber() + "]"  );
-	    		}
-	    		directives.add( d );
-	        }
-	    }
-	    return directives.toArray( new Directive[ 0 ] );
+	    return tailorPlan.resolveDirectives( context );
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,518 @@
+package io.varcode.dom;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.varcode.VarException;
+import io.varcode.dom.bindml.BindMLCompiler;
+import io.varcode.dom.codeml.CodeMLCompiler;
+import io.varcode.dom.mark.Mark;
+import io.varcode.markup.MarkupRepo;
+import io.varcode.markup.MarkupRepo.MarkupStream;
+
+/**
+ * Caches compiled {@code Dom}s (in front of a {@code MarkupRepo} and a
+ * compiler ({@code CodeMLCompiler}, {@code BindMLCompiler}) so the same
+ * markup is not re-read and re-parsed every time it is tailored.
+ *
+ * Each {@code Dom} is keyed by the markup id and a (SHA-1) hash of the
+ * markup content, so if the markup changes, it is recompiled (the markup
+ * content is still read on each call, but hot markup is never re-parsed);
+ * the same markup id with different content (i.e. served by different
+ * {@code MarkupRepo}s) is cached as different {@code Dom}s.
+ *
+ * The cache is bounded by a total "weight" (by default the number of
+ * {@code Dom}s) and evicts the least recently used {@code Dom}s when the
+ * max weight is exceeded.
+ *
+ * <PRE>
+ * Dom dom = DomCache.CODEML.dom( JavaMarkupPath.INSTANCE, "ex.varcode.MyClass.java" );
+ * </PRE>
+ *
+ * NOTE: {@code Dom}s are immutable, so a cached {@code Dom} can be shared
+ * (and tailored concurrently)
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class DomCache
+{
+	/*{-?(removeLog==true):*/
+	private static final Logger LOG =
+        LoggerFactory.getLogger( DomCache.class );
+	/*-}*/
+
+	/** the default max number of {@code Dom}s cached */
+	public static final int DEFAULT_MAX_DOMS = 512;
+
+	/** Cache for {@code Dom}s compiled from CodeML */
+	public static final DomCache CODEML =
+		new DomCache( Compiler.CODEML, DEFAULT_MAX_DOMS );
+
+	/** Cache for {@code Dom}s compiled from BindML */
+	public static final DomCache BINDML =
+		new DomCache( Compiler.BINDML, DEFAULT_MAX_DOMS );
+
+	/** Compiles the {@code Dom} from a {@code MarkupStream} */
+	public interface DomCompiler
+	{
+		public Dom compile( MarkupStream markupStream )
+			throws MarkupException;
+	}
+
+	public enum Compiler
+		implements DomCompiler
+	{
+		CODEML
+		{
+			public Dom compile( MarkupStream markupStream )
+			{
+				return CodeMLCompiler.INSTANCE.compile( markupStream );
+			}
+		},
+		BINDML
+		{
+			public Dom compile( MarkupStream markupStream )
+			{
+				return BindMLCompiler.INSTANCE.from( markupStream );
+			}
+		};
+	}
+
+	/** determines the "weight" of a {@code Dom} in the cache */
+	public interface Weigher
+	{
+		public long weigh( Dom dom );
+	}
+
+	public enum Weigh
+		implements Weigher
+	{
+		/** each {@code Dom} has a weight of 1 (limit the number of Doms) */
+		DOMS
+		{
+			public long weigh( Dom dom )
+			{
+				return 1L;
+			}
+		},
+		/** weigh each {@code Dom} by the number of chars in the markup */
+		MARKUP_CHARS
+		{
+			public long weigh( Dom dom )
+			{
+				long weight =
+					dom.getFillTemplate().getStaticText().length();
+				Mark[] marks = dom.getAllMarks();
+				for( int i = 0; i < marks.length; i++ )
+				{
+					weight += marks[ i ].getText().length();
+				}
+				return weight;
+			}
+		};
+	}
+
+	/** 
+	 * the markup id and the hash of the content (the same id with different
+	 * content, i.e. from different repos, are different keys)
+	 */
+	private static final class Key
+	{
+		private final String markupId;
+		private final byte[] contentHash;
+		private final int hashCode;
+
+		private Key( String markupId, byte[] contentHash )
+		{
+			this.markupId = markupId;
+			this.contentHash = contentHash;
+			this.hashCode = 31 * markupId.hashCode() + Arrays.hashCode( contentHash );
+		}
+
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		public boolean equals( Object o )
+		{
+			if( !( o instanceof Key ) )
+			{
+				return false;
+			}
+			Key key = (Key)o;
+			return markupId.equals( key.markupId ) 
+				&& Arrays.equals( contentHash, key.contentHash );
+		}
+	}
+
+	/** a cached Dom (and its weight) */
+	private static class Entry
+	{
+		private final Dom dom;
+		private final long weight;
+
+		private Entry( Dom dom, long weight )
+		{
+			this.dom = dom;
+			this.weight = weight;
+		}
+	}
+
+	private final DomCompiler compiler;
+
+	private final Weigher weigher;
+
+	private final long maxWeight;
+
+	/** markupId and content hash to Entry (in least recently used order) */
+	private final LinkedHashMap<Key, Entry> keyToEntry =
+		new LinkedHashMap<Key, Entry>( 16, 0.75f, true );
+
+	/** total weight of all cached Doms (guarded by keyToEntry) */
+	private long weight = 0L;
+
+	private long hitCount = 0L;
+
+	private long missCount = 0L;
+
+	private long evictionCount = 0L;
+
+	private long totalLoadNanos = 0L;
+
+	/**
+	 * @param compiler compiles the Dom from the markup
+	 * @param maxDoms the max number of Doms to cache
+	 */
+	public DomCache( DomCompiler compiler, int maxDoms )
+	{
+		this( compiler, maxDoms, Weigh.DOMS );
+	}
+
+	/**
+	 * @param compiler compiles the Dom from the markup
+	 * @param maxWeight the max total weight of all the cached Doms
+	 * @param weigher determines the weight of each Dom
+	 */
+	public DomCache( DomCompiler compiler, long maxWeight, Weigher weigher )
+	{
+		if( maxWeight < 1 )
+		{
+			throw new VarException(
+				"maxWeight (" + maxWeight + ") must be > 0" );
+		}
+		this.compiler = compiler;
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * @param markupRepo the repository containing the markup
+	 * @param markupId the id of the markup (i.e. "ex.varcode.MyClass.java")
+	 * @return the (cached or compiled) {@code Dom}
+	 * @throws VarException if the markup is not found in the repo
+	 * @throws MarkupException if the markup could not be compiled
+	 */
+	public Dom dom( MarkupRepo markupRepo, String markupId )
+		throws VarException, MarkupException
+	{
+		MarkupStream markupStream = markupRepo.markupStream( markupId );
+		if( markupStream == null )
+		{
+			throw new VarException(
+				"Unable to find markup \"" + markupId + "\" in "
+				+ markupRepo.describe() );
+		}
+		return dom( markupStream );
+	}
+
+	/**
+	 * reads the content of the {@code MarkupStream} and returns the
+	 * cached {@code Dom} (if the content is unchanged) or compiles and
+	 * caches the {@code Dom}
+	 *
+	 * @param markupStream the markup stream
+	 * @return the (cached or compiled) {@code Dom}
+	 * @throws MarkupException if the markup could not be compiled
+	 */
+	public Dom dom( MarkupStream markupStream )
+		throws MarkupException
+	{
+		if( markupStream == null )
+		{
+			throw new VarException( "the MarkupStream is null " );
+		}
+		String markupId = markupStream.getMarkupId();
+		byte[] content = readContent( markupStream );
+		Key key = new Key( markupId, hash( content ) );
+
+		synchronized( keyToEntry )
+		{
+			Entry entry = keyToEntry.get( key );
+			if( entry != null )
+			{
+				hitCount++;
+				return entry.dom;
+			}
+			missCount++;
+		}
+		long start = System.nanoTime();
+		Dom dom = compiler.compile(
+			new ContentMarkupStream( markupStream, content ) );
+		long loadNanos = System.nanoTime() - start;
+
+		/*{-?(removeLog==true):*/
+		if( LOG.isDebugEnabled() )
+		{
+			LOG.debug( "compiled Dom \"" + markupId + "\" in "
+				+ ( loadNanos / 1000000L ) + "ms" );
+		}
+		/*-}*/
+		Entry entry = new Entry( dom, weigher.weigh( dom ) );
+		synchronized( keyToEntry )
+		{
+			totalLoadNanos += loadNanos;
+			Entry replaced = keyToEntry.put( key, entry );
+			if( replaced != null )
+			{
+				weight -= replaced.weight;
+			}
+			weight += entry.weight;
+			evict();
+		}
+		return dom;
+	}
+
+	/** evict the least recently used Doms until under the max weight */
+	private void evict()
+	{
+		Iterator<Map.Entry<Key, Entry>> it =
+			keyToEntry.entrySet().iterator();
+
+		//NOTE: always keep the most recently added Dom
+		while( weight > maxWeight && keyToEntry.size() > 1 )
+		{
+			Map.Entry<Key, Entry> eldest = it.next();
+			weight -= eldest.getValue().weight;
+			it.remove();
+			evictionCount++;
+		}
+	}
+
+	/**
+	 * @param markupId the id of the markup
+	 * @return true if a Dom was removed from the cache (removes the Doms
+	 * of all versions of the markup content with the id)
+	 */
+	public boolean invalidate( String markupId )
+	{
+		synchronized( keyToEntry )
+		{
+			boolean removed = false;
+			Iterator<Map.Entry<Key, Entry>> it = keyToEntry.entrySet().iterator();
+			while( it.hasNext() )
+			{
+				Map.Entry<Key, Entry> entry = it.next();
+				if( entry.getKey().markupId.equals( markupId ) )
+				{
+					weight -= entry.getValue().weight;
+					it.remove();
+					removed = true;
+				}
+			}
+			return removed;
+		}
+	}
+
+	/** removes all Doms from the cache (and resets the statistics) */
+	public void clear()
+	{
+		synchronized( keyToEntry )
+		{
+			keyToEntry.clear();
+			weight = 0L;
+			hitCount = 0L;
+			missCount = 0L;
+			evictionCount = 0L;
+			totalLoadNanos = 0L;
+		}
+	}
+
+	/** @return the number of Doms in the cache */
+	public int getSize()
+	{
+		synchronized( keyToEntry )
+		{
+			return keyToEntry.size();
+		}
+	}
+
+	/** @return the total weight of all Doms in the cache */
+	public long getWeight()
+	{
+		synchronized( keyToEntry )
+		{
+			return weight;
+		}
+	}
+
+	public long getMaxWeight()
+	{
+		return maxWeight;
+	}
+
+	/** @return the number of requests that returned a cached Dom */
+	public long getHitCount()
+	{
+		synchronized( keyToEntry )
+		{
+			return hitCount;
+		}
+	}
+
+	/** @return the number of requests that had to compile the Dom */
+	public long getMissCount()
+	{
+		synchronized( keyToEntry )
+		{
+			return missCount;
+		}
+	}
+
+	/** @return the number of Doms evicted from the cache */
+	public long getEvictionCount()
+	{
+		synchronized( keyToEntry )
+		{
+			return evictionCount;
+		}
+	}
+
+	/** @return the total time spent (in nanos) compiling Doms */
+	public long getTotalLoadNanos()
+	{
+		synchronized( keyToEntry )
+		{
+			return totalLoadNanos;
+		}
+	}
+
+	/** @return the average time (in nanos) spent compiling a Dom */
+	public long getAverageLoadNanos()
+	{
+		synchronized( keyToEntry )
+		{
+			if( missCount == 0 )
+			{
+				return 0L;
+			}
+			return totalLoadNanos / missCount;
+		}
+	}
+
+	public String toString()
+	{
+		synchronized( keyToEntry )
+		{
+			return "DomCache (" + keyToEntry.size() + " Doms, weight "
+				+ weight + " of " + maxWeight + ") hits:" + hitCount
+				+ " misses:" + missCount + " evictions:" + evictionCount
+				+ " avg load:" + ( getAverageLoadNanos() / 1000 ) + "us";
+		}
+	}
+
+	private static byte[] readContent( MarkupStream markupStream )
+	{
+		InputStream is = markupStream.getInputStream();
+		if( is == null )
+		{
+			throw new VarException(
+				"null InputStream for markup \""
+				+ markupStream.getMarkupId() + "\"" );
+		}
+		try
+		{
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			byte[] buffer = new byte[ 8192 ];
+			int read;
+			while( ( read = is.read( buffer ) ) != -1 )
+			{
+				baos.write( buffer, 0, read );
+			}
+			return baos.toByteArray();
+		}
+		catch( IOException ioe )
+		{
+			throw new VarException(
+				"Unable to read markup \"" + markupStream.getMarkupId()
+				+ "\" from " + markupStream.describe(), ioe );
+		}
+		finally
+		{
+			try
+			{
+				is.close();
+			}
+			catch( IOException e )
+			{
+				//ignore
+			}
+		}
+	}
+
+	private static byte[] hash( byte[] content )
+	{
+		try
+		{
+			return MessageDigest.getInstance( "SHA-1" ).digest( content );
+		}
+		catch( NoSuchAlgorithmException e )
+		{
+			throw new VarException( "SHA-1 not available", e );
+		}
+	}
+
+	/**
+	 * {@code MarkupStream} for content that has already been read
+	 * (from another {@code MarkupStream})
+	 */
+	private static class ContentMarkupStream
+		implements MarkupStream
+	{
+		private final MarkupStream source;
+
+		private final byte[] content;
+
+		private ContentMarkupStream( MarkupStream source, byte[] content )
+		{
+			this.source = source;
+			this.content = content;
+		}
+
+		public InputStream getInputStream()
+		{
+			return new ByteArrayInputStream( content );
+		}
+
+		public String getMarkupId()
+		{
+			return source.getMarkupId();
+		}
+
+		public String describe()
+		{
+			return source.describe();
+		}
+	}
+}
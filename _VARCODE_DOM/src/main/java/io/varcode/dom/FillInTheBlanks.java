@@ -285,6 +285,16 @@ public class FillInTheBlanks
 		 *  [29]                         [0]   
 		 */
 		private final BitSet blankIndexes;
+		
+		/** 
+		 * the character index within the static {@code text} where each 
+		 * blank is placed (computed once when the template is built) 
+		 * 
+		 * text = "Mary had a  lamb,  lamb,  lamb";
+		 *                   ^      ^      ^
+		 * blankCharIndexes = { 10,    16,    22 }
+		 */
+		private final int[] blankCharIndexes;
 				
 		
 		public static FillTemplate of( String text, BitSet blankIndexes )
@@ -307,12 +317,19 @@ public class FillInTheBlanks
 		{
 			this.text = text;
 			this.blankIndexes = blankIndexes;
+			this.blankCharIndexes = new int[ blankIndexes.cardinality() ];
+			int blankAt = blankIndexes.nextSetBit( 0 );
+			for( int i = 0; i < blankCharIndexes.length; i++ )
+			{   //each previous blank is NOT a character in the static text
+				blankCharIndexes[ i ] = blankAt - i;
+				blankAt = blankIndexes.nextSetBit( blankAt + 1 );
+			}
 		}
 		
 		/** the number of blanks in the FillOrder */
 		public int getBlanksCount()
 		{
-			return blankIndexes.cardinality();
+			return blankCharIndexes.length;
 		}
 		
 		/** fills and returns the filled document as a String */
@@ -324,50 +341,45 @@ public class FillInTheBlanks
 			return buff.toString();
 		}
 		
+		/**
+		 * fills the blanks and appends the document to {@code out}
+		 * 
+		 * (the static text between blanks is appended as a range of 
+		 * {@code text}, so no Strings are created per segment)
+		 * 
+		 * @param out the buffer to write the filled document
+		 * @param fillsInOrder the fills for each blank (in order)
+		 * @throws VarException if there are fewer fills than blanks
+		 */
 		public void fill( TextBuffer out, Object... fillsInOrder )
 		    throws VarException
 		{
-		    if( fillsInOrder.length < blankIndexes.cardinality() )
+		    if( fillsInOrder.length < blankCharIndexes.length )
             {
                 throw new VarException( 
                     "fill parameter count (" + fillsInOrder.length 
                     + ") must match blanks count (" 
-                    + blankIndexes.cardinality() + ")" );
+                    + blankCharIndexes.length + ")" );
             }
-            
             int currentTextCharAt = 0; //current char index in the document
-            int previousBlankAt = -1; // previous blank index in the document
-            
-            int nextBlankAt = blankIndexes.nextSetBit( 0 );
-            int fillIndex = 0;
-            int charsBetweenCount = 
-                ( nextBlankAt - previousBlankAt ) -1; //count characters BETWEEN previous blank and next blank
             
-            while( nextBlankAt >= 0 )
-            {               
-                if( charsBetweenCount > 0 )
+            for( int i = 0; i < blankCharIndexes.length; i++ )
+            {
+                if( blankCharIndexes[ i ] > currentTextCharAt )
                 {   //there is text between the previous blank and the next blank 
-                    //(need to fill in the text) 
-                    String prepend = 
-                        text.substring( 
-                            currentTextCharAt, 
-                            currentTextCharAt + charsBetweenCount 
-                        );          
-                    out.append( prepend );
-                    currentTextCharAt += charsBetweenCount;                 
-                }               
+                    out.append( text, currentTextCharAt, blankCharIndexes[ i ] );
+                    currentTextCharAt = blankCharIndexes[ i ];
+                }
                 //fill in the next blank
-                if( fillsInOrder[ fillIndex ] != null )
+                if( fillsInOrder[ i ] != null )
                 {   //we only fill if non-null (i,.e. dont append the string "null"
-                    out.append( fillsInOrder[ fillIndex ] ); 
+                    out.append( fillsInOrder[ i ] ); 
                 }
-                fillIndex++;                
-                
-                previousBlankAt = nextBlankAt;
-                nextBlankAt = blankIndexes.nextSetBit( nextBlankAt + 1 );
-                charsBetweenCount = ( nextBlankAt - previousBlankAt ) -1; //                
-            }           
-            out.append( text.substring( currentTextCharAt ) );
+            }
+            if( currentTextCharAt < text.length() )
+            {
+                out.append( text, currentTextCharAt, text.length() );
+            }
 		}
 		
 
@@ -404,27 +416,20 @@ public class FillInTheBlanks
 		 */
 		public int getCharIndexOfBlank( int index )
 		{
-		    if( index >= this.blankIndexes.cardinality() || index < 0 )
+		    if( index >= blankCharIndexes.length || index < 0 )
 		    {
 		        return -1;
 		    }
-		    //find the index of the first blank
-		    int blankIndex = this.blankIndexes.nextSetBit( 0 );
-		    
-		    //iterate until we find the location of the indexth blank
-		    for( int i = 1; i <= index; i++ )
-            {   //go to the index of the NEXT BLANK
-                blankIndex = this.blankIndexes.nextSetBit( blankIndex + 1 );
-            }		    
-		    if( index == 0 )
-		    {		         
-		        return blankIndex;
-		    }
-		    // we need to ADJUST the fillIndex to be a character index, 
-            // since the String staticText does not contain ANY character 
-            // place holder for a blank, so we need to backup by index 
-            // characters
-		    return blankIndex -( index );	    
+		    return blankCharIndexes[ index ];	    
+		}
+		
+		/** 
+		 * @return an iterator over the static text segments (before, between 
+		 * and after the blanks) in order, (in linear time)
+		 */
+		public SegmentIterator segments()
+		{
+			return new SegmentIterator( this );
 		}
 		
 		/** 
@@ -469,12 +474,10 @@ public class FillInTheBlanks
 	        }
 	        if( blankIndex == 0 )
 	        {
-	            int end = getCharIndexOfBlank( blankIndex );
-	            return getStaticText().substring( 0, end );
+	            return text.substring( 0, blankCharIndexes[ blankIndex ] );
 	        }
-	        int start = getCharIndexOfBlank( blankIndex - 1 );
-	        int end = getCharIndexOfBlank( blankIndex );
-	        return getStaticText().substring( start, end );
+	        return text.substring( 
+	            blankCharIndexes[ blankIndex - 1 ], blankCharIndexes[ blankIndex ] );
 	    }
 
 	    /** 
@@ -511,12 +514,108 @@ public class FillInTheBlanks
 	        }
 	        if( blankIndex == getBlanksCount() - 1 )
 	        { //last blank
-	            int start = getCharIndexOfBlank( blankIndex );
-	            return getStaticText().substring( start );
+	            return text.substring( blankCharIndexes[ blankIndex ] );
 	        }
-	        int start = getCharIndexOfBlank( blankIndex );
-	        int end = getCharIndexOfBlank( blankIndex + 1 );
-	        return getStaticText().substring( start, end );
+	        return text.substring( 
+	            blankCharIndexes[ blankIndex ], blankCharIndexes[ blankIndex + 1 ] );
 	    }
-	}	
+	}
+	
+	/**
+	 * Iterates over the static text segments of a {@code FillTemplate}
+	 * in order; segment [i] is the text BEFORE blank [i] and the last 
+	 * segment is the text after the last blank (so a template with N blanks
+	 * has N + 1 segments, some may be empty).
+	 * <PRE>
+	 * FillTemplate ft = FillInTheBlanks.parse( "__ sells __ shells" );
+	 * SegmentIterator it = ft.segments();
+	 * while( it.hasNext() )
+	 * {
+	 *     it.next(); 
+	 *     sb.append( ft.getStaticText(), it.getStart(), it.getEnd() );
+	 *     if( it.isBeforeBlank() )
+	 *     {
+	 *         sb.append( fills[ it.getIndex() ] );
+	 *     }
+	 * }
+	 * </PRE>
+	 */
+	public static final class SegmentIterator
+	{
+		private final FillTemplate template;
+		
+		/** the index of the current segment */
+		private int index;
+		
+		private SegmentIterator( FillTemplate template )
+		{
+			this.template = template;
+			this.index = -1;
+		}
+		
+		public boolean hasNext()
+		{
+			return index < template.blankCharIndexes.length;
+		}
+		
+		/** moves to the next segment */
+		public SegmentIterator next()
+		{
+			if( !hasNext() )
+			{
+				throw new VarException( "no more segments" );
+			}
+			index++;
+			return this;
+		}
+		
+		/** @return the index of the current segment (the index of the blank after) */
+		public int getIndex()
+		{
+			return index;
+		}
+		
+		/** @return the char index (in the static text) where the segment starts */
+		public int getStart()
+		{
+			if( index == 0 )
+			{
+				return 0;
+			}
+			return template.blankCharIndexes[ index - 1 ];
+		}
+		
+		/** @return the char index (in the static text) where the segment ends */
+		public int getEnd()
+		{
+			if( index == template.blankCharIndexes.length )
+			{
+				return template.text.length();
+			}
+			return template.blankCharIndexes[ index ];
+		}
+		
+		/** @return true if the current segment is followed by a blank */
+		public boolean isBeforeBlank()
+		{
+			return index < template.blankCharIndexes.length;
+		}
+		
+		/** @return the text of the segment */
+		public String getText()
+		{
+			return template.text.substring( getStart(), getEnd() );
+		}
+		
+		/** appends the text of the segment to {@code out} */
+		public void appendTo( TextBuffer out )
+		{
+			int start = getStart();
+			int end = getEnd();
+			if( end > start )
+			{
+				out.append( template.text, start, end );
+			}
+		}
+	}
 }
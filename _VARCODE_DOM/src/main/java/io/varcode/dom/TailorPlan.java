@@ -0,0 +1,136 @@
+package io.varcode.dom;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.varcode.VarException;
+import io.varcode.context.VarContext;
+import io.varcode.dom.mark.Mark;
+import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.BoundDynamically;
+import io.varcode.dom.mark.TailorDirective;
+import io.varcode.tailor.Directive;
+
+/**
+ * Immutable "execution plan" for tailoring a {@code Dom}, (computed once 
+ * when the {@code Dom} is constructed) so that the {@code Tailor} does not 
+ * re-scan the {@code Mark}s (with {@code instanceof} checks) each time 
+ * the {@code Dom} is tailored.
+ * 
+ * The plan partitions the {@code Mark}s of the {@code Dom} into:
+ * <UL>
+ *  <LI>instance marks: the {@code Derived} (non {@code BlankFiller}) marks 
+ *  derived (and {@code BoundDynamically} marks bound) before the blanks 
+ *  are filled, in document order
+ *  <LI>directive marks: the {@code TailorDirective}s (resolved by name 
+ *  in the {@code VarContext} each time the {@code Dom} is tailored)
+ * </UL>
+ * 
+ * (the {@code BlankFiller}s are in {@code Dom.getBlankFillers()})
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public final class TailorPlan
+{
+	/** shared (immutable) empty array of directives */
+	public static final Directive[] NO_DIRECTIVES = new Directive[ 0 ];
+	
+	/** marks derived before the fill (in document order) */
+	private final Mark.Derived[] instanceMarks;
+	
+	/** is {@code instanceMarks[ i ]} {@code BoundDynamically}? */
+	private final boolean[] isBound;
+	
+	/** the {@code TailorDirective} marks (in document order) */
+	private final TailorDirective[] directiveMarks;
+	
+	public static TailorPlan of( Mark[] marks )
+	{
+		List<Mark.Derived> instanceMarks = new ArrayList<Mark.Derived>();
+		List<TailorDirective> directiveMarks = new ArrayList<TailorDirective>();
+		for( int i = 0; i < marks.length; i++ )
+		{
+			if( marks[ i ] instanceof BoundDynamically 
+				|| ( marks[ i ] instanceof Mark.Derived 
+					&& !( marks[ i ] instanceof BlankFiller ) ) )
+			{
+				instanceMarks.add( (Mark.Derived)marks[ i ] );
+			}
+			if( marks[ i ] instanceof TailorDirective )
+			{
+				directiveMarks.add( (TailorDirective)marks[ i ] );
+			}
+		}
+		return new TailorPlan( 
+			instanceMarks.toArray( new Mark.Derived[ instanceMarks.size() ] ),
+			directiveMarks.toArray( new TailorDirective[ directiveMarks.size() ] ) );
+	}
+	
+	private TailorPlan( 
+		Mark.Derived[] instanceMarks, TailorDirective[] directiveMarks )
+	{
+		this.instanceMarks = instanceMarks;
+		this.directiveMarks = directiveMarks;
+		this.isBound = new boolean[ instanceMarks.length ];
+		for( int i = 0; i < instanceMarks.length; i++ )
+		{
+			this.isBound[ i ] = instanceMarks[ i ] instanceof BoundDynamically;
+		}
+	}
+	
+	/** @return the number of marks derived (or bound) before the fill */
+	public int getInstanceMarkCount()
+	{
+		return instanceMarks.length;
+	}
+	
+	/** @return the i-th mark derived (or bound) before the fill */
+	public Mark.Derived getInstanceMark( int index )
+	{
+		return instanceMarks[ index ];
+	}
+	
+	/** @return true if the i-th instance mark is {@code BoundDynamically} */
+	public boolean isBound( int index )
+	{
+		return isBound[ index ];
+	}
+	
+	public boolean hasDirectiveMarks()
+	{
+		return directiveMarks.length > 0;
+	}
+	
+	/**
+	 * Resolves the {@code Directive} for each {@code TailorDirective} mark 
+	 * by name in the {@code context}
+	 * 
+	 * @param context the context containing the {@code Directive}s
+	 * @return the directives (in document order)
+	 * @throws VarException if a directive cannot be found
+	 */
+	public Directive[] resolveDirectives( VarContext context )
+		throws VarException
+	{
+		if( directiveMarks.length == 0 )
+		{
+			return NO_DIRECTIVES;
+		}
+		Directive[] directives = new Directive[ directiveMarks.length ];
+		for( int i = 0; i < directiveMarks.length; i++ )
+		{
+			TailorDirective directiveMark = directiveMarks[ i ];
+			Directive d = context.getDirective( directiveMark.getName() );
+			if( d == null )
+			{
+				throw new VarException( 
+				   "Could not find Directive by name \"" + directiveMark.getName() + "\"" 
+			      +" for Mark : " + System.lineSeparator() + 
+			      directiveMark.getText() + System.lineSeparator() +
+			      "on line [" + directiveMark.getLineNumber() + "]"  );
+			}
+			directives[ i ] = d;
+		}
+		return directives;
+	}
+}
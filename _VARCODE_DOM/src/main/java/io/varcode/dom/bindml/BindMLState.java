@@ -209,13 +209,19 @@ public class BindMLState
         	lang = (Lang) parseContext.getMetadata().get( Dom.LANG );
         }
         
-        return new Dom(
+        Dom dom = new Dom(
         	lang,	
             domBuilder.compile(), 
             allMarks.toArray( new Mark[ 0 ] ),
             allMarkIndexes, 
             parseContext.getOrCreateBindings( VarScope.STATIC ), 
             parseContext.getMetadata() );
+        if( parseContext.getMetadata() != null )
+        {   //checksum the markup once (rather than each time it is tailored)
+        	parseContext.getMetadata().put( 
+        		Dom.DOM_CHECKSUM_SHA1, dom.computeChecksumSHA1() );
+        }
+        return dom;
     }
 
     public Builder getFillBuilder()
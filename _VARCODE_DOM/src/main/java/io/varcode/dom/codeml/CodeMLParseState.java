@@ -230,13 +230,18 @@ public class CodeMLParseState
               + getMarkContents() + N 
               + "EXPECTED close Tag \"" + this.closeTagForCurrentOpenMark + "\"" );
         }    
-        return new Dom( 
+        Dom dom = new Dom( 
         	lang,
             domBuilder.compile(), 
             allMarks.toArray( new Mark[ 0 ] ),
             allMarkIndexes, 
             parseContext.getOrCreateBindings( VarScope.STATIC ),
             metadata );
+        if( metadata != null )
+        {   //checksum the markup once (rather than each time it is tailored)
+        	metadata.put( Dom.DOM_CHECKSUM_SHA1, dom.computeChecksumSHA1() );
+        }
+        return dom;
     }
 
     public Builder getFillBuilder()
@@ -3,7 +3,8 @@ package io.varcode.dom.form;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
 
 import io.varcode.VarException;
@@ -154,8 +155,8 @@ public class VarForm
     private static final String N = System.lineSeparator();
     
     /**
-     * Given the context, determine the "cardinality" (or the Loop count) 
-     * for the number of form instances to create:
+     * Given the resolved values of the vars, determine the "cardinality" 
+     * (or the Loop count) for the number of form instances to create:
      * 
      * For example with Form: "{+type} {+name}, " <BR>
      * 
@@ -168,39 +169,24 @@ public class VarForm
      *</PRE>            
      * ...then the cardinality is (3), since we have to 
      * 
-     * @param context
-     * @return
+     * @param varNames the names of the vars
+     * @param values the resolved values of the vars (or indexed views)
+     * @return the number of form instances
      */
-    private final int getFormInstanceCount( VarContext context )
+    private final int getFormInstanceCount( String[] varNames, Object[] values )
     {
-        Set<String> varNames = getAllVarNames( context );
-        
-        if( varNames.size() == 0 ) //some VarForms dont have need of vars
+        if( varNames.length == 0 ) //some VarForms dont have need of vars
         {
         	return 1;
         }
         int cardinality = 0;
-        Iterator<String>it = varNames.iterator();
-        
-        for( int i = 0; i < varNames.size(); i++ )
+        for( int i = 0; i < varNames.length; i++ )
         {
-            String next = it.next(); 
-            //Object value = context.get( next );
-            Object value = context.getVarResolver().resolveVar( context, next );
-            if( value != null ) 
+            if( values[ i ] != null ) 
             {
-                if( value.getClass().isArray() )
+                int length = indexedSize( values[ i ] );
+                if( length >= 0 )
                 {
-                    int length = Array.getLength( value );
-                    if( length > cardinality )
-                    {
-                        cardinality = length;
-                    }
-                }
-                else if( value instanceof Collection )
-                {
-                    Collection<?> c = (Collection<?>)value;
-                    int length = c.size();
                     if( length > cardinality )
                     {
                         cardinality = length;
@@ -217,112 +203,181 @@ public class VarForm
             else
             {
                 //is the value Required and null?
-                if( requiredVars.contains( next ) )
+                if( requiredVars.contains( varNames[ i ] ) )
                 {
-                    throw new VarRequiredButNull( next,  getText() , "FORM", lineNumber );   
+                    throw new VarRequiredButNull( 
+                        varNames[ i ],  getText() , "FORM", lineNumber );   
                 }
             }
         }        
         return cardinality;
     }
     
+    /**
+     * returns a view of the value that can be accessed by index in 
+     * constant time (so each var is only copied ONCE when deriving 
+     * all form instances):
+     * <UL>
+     *   <LI>arrays and {@code RandomAccess} {@code List}s are used as is
+     *   <LI>other {@code Collection}s are copied to an array (once)
+     *   <LI>other values (not iterable) are returned as is
+     * </UL>
+     */
+    private static Object indexedView( Object value )
+    {
+        if( value instanceof Collection 
+            && !( value instanceof List && value instanceof RandomAccess ) )
+        {
+            return ( (Collection<?>)value ).toArray();
+        }
+        return value;
+    }
+    
+    /** 
+     * @return the number of elements in the indexed view 
+     * (or -1 if the value is not iterable) 
+     */
+    private static int indexedSize( Object indexed )
+    {
+        if( indexed instanceof Object[] )
+        {
+            return ( (Object[])indexed ).length;
+        }
+        if( indexed instanceof List )
+        {
+            return ( (List<?>)indexed ).size();
+        }
+        if( indexed.getClass().isArray() )
+        {
+            return Array.getLength( indexed );
+        }
+        return -1;
+    }
+    
+    /** @return the element at {@code index} of the indexed view */
+    private static Object indexedGet( Object indexed, int index )
+    {
+        if( indexed instanceof Object[] )
+        {
+            return ( (Object[])indexed )[ index ];
+        }
+        if( indexed instanceof List )
+        {
+            return ( (List<?>)indexed ).get( index );
+        }
+        return Array.get( indexed, index );
+    }
 
     public void deriveTo( VarContext context, TextBuffer out )
     {   //below, we can turn this code "on" if we tailor this code
         //and set debug=true in the Context
         /*{?debug=true:System.out.println( formVarCode );}*/
         
+        //resolve each var ONCE for all form instances
+        Set<String> vNames = getAllVarNames( context );
+        String[] varNames = vNames.toArray( new String[ vNames.size() ] );
+        Object[] values = new Object[ varNames.length ];
+        for( int i = 0; i < varNames.length; i++ )
+        {
+            values[ i ] = indexedView( 
+                context.getVarResolver().resolveVar( context, varNames[ i ] ) );
+        }
+        
         //find out the number of Forms
-        int cardinality = getFormInstanceCount( context );
+        int cardinality = getFormInstanceCount( varNames, values );
        
         /*{?debug=true:*/
         //System.out.println( "cardinality is : " + cardinality );/*}*/
         
+        //only the vars used in the form are bound for each instance
+        Set<String> formVarNames = formDom.getAllVarNames( context );
+        boolean[] isFormVar = new boolean[ varNames.length ];
+        for( int i = 0; i < varNames.length; i++ )
+        {
+            isFormVar[ i ] = formVarNames.contains( varNames[ i ] );
+        }
+        
         //now generate Each Form
         String[] eachForm = new String[ cardinality ]; 
         for( int i = 0; i < cardinality; i++ )
         {
-            eachForm[ i ] = tailorAt( i, context );
+            eachForm[ i ] = tailorAt( i, context, varNames, values, isFormVar );
             //System.out.println("[" + i + "]=\"" + eachForm[ i ] +"\"");
         }
         //	use the form separator
         out.append( seriesFormatter.format( eachForm ) );
     }    
     
-    //should be private, making public for testing
-    private String tailorAt( int index, VarContext context )
+    private String tailorAt( 
+        int index, 
+        VarContext context, 
+        String[] varNames, 
+        Object[] values, 
+        boolean[] isFormVar )
     {
-        //System.out.println( "Tailoring at [" + index + "]" );
         //create a new bindings for populating the VarCode that is going to be 
         //at the LOOP level          
         VarBindings loopBindings = 
             context.getOrCreateBindings( VarScope.LOOP );
         
-        Set<String> vNames = formDom.getAllVarNames( context );
+        //the LOOP bindings before this form was tailored (i.e. if this form 
+        //is nested within another form, the outer form's loop vars)
+        Object[] previous = new Object[ varNames.length ];
+        boolean[] bound = new boolean[ varNames.length ];
         
-        String[] varNames = vNames.toArray( new String[ 0 ] );
-        
-        for( int i = 0; i < varNames.length; i++ )
-        {            
-            //Object thisOne = context.get( varNames[ i ] );
-            Object thisOne = context.getVarResolver().resolveVar( context, varNames[ i ] );
-            
-            //System.out.println( varNames[ i ] + "=" + thisOne );
-            if( thisOne != null )
-            {
-                if( thisOne.getClass().isArray() )
-                {   //do a range check
-                    if( Array.getLength( thisOne ) > index )
-                    {   //note this will OVERWRITE the last var value 
-                        //from the last iteration of the loop
-                        loopBindings.put( 
-                            varNames[ i ], 
-                            Array.get( thisOne, index ) );
-                    }   
-                    else
-                    {   
-                    	if( requiredVars.contains( varNames[ i ] ) )
-                    	{
-                    		throw new VarException(
-                    			"Cardinality Mismatch for Required Var \"" 
-                    		    + varNames[ i ] + "\" of Form " + N + getText() + N 
-                    		    + "failed at [" + index + "]" );
-                    	}
-                    	//failed range check (it's null, but "" will suffice)
-                        loopBindings.put( varNames[ i ], "" );
-                    }
+        try
+        {
+            for( int i = 0; i < varNames.length; i++ )
+            {            
+                if( !isFormVar[ i ] || values[ i ] == null )
+                {
+                    continue;
+                }
+                int size = indexedSize( values[ i ] );
+                if( size < 0 )
+                {   //not iterable
+                    continue;
                 }
-                if( thisOne instanceof Collection )
+                Object value = "";
+                if( size > index )
+                {   //note this will OVERWRITE the last var value 
+                    //from the last iteration of the loop
+                    value = indexedGet( values[ i ], index );
+                }
+                else if( requiredVars.contains( varNames[ i ] ) )
                 {
-                    Collection<?> l = (Collection<?>)thisOne;
-                    
-                    if( l.size() > index )
-                    {                    	
-                        loopBindings.put( 
-                        	varNames[ i ], 
-                        	l.toArray( new Object[0] )[ index  ] );
-                        	//Collectionsl.get( index ) ) ;
-                    }
-                    else
-                    {
-                    	if( requiredVars.contains( varNames[ i ] ) )
-                    	{
-                    		throw new VarException(
-                    			"Cardinality Mismatch for Required Var \"" + varNames[ i ] + "\"" );
-                    	}
-                        loopBindings.put( varNames[ i ], "" );
-                    }
-                }                
+                    throw new VarException(
+                        "Cardinality Mismatch for Required Var \"" 
+                        + varNames[ i ] + "\" of Form " + N + getText() + N 
+                        + "failed at [" + index + "]" );
+                }
+                //failed range check (it's null, but "" will suffice)
+                previous[ i ] = loopBindings.get( varNames[ i ] );
+                bound[ i ] = true;
+                loopBindings.put( varNames[ i ], value );
             }
+        	return this.fillOne( context );
+        }
+        finally
+        {
+        	//ensure there is no bleed through of data 
+        	//(restore the "loop") bindings
+        	for( int i = 0; i < varNames.length; i++ )
+        	{
+        		if( !bound[ i ] )
+        		{
+        			continue;
+        		}
+        		if( previous[ i ] == null )
+        		{
+        			loopBindings.remove( varNames[ i ] );
+        		}
+        		else
+        		{
+        			loopBindings.put( varNames[ i ], previous[ i ] );
+        		}
+        	}
         }
-        
-        String tailoredAt = this.fillOne( context );    
-        
-        //ensure there is no bleed through of data 
-        //(replace the "loop") bindings
-        loopBindings.clear();
-        
-        return tailoredAt;
     }
 
     @Override
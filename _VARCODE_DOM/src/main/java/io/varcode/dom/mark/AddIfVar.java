@@ -21,6 +21,7 @@ import java.util.Set;
 import io.varcode.context.VarContext;
 import io.varcode.dom.ParseState;
 import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.DerivedFromVar;
 import io.varcode.dom.mark.Mark.HasVars;
 import io.varcode.text.TextBuffer;
 
@@ -51,7 +52,7 @@ import io.varcode.text.TextBuffer;
        }*/
 public class AddIfVar
     extends Mark
-    implements BlankFiller, HasVars
+    implements BlankFiller, HasVars, DerivedFromVar
 {
     /** the var name in the context to test*/
     public final String varName;
@@ -102,7 +103,17 @@ public class AddIfVar
     
     public Object derive( VarContext context )
     {
-        Object resolved = context.getVarResolver().resolveVar( context, varName );
+        return deriveFrom( 
+            context.getVarResolver().resolveVar( context, varName ) );
+    }
+    
+    public boolean isDerivedFromValue()
+    {
+        return true;
+    }
+    
+    public Object deriveFrom( Object resolved )
+    {
         if( resolved == null )
         {        	
             return null;
@@ -22,6 +22,7 @@ import io.varcode.context.ResultRequiredButNull;
 import io.varcode.context.VarContext;
 import io.varcode.context.VarRequiredButNull;
 import io.varcode.context.VarScript;
+import io.varcode.context.VarScript.ScriptInputParser.PlannedInput;
 import io.varcode.dom.ParseState;
 import io.varcode.dom.mark.Mark.BlankFiller;
 import io.varcode.dom.mark.Mark.HasScript;
@@ -51,6 +52,9 @@ public class AddScriptResult
 	
 	private final String scriptInput;
 	
+	/** the script input (parsed ONCE) */
+	private final PlannedInput plannedInput;
+	
 	private final boolean isRequired;
 	
 	public AddScriptResult(
@@ -64,6 +68,7 @@ public class AddScriptResult
         this.scriptName = scriptName;
         this.scriptInput = scriptInput;     
         this.isRequired = isRequired;
+        this.plannedInput = new PlannedInput( scriptInput );
     }
 	
 	public String toString()
@@ -74,12 +79,16 @@ public class AddScriptResult
 	public Object derive( VarContext context ) 
 	{	
 	    VarScript script = context.getVarScript( scriptName );
+	    if( script == null )
+	    {   //resolve a static method / class (i.e. "com.acme.Names.toConst")
+	    	script = context.resolveScript( scriptName, scriptInput );
+	    }
         if( script != null )
         {            
         	Object derived = null;
             try
             {
-                derived = script.eval( context, scriptInput );                
+                derived = plannedInput.eval( script, context );                
             }
             catch( Exception e )
             {
@@ -137,6 +146,10 @@ public class AddScriptResult
 	{
 		VarScript script = context.getVarScript( scriptName );
 		if( script == null )
+		{
+			script = context.resolveScript( scriptName, scriptInput );
+		}
+		if( script == null )
 		{ 
 			throw new VarException( 
 				"Unable to resolve script named \"" 
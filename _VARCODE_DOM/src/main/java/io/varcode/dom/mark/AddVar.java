@@ -22,6 +22,7 @@ import io.varcode.context.VarContext;
 import io.varcode.context.VarRequiredButNull;
 import io.varcode.dom.ParseState;
 import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.DerivedFromVar;
 import io.varcode.dom.mark.Mark.HasVars;
 import io.varcode.dom.mark.Mark.IsNamed;
 import io.varcode.dom.mark.Mark.MayBeRequired;
@@ -62,7 +63,7 @@ import io.varcode.text.TextBuffer;
 
 public class AddVar
     extends Mark
-	implements IsNamed, BlankFiller, HasVars, MayBeRequired 
+	implements IsNamed, BlankFiller, HasVars, MayBeRequired, DerivedFromVar 
 {	
 	private final String varName;
 	
@@ -99,9 +100,17 @@ public class AddVar
 
 	public Object derive( VarContext context ) 
 	{
-		Object resolved = 
-			context.getVarResolver().resolveVar( context, varName );
-		
+		return deriveFrom( 
+			context.getVarResolver().resolveVar( context, varName ) );
+	}
+	
+	public boolean isDerivedFromValue()
+	{
+		return true;
+	}
+	
+	public Object deriveFrom( Object resolved )
+	{
 		if ( resolved == null )
 		{
 		    if( isRequired )
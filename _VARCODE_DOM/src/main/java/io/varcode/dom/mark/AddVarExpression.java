@@ -18,6 +18,7 @@ package io.varcode.dom.mark;
 import java.util.HashSet;
 import java.util.Set;
 
+import io.varcode.VarException;
 import io.varcode.context.EvalException;
 import io.varcode.context.VarBindException;
 import io.varcode.context.VarContext;
@@ -25,6 +26,7 @@ import io.varcode.context.VarRequiredButNull;
 import io.varcode.dom.MarkupException;
 import io.varcode.dom.ParseState;
 import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.DerivedFromVar;
 import io.varcode.dom.mark.Mark.HasVars;
 import io.varcode.dom.mark.Mark.IsNamed;
 import io.varcode.dom.mark.Mark.MayBeRequired;
@@ -53,7 +55,7 @@ import io.varcode.text.TextBuffer;
 //CodeML /*{+bitCount:(( bitCount > 0 && bitCount <= 64 ))|1+}*/ WITH DEFAULT
 public class AddVarExpression
     extends Mark
-	implements IsNamed, BlankFiller, HasVars, MayBeRequired 
+	implements IsNamed, BlankFiller, HasVars, MayBeRequired, DerivedFromVar 
 {	
 	private final String varName;
 	
@@ -123,6 +125,41 @@ public class AddVarExpression
 		return text;
 	}
 
+	public String getValidationExpression()
+	{
+		return validationExpression;
+	}
+	
+	/** (no validation expression to evaluate) */
+	public boolean isDerivedFromValue()
+	{
+		return validationExpression == null;
+	}
+	
+	/**
+	 * derive from the value of the var (ONLY if there is no validation 
+	 * expression, evaluating the validation expression needs the context) 
+	 */
+	public Object deriveFrom( Object resolved )
+	{
+		if( validationExpression != null )
+		{
+			throw new VarException( 
+				"AddVarExpression Mark :" + N + text + N 
+			  + "on line [" + lineNumber + "] with a validation expression "
+			  + "must be derived with a VarContext" );
+		}
+		if ( resolved == null )
+		{
+		    if( isRequired )
+            {
+		    	throw new VarRequiredButNull( varName, text, lineNumber );                
+            }
+		    return defaultValue;
+		}
+		return resolved;
+	}
+	
 	public Object derive( VarContext context ) 
 	{
 		Object resolved = 
@@ -6,6 +6,7 @@ import io.varcode.VarException;
 import io.varcode.context.VarContext;
 import io.varcode.context.VarScope;
 import io.varcode.context.VarScript;
+import io.varcode.context.VarScript.ScriptInputParser.PlannedInput;
 import io.varcode.context.EvalException;
 import io.varcode.context.ResultRequiredButNull;
 import io.varcode.dom.DomParseState;
@@ -75,6 +76,9 @@ public abstract class DefineVarAsScriptResult
      */
     public final String scriptInput;
     
+    /** the script input (parsed ONCE) */
+    private final PlannedInput plannedInput;
+    
     public DefineVarAsScriptResult( 
         String text, 
         int lineNumber,
@@ -86,6 +90,7 @@ public abstract class DefineVarAsScriptResult
         this.varName = varName;
         this.scriptName = scriptName;
         this.scriptInput = scriptInput;
+        this.plannedInput = new PlannedInput( scriptInput );
     }
     
     @Override
@@ -130,6 +135,10 @@ public abstract class DefineVarAsScriptResult
     {
         VarScript varScript = context.getVarScript( scriptName );
         if( varScript == null )
+        {   //resolve a static method / class (i.e. "com.acme.Names.toConst")
+        	varScript = context.resolveScript( scriptName, scriptInput );
+        }
+        if( varScript == null )
         {
             throw new VarException(
                 "No script named \"" + scriptName + "\" for mark:" + N
@@ -137,7 +146,7 @@ public abstract class DefineVarAsScriptResult
         }
         try
         {
-            return varScript.eval( context, scriptInput );
+            return plannedInput.eval( varScript, context );
         }
         catch( Throwable t )
         {
@@ -7,6 +7,7 @@ import io.varcode.context.EvalException;
 import io.varcode.context.ResultRequiredButNull;
 import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
+import io.varcode.context.VarScript.ScriptInputParser.PlannedInput;
 import io.varcode.dom.mark.Mark.Derived;
 import io.varcode.dom.mark.Mark.HasScript;
 import io.varcode.dom.mark.Mark.MayBeRequired;
@@ -43,6 +44,9 @@ public class EvalScript
     /** input to the script*/
     private final String scriptInput;
     
+    /** the script input (parsed ONCE) */
+    private final PlannedInput plannedInput;
+    
     private final boolean isRequired;
     
     /*{$maxCount(fieldName,8)}*/
@@ -58,6 +62,7 @@ public class EvalScript
         this.scriptName = scriptName;
         this.scriptInput = scriptInput;
         this.isRequired = isRequired;
+        this.plannedInput = new PlannedInput( scriptInput );
     }
 
     @Override
@@ -70,7 +75,7 @@ public class EvalScript
             try
             {
             	//System.out.println( "Evaluating SCRIPT" );
-                result = theScript.eval( context, scriptInput );               
+                result = plannedInput.eval( theScript, context );               
             }
             catch( Exception e )
             {
@@ -235,4 +235,38 @@ public abstract class Mark
     {
         public String getVarName();
     }
+    
+    /**
+     * A Mark whose value is derived ONLY from the value of a single var 
+     * (so it can be derived from a value resolved elsewhere, i.e. a slot
+     * in a {@code SlotTailor})
+     * 
+     * @see AddVar
+     * @see AddVarExpression
+     * @see AddIfVar
+     * @see ReplaceWithVar
+     */
+    public interface DerivedFromVar
+        extends Derived
+    {
+        /** the name of the var the value is derived from */
+        public String getVarName();
+        
+        /** 
+         * @return true if the result is derived ONLY from the value of the 
+         * var (false if it also needs the {@code VarContext}, i.e. to 
+         * evaluate a validation expression)
+         */
+        public boolean isDerivedFromValue();
+        
+        /** 
+         * derive the result from the (resolved) value of the var 
+         * 
+         * @param value the value of the var (may be null)
+         * @return the derived result 
+         * @throws VarException if the value is required but null
+         */
+        public Object deriveFrom( Object value )
+            throws VarException;
+    }
 }
@@ -68,6 +68,10 @@ public class ReplaceWithScriptResult
     public Object derive( VarContext context )
     {
         VarScript theScript = context.getVarScript( scriptName );
+        if( theScript == null )
+        {   //resolve a static method / class (i.e. "com.acme.Names.toConst")
+        	theScript = context.resolveScript( scriptName, wrappedContent );
+        }
         if( theScript != null )
         {
             try
@@ -23,6 +23,7 @@ import io.varcode.context.VarContext;
 import io.varcode.context.VarRequiredButNull;
 import io.varcode.dom.ParseState;
 import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.DerivedFromVar;
 import io.varcode.dom.mark.Mark.HasVars;
 import io.varcode.dom.mark.Mark.IsNamed;
 import io.varcode.dom.mark.Mark.MayBeRequired;
@@ -63,7 +64,8 @@ import io.varcode.text.TextBuffer;
  //
 public class ReplaceWithVar
 	extends Mark
-	implements IsNamed, BlankFiller, WrapsContent, HasVars, MayBeRequired
+	implements IsNamed, BlankFiller, WrapsContent, HasVars, MayBeRequired, 
+	    DerivedFromVar
 {	
     /** All of the Text wrapped within the mark (between the tags) */
     private final String wrappedContent;
@@ -120,7 +122,18 @@ public class ReplaceWithVar
 	public Object derive( VarContext context )
 	    throws VarException
 	{ 
-		Object toFill = context.getVarResolver().resolveVar( context, varName );
+		return deriveFrom( 
+			context.getVarResolver().resolveVar( context, varName ) );
+	}
+	
+	public boolean isDerivedFromValue()
+	{
+		return true;
+	}
+	
+	public Object deriveFrom( Object toFill )
+	    throws VarException
+	{
 		if ( toFill == null )
 		{
 		    if( isRequired )
@@ -10,8 +10,8 @@ import org.slf4j.LoggerFactory;
 import io.varcode.VarException;
 import io.varcode.context.VarContext;
 import io.varcode.dom.Dom;
+import io.varcode.dom.DomCache;
 import io.varcode.dom.MarkupException;
-import io.varcode.dom.codeml.CodeML;
 import io.varcode.java.javac.InMemoryJavaClassLoader;
 import io.varcode.java.javac.InMemoryJavaSource;
 import io.varcode.markup.MarkupRepo;
@@ -49,13 +49,22 @@ public class JavaCase
          return dom( JavaMarkupPath.INSTANCE, markupClazz );
     }
     
+    /**
+     * Using the markupRepo resolve the markup source for {@code markupClazz}
+     * and return the Dom (only compiling the Dom if the markup is not
+     * cached or has changed) 
+     * 
+     * @param markupRepo where to obtain the source for the class
+     * @param markupClazz the class marked up with CodeML marks
+     * @return the dom
+     */
     public static final Dom dom( MarkupRepo markupRepo, Class<?> markupClazz )
     { 
     	MarkupStream markupStream = markupRepo.markupStream( 
             markupClazz.getCanonicalName() + ".java" );
                 
-        Dom dom = CodeML.compile( markupStream );
-        LOG.debug( "Compiled Dom from \""+ markupClazz +"\"" );
+        Dom dom = DomCache.CODEML.dom( markupStream );
+        LOG.debug( "Resolved Dom from \""+ markupClazz +"\"" );
         return dom;
     }
     
@@ -106,7 +115,7 @@ public class JavaCase
     {
     	 MarkupStream markupStream = markupRepo.markupStream( fullyQualifiedClassName );
     	 
-    	 Dom markup = CodeML.compile( markupStream ); 
+    	 Dom markup = DomCache.CODEML.dom( markupStream ); 
     	       
     	 return new JavaCase( markup, keyValuePairs );
     }
@@ -171,7 +180,7 @@ public class JavaCase
         MarkupStream markupStream = markupRepo.markupStream( 
             markupClass.getCanonicalName() + ".java" );
 
-        Dom dom = CodeML.compile( markupStream ); 
+        Dom dom = DomCache.CODEML.dom( markupStream ); 
         
         Directive[] directives = 
         	getInnerClassTailorDirectives( markupClass ); 
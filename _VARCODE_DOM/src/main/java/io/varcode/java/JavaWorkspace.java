@@ -1,26 +1,15 @@
 package io.varcode.java;
 
-import java.io.IOException;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import javax.tools.DiagnosticCollector;
-import javax.tools.JavaCompiler.CompilationTask;
-import javax.tools.JavaFileObject;
-import javax.tools.StandardJavaFileManager;
-
-import io.varcode.VarException;
-import io.varcode.java.javac.InMemoryJavaClass;
 import io.varcode.java.javac.InMemoryJavaClassLoader;
 import io.varcode.java.javac.InMemoryJavaSource;
-import io.varcode.java.javac.InMemoryJavaWorkspace;
-import io.varcode.java.javac.InMemoryJavac;
-import io.varcode.java.javac.JavacException;
 import io.varcode.java.javac.JavacOptions;
+import io.varcode.java.javac.JavacSession;
 
 /**
  * A Workspace contains 1...N "tailored" java Files which are
@@ -79,9 +68,6 @@ public enum JavaWorkspace
 			new ArrayList<InMemoryJavaSource>();
 		
 		
-		private final List<InMemoryJavaClass> tailorClassTargets = 
-			new ArrayList<InMemoryJavaClass>();	
-		
 		/**
 		 * 
 		 * @param className the fully qualified class name:
@@ -100,30 +86,9 @@ public enum JavaWorkspace
 		public SourceWorkspace addJavaSource( InMemoryJavaSource javaSourceCode )
 		{
 			javaSourceFiles.add( javaSourceCode );
-			addTailorClassTargetFor( javaSourceCode.className );
 			return this;
 		}
 		
-		private void addTailorClassTargetFor( String className )
-		{
-			try	 
-    		{
-				tailorClassTargets.add(
-					new InMemoryJavaClass( className ) );
-    		}
-			catch( IllegalArgumentException e ) 
-    		{
-    			throw new VarException( 
-    				"Could not create (In Memory) Java Class for \"" 
-    				+ className + "\"", e );
-    		} 
-    		catch( URISyntaxException e ) 
-    		{
-    			throw new VarException( 
-    				"Could not create (In Memory) Java Class for \"" 
-    				+ className + "\"", e );
-    		}
-		}
 		public SourceWorkspace( 
 			String workspaceName, 
 			InMemoryJavaSource...javaSource )
@@ -148,56 +113,35 @@ public enum JavaWorkspace
 		 */
 		public CompiledWorkspace compile(
 			JavacOptions.CompilerOption...compilerOptions )
+		{
+			JavacSession session = new JavacSession();
+			try
+			{
+				return compile( session, compilerOptions );
+			}
+			finally
+			{
+				session.close();
+			}
+		}
+		
+		/** 
+		 * Compile the Workspace in the (reusable) {@code JavacSession} 
+		 * using the (optional) CompilerOptions and return the 
+		 * CompiledWorkspace (all sources are compiled in a single task)
+		 * 
+		 * @param session the session (NOT closed after compiling)
+		 * @param compilerOptions options passed to the JavacCompiler Tool
+		 * @return the Compiled Workspace
+		 */
+		public CompiledWorkspace compile(
+			JavacSession session, 
+			JavacOptions.CompilerOption...compilerOptions )
 		{
 			InMemoryJavaClassLoader classLoader = 
 		    	new InMemoryJavaClassLoader();	    	
 		    
-			StandardJavaFileManager baseFileManager = null; 
-	    	try
-	    	{
-	    		baseFileManager = 
-	    			InMemoryJavac.INSTANCE.JAVAC.getStandardFileManager( 
-	    				null, //use default DiagnosticListener
-	    				null, //use default Locale
-	    				null );//use default CharSet 
-	    	}
-	    	catch( Exception e )
-	    	{
-	    		throw new JavacException (
-	    			"JDK version 1.6 or greater (NOT a JRE) MUST BE used to compile "
-	    		  + "Java  at Runtime, you are currently using \"" 
-	    		  + System.getProperty( "java.version" ) 
-	    		  + "\" make sure you have a JDK (NOT A JRE) running" ); 
-	    	}
-	    	
-			InMemoryJavaWorkspace fileManager =  
-		        new InMemoryJavaWorkspace(
-		            baseFileManager, 
-		            tailorClassTargets, 
-		            classLoader );
-		        
-			Iterable<String>options = JavacOptions.optionsFrom( compilerOptions );
-			
-			DiagnosticCollector<JavaFileObject> diagnostics = 
-			    new DiagnosticCollector<JavaFileObject>();
-			
-			CompilationTask task = InMemoryJavac.INSTANCE.JAVAC.getTask(
-				null, //use System.err if the tool fails 
-				fileManager, 
-				diagnostics, 
-				options, 
-				null, // NO classes to be processed for Annotations (at this time) 
-		 		javaSourceFiles );
-			
-			boolean compiledNoErrors = task.call();
-			
-	        if( !compiledNoErrors )
-	        { 
-	        	throw new JavacException( 
-	        		name, 
-	        		javaSourceFiles,  
-	        		diagnostics );
-	        }
+			session.compile( name, classLoader, javaSourceFiles, compilerOptions );
 	        	        
 	        Map<String, Class<?>> loadedClasses = 
 	        	new HashMap<String, Class<?>>();
@@ -209,15 +153,6 @@ public enum JavaWorkspace
 	        	
 	        	loadedClasses.put( javaSourceFiles.get( i ).getClassName(), tailoredClass );
 	        }
-	        	        
-	        try
-            {
-        		fileManager.close();
-            }
-            catch( IOException ioe )
-            {
-            	//LOG.warn( "Error closing BaseFileManager", ioe);            	
-            }
 	        return new CompiledWorkspace( loadedClasses );       
 		}	
 	}
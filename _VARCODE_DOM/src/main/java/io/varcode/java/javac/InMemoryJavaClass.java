@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 
 import javax.tools.SimpleJavaFileObject;
 
@@ -21,8 +22,17 @@ public class InMemoryJavaClass
     extends SimpleJavaFileObject
 {	
     /** Binary in-memory representation of the Class' bytecodes */
-    private ByteArrayOutputStream inMemoryBytecode = 
-        new ByteArrayOutputStream();
+    private final Bytecode inMemoryBytecode = new Bytecode();
+    
+    /** exposes the written bytes (without copying) as a {@code ByteBuffer} */
+    private static final class Bytecode
+        extends ByteArrayOutputStream
+    {
+        private synchronized ByteBuffer toByteBuffer()
+        {
+            return ByteBuffer.wrap( buf, 0, count );
+        }
+    }
 
     /**
      * Initialize 
@@ -34,6 +44,19 @@ public class InMemoryJavaClass
     {
         super( new URI( className ), Kind.CLASS );
     }
+    
+    /**
+     * Initialize with (previously compiled) bytecode
+     * (i.e. read from a {@code JavacClassCache})
+     * @param className the class name
+     * @param bytecode the bytecode of the class
+     */
+    public InMemoryJavaClass( String className, byte[] bytecode ) 
+        throws IllegalArgumentException, URISyntaxException 
+    {
+        this( className );
+        this.inMemoryBytecode.write( bytecode, 0, bytecode.length );
+    }
 
     @Override
     /** The"FileManager"/"ClassLoader" writes the class' bytecodes to the local 
@@ -50,6 +73,18 @@ public class InMemoryJavaClass
     {
         return inMemoryBytecode.toByteArray();
     }
+    
+    /** 
+     * gets the Class bytecodes as a view of the bytes (without copying
+     * the bytes, so they can be defined by the ClassLoader without a copy)
+     * 
+     * NOTE: the buffer is backed by the bytecode, it must not be modified
+     * (and is not a read-only buffer, which would be copied to be defined)
+     */
+    ByteBuffer toByteBuffer()
+    {
+        return inMemoryBytecode.toByteBuffer();
+    }
 
     public Lang getLanguage()
     {
@@ -1,7 +1,7 @@
 package io.varcode.java.javac;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.varcode.VarException;
 
@@ -9,13 +9,26 @@ import io.varcode.VarException;
  * A ClassLoader that is used for "introducing" {@code InMemoryJavaClass}es
  * at runtime. 
  * 
+ * The ClassLoader is parallel capable (classes are loaded while holding a 
+ * lock per class name, rather than a lock on the ClassLoader), so many 
+ * threads can load tailored classes at the same time; each class is 
+ * defined ONCE (finding an already defined class returns it).
+ * 
+ * NOTE: introducing a class after a class with the same name has been 
+ * defined does not redefine the class 
+ * 
  * @author M. Eric DeFazio eric@varcode.io
  */
 public class InMemoryJavaClassLoader
     extends ClassLoader
 {
-    private Map<String, InMemoryJavaClass> classNameToInMemoryClass = 
-        new HashMap<String, InMemoryJavaClass>();
+    static
+    {
+        ClassLoader.registerAsParallelCapable();
+    }
+    
+    private final Map<String, InMemoryJavaClass> classNameToInMemoryClass = 
+        new ConcurrentHashMap<String, InMemoryJavaClass>();
 
     public InMemoryJavaClassLoader()
     {
@@ -42,20 +55,28 @@ public class InMemoryJavaClassLoader
     public Class<?> findClass( String name ) 
         throws VarException 
     {
-    	try
+    	synchronized( getClassLoadingLock( name ) )
     	{
-    		InMemoryJavaClass inMemClass = classNameToInMemoryClass.get( name );
-    		if( inMemClass == null ) 
+    		Class<?> loaded = findLoadedClass( name );
+    		if( loaded != null )
+    		{   //already defined (i.e. found directly, or by another thread)
+    			return loaded;
+    		}
+    		try
     		{
-    			return super.findClass( name );
+    			InMemoryJavaClass inMemClass = classNameToInMemoryClass.get( name );
+    			if( inMemClass == null ) 
+    			{
+    				return super.findClass( name );
+    			}
+    			//define from the bytecode buffer (without copying the bytes)
+    			return defineClass( name, inMemClass.toByteBuffer(), null );
+    		}
+    		catch( ClassNotFoundException e )
+    		{
+    			throw new VarException( 
+    				"Couldn't find class \"" + name + "\"", e );
     		}
-    		byte[] byteCode = inMemClass.toByteArray();
-    		return defineClass( name, byteCode, 0, byteCode.length );
-    	}
-    	catch( ClassNotFoundException e )
-    	{
-    		throw new VarException( 
-    			"Couldn't find class \"" + name + "\"", e );
     	}
     }
 }
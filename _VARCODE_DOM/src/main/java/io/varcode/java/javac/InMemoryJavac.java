@@ -1,21 +1,12 @@
 package io.varcode.java.javac;
 
-import java.io.IOException;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
-import javax.tools.JavaFileObject;
-import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import io.varcode.VarException;
 
 /**
@@ -31,9 +22,6 @@ public enum InMemoryJavac
 {
     INSTANCE; //singleton enum idiom
 	
-    private static final Logger LOG = 
-        LoggerFactory.getLogger( InMemoryJavac.class );
-    
 	/** static reference to the Javac Compiler Tool (at Runtime)*/
     public final JavaCompiler JAVAC; 
     
@@ -47,16 +35,16 @@ public enum InMemoryJavac
         List<InMemoryJavaSource> javaCode, 
         JavacOptions.CompilerOption... compilerOptions )         
     {
-        compile( inMemoryClassLoader, javaCode, compilerOptions );
-        
-        Map<String, Class<?>> loadedClasses = new HashMap<String, Class<?>>();
-        for( int i = 0; i < javaCode.size(); i++) 
-        {
-        	loadedClasses.put(
-        		javaCode.get( i ).getClassName(), 
-        		inMemoryClassLoader.findClass( javaCode.get( i ).getClassName() ) );        	
-        }
-        return loadedClasses;       
+    	JavacSession session = new JavacSession( INSTANCE.JAVAC );
+    	try
+    	{
+    		return session.compileLoadClasses( 
+    			inMemoryClassLoader, javaCode, compilerOptions );
+    	}
+    	finally
+    	{
+    		session.close();
+    	}
     }
     
     /**
@@ -85,6 +73,9 @@ public enum InMemoryJavac
      * Compiles the Tailored Java Code and returns a {@code TailoreClass} 
      * representing the bytes of the compiled class
      * 
+     * (creates and closes a new file manager for each call, to compile 
+     * many times use a {@code JavacSession})
+     * 
      * @param inMemoryClassLoader the classLoader
      * @param listOfJavaCode the Code to be compiled
      * @return the Class representing the compiled 
@@ -95,110 +86,15 @@ public enum InMemoryJavac
         JavacOptions.CompilerOption... compilerOptions )
     	throws JavacException
     {   
-    	StringBuilder javaSourceNames = new StringBuilder();
-    	if( LOG.isDebugEnabled() )
-    	{
-    		for( int i = 0; i < listOfJavaCode.size(); i++ )
-    		{
-    			if (i > 0 )
-    			{
-    				javaSourceNames.append( ", " );
-    			}
-    			javaSourceNames.append( listOfJavaCode.get( i ).className );
-    		}
-    		LOG.debug( "Compiling ["+ listOfJavaCode.size()+"] Java classes {"+ javaSourceNames.toString() + "}");
-    	}
-    	StandardJavaFileManager baseFileManager = null; 
+    	JavacSession session = new JavacSession( INSTANCE.JAVAC );
     	try
     	{
-    		baseFileManager = 
-    			INSTANCE.JAVAC.getStandardFileManager( 
-    				null, //use default DiagnosticListener
-    				null, //use default Locale
-    				null );//use default CharSet 
+    		return session.compile( 
+    			inMemoryClassLoader, listOfJavaCode, compilerOptions );
     	}
-    	catch( Exception e )
+    	finally
     	{
-    		throw new JavacException (
-    			"JDK version 1.6 or greater (NOT a JRE) MUST BE used to compile "
-    		  + "Java  at Runtime, you are currently using \"" 
-    		  + System.getProperty( "java.version" ) 
-    		  + "\" make sure you have a JDK (NOT A JRE) running" ); 
+    		session.close();
     	}
-
-        List<InMemoryJavaClass> tailorClassTargets = 
-        	new ArrayList<InMemoryJavaClass>();
-        
-        for( int i = 0; i < listOfJavaCode.size(); i++ )
-        {	
-        	try	 
-			{
-        		tailorClassTargets.add(
-        			new InMemoryJavaClass( listOfJavaCode.get( i ).className ) );
-			} 
-			catch( IllegalArgumentException e ) 
-			{
-				throw new JavacException( 
-					"Could not create (In Memory) Java Class for \"" 
-					+ listOfJavaCode.get( i ).className + "\"", e );
-			} 
-			catch( URISyntaxException e ) 
-			{
-				throw new JavacException( 
-					"Could not create (In Memory) Java Class for \"" 
-					+ listOfJavaCode.get( i ).className + "\"", e );
-			}
-        } 
-   
-        InMemoryJavaWorkspace fileManager = 
-            new InMemoryJavaWorkspace(
-                baseFileManager, 
-                tailorClassTargets, 
-                inMemoryClassLoader );
-       
-        DiagnosticCollector<JavaFileObject> diagnostics = 
-            new DiagnosticCollector<JavaFileObject>();
-         
-        Iterable<String>javacOptions = JavacOptions.optionsFrom( compilerOptions );
-
-        JavaCompiler.CompilationTask task = 
-            INSTANCE.JAVAC.getTask( 
-                null, //use System.err for "additional" output from the compiler
-                fileManager, 
-                diagnostics, 
-                javacOptions, 
-                null, //classes
-                listOfJavaCode );
-        
-        boolean compiledWithoutErrors = task.call();
-        if( !compiledWithoutErrors )
-        { 
-        	
-        	try
-            {
-        		baseFileManager.close();
-            }
-            catch( IOException ioe )
-            {
-            	LOG.warn( "Error closing BaseFileManager", ioe);
-            }
-        	
-        	JavacException je = new JavacException(
-        		"AdHoc", listOfJavaCode, diagnostics );
-        	
-        	LOG.error( "Compilation Failed", je );
-        	
-        	throw je;
-        }
-        try
-        {
-        	baseFileManager.close();
-        }
-        catch( IOException ioe )
-        {
-        	LOG.warn( "Error closing BaseFileManager ", ioe);
-        }
-        LOG.debug( "Done Compiling {"+ javaSourceNames + "}" );
-        return tailorClassTargets;            
     }
 }
@@ -0,0 +1,409 @@
+package io.varcode.java.javac;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.varcode.text.DigestBuffer;
+
+/**
+ * A persistent (on-disk) content-addressed cache of compiled classes; 
+ * the classes compiled from a list of {@code InMemoryJavaSource}s are 
+ * stored in an archive file named by the SHA-1 of:
+ * <UL>
+ *  <LI>the class name and source text of each source
+ *  <LI>the javac options 
+ *  <LI>a fingerprint of the JDK and classpath (the version and the path, 
+ *  size and last modified time of each classpath entry)
+ * </UL>
+ * so a {@code JavacSession} can load unchanged classes (i.e. in a CI build
+ * or dev loop that re-generates the same classes) without calling javac.
+ * 
+ * The cache is opt-in, enabled by the system property 
+ * {@code -Dvarcode.javac.cache.dir=/path/to/cache} (or by setting a cache 
+ * on the {@code JavacSession})
+ * 
+ * Archive format (memory-mapped when read):
+ * <PRE>
+ * int   magic ("VCC1")
+ * int   class count
+ * (for each class)
+ *   int    name length, byte[] name (UTF-8)
+ *   int    bytecode length, byte[] bytecode
+ * </PRE>
+ * Archives are written to a temp file and renamed, so concurrent 
+ * processes sharing the cache directory never read a partial archive;
+ * unreadable archives are treated as a miss (and removed).
+ * 
+ * NOTE: the classpath is fingerprinted ONCE (when first needed) in the
+ * JVM, (classes on the classpath changed while the JVM is running are not
+ * detected)
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class JavacClassCache
+{
+	/*{-?(removeLog==true):*/
+	private static final Logger LOG =
+        LoggerFactory.getLogger( JavacClassCache.class );
+	/*-}*/
+	
+	/** system property of the directory of the (default) cache */
+	public static final String CACHE_DIR_PROPERTY = "varcode.javac.cache.dir";
+	
+	/** the magic number at the start of each archive ("VCC1") */
+	public static final int MAGIC = 0x56434331;
+	
+	/** the extension of archive files */
+	public static final String EXTENSION = ".vcc";
+	
+	private static final Charset UTF_8 = Charset.forName( "UTF-8" );
+	
+	/** the default cache (and the directory it was created for) */
+	private static JavacClassCache defaultCache;
+	
+	/** fingerprint of the JDK and classpath (computed once) */
+	private static String classpathFingerprint;
+	
+	private final File dir;
+	
+	private final AtomicLong hitCount = new AtomicLong();
+	
+	private final AtomicLong missCount = new AtomicLong();
+	
+	/**
+	 * @return the cache in the directory of the {@code CACHE_DIR_PROPERTY}
+	 * system property (or null if the property is not set)
+	 */
+	public static synchronized JavacClassCache getDefault()
+	{
+		String dirName = System.getProperty( CACHE_DIR_PROPERTY );
+		if( dirName == null || dirName.trim().length() == 0 )
+		{
+			return null;
+		}
+		File dir = new File( dirName.trim() );
+		if( defaultCache == null || !defaultCache.dir.equals( dir ) )
+		{
+			defaultCache = new JavacClassCache( dir );
+		}
+		return defaultCache;
+	}
+	
+	/** @param dir the directory of the cache (created if it doesn't exist) */
+	public JavacClassCache( File dir )
+	{
+		this.dir = dir;
+	}
+	
+	public File getDir()
+	{
+		return dir;
+	}
+	
+	public long getHitCount()
+	{
+		return hitCount.get();
+	}
+	
+	public long getMissCount()
+	{
+		return missCount.get();
+	}
+	
+	/**
+	 * @param javaSources the sources compiled (in a single task)
+	 * @param javacOptions the options passed to javac (may be null)
+	 * @return the key (SHA-1 hex) of the classes compiled from the sources
+	 */
+	public String keyOf( 
+		List<InMemoryJavaSource> javaSources, Iterable<String> javacOptions )
+	{
+		DigestBuffer sha1 = new DigestBuffer( null, "SHA-1", UTF_8 );
+		field( sha1, classpathFingerprint() );
+		if( javacOptions != null )
+		{
+			for( String option : javacOptions )
+			{
+				field( sha1, option );
+			}
+		}
+		field( sha1, "sources" );
+		for( int i = 0; i < javaSources.size(); i++ )
+		{
+			field( sha1, javaSources.get( i ).getClassName() );
+			field( sha1, javaSources.get( i ).getCode() );
+		}
+		return sha1.getHexDigest();
+	}
+	
+	/** appends a (length prefixed, so fields are unambiguous) field */
+	private static void field( DigestBuffer sha1, String value )
+	{
+		sha1.append( value.length() + ":" );
+		sha1.append( value );
+	}
+	
+	/** 
+	 * @return a fingerprint of the JDK and the classpath 
+	 */
+	public static synchronized String classpathFingerprint()
+	{
+		if( classpathFingerprint == null )
+		{
+			StringBuilder fingerprint = new StringBuilder();
+			fingerprint.append( System.getProperty( "java.vendor" ) ).append( ' ' )
+				.append( System.getProperty( "java.version" ) ).append( ' ' )
+				.append( System.getProperty( "java.home" ) ).append( '\n' );
+			appendPath( fingerprint, System.getProperty( "sun.boot.class.path" ) );
+			appendPath( fingerprint, System.getProperty( "java.class.path" ) );
+			classpathFingerprint = fingerprint.toString();
+		}
+		return classpathFingerprint;
+	}
+	
+	private static void appendPath( StringBuilder fingerprint, String path )
+	{
+		if( path == null )
+		{
+			return;
+		}
+		String[] entries = path.split( File.pathSeparator );
+		for( int i = 0; i < entries.length; i++ )
+		{
+			File entry = new File( entries[ i ] );
+			fingerprint.append( entries[ i ] );
+			if( entry.isDirectory() )
+			{   //(the count, total size and latest modified time of the files)
+				long[] stats = new long[ 3 ];
+				walk( entry, stats );
+				fingerprint.append( ' ' ).append( stats[ 0 ] )
+					.append( ' ' ).append( stats[ 1 ] )
+					.append( ' ' ).append( stats[ 2 ] );
+			}
+			else if( entry.exists() )
+			{
+				fingerprint.append( ' ' ).append( entry.length() )
+					.append( ' ' ).append( entry.lastModified() );
+			}
+			fingerprint.append( '\n' );
+		}
+	}
+	
+	private static void walk( File dir, long[] stats )
+	{
+		File[] files = dir.listFiles();
+		if( files == null )
+		{
+			return;
+		}
+		for( int i = 0; i < files.length; i++ )
+		{
+			if( files[ i ].isDirectory() )
+			{
+				walk( files[ i ], stats );
+			}
+			else
+			{
+				stats[ 0 ]++;
+				stats[ 1 ] += files[ i ].length();
+				stats[ 2 ] = Math.max( stats[ 2 ], files[ i ].lastModified() );
+			}
+		}
+	}
+	
+	private File archive( String key )
+	{
+		return new File( dir, key + EXTENSION );
+	}
+	
+	/**
+	 * @param key the key
+	 * @param javaSources the sources (the archive must contain a class for 
+	 * each source, in order)
+	 * @return the classes (in the order of the sources) or null if the
+	 * classes are not in the cache 
+	 */
+	public List<InMemoryJavaClass> load( 
+		String key, List<InMemoryJavaSource> javaSources )
+	{
+		File archive = archive( key );
+		if( !archive.isFile() )
+		{
+			missCount.incrementAndGet();
+			return null;
+		}
+		try
+		{
+			List<InMemoryJavaClass> classes = read( archive );
+			if( classes.size() != javaSources.size() )
+			{
+				throw new IOException( "expected (" + javaSources.size() 
+					+ ") classes, archive has (" + classes.size() + ")" );
+			}
+			for( int i = 0; i < classes.size(); i++ )
+			{
+				if( !classes.get( i ).getName().equals( 
+					javaSources.get( i ).getClassName() ) )
+				{
+					throw new IOException( "expected class \"" 
+						+ javaSources.get( i ).getClassName() + "\", archive has \"" 
+						+ classes.get( i ).getName() + "\"" );
+				}
+			}
+			hitCount.incrementAndGet();
+			/*{-?(removeLog==true):*/
+			if( LOG.isDebugEnabled() )
+			{
+				LOG.debug( "loaded (" + classes.size() + ") classes from \"" 
+					+ archive + "\"" );
+			}
+			/*-}*/
+			return classes;
+		}
+		catch( Exception e )
+		{   //(corrupt or partial, i.e. written by an old version)
+			/*{-?(removeLog==true):*/
+			LOG.warn( "removing unreadable class archive \"" + archive + "\"", e );
+			/*-}*/
+			archive.delete();
+			missCount.incrementAndGet();
+			return null;
+		}
+	}
+	
+	/** reads (memory maps) the classes in the archive */
+	private static List<InMemoryJavaClass> read( File archive )
+		throws IOException, URISyntaxException
+	{
+		FileChannel channel = FileChannel.open( 
+			archive.toPath(), StandardOpenOption.READ );
+		try
+		{
+			MappedByteBuffer buffer = 
+				channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+			try
+			{
+				if( buffer.getInt() != MAGIC )
+				{
+					throw new IOException( "not a class archive" );
+				}
+				int count = buffer.getInt();
+				List<InMemoryJavaClass> classes = new ArrayList<InMemoryJavaClass>();
+				for( int i = 0; i < count; i++ )
+				{
+					byte[] name = new byte[ buffer.getInt() ];
+					buffer.get( name );
+					byte[] bytecode = new byte[ buffer.getInt() ];
+					buffer.get( bytecode );
+					classes.add( new InMemoryJavaClass( 
+						new String( name, UTF_8 ), bytecode ) );
+				}
+				return classes;
+			}
+			catch( BufferUnderflowException bue )
+			{
+				throw new IOException( "truncated class archive", bue );
+			}
+			catch( NegativeArraySizeException nase )
+			{
+				throw new IOException( "corrupt class archive", nase );
+			}
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+	
+	/**
+	 * stores the compiled classes (failures to write are logged, the cache
+	 * is "best effort")
+	 * 
+	 * @param key the key
+	 * @param classes the compiled classes
+	 */
+	public void store( String key, List<InMemoryJavaClass> classes )
+	{
+		File archive = archive( key );
+		File temp = null;
+		try
+		{
+			if( !dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory() )
+			{
+				throw new IOException( "unable to create directory \"" + dir + "\"" );
+			}
+			temp = File.createTempFile( key, ".tmp", dir );
+			DataOutputStream out = new DataOutputStream( 
+				new BufferedOutputStream( new FileOutputStream( temp ) ) );
+			try
+			{
+				out.writeInt( MAGIC );
+				out.writeInt( classes.size() );
+				for( int i = 0; i < classes.size(); i++ )
+				{
+					byte[] name = classes.get( i ).getName().getBytes( UTF_8 );
+					out.writeInt( name.length );
+					out.write( name );
+					byte[] bytecode = classes.get( i ).toByteArray();
+					out.writeInt( bytecode.length );
+					out.write( bytecode );
+				}
+			}
+			finally
+			{
+				out.close();
+			}
+			try
+			{
+				Files.move( temp.toPath(), archive.toPath(), 
+					StandardCopyOption.ATOMIC_MOVE );
+			}
+			catch( AtomicMoveNotSupportedException amnse )
+			{
+				Files.move( temp.toPath(), archive.toPath(), 
+					StandardCopyOption.REPLACE_EXISTING );
+			}
+			/*{-?(removeLog==true):*/
+			if( LOG.isDebugEnabled() )
+			{
+				LOG.debug( "stored (" + classes.size() + ") classes in \"" 
+					+ archive + "\"" );
+			}
+			/*-}*/
+		}
+		catch( IOException ioe )
+		{
+			/*{-?(removeLog==true):*/
+			LOG.warn( "unable to store class archive \"" + archive + "\"", ioe );
+			/*-}*/
+			if( temp != null )
+			{
+				temp.delete();
+			}
+		}
+	}
+	
+	public String toString()
+	{
+		return "JavacClassCache \"" + dir + "\" (" + hitCount.get() + " hits, " 
+			+ missCount.get() + " misses)";
+	}
+}
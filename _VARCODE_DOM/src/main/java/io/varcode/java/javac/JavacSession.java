@@ -0,0 +1,346 @@
+package io.varcode.java.javac;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A long lived (reusable) session for compiling {@code InMemoryJavaSource}s
+ * at runtime.
+ *
+ * Creating a {@code StandardJavaFileManager} opens (and indexes) the
+ * platform classpath (rt.jar / ct.sym or the JDK module image), which
+ * dominates the cost of compiling small tailored classes; the session
+ * creates the base file manager ONCE and keeps it (and its caches) warm
+ * across compilations (until the session is closed).
+ *
+ * <PRE>
+ * JavacSession session = new JavacSession();
+ * try
+ * {
+ *     for( ... )
+ *     {
+ *         session.compileLoadClasses( classLoader, javaSources );
+ *     }
+ * }
+ * finally
+ * {
+ *     session.close();
+ * }
+ * </PRE>
+ *
+ * NOTE: the file manager is not thread-safe, so compilations within a
+ * session are serialized (use a session per thread to compile in parallel)
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class JavacSession
+	implements Closeable
+{
+	/*{-?(removeLog==true):*/
+	private static final Logger LOG =
+        LoggerFactory.getLogger( JavacSession.class );
+	/*-}*/
+
+	private final JavaCompiler javac;
+
+	/** the base file manager (reused for each compilation) */
+	private final StandardJavaFileManager baseFileManager;
+
+	private boolean closed = false;
+
+	private long compileCount = 0L;
+
+	private long sourceCount = 0L;
+
+	/** the number of compilations loaded from the class cache */
+	private long cacheHitCount = 0L;
+
+	/** cache of compiled classes (null if not cached) */
+	private JavacClassCache classCache = JavacClassCache.getDefault();
+
+	public JavacSession()
+		throws JavacException
+	{
+		this( InMemoryJavac.INSTANCE.JAVAC );
+	}
+
+	public JavacSession( JavaCompiler javac )
+		throws JavacException
+	{
+		this.javac = javac;
+		try
+		{
+			this.baseFileManager =
+				javac.getStandardFileManager(
+					null, //use default DiagnosticListener
+					null, //use default Locale
+					null );//use default CharSet
+		}
+		catch( Exception e )
+		{
+			throw new JavacException (
+				"JDK version 1.6 or greater (NOT a JRE) MUST BE used to compile "
+			  + "Java  at Runtime, you are currently using \""
+			  + System.getProperty( "java.version" )
+			  + "\" make sure you have a JDK (NOT A JRE) running" );
+		}
+	}
+
+	/**
+	 * Compile a Single Java Source File and return the Class
+	 *
+	 * @param inMemoryClassLoader classLoader
+	 * @param javaCode the JavaCode to compile
+	 * @param compilerOptions options for compiler
+	 * @return the bytecode (Java class)
+	 * @throws JavacException if the code could not be compiled
+	 */
+	public InMemoryJavaClass compile(
+		InMemoryJavaClassLoader inMemoryClassLoader,
+		InMemoryJavaSource javaCode,
+		JavacOptions.CompilerOption... compilerOptions )
+		throws JavacException
+	{
+		List<InMemoryJavaSource> codeList = new ArrayList<InMemoryJavaSource>();
+		codeList.add( javaCode );
+		return compile( inMemoryClassLoader, codeList, compilerOptions ).get( 0 );
+	}
+
+	/**
+	 * Compiles all of the Java sources (in a single compilation task)
+	 * and loads the classes
+	 *
+	 * @param inMemoryClassLoader the classLoader
+	 * @param javaCode the code to be compiled
+	 * @param compilerOptions options for compiler
+	 * @return map of the class name to the loaded class
+	 * @throws JavacException if the code could not be compiled
+	 */
+	public Map<String, Class<?>> compileLoadClasses(
+		InMemoryJavaClassLoader inMemoryClassLoader,
+		List<InMemoryJavaSource> javaCode,
+		JavacOptions.CompilerOption... compilerOptions )
+		throws JavacException
+	{
+		compile( inMemoryClassLoader, javaCode, compilerOptions );
+
+		Map<String, Class<?>> loadedClasses = new HashMap<String, Class<?>>();
+		for( int i = 0; i < javaCode.size(); i++)
+		{
+			loadedClasses.put(
+				javaCode.get( i ).getClassName(),
+				inMemoryClassLoader.findClass( javaCode.get( i ).getClassName() ) );
+		}
+		return loadedClasses;
+	}
+
+	/**
+	 * Compiles all of the Java sources (in a single compilation task)
+	 *
+	 * @param inMemoryClassLoader the classLoader
+	 * @param listOfJavaCode the Code to be compiled
+	 * @param compilerOptions options for compiler
+	 * @return the classes (bytecode) in the order of the sources
+	 * @throws JavacException if the code could not be compiled
+	 */
+	public List<InMemoryJavaClass> compile(
+		InMemoryJavaClassLoader inMemoryClassLoader,
+		List<InMemoryJavaSource> listOfJavaCode,
+		JavacOptions.CompilerOption... compilerOptions )
+		throws JavacException
+	{
+		return compile( "AdHoc", inMemoryClassLoader, listOfJavaCode, compilerOptions );
+	}
+
+	/**
+	 * Compiles all of the Java sources (in a single compilation task)
+	 *
+	 * @param name the name of the compilation (i.e. the workspace name)
+	 * @param inMemoryClassLoader the classLoader
+	 * @param listOfJavaCode the Code to be compiled
+	 * @param compilerOptions options for compiler
+	 * @return the classes (bytecode) in the order of the sources
+	 * @throws JavacException if the code could not be compiled
+	 */
+	public synchronized List<InMemoryJavaClass> compile(
+		String name,
+		InMemoryJavaClassLoader inMemoryClassLoader,
+		List<InMemoryJavaSource> listOfJavaCode,
+		JavacOptions.CompilerOption... compilerOptions )
+		throws JavacException
+	{
+		if( closed )
+		{
+			throw new JavacException( "the JavacSession is closed" );
+		}
+		/*{-?(removeLog==true):*/
+		if( LOG.isDebugEnabled() )
+		{
+			LOG.debug( "Compiling [" + listOfJavaCode.size() + "] Java classes "
+				+ "(compilation " + ( compileCount + 1 ) + " of session)" );
+		}
+		/*-}*/
+		Iterable<String>javacOptions = JavacOptions.optionsFrom( compilerOptions );
+
+		String cacheKey = null;
+		if( classCache != null )
+		{
+			cacheKey = classCache.keyOf( listOfJavaCode, javacOptions );
+			List<InMemoryJavaClass> cached =
+				classCache.load( cacheKey, listOfJavaCode );
+			if( cached != null )
+			{   //the same sources were compiled before, don't call javac
+				for( int i = 0; i < cached.size(); i++ )
+				{
+					inMemoryClassLoader.introduce( cached.get( i ) );
+				}
+				cacheHitCount++;
+				return cached;
+			}
+		}
+		List<InMemoryJavaClass> tailorClassTargets =
+			new ArrayList<InMemoryJavaClass>();
+
+		for( int i = 0; i < listOfJavaCode.size(); i++ )
+		{
+			try
+			{
+				tailorClassTargets.add(
+					new InMemoryJavaClass( listOfJavaCode.get( i ).className ) );
+			}
+			catch( IllegalArgumentException e )
+			{
+				throw new JavacException(
+					"Could not create (In Memory) Java Class for \""
+					+ listOfJavaCode.get( i ).className + "\"", e );
+			}
+			catch( URISyntaxException e )
+			{
+				throw new JavacException(
+					"Could not create (In Memory) Java Class for \""
+					+ listOfJavaCode.get( i ).className + "\"", e );
+			}
+		}
+
+		//NOTE: the workspace is NOT closed (that would close the base
+		// file manager which is reused)
+		InMemoryJavaWorkspace fileManager =
+			new InMemoryJavaWorkspace(
+				baseFileManager,
+				tailorClassTargets,
+				inMemoryClassLoader );
+
+		DiagnosticCollector<JavaFileObject> diagnostics =
+			new DiagnosticCollector<JavaFileObject>();
+
+		JavaCompiler.CompilationTask task =
+			javac.getTask(
+				null, //use System.err for "additional" output from the compiler
+				fileManager,
+				diagnostics,
+				javacOptions,
+				null, //classes
+				listOfJavaCode );
+
+		boolean compiledWithoutErrors = task.call();
+		compileCount++;
+		sourceCount += listOfJavaCode.size();
+		if( !compiledWithoutErrors )
+		{
+			JavacException je = new JavacException(
+				name, listOfJavaCode, diagnostics );
+
+			/*{-?(removeLog==true):*/
+			LOG.error( "Compilation Failed", je );
+			/*-}*/
+			throw je;
+		}
+		if( classCache != null )
+		{
+			classCache.store( cacheKey, tailorClassTargets );
+		}
+		return tailorClassTargets;
+	}
+
+	/** @return the class cache (null if classes are not cached) */
+	public synchronized JavacClassCache getClassCache()
+	{
+		return classCache;
+	}
+
+	/**
+	 * sets the class cache (by default, the {@code JavacClassCache} in the
+	 * directory of the {@code varcode.javac.cache.dir} system property)
+	 * @param classCache the cache (null to not cache classes)
+	 * @return this
+	 */
+	public synchronized JavacSession setClassCache( JavacClassCache classCache )
+	{
+		this.classCache = classCache;
+		return this;
+	}
+
+	/** @return the number of compilations loaded from the class cache */
+	public synchronized long getCacheHitCount()
+	{
+		return cacheHitCount;
+	}
+
+	/** @return the number of compilation tasks run in this session */
+	public synchronized long getCompileCount()
+	{
+		return compileCount;
+	}
+
+	/** @return the number of sources compiled in this session */
+	public synchronized long getSourceCount()
+	{
+		return sourceCount;
+	}
+
+	public synchronized boolean isClosed()
+	{
+		return closed;
+	}
+
+	/** closes the base file manager (the session cannot be reused) */
+	@Override
+	public synchronized void close()
+	{
+		if( closed )
+		{
+			return;
+		}
+		closed = true;
+		try
+		{
+			baseFileManager.close();
+		}
+		catch( IOException ioe )
+		{
+			/*{-?(removeLog==true):*/
+			LOG.warn( "Error closing BaseFileManager", ioe );
+			/*-}*/
+		}
+	}
+
+	public String toString()
+	{
+		return "JavacSession (" + compileCount + " compilations, "
+			+ sourceCount + " sources, " + cacheHitCount + " cache hits"
+			+ ( closed ? ", closed)" : ")" );
+	}
+}
@@ -0,0 +1,139 @@
+package io.varcode.tailor;
+
+import io.varcode.VarException;
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.text.SmartBuffer;
+
+/**
+ * A {@code Dom} compiled (ahead-of-time) to a generated Java class that
+ * tailors the {@code Dom} (see {@code DomJavaCompiler}).
+ *
+ * Tailoring a {@code CompiledDom} has the same contract as tailoring the
+ * {@code Dom} with {@code Tailor} (the same phases, directives, vars, etc.)
+ *
+ * <PRE>
+ * CompiledDom compiled = DomJavaCompiler.INSTANCE.compile( dom );
+ * String code = compiled.code( VarContext.of( "name", "MyClass" ) );
+ * //or
+ * String code = Tailor.code( compiled, VarContext.of( "name", "MyClass" ) );
+ * </PRE>
+ *
+ * A {@code CompiledDom} is immutable and may be tailored by many threads,
+ * provided each thread tailors with its OWN {@code VarContext}
+ * (see {@code Tailor})
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class CompiledDom
+{
+	/**
+	 * Tailors the {@code Dom}
+	 * (implemented by the generated classes)
+	 */
+	public interface Tailoring
+	{
+		public void tailor( TailorState tailorState )
+			throws VarException;
+	}
+
+	/** tailors the {@code Dom} with {@code Tailor} (not compiled) */
+	public enum Interpreted
+		implements Tailoring
+	{
+		INSTANCE;
+
+		public void tailor( TailorState tailorState )
+		{
+			Tailor.tailor( tailorState );
+		}
+	}
+
+	private final Dom dom;
+
+	private final Tailoring tailoring;
+
+	/** the generated Java source (null if not compiled) */
+	private final String javaSource;
+
+	public CompiledDom( Dom dom, Tailoring tailoring, String javaSource )
+	{
+		this.dom = dom;
+		this.tailoring = tailoring;
+		this.javaSource = javaSource;
+	}
+
+	public Dom getDom()
+	{
+		return dom;
+	}
+
+	/**
+	 * @return true if the {@code Dom} is tailored by a generated class
+	 * (false if it is tailored by {@code Tailor}, i.e. it was too large
+	 * to compile)
+	 */
+	public boolean isCompiled()
+	{
+		return javaSource != null;
+	}
+
+	/** @return the generated Java source (null if not compiled) */
+	public String getJavaSource()
+	{
+		return javaSource;
+	}
+
+	public String code( Object...keyValuePairs )
+	{
+		return code( VarContext.of( keyValuePairs ) );
+	}
+
+	public String code( VarContext context, Directive...directives )
+	{
+		TailorState tailorState = new TailorState(
+    		dom,
+    		context,
+    		SmartBuffer.createInstance(),
+    		directives );
+
+		tailor( tailorState );
+		return tailorState.getTextBuffer().toString();
+	}
+
+	public TailorState tailor( VarContext context )
+	{
+		TailorState tailorState = new TailorState(
+    		dom,
+    		context,
+    		SmartBuffer.createInstance() );
+		return tailor( tailorState );
+	}
+
+	/**
+	 * @param tailorState the state (containing this {@code Dom})
+	 * @return the updated TailorState
+	 */
+	public TailorState tailor( TailorState tailorState )
+		throws VarException
+	{
+		if( tailorState.getDom() != dom )
+		{
+			throw new VarException(
+				"the TailorState Dom is not the compiled Dom" );
+		}
+		TailorListener listener = tailorState.getContext().getTailorListener();
+		if( listener != null && tailoring != Interpreted.INSTANCE )
+		{   //(the phases are fused in the generated class, report the whole tailor)
+			return ListenedTailor.tailor( tailorState, tailoring, listener );
+		}
+		tailoring.tailor( tailorState );
+		return tailorState;
+	}
+
+	public String toString()
+	{
+		return "CompiledDom (" + ( isCompiled() ?
+			tailoring.getClass().getName() : "interpreted" ) + ")";
+	}
+}
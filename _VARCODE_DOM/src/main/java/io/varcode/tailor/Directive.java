@@ -1,5 +1,8 @@
 package io.varcode.tailor;
 
+import io.varcode.text.TextBuffer;
+import io.varcode.text.TextFilter;
+
 public interface Directive
 {
 	/** pre process the Tailor State */
@@ -21,5 +24,25 @@ public interface Directive
 		public void postProcess( TailorState tailorState )
 		{  }
 	}
+	
+	/**
+	 * A {@code Directive} that post-processes the tailored text as it is 
+	 * written (by a {@code TextFilter}) rather than after the whole document
+	 * is tailored. 
+	 * 
+	 * Consecutive {@code Streaming} directives are fused into a single 
+	 * chain of filters (the text passes through all of them in one pass, 
+	 * see {@code StreamingPipeline}); when a {@code Streaming} directive is
+	 * fused, its {@code postProcess} is NOT called.
+	 */
+	public interface Streaming
+		extends Directive
+	{
+		/**
+		 * @param tailorState the state (after pre-processing)
+		 * @param out the buffer receiving the post-processed text
+		 * @return the filter post-processing the text written to {@code out}
+		 */
+		public TextFilter filter( TailorState tailorState, TextBuffer out );
+	}
 }
-
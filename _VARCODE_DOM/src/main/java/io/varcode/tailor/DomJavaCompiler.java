@@ -0,0 +1,474 @@
+package io.varcode.tailor;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.varcode.VarException;
+import io.varcode.dom.Dom;
+import io.varcode.dom.FillInTheBlanks.FillTemplate;
+import io.varcode.dom.TailorPlan;
+import io.varcode.dom.mark.AddVar;
+import io.varcode.dom.mark.AddVarExpression;
+import io.varcode.dom.mark.Mark;
+import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.BoundDynamically;
+import io.varcode.dom.mark.Mark.DerivedFromVar;
+import io.varcode.dom.mark.Mark.MayBeRequired;
+import io.varcode.dom.mark.ReplaceWithVar;
+import io.varcode.java.javac.InMemoryJavaClassLoader;
+import io.varcode.java.javac.InMemoryJavaSource;
+import io.varcode.java.javac.JavacException;
+import io.varcode.java.javac.JavacSession;
+
+/**
+ * Compiles a {@code Dom} (ahead-of-time) into the Java source of a class
+ * specialized to tailor the {@code Dom}, then compiles and loads the
+ * class at runtime (with a {@code JavacSession}) as a {@code CompiledDom}.
+ *
+ * Rather than walking the {@code Mark}s (with {@code instanceof}
+ * dispatch) and filling the {@code FillTemplate} for every tailor, the
+ * generated class is "straight-line" code:
+ * <UL>
+ *  <LI>the static text is inlined as constant Strings
+ *  <LI>each (derived / bound) {@code Mark} is an inline call
+ *  (the mark's type is resolved when the class is generated)
+ *  <LI>each {@code AddVar}, {@code ReplaceWithVar} or {@code AddVarExpression}
+ *  (without a validation expression) blank is an inline read of the var
+ *  (by name) with the default as a constant
+ *  <LI>each other blank is an inline call to derive the fill
+ *  <LI>each fill is an inline append
+ * </UL>
+ *
+ * NOTE: forms (i.e. {@code AddFormIfVar}), scripts and expressions are
+ * still tailored by the {@code Mark} (the mark is called inline)
+ *
+ * To stay within class file limits, String constants are chunked (16K
+ * chars) and the statements are split across methods; a {@code Dom} with
+ * too many blanks to compile returns an (interpreted) {@code CompiledDom}
+ * tailored by {@code Tailor}.
+ *
+ * The generated class is loaded by a new {@code InMemoryJavaClassLoader}
+ * (whose parent is the loader of {@code Tailor}) so it can be garbage
+ * collected with the {@code CompiledDom}; javac resolves the varcode
+ * classes on the classpath of the running JVM.
+ *
+ * All Doms are compiled with a shared {@code JavacSession} (created on
+ * the first compile) which holds the javac file manager (and open jars);
+ * {@link #close()} releases it (a later compile creates a new session).
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public enum DomJavaCompiler
+{
+	INSTANCE;
+
+	/*{-?(removeLog==true):*/
+	private static final Logger LOG =
+        LoggerFactory.getLogger( DomJavaCompiler.class );
+	/*-}*/
+
+	/** the package of the generated classes */
+	public static final String PACKAGE_NAME = "io.varcode.tailor.compiled";
+
+	/** max chars in a String constant (the class file limit is 65535 UTF-8 bytes) */
+	public static final int MAX_CONSTANT_LENGTH = 16 * 1024;
+
+	/** max statements per generated method (the limit is 64K of bytecode) */
+	public static final int MAX_STATEMENTS_PER_METHOD = 256;
+
+	/**
+	 * max constants (text chunks, blanks and the var names and defaults of
+	 * inlined blanks) in a compiled Dom (each uses constant pool entries,
+	 * the limit is 65535)
+	 */
+	public static final int MAX_CONSTANTS = 16 * 1024;
+
+	private static final AtomicLong CLASS_COUNT = new AtomicLong();
+
+	/** (lazily created) reused to compile all Doms (until closed) */
+	private volatile JavacSession session;
+
+	/**
+	 * @param dom the dom to compile
+	 * @return the CompiledDom
+	 * @throws JavacException if the generated class could not be compiled
+	 * (i.e. running on a JRE without javac)
+	 */
+	public CompiledDom compile( Dom dom )
+		throws JavacException
+	{
+		if( countConstants( dom ) > MAX_CONSTANTS )
+		{
+			/*{-?(removeLog==true):*/
+			if( LOG.isDebugEnabled() )
+			{
+				LOG.debug( "Dom with (" + dom.getBlankFillers().length
+					+ ") blanks is too large to compile, tailoring interpreted" );
+			}
+			/*-}*/
+			return new CompiledDom( dom, CompiledDom.Interpreted.INSTANCE, null );
+		}
+		String simpleName = "CompiledDom_" + CLASS_COUNT.incrementAndGet();
+		String className = PACKAGE_NAME + "." + simpleName;
+		String javaSource = toJavaSource( dom, PACKAGE_NAME, simpleName );
+
+		InMemoryJavaClassLoader classLoader =
+			new InMemoryJavaClassLoader( Tailor.class.getClassLoader() );
+
+		List<InMemoryJavaSource> sources = new ArrayList<InMemoryJavaSource>();
+		sources.add( new InMemoryJavaSource( className, javaSource ) );
+
+		long start = System.nanoTime();
+		Class<?> tailoringClass =
+			session().compileLoadClasses( classLoader, sources ).get( className );
+		/*{-?(removeLog==true):*/
+		if( LOG.isDebugEnabled() )
+		{
+			LOG.debug( "compiled \"" + className + "\" in "
+				+ ( ( System.nanoTime() - start ) / 1000000L ) + "ms" );
+		}
+		/*-}*/
+		try
+		{
+			Constructor<?> constructor = tailoringClass.getConstructor(
+				Dom.class,
+				BoundDynamically[].class,
+				Mark.Derived[].class,
+				BlankFiller[].class );
+			TailorPlan plan = dom.getTailorPlan();
+			int count = plan.getInstanceMarkCount();
+			BoundDynamically[] bound = new BoundDynamically[ count ];
+			Mark.Derived[] derived = new Mark.Derived[ count ];
+			for( int i = 0; i < count; i++ )
+			{
+				if( plan.isBound( i ) )
+				{
+					bound[ i ] = (BoundDynamically)plan.getInstanceMark( i );
+				}
+				else
+				{
+					derived[ i ] = plan.getInstanceMark( i );
+				}
+			}
+			CompiledDom.Tailoring tailoring =
+				(CompiledDom.Tailoring)constructor.newInstance(
+					dom, bound, derived, dom.getBlankFillers() );
+			return new CompiledDom( dom, tailoring, javaSource );
+		}
+		catch( Exception e )
+		{
+			throw new VarException(
+				"unable to create instance of \"" + className + "\"", e );
+		}
+	}
+
+	private JavacSession session()
+	{
+		JavacSession current = session;
+		if( current == null )
+		{
+			synchronized( this )
+			{
+				current = session;
+				if( current == null )
+				{
+					current = new JavacSession();
+					session = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * closes the (shared) {@code JavacSession}, releasing the javac file
+	 * manager (a later compile creates a new session)
+	 *
+	 * NOTE: a compile running while the session is closed fails with a
+	 * {@code JavacException}; {@code CompiledDom}s already compiled are
+	 * NOT affected
+	 */
+	public synchronized void close()
+	{
+		JavacSession current = session;
+		session = null;
+		if( current != null )
+		{
+			current.close();
+		}
+	}
+
+	/** @return true if the shared {@code JavacSession} is open */
+	public boolean isOpen()
+	{
+		return session != null;
+	}
+
+	private static int countConstants( Dom dom )
+	{
+		BlankFiller[] blanks = dom.getBlankFillers();
+		int count = blanks.length
+			+ ( dom.getFillTemplate().getStaticText().length()
+				/ MAX_CONSTANT_LENGTH ) + 1;
+		for( int i = 0; i < blanks.length; i++ )
+		{
+			if( isInlineVar( blanks[ i ] ) )
+			{   //the var name and default
+				count += 2;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param blank the blank
+	 * @return true if the blank is filled by (inline) reading a var
+	 * (exactly an {@code AddVar}, {@code ReplaceWithVar} or an
+	 * {@code AddVarExpression} without a validation expression, NOT a
+	 * subclass which could override {@code derive})
+	 */
+	private static boolean isInlineVar( BlankFiller blank )
+	{
+		return blank.getClass() == AddVar.class
+			|| blank.getClass() == ReplaceWithVar.class
+			|| ( blank.getClass() == AddVarExpression.class
+				&& ((AddVarExpression)blank).isDerivedFromValue() );
+	}
+
+	/**
+	 * generates the Java source of a {@code CompiledDom.Tailoring} class
+	 * that tailors the {@code dom}
+	 *
+	 * @param dom the dom
+	 * @param packageName the package of the generated class
+	 * @param simpleName the simple name of the generated class
+	 * @return the Java source
+	 */
+	public String toJavaSource( Dom dom, String packageName, String simpleName )
+	{
+		//(the marks derived before the fill, as in Tailor.deriveInstanceVars)
+		TailorPlan plan = dom.getTailorPlan();
+		FillTemplate template = dom.getFillTemplate();
+		String text = template.getStaticText();
+		int blanks = template.getBlanksCount();
+
+		//derive (and bind) marks
+		List<String> derives = new ArrayList<String>();
+		for( int i = 0; i < plan.getInstanceMarkCount(); i++ )
+		{
+			if( plan.isBound( i ) )
+			{
+				derives.add( "bound[ " + i + " ].bind( context );" );
+			}
+			else
+			{
+				derives.add( "derived[ " + i + " ].derive( context );" );
+			}
+		}
+		//derive the fill for each blank
+		BlankFiller[] blankFillers = dom.getBlankFillers();
+		List<String> fills = new ArrayList<String>();
+		for( int i = 0; i < blanks; i++ )
+		{
+			fills.add( fillStatement( i, blankFillers[ i ] ) );
+		}
+		//append the static text and fills
+		List<String> writes = new ArrayList<String>();
+		int textAt = 0;
+		for( int i = 0; i < blanks; i++ )
+		{
+			int blankAt = template.getCharIndexOfBlank( i );
+			appendText( writes, text, textAt, blankAt );
+			textAt = blankAt;
+			writes.add( "if( fills[ " + i + " ] != null ) { out.append( fills[ " + i + " ] ); }" );
+		}
+		appendText( writes, text, textAt, text.length() );
+
+		StringBuilder java = new StringBuilder();
+		java.append( "package " ).append( packageName ).append( ";" ).append( N )
+			.append( N )
+			.append( "import io.varcode.context.VarContext;" ).append( N )
+			.append( "import io.varcode.dom.Dom;" ).append( N )
+			.append( "import io.varcode.dom.mark.Mark;" ).append( N )
+			.append( "import io.varcode.tailor.CompiledDom;" ).append( N )
+			.append( "import io.varcode.tailor.Tailor;" ).append( N )
+			.append( "import io.varcode.tailor.TailorState;" ).append( N )
+			.append( "import io.varcode.text.TextBuffer;" ).append( N )
+			.append( N )
+			.append( "/** tailors a Dom (generated by DomJavaCompiler) */" ).append( N )
+			.append( "public final class " ).append( simpleName ).append( N )
+			.append( "    implements CompiledDom.Tailoring" ).append( N )
+			.append( "{" ).append( N )
+			.append( "    private final Dom dom;" ).append( N )
+			.append( "    private final Mark.BoundDynamically[] bound;" ).append( N )
+			.append( "    private final Mark.Derived[] derived;" ).append( N )
+			.append( "    private final Mark.BlankFiller[] blanks;" ).append( N )
+			.append( N )
+			.append( "    public " ).append( simpleName ).append( "( Dom dom, " )
+			.append( "Mark.BoundDynamically[] bound, Mark.Derived[] derived, " )
+			.append( "Mark.BlankFiller[] blanks )" ).append( N )
+			.append( "    {" ).append( N )
+			.append( "        this.dom = dom;" ).append( N )
+			.append( "        this.bound = bound;" ).append( N )
+			.append( "        this.derived = derived;" ).append( N )
+			.append( "        this.blanks = blanks;" ).append( N )
+			.append( "    }" ).append( N )
+			.append( N )
+			.append( "    public void tailor( TailorState tailorState )" ).append( N )
+			.append( "    {" ).append( N )
+			.append( "        Tailor.initMetadata( tailorState );" ).append( N )
+			.append( "        Tailor.initStaticVars( tailorState );" ).append( N )
+			.append( "        Tailor.preProcess( tailorState );" ).append( N )
+			.append( "        if( tailorState.getDom() != dom )" ).append( N )
+			.append( "        {   //a directive replaced the Dom" ).append( N )
+			.append( "            Tailor.deriveInstanceVars( tailorState );" ).append( N )
+			.append( "            Tailor.fill( tailorState );" ).append( N )
+			.append( "        }" ).append( N )
+			.append( "        else" ).append( N )
+			.append( "        {" ).append( N )
+			.append( "            VarContext context = tailorState.getContext();" ).append( N );
+		appendCalls( java, "derive", derives.size(), "context" );
+		java.append( "            Object[] fills = new Object[ " ).append( blanks )
+			.append( " ];" ).append( N );
+		appendCalls( java, "fill", fills.size(), "context, fills" );
+		java.append( "            TextBuffer out = tailorState.getTextBuffer();" ).append( N );
+		appendCalls( java, "write", writes.size(), "fills, out" );
+		java.append( "        }" ).append( N )
+			.append( "        Tailor.postProcess( tailorState );" ).append( N )
+			.append( "    }" ).append( N );
+
+		appendMethods( java, "derive", "VarContext context", derives );
+		appendMethods( java, "fill", "VarContext context, Object[] fills", fills );
+		appendMethods( java, "write", "Object[] fills, TextBuffer out", writes );
+		java.append( "}" ).append( N );
+		return java.toString();
+	}
+
+	private static final String N = System.lineSeparator();
+
+	/**
+	 * the statement that derives the fill of a blank;
+	 * the var of an inline var blank is resolved inline (if null, the 
+	 * default is a constant, or if required the mark throws 
+	 * {@code VarRequiredButNull}), other blanks call the mark
+	 */
+	private static String fillStatement( int index, BlankFiller blank )
+	{
+		String fill = "fills[ " + index + " ]";
+		if( !isInlineVar( blank ) )
+		{
+			return fill + " = blanks[ " + index + " ].derive( context );";
+		}
+		String varName = ((DerivedFromVar)blank).getVarName();
+		Object defaultValue;
+		if( blank instanceof AddVar )
+		{
+			defaultValue = ((AddVar)blank).getDefault();
+		}
+		else if( blank instanceof AddVarExpression )
+		{
+			defaultValue = ((AddVarExpression)blank).getDefault();
+		}
+		else
+		{
+			defaultValue = ((ReplaceWithVar)blank).getDefault();
+		}
+		String statement = fill + " = context.resolveVar( \""
+			+ escape( varName, 0, varName.length() ) + "\" );";
+		if( ((MayBeRequired)blank).isRequired() )
+		{   //(the mark throws VarRequiredButNull)
+			return statement + " if( " + fill + " == null ) { "
+				+ "((Mark.DerivedFromVar)blanks[ " + index + " ]).deriveFrom( null ); }";
+		}
+		if( defaultValue != null )
+		{
+			String defaultText = defaultValue.toString();
+			return statement + " if( " + fill + " == null ) { " + fill + " = \""
+				+ escape( defaultText, 0, defaultText.length() ) + "\"; }";
+		}
+		return statement;
+	}
+
+	/** appends the static text (in chunks) as String constants */
+	private static void appendText(
+		List<String> writes, String text, int start, int end )
+	{
+		for( int i = start; i < end; i += MAX_CONSTANT_LENGTH )
+		{
+			writes.add( "out.append( \""
+				+ escape( text, i, Math.min( end, i + MAX_CONSTANT_LENGTH ) )
+				+ "\" );" );
+		}
+	}
+
+	/** calls each of the methods (split to stay under the method size limit) */
+	private static void appendCalls(
+		StringBuilder java, String name, int statementCount, String arguments )
+	{
+		for( int i = 0; i < statementCount; i += MAX_STATEMENTS_PER_METHOD )
+		{
+			java.append( "            " ).append( name )
+				.append( i / MAX_STATEMENTS_PER_METHOD )
+				.append( "( " ).append( arguments ).append( " );" ).append( N );
+		}
+	}
+
+	/** appends the statements in methods of (at most) MAX_STATEMENTS_PER_METHOD */
+	private static void appendMethods(
+		StringBuilder java, String name, String parameters, List<String> statements )
+	{
+		for( int i = 0; i < statements.size(); i += MAX_STATEMENTS_PER_METHOD )
+		{
+			java.append( N )
+				.append( "    private void " ).append( name )
+				.append( i / MAX_STATEMENTS_PER_METHOD )
+				.append( "( " ).append( parameters ).append( " )" ).append( N )
+				.append( "    {" ).append( N );
+			int end = Math.min( statements.size(), i + MAX_STATEMENTS_PER_METHOD );
+			for( int j = i; j < end; j++ )
+			{
+				java.append( "        " ).append( statements.get( j ) ).append( N );
+			}
+			java.append( "    }" ).append( N );
+		}
+	}
+
+	/** escapes the text as the content of a Java String literal */
+	private static String escape( String text, int start, int end )
+	{
+		StringBuilder sb = new StringBuilder( ( end - start ) + 16 );
+		for( int i = start; i < end; i++ )
+		{
+			char c = text.charAt( i );
+			switch( c )
+			{
+				case '"' : sb.append( "\\\"" ); break;
+				case '\\' : sb.append( "\\\\" ); break;
+				case '\n' : sb.append( "\\n" ); break;
+				case '\r' : sb.append( "\\r" ); break;
+				case '\t' : sb.append( "\\t" ); break;
+				case '\b' : sb.append( "\\b" ); break;
+				case '\f' : sb.append( "\\f" ); break;
+				default :
+					if( c < 0x20 )
+					{   //octal (NOT a unicode escape, a unicode line feed would end the line)
+						sb.append( String.format( "\\%03o", (int)c ) );
+					}
+					else if( c > 0x7E )
+					{
+						sb.append( String.format( "\\u%04x", (int)c ) );
+					}
+					else
+					{
+						sb.append( c );
+					}
+			}
+		}
+		return sb.toString();
+	}
+}
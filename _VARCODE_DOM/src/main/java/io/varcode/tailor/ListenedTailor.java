@@ -0,0 +1,368 @@
+package io.varcode.tailor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import javax.script.Bindings;
+
+import io.varcode.VarException;
+import io.varcode.context.ExpressionEvaluator;
+import io.varcode.context.Resolve.ScriptResolver;
+import io.varcode.context.Resolve.VarResolver;
+import io.varcode.context.VarContext;
+import io.varcode.context.VarScope;
+import io.varcode.context.VarScript;
+import io.varcode.dom.TailorPlan;
+import io.varcode.dom.mark.Mark;
+import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.BoundDynamically;
+import io.varcode.tailor.TailorListener.Call;
+import io.varcode.tailor.TailorListener.Phase;
+
+/**
+ * Tailors with a {@code TailorListener} (same as {@code Tailor.tailor(...)}
+ * with each phase and {@code Mark} timed and reported to the listener) 
+ * 
+ * While tailoring, the {@code VarResolver}, {@code ExpressionEvaluator} and
+ * {@code ScriptResolver} of the context are "shadowed" (in the 
+ * {@code VarScope.INSTANCE} scope) by counting decorators, (and restored
+ * when tailoring completes)
+ * 
+ * (used by {@code Tailor} if a {@code TailorListener} is bound to the 
+ * {@code VarContext}, see {@code VarContext.TAILOR_LISTENER_NAME})
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public enum ListenedTailor
+{
+	; //singleton enum idiom
+	
+	/** measures the bytes allocated by the current thread (if supported) */
+	private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+	
+	private static com.sun.management.ThreadMXBean allocationBean()
+	{
+		try
+		{
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if( bean instanceof com.sun.management.ThreadMXBean )
+			{
+				com.sun.management.ThreadMXBean sunBean = 
+					(com.sun.management.ThreadMXBean)bean;
+				if( sunBean.isThreadAllocatedMemorySupported() 
+					&& sunBean.isThreadAllocatedMemoryEnabled() )
+				{
+					return sunBean;
+				}
+			}
+		}
+		catch( Throwable t )
+		{
+			//not supported on this JVM
+		}
+		return null;
+	}
+	
+	/** @return the bytes allocated by the current thread (or -1 if unknown) */
+	public static long allocatedBytes()
+	{
+		if( ALLOCATION == null )
+		{
+			return -1L;
+		}
+		return ALLOCATION.getThreadAllocatedBytes( Thread.currentThread().getId() );
+	}
+	
+	private static long since( long startBytes )
+	{
+		if( startBytes < 0 )
+		{
+			return -1L;
+		}
+		return allocatedBytes() - startBytes;
+	}
+	
+	/**
+	 * Tailors (phase by phase) reporting to the {@code listener}
+	 * 
+	 * @param tailorState the state
+	 * @param listener the listener
+	 * @return the updated TailorState
+	 */
+	public static TailorState tailor( 
+		TailorState tailorState, TailorListener listener )
+		throws VarException
+	{
+		Counters counters = Counters.install( tailorState.getContext(), listener );
+		try
+		{
+			long start = System.nanoTime();
+			long startBytes = allocatedBytes();
+			
+			long t = System.nanoTime();
+			long b = allocatedBytes();
+			Tailor.initMetadata( tailorState );
+			listener.onPhase( tailorState, Phase.INIT_METADATA, System.nanoTime() - t, since( b ) );
+			
+			t = System.nanoTime();
+			b = allocatedBytes();
+			Tailor.initStaticVars( tailorState );
+			listener.onPhase( tailorState, Phase.INIT_STATIC_VARS, System.nanoTime() - t, since( b ) );
+			
+			t = System.nanoTime();
+			b = allocatedBytes();
+			Tailor.preProcess( tailorState );
+			listener.onPhase( tailorState, Phase.PRE_PROCESS, System.nanoTime() - t, since( b ) );
+			
+			t = System.nanoTime();
+			b = allocatedBytes();
+			deriveInstanceVars( tailorState, listener );
+			listener.onPhase( tailorState, Phase.DERIVE_INSTANCE_VARS, System.nanoTime() - t, since( b ) );
+			
+			t = System.nanoTime();
+			b = allocatedBytes();
+			fill( tailorState, listener );
+			listener.onPhase( tailorState, Phase.FILL, System.nanoTime() - t, since( b ) );
+			
+			t = System.nanoTime();
+			b = allocatedBytes();
+			Tailor.postProcess( tailorState );
+			listener.onPhase( tailorState, Phase.POST_PROCESS, System.nanoTime() - t, since( b ) );
+			
+			listener.onTailor( tailorState, System.nanoTime() - start, since( startBytes ) );
+			return tailorState;
+		}
+		finally
+		{
+			counters.uninstall( tailorState.getContext() );
+		}
+	}
+	
+	/**
+	 * Tailors a {@code CompiledDom} reporting the whole tailor (and calls)
+	 * to the {@code listener} (the phases are fused by the generated code)
+	 * 
+	 * @param tailorState the state
+	 * @param tailoring the compiled tailoring 
+	 * @param listener the listener
+	 * @return the updated TailorState
+	 */
+	public static TailorState tailor( 
+		TailorState tailorState, CompiledDom.Tailoring tailoring, TailorListener listener )
+		throws VarException
+	{
+		Counters counters = Counters.install( tailorState.getContext(), listener );
+		try
+		{
+			long start = System.nanoTime();
+			long startBytes = allocatedBytes();
+			tailoring.tailor( tailorState );
+			listener.onTailor( tailorState, System.nanoTime() - start, since( startBytes ) );
+			return tailorState;
+		}
+		finally
+		{
+			counters.uninstall( tailorState.getContext() );
+		}
+	}
+	
+	/** (same as {@code Tailor.deriveInstanceVars}, timing each mark) */
+	private static void deriveInstanceVars( 
+		TailorState tailorState, TailorListener listener )
+	{
+		TailorPlan plan = tailorState.getDom().getTailorPlan();
+		VarContext context = tailorState.getContext();
+		for( int i = 0; i < plan.getInstanceMarkCount(); i++ )
+		{
+			Mark.Derived derived = plan.getInstanceMark( i );
+			long t = System.nanoTime();
+			long b = allocatedBytes();
+			if( plan.isBound( i ) )
+			{
+				( (BoundDynamically)derived ).bind( context );
+			}
+			else
+			{
+				derived.derive( context );
+			}
+			listener.onMark( tailorState, (Mark)derived, System.nanoTime() - t, since( b ) );
+		}
+	}
+	
+	/** (same as {@code Tailor.fill}, timing each mark) */
+	private static void fill( TailorState tailorState, TailorListener listener )
+	{
+		BlankFiller[] blankFillers = tailorState.getDom().getBlankFillers();
+		Object[] fillSequence = new Object[ blankFillers.length ];
+		VarContext context = tailorState.getContext();
+		for( int i = 0; i < blankFillers.length; i++ )
+		{
+			long t = System.nanoTime();
+			long b = allocatedBytes();
+			fillSequence[ i ] = blankFillers[ i ].derive( context );
+			listener.onMark( tailorState, (Mark)blankFillers[ i ], System.nanoTime() - t, since( b ) );
+		}
+		tailorState.getDom().getFillTemplate().fill( tailorState.getTextBuffer(), fillSequence );
+	}
+	
+	/** the counting decorators installed in the context (while tailoring) */
+	private static final class Counters
+	{
+		private static final int SCOPE = VarScope.INSTANCE.getValue();
+		
+		private final Object previousVarResolver;
+		private final Object previousEvaluator;
+		private final Object previousScriptResolver;
+		
+		private Counters( VarContext context )
+		{
+			this.previousVarResolver = 
+				context.get( VarContext.VAR_RESOLVER_NAME, SCOPE );
+			this.previousEvaluator = 
+				context.get( VarContext.EXPRESSION_EVALUATOR_NAME, SCOPE );
+			this.previousScriptResolver = 
+				context.get( VarContext.SCRIPT_RESOLVER_NAME, SCOPE );
+		}
+		
+		static Counters install( VarContext context, TailorListener listener )
+		{
+			Counters counters = new Counters( context );
+			VarResolver varResolver = context.getVarResolver();
+			if( varResolver != null && !( varResolver instanceof CountingVarResolver ) )
+			{
+				context.set( VarContext.VAR_RESOLVER_NAME, 
+					new CountingVarResolver( varResolver, listener ), SCOPE );
+			}
+			ExpressionEvaluator evaluator = context.getExpressionEvaluator();
+			if( evaluator != null && !( evaluator instanceof CountingExpressionEvaluator ) )
+			{
+				context.set( VarContext.EXPRESSION_EVALUATOR_NAME, 
+					new CountingExpressionEvaluator( evaluator, listener ), SCOPE );
+			}
+			ScriptResolver scriptResolver = context.getScriptResolver();
+			if( scriptResolver != null && !( scriptResolver instanceof CountingScriptResolver ) )
+			{
+				context.set( VarContext.SCRIPT_RESOLVER_NAME, 
+					new CountingScriptResolver( scriptResolver, listener ), SCOPE );
+			}
+			return counters;
+		}
+		
+		void uninstall( VarContext context )
+		{
+			restore( context, VarContext.VAR_RESOLVER_NAME, previousVarResolver );
+			restore( context, VarContext.EXPRESSION_EVALUATOR_NAME, previousEvaluator );
+			restore( context, VarContext.SCRIPT_RESOLVER_NAME, previousScriptResolver );
+		}
+		
+		private static void restore( VarContext context, String name, Object previous )
+		{
+			if( previous == null )
+			{
+				context.clear( name, SCOPE );
+			}
+			else
+			{
+				context.set( name, previous, SCOPE );
+			}
+		}
+	}
+	
+	private static final class CountingVarResolver
+		implements VarResolver
+	{
+		private final VarResolver resolver;
+		private final TailorListener listener;
+		
+		CountingVarResolver( VarResolver resolver, TailorListener listener )
+		{
+			this.resolver = resolver;
+			this.listener = listener;
+		}
+		
+		public Object resolveVar( VarContext context, String varName )
+		{
+			long t = System.nanoTime();
+			try
+			{
+				return resolver.resolveVar( context, varName );
+			}
+			finally
+			{
+				listener.onCall( Call.VAR_RESOLVER, System.nanoTime() - t );
+			}
+		}
+	}
+	
+	private static final class CountingExpressionEvaluator
+		implements ExpressionEvaluator
+	{
+		private final ExpressionEvaluator evaluator;
+		private final TailorListener listener;
+		
+		CountingExpressionEvaluator( 
+			ExpressionEvaluator evaluator, TailorListener listener )
+		{
+			this.evaluator = evaluator;
+			this.listener = listener;
+		}
+		
+		public Object evaluate( VarContext context, String expressionText )
+		{
+			long t = System.nanoTime();
+			try
+			{
+				return evaluator.evaluate( context, expressionText );
+			}
+			finally
+			{
+				listener.onCall( Call.EXPRESSION_EVALUATOR, System.nanoTime() - t );
+			}
+		}
+		
+		public Object evaluate( Bindings bindings, String expressionText )
+		{
+			long t = System.nanoTime();
+			try
+			{
+				return evaluator.evaluate( bindings, expressionText );
+			}
+			finally
+			{
+				listener.onCall( Call.EXPRESSION_EVALUATOR, System.nanoTime() - t );
+			}
+		}
+		
+		public boolean isReservedWord( String name )
+		{
+			return evaluator.isReservedWord( name );
+		}
+	}
+	
+	private static final class CountingScriptResolver
+		implements ScriptResolver
+	{
+		private final ScriptResolver resolver;
+		private final TailorListener listener;
+		
+		CountingScriptResolver( ScriptResolver resolver, TailorListener listener )
+		{
+			this.resolver = resolver;
+			this.listener = listener;
+		}
+		
+		public VarScript resolveScript( 
+			VarContext context, String scriptName, String scriptInput )
+		{
+			long t = System.nanoTime();
+			try
+			{
+				return resolver.resolveScript( context, scriptName, scriptInput );
+			}
+			finally
+			{
+				listener.onCall( Call.SCRIPT_RESOLVER, System.nanoTime() - t );
+			}
+		}
+	}
+}
@@ -0,0 +1,305 @@
+package io.varcode.tailor;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.varcode.Metadata;
+import io.varcode.Metadata.SimpleMetadata;
+import io.varcode.VarException;
+import io.varcode.context.ExpressionEvaluator_Native;
+import io.varcode.context.VarContext;
+import io.varcode.context.VarScope;
+import io.varcode.dom.Dom;
+import io.varcode.dom.FillInTheBlanks.FillTemplate;
+import io.varcode.dom.mark.AddFormIfVar;
+import io.varcode.dom.mark.AddIf;
+import io.varcode.dom.mark.AddVarExpression;
+import io.varcode.dom.mark.CutIfExpression;
+import io.varcode.dom.mark.Mark;
+import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.BoundDynamically;
+import io.varcode.dom.mark.Mark.HasExpression;
+import io.varcode.dom.mark.Mark.HasScript;
+import io.varcode.dom.mark.Mark.HasVars;
+import io.varcode.dom.mark.Mark.IsNamed;
+import io.varcode.text.SmartBuffer;
+
+/**
+ * Specializes a {@code Dom} against a (partial) {@code VarContext} holding
+ * only the "known" vars (i.e. vars fixed for a whole project or build like
+ * package names, logging on/off and feature flags).
+ *
+ * Each blank-filling {@code Mark} that depends ONLY on known vars is
+ * derived once and "folded" into the static text (conditional marks like
+ * {@code AddIfVar}, {@code AddIf}, {@code AddFormIfVar} or
+ * {@code CutIfExpression} with a known condition either add their content
+ * or are dropped); the result is a new (smaller) {@code Dom} whose
+ * remaining marks depend on the unknown vars, to be tailored per entity.
+ *
+ * <PRE>
+ * VarContext project = VarContext.of( "log", true, "packageName", "ex.varcode" );
+ * Dom specialized = PartialEvaluator.INSTANCE.specialize( dom, project );
+ *
+ * for( each entity )
+ * {
+ *     String code = Tailor.code( specialized, VarContext.of( "className", ... ) );
+ * }
+ * </PRE>
+ *
+ * A var is "known" if it is bound in a (non-core) scope of the known
+ * context or statically in the {@code Dom}; marks are NOT folded if they:
+ * <UL>
+ *  <LI>call scripts (scripts are not assumed to be pure)
+ *  <LI>refer to a var bound dynamically by a mark in the {@code Dom}
+ *  (i.e. {@code {#count:$count(fields)#}})
+ *  <LI>have an expression outside of the native subset (so the vars it
+ *  refers to cannot be determined, see {@code ExpressionEvaluator_Native})
+ *  <LI>throw an exception when derived (i.e. a required var bound to null),
+ *  so the exception is thrown when the specialized {@code Dom} is tailored
+ * </UL>
+ *
+ * NOTE: the known vars must not be re-bound (to a different value) in the
+ * context used to tailor the specialized {@code Dom}; like {@code Tailor},
+ * the {@code Dom}'s static vars are bound in the known context.
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public enum PartialEvaluator
+{
+	INSTANCE;
+
+	/*{-?(removeLog==true):*/
+	private static final Logger LOG =
+        LoggerFactory.getLogger( PartialEvaluator.class );
+	/*-}*/
+
+	/**
+	 * @param dom the dom to specialize
+	 * @param known the context containing ONLY the known vars
+	 * @return the specialized Dom (or the same {@code dom} if no marks
+	 * could be folded)
+	 */
+	public Dom specialize( Dom dom, VarContext known )
+	{
+		known.getOrCreateBindings( VarScope.STATIC )
+			.putAll( dom.getStaticBindings() );
+
+		Mark[] marks = dom.getAllMarks();
+		Set<String> dynamicNames = dynamicallyBoundNames( marks );
+
+		//the folded text of each mark (null if the mark is kept)
+		String[] folded = new String[ marks.length ];
+		int foldedCount = 0;
+		for( int i = 0; i < marks.length; i++ )
+		{
+			if( marks[ i ] instanceof BlankFiller
+				&& isKnown( dependencies( marks[ i ], known ), known, dynamicNames ) )
+			{
+				folded[ i ] = fold( (BlankFiller)marks[ i ], known );
+				if( folded[ i ] != null )
+				{
+					foldedCount++;
+				}
+			}
+		}
+		/*{-?(removeLog==true):*/
+		if( LOG.isDebugEnabled() )
+		{
+			LOG.debug( "folded (" + foldedCount + ") of (" + marks.length
+				+ ") marks" );
+		}
+		/*-}*/
+		if( foldedCount == 0 )
+		{
+			return dom;
+		}
+		return rebuild( dom, folded );
+	}
+
+	/** the names of vars bound dynamically (at tailor time) by marks */
+	private static Set<String> dynamicallyBoundNames( Mark[] marks )
+	{
+		Set<String> names = new HashSet<String>();
+		for( int i = 0; i < marks.length; i++ )
+		{
+			if( marks[ i ] instanceof BoundDynamically
+				&& marks[ i ] instanceof IsNamed )
+			{
+				names.add( ( (IsNamed)marks[ i ] ).getVarName() );
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * @param mark the mark
+	 * @param context the context
+	 * @return the names of all vars the mark depends on (or null if the
+	 * dependencies cannot be determined)
+	 */
+	private static Set<String> dependencies( Mark mark, VarContext context )
+	{
+		if( mark instanceof HasScript )
+		{
+			return null;
+		}
+		try
+		{
+			Set<String> names = new HashSet<String>();
+			if( mark instanceof HasVars )
+			{
+				names.addAll( ( (HasVars)mark ).getAllVarNames( context ) );
+			}
+			if( mark instanceof AddFormIfVar )
+			{   //(the condition var is not in the form's vars)
+				names.add( ( (AddFormIfVar)mark ).getVarName() );
+			}
+			String expression = null;
+			if( mark instanceof HasExpression )
+			{
+				expression = ( (HasExpression)mark ).getExpression();
+			}
+			else if( mark instanceof AddIf )
+			{
+				expression = ( (AddIf)mark ).getCondition();
+			}
+			else if( mark instanceof CutIfExpression )
+			{
+				expression = ( (CutIfExpression)mark ).getExpression();
+			}
+			else if( mark instanceof AddVarExpression )
+			{
+				expression = ( (AddVarExpression)mark ).getValidationExpression();
+			}
+			if( expression != null )
+			{
+				Set<String> expressionVars =
+					ExpressionEvaluator_Native.getVarNames( expression );
+				if( expressionVars == null )
+				{
+					return null;
+				}
+				names.addAll( expressionVars );
+			}
+			else if( !( mark instanceof HasVars ) )
+			{
+				return null;
+			}
+			return names;
+		}
+		catch( VarException ve )
+		{
+			return null;
+		}
+	}
+
+	/** are all of the var names known (and not bound dynamically)? */
+	private static boolean isKnown(
+		Set<String> varNames, VarContext known, Set<String> dynamicNames )
+	{
+		if( varNames == null )
+		{
+			return false;
+		}
+		Iterator<String> it = varNames.iterator();
+		while( it.hasNext() )
+		{
+			String varName = it.next();
+			if( dynamicNames.contains( varName ) )
+			{
+				return false;
+			}
+			int scope = known.getScopeOf( varName );
+			if( scope < 0 || scope >= VarScope.CORE_LIBRARY.getValue() )
+			{   //not bound (or bound in the core, which may be overridden)
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the text of the derived mark (as it would be filled in the
+	 * tailored text) or null if the mark cannot be derived
+	 */
+	private static String fold( BlankFiller mark, VarContext known )
+	{
+		try
+		{
+			Object value = mark.derive( known );
+			if( value == null )
+			{
+				return "";
+			}
+			SmartBuffer buffer = SmartBuffer.createInstance();
+			buffer.append( value );
+			return buffer.toString();
+		}
+		catch( VarException ve )
+		{   //thrown when the specialized Dom is tailored
+			/*{-?(removeLog==true):*/
+			if( LOG.isDebugEnabled() )
+			{
+				LOG.debug( "unable to fold mark \"" + ( (Mark)mark ).getText()
+					+ "\"", ve );
+			}
+			/*-}*/
+			return null;
+		}
+	}
+
+	/** rebuilds the Dom with the folded marks in the static text */
+	private static Dom rebuild( Dom dom, String[] folded )
+	{
+		Mark[] marks = dom.getAllMarks();
+		FillTemplate allMarksTemplate = dom.allMarksTemplate;
+		String staticText = allMarksTemplate.getStaticText();
+
+		StringBuilder text = new StringBuilder();
+		BitSet allMarkIndexes = new BitSet();
+		BitSet blankIndexes = new BitSet();
+		List<Mark> kept = new ArrayList<Mark>();
+		int blankCount = 0;
+		int textAt = 0;
+		for( int i = 0; i < marks.length; i++ )
+		{
+			int markAt = allMarksTemplate.getCharIndexOfBlank( i );
+			text.append( staticText, textAt, markAt );
+			textAt = markAt;
+			if( folded[ i ] != null )
+			{
+				text.append( folded[ i ] );
+				continue;
+			}
+			//(each previous mark / blank occupies a bit)
+			allMarkIndexes.set( text.length() + kept.size() );
+			if( marks[ i ] instanceof BlankFiller )
+			{
+				blankIndexes.set( text.length() + blankCount );
+				blankCount++;
+			}
+			kept.add( marks[ i ] );
+		}
+		text.append( staticText, textAt, staticText.length() );
+
+		//(the specialized Dom has its own markup checksum)
+		Metadata metadata = new SimpleMetadata();
+		metadata.merge( dom.getMetadata() );
+		Dom specialized = new Dom(
+			dom.getLanguage(),
+			FillTemplate.of( text.toString(), blankIndexes ),
+			kept.toArray( new Mark[ 0 ] ),
+			allMarkIndexes,
+			dom.getStaticBindings(),
+			metadata );
+		metadata.put( Dom.DOM_CHECKSUM_SHA1, specialized.computeChecksumSHA1() );
+		return specialized;
+	}
+}
@@ -0,0 +1,432 @@
+package io.varcode.tailor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.varcode.VarException;
+import io.varcode.context.VarContext;
+import io.varcode.context.VarScope;
+import io.varcode.dom.Dom;
+import io.varcode.dom.mark.Mark;
+import io.varcode.dom.mark.Mark.BlankFiller;
+import io.varcode.dom.mark.Mark.DerivedFromVar;
+import io.varcode.dom.mark.TailorDirective;
+import io.varcode.text.SmartBuffer;
+import io.varcode.text.TextBuffer;
+
+/**
+ * Tailors a {@code Dom} with var values passed by "slot" (index) rather
+ * than by name.
+ *
+ * When the {@code SlotTailor} is created, each var name in the
+ * {@code Dom} (the "schema") is assigned a slot index; values are
+ * supplied as an {@code Object[]} (one value per slot) or with
+ * {@code Slots} (a typed context created from the schema)
+ *
+ * <PRE>
+ * SlotTailor slotTailor = SlotTailor.of( dom );
+ * int name = slotTailor.slotOf( "name" );
+ * int type = slotTailor.slotOf( "type" );
+ *
+ * Object[] values = new Object[ slotTailor.getSlotCount() ];
+ * values[ name ] = "count";
+ * values[ type ] = int.class;
+ * String code = slotTailor.code( values );
+ * </PRE>
+ *
+ * If ALL of the {@code Mark}s in the {@code Dom} are derived only from the
+ * value of a var ({@code AddVar}, {@code AddVarExpression} without a
+ * validation expression, {@code ReplaceWithVar}, {@code AddIfVar})
+ * (or bound statically when the {@code Dom} was compiled, i.e. 
+ * {@code {##version:1##}}) the {@code Dom} is "compiled"; each blank is 
+ * filled by reading a slot
+ * (no var names are resolved when tailoring).
+ * Otherwise (i.e. the {@code Dom} contains scripts, expressions, forms
+ * or directives) the values are bound by name to a new {@code VarContext}
+ * and the {@code Dom} is tailored (by {@code Tailor}) as usual.
+ *
+ * NOTE: in the compiled mode, a var with no value (a null slot) uses
+ * the value statically bound in the {@code Dom} (or in the core bindings)
+ * but is NOT resolved through the {@code ExpressionEvaluator}
+ *
+ * A {@code SlotTailor} is immutable and can be used by many threads.
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class SlotTailor
+{
+	/*{-?(removeLog==true):*/
+	private static final Logger LOG =
+        LoggerFactory.getLogger( SlotTailor.class );
+	/*-}*/
+
+	/**
+	 * @param dom the dom
+	 * @return the SlotTailor for the Dom
+	 */
+	public static SlotTailor of( Dom dom )
+	{
+		return new SlotTailor( dom );
+	}
+
+	private final Dom dom;
+
+	/** the var name for each slot */
+	private final String[] varNames;
+
+	/** var name to slot index */
+	private final Map<String, Integer> nameToSlot;
+
+	/**
+	 * the value of each var when the slot is null (statically bound)
+	 * (only used in compiled mode)
+	 */
+	private final Object[] unboundValues;
+
+	/** the marks filling each blank (null if the Dom is not compiled) */
+	private final DerivedFromVar[] fillers;
+
+	/** the slot for each blank filler */
+	private final int[] fillerSlots;
+
+	public SlotTailor( Dom dom )
+	{
+		this.dom = dom;
+
+		VarContext context = new VarContext();
+		context.getOrCreateBindings( VarScope.STATIC )
+			.putAll( dom.getStaticBindings() );
+
+		Map<String, Integer> slots = new LinkedHashMap<String, Integer>();
+
+		boolean compiled = true;
+		Mark[] marks = dom.getAllMarks();
+		for( int i = 0; i < marks.length; i++ )
+		{
+			if( marks[ i ] instanceof DerivedFromVar )
+			{
+				DerivedFromVar derived = (DerivedFromVar)marks[ i ];
+				addSlot( slots, derived.getVarName() );
+				compiled &= derived.isDerivedFromValue()
+					&& isIdentifier( derived.getVarName() );
+			}
+			else if( marks[ i ] instanceof Mark.BoundStatically
+				&& !( marks[ i ] instanceof Mark.BoundDynamically ) )
+			{   //already bound (in the Dom's static bindings) at compile time
+			}
+			else if( marks[ i ] instanceof Mark.Derived
+				|| marks[ i ] instanceof Mark.Bind
+				|| marks[ i ] instanceof TailorDirective )
+			{
+				compiled = false;
+			}
+			if( marks[ i ] instanceof Mark.HasVars )
+			{
+				try
+				{
+					Iterator<String> it = ( (Mark.HasVars)marks[ i ] )
+						.getAllVarNames( context ).iterator();
+					while( it.hasNext() )
+					{
+						addSlot( slots, it.next() );
+					}
+				}
+				catch( VarException ve )
+				{   //(i.e. a script that isnt bound until tailor time)
+					/*{-?(removeLog==true):*/
+					if( LOG.isDebugEnabled() )
+					{
+						LOG.debug( "unable to get var names for mark \""
+							+ marks[ i ].getText() + "\"", ve );
+					}
+					/*-}*/
+				}
+			}
+		}
+		this.nameToSlot = new HashMap<String, Integer>( slots );
+		this.varNames = slots.keySet().toArray( new String[ 0 ] );
+
+		if( compiled )
+		{
+			this.unboundValues = new Object[ varNames.length ];
+			for( int i = 0; i < varNames.length; i++ )
+			{
+				unboundValues[ i ] = context.get( varNames[ i ] );
+			}
+			BlankFiller[] blankFillers = dom.getBlankFillers();
+			this.fillers = new DerivedFromVar[ blankFillers.length ];
+			this.fillerSlots = new int[ blankFillers.length ];
+			for( int i = 0; i < blankFillers.length; i++ )
+			{
+				fillers[ i ] = (DerivedFromVar)blankFillers[ i ];
+				fillerSlots[ i ] = nameToSlot.get( fillers[ i ].getVarName() );
+			}
+		}
+		else
+		{
+			this.unboundValues = null;
+			this.fillers = null;
+			this.fillerSlots = null;
+		}
+	}
+
+	private static void addSlot( Map<String, Integer> slots, String varName )
+	{
+		if( varName != null && !slots.containsKey( varName ) )
+		{
+			slots.put( varName, slots.size() );
+		}
+	}
+
+	/**
+	 * is the var name a simple identifier (i.e. "name" not "a.b" which
+	 * is resolved by the {@code ExpressionEvaluator})
+	 */
+	private static boolean isIdentifier( String varName )
+	{
+		if( varName == null
+			|| varName.length() == 0
+			|| !Character.isJavaIdentifierStart( varName.charAt( 0 ) ) )
+		{
+			return false;
+		}
+		for( int i = 1; i < varName.length(); i++ )
+		{
+			if( !Character.isJavaIdentifierPart( varName.charAt( i ) ) )
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public Dom getDom()
+	{
+		return dom;
+	}
+
+	/**
+	 * @return true if the blanks in the Dom are filled directly from slots
+	 * (false if tailored with a {@code VarContext})
+	 */
+	public boolean isCompiled()
+	{
+		return fillers != null;
+	}
+
+	/** @return the number of slots (var names) in the schema */
+	public int getSlotCount()
+	{
+		return varNames.length;
+	}
+
+	/** @return the var names (in slot order) */
+	public String[] getVarNames()
+	{
+		return varNames.clone();
+	}
+
+	/**
+	 * @param varName the name of the var
+	 * @return the slot index of the var or -1 if the var is not in the schema
+	 */
+	public int slotOf( String varName )
+	{
+		Integer slot = nameToSlot.get( varName );
+		if( slot == null )
+		{
+			return -1;
+		}
+		return slot;
+	}
+
+	/** @return new (empty) slots for this schema */
+	public Slots newSlots()
+	{
+		return new Slots( this );
+	}
+
+	/**
+	 * @param nameValuePairs var names and values i.e. ("name", "eric", "age", 42)
+	 * @return slots populated with the values
+	 */
+	public Slots slots( Object...nameValuePairs )
+	{
+		if( nameValuePairs.length % 2 != 0 )
+        {
+            throw new VarException(
+                "Pairs values must be passed in as pairs, length ("
+                + nameValuePairs.length + ") not valid" );
+        }
+		Slots slots = newSlots();
+		for( int i = 0; i < nameValuePairs.length; i += 2 )
+		{
+			slots.set( nameValuePairs[ i ].toString(), nameValuePairs[ i + 1 ] );
+		}
+		return slots;
+	}
+
+	/**
+	 * @param slots the values by slot
+	 * @param directives directives to apply (if any, the Dom is tailored
+	 * with a {@code VarContext})
+	 * @return the tailored code
+	 */
+	public String code( Slots slots, Directive...directives )
+	{
+		if( slots.slotTailor != this )
+		{
+			throw new VarException(
+				"Slots were not created by this SlotTailor" );
+		}
+		return code( slots.values, directives );
+	}
+
+	/**
+	 * @param values the values (one for each slot, may be null)
+	 * @param directives directives to apply (if any, the Dom is tailored
+	 * with a {@code VarContext})
+	 * @return the tailored code
+	 */
+	public String code( Object[] values, Directive...directives )
+	{
+		if( values.length != varNames.length )
+		{
+			throw new VarException(
+				"expected (" + varNames.length + ") slot values, got ("
+				+ values.length + ")" );
+		}
+		if( fillers == null || directives.length > 0 )
+		{
+			return Tailor.code( dom, toContext( values ), directives );
+		}
+		TextBuffer buffer = SmartBuffer.createInstance();
+		fill( values, buffer );
+		return buffer.toString();
+	}
+
+	/** fills the template with the values in the slots */
+	private void fill( Object[] values, TextBuffer buffer )
+	{
+		Object[] fillSequence = new Object[ fillers.length ];
+		for( int i = 0; i < fillers.length; i++ )
+		{
+			int slot = fillerSlots[ i ];
+			Object value = values[ slot ];
+			if( value == null )
+			{
+				value = unboundValues[ slot ];
+			}
+			fillSequence[ i ] = fillers[ i ].deriveFrom( value );
+		}
+		dom.getFillTemplate().fill( buffer, fillSequence );
+	}
+
+	/**
+	 * @param values the values (one for each slot)
+	 * @return a new VarContext with the (non-null) values bound by name
+	 */
+	public VarContext toContext( Object[] values )
+	{
+		VarContext context = new VarContext();
+		for( int i = 0; i < values.length; i++ )
+		{
+			if( values[ i ] != null )
+			{
+				context.set( varNames[ i ], values[ i ] );
+			}
+		}
+		return context;
+	}
+
+	public String toString()
+	{
+		return "SlotTailor (" + varNames.length + " slots"
+			+ ( isCompiled() ? ", compiled) " : ") " ) + Arrays.toString( varNames );
+	}
+
+	/**
+	 * Values (by slot) for tailoring a {@code Dom} with a {@code SlotTailor}
+	 * (resolve the slot once with {@code slotOf} and use {@code set( int, Object )}
+	 * on the hot path)
+	 *
+	 * NOTE: {@code Slots} are mutable, use a separate instance per thread
+	 */
+	public static final class Slots
+	{
+		private final SlotTailor slotTailor;
+
+		private final Object[] values;
+
+		private Slots( SlotTailor slotTailor )
+		{
+			this.slotTailor = slotTailor;
+			this.values = new Object[ slotTailor.getSlotCount() ];
+		}
+
+		public Slots set( int slot, Object value )
+		{
+			values[ slot ] = value;
+			return this;
+		}
+
+		/**
+		 * @param varName the var name
+		 * @param value the value
+		 * @return this
+		 * @throws VarException if the var is not in the schema
+		 */
+		public Slots set( String varName, Object value )
+			throws VarException
+		{
+			int slot = slotTailor.slotOf( varName );
+			if( slot < 0 )
+			{
+				throw new VarException(
+					"var \"" + varName + "\" is not in the schema "
+					+ Arrays.toString( slotTailor.varNames ) );
+			}
+			values[ slot ] = value;
+			return this;
+		}
+
+		public Object get( int slot )
+		{
+			return values[ slot ];
+		}
+
+		public Object get( String varName )
+		{
+			int slot = slotTailor.slotOf( varName );
+			if( slot < 0 )
+			{
+				return null;
+			}
+			return values[ slot ];
+		}
+
+		/** clears all values (so the slots can be reused) */
+		public Slots clear()
+		{
+			Arrays.fill( values, null );
+			return this;
+		}
+
+		/** @return a new {@code VarContext} with the values bound by name */
+		public VarContext toContext()
+		{
+			return slotTailor.toContext( values );
+		}
+
+		public String toString()
+		{
+			return "Slots " + Arrays.toString( values );
+		}
+	}
+}
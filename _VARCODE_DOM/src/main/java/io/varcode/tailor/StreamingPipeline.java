@@ -0,0 +1,142 @@
+package io.varcode.tailor;
+
+import io.varcode.tailor.Directive.PreProcessor;
+import io.varcode.tailor.Directive.Streaming;
+import io.varcode.text.SmartBuffer;
+import io.varcode.text.TextBuffer;
+import io.varcode.text.TextFilter;
+
+/**
+ * Fuses the leading {@code Directive.Streaming} directives of a 
+ * {@code TailorState} into a single chain of {@code TextFilter}s that 
+ * post-process the tailored text as it is written (in one pass).
+ * 
+ * Directives are post-processed in order, so only the streaming directives
+ * BEFORE the first directive that post-processes the whole document 
+ * are fused ({@code Directive.PreProcessor}s do not post-process, and do 
+ * not end the fused prefix); the remaining directives post-process the 
+ * (already filtered) text as before.
+ * <PRE>
+ * directives : [RemoveEmptyLines, Indent4Spaces, Custom, Indent4Spaces]
+ * fused      : [RemoveEmptyLines, Indent4Spaces]  (while filling)
+ * post       : [Custom, Indent4Spaces]            (after filling)
+ * </PRE>
+ * 
+ * NOTE: if the {@code TextBuffer} is a {@code SmartBuffer}, the filters 
+ * receive the translated text (as post-processing directives do)
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public final class StreamingPipeline
+{
+	/** 
+	 * @param directives all directives
+	 * @return the number of leading directives that are fused 
+	 * (or that do not post-process)
+	 */
+	public static int fusedCount( Directive[] directives )
+	{
+		int count = 0;
+		while( count < directives.length 
+			&& ( directives[ count ] instanceof Streaming 
+				|| directives[ count ] instanceof PreProcessor ) )
+		{
+			count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * Installs the filters for the leading streaming directives 
+	 * (wrapping the {@code TailorState}s {@code TextBuffer})
+	 * 
+	 * @param tailorState the state (after directives are pre-processed)
+	 * @return the pipeline (or null if there are no streaming directives 
+	 * to fuse)
+	 */
+	public static StreamingPipeline install( TailorState tailorState )
+	{
+		Directive[] directives = tailorState.getAllDirectives();
+		int fusedCount = fusedCount( directives );
+		
+		TextBuffer buffer = tailorState.getTextBuffer();
+		TextBuffer next = buffer;
+		if( buffer instanceof SmartBuffer )
+		{   //filter the translated text
+			next = ( (SmartBuffer)buffer ).getOut();
+		}
+		boolean fused = false;
+		for( int i = fusedCount - 1; i >= 0; i-- )
+		{
+			if( directives[ i ] instanceof Streaming )
+			{
+				next = ( (Streaming)directives[ i ] ).filter( tailorState, next );
+				fused = true;
+			}
+		}
+		if( !fused )
+		{
+			return null;
+		}
+		TextFilter head = (TextFilter)next;
+		if( buffer instanceof SmartBuffer )
+		{
+			tailorState.setTextBuffer( SmartBuffer.createInstance( head ) );
+		}
+		else
+		{
+			tailorState.setTextBuffer( head );
+		}
+		StreamingPipeline pipeline = 
+			new StreamingPipeline( directives, fusedCount, head, buffer );
+		tailorState.setStreamingPipeline( pipeline );
+		return pipeline;
+	}
+	
+	/** the directives (when the pipeline was installed) */
+	private final Directive[] directives;
+	
+	/** the number of leading directives (fused) */
+	private final int fusedCount;
+	
+	/** the first filter in the chain */
+	private final TextFilter head;
+	
+	/** the TailorState's (unfiltered) buffer */
+	private final TextBuffer buffer;
+	
+	private StreamingPipeline( 
+		Directive[] directives, int fusedCount, TextFilter head, TextBuffer buffer )
+	{
+		this.directives = directives;
+		this.fusedCount = fusedCount;
+		this.head = head;
+		this.buffer = buffer;
+	}
+	
+	/**
+	 * writes any text held back by the filters and restores the 
+	 * {@code TailorState}'s original {@code TextBuffer} 
+	 * (containing the filtered text)
+	 * 
+	 * @param tailorState the state
+	 */
+	public void finish( TailorState tailorState )
+	{
+		head.finish();
+		tailorState.setTextBuffer( buffer );
+	}
+	
+	/**
+	 * @param index the index of the directive 
+	 * @param directive the directive
+	 * @return true if the directive at {@code index} was fused 
+	 * (and should NOT be post-processed)
+	 */
+	public boolean isFused( int index, Directive directive )
+	{
+		return index < fusedCount 
+			&& directives[ index ] == directive 
+			&& directive instanceof Streaming;
+	}
+}
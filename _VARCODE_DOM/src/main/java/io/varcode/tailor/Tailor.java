@@ -1,23 +1,41 @@
 package io.varcode.tailor;
 
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.varcode.Metadata;
 import io.varcode.Metadata.SimpleMetadata;
 import io.varcode.VarException;
+import io.varcode.context.VarBindings;
 import io.varcode.context.VarContext;
 import io.varcode.context.VarScope;
 import io.varcode.dom.Dom;
+import io.varcode.dom.TailorPlan;
 import io.varcode.dom.mark.Mark;
 import io.varcode.dom.mark.Mark.BlankFiller;
 import io.varcode.dom.mark.Mark.BoundDynamically;
 import io.varcode.text.SmartBuffer;
+import io.varcode.text.TextBuffer;
+import io.varcode.text.TextBuffer.WriteBuffer;
 
 /**
  * Specialize the {@code Dom} using functionality and data bound to 
  * the {@code VarContext} to build "tailored" documents. 
  * 
+ * <B>Concurrency:</B> a compiled {@code Dom} is immutable and may be 
+ * tailored by many threads at the same time, provided each thread tailors
+ * with its OWN {@code VarContext} ({@code VarContext}s and 
+ * {@code TailorState}s are mutable and must only be used by one thread
+ * at a time). Expressions are evaluated by a pool of script engines 
+ * (see {@code ScriptEnginePool}) rather than a single global engine. 
+ * 
  * @author M. Eric DeFazio eric@varcode.io
  */
 public enum Tailor
@@ -35,6 +53,21 @@ public enum Tailor
 		return code( dom, VarContext.of( keyValuePairs ) );
     }
 	
+    /**
+     * Tailors the (ahead-of-time) {@code CompiledDom} 
+     * (same as {@code code( compiledDom.getDom(), context, directives )}) 
+     * 
+     * @param compiledDom the compiled Dom (see {@code DomJavaCompiler})
+     * @param context the context containing vars, scripts, etc.
+     * @param directives optional directives
+     * @return the tailored code
+     */
+    public static String code( 
+    	CompiledDom compiledDom, VarContext context, Directive...directives )
+    {
+    	return compiledDom.code( context, directives );
+    }
+    
     public static String code( Dom dom, VarContext context, Directive...directives )
     {
     	TailorState tailorState = new TailorState( 
@@ -47,6 +80,138 @@ public enum Tailor
     	return tailorState.getTextBuffer().toString();
     }
     
+    /**
+     * Tailors the {@code Dom} and streams the tailored text to the 
+     * {@code writer} (through a bounded buffer) rather than building the 
+     * whole document in memory.
+     * 
+     * NOTE: if any {@code Directive} post-processes the whole tailored text
+     * (i.e. is not a {@code Directive.Streaming} directive like 
+     * {@code Indent4Spaces}) the whole document is tailored in memory, 
+     * post-processed, then written to the {@code writer}
+     * 
+     * @param dom the dom to tailor
+     * @param context the context containing vars, scripts, etc.
+     * @param writer where to write the tailored text (flushed, NOT closed)
+     * @param directives optional directives
+     * @return the TailorState
+     */
+    public static TailorState write( 
+        Dom dom, VarContext context, Writer writer, Directive...directives )
+    {
+    	return write( 
+    		dom, context, writer, WriteBuffer.DEFAULT_BUFFER_SIZE, directives );
+    }
+    
+    /**
+     * Tailors the {@code Dom} and streams the tailored text to the 
+     * {@code writer} through a (reusable) buffer of {@code bufferSize} chars
+     * 
+     * @param dom the dom to tailor
+     * @param context the context containing vars, scripts, etc.
+     * @param writer where to write the tailored text (flushed, NOT closed)
+     * @param bufferSize the size of the (char) buffer
+     * @param directives optional directives
+     * @return the TailorState
+     */
+    public static TailorState write( 
+        Dom dom, 
+        VarContext context, 
+        Writer writer, 
+        int bufferSize, 
+        Directive...directives )
+    {
+    	WriteBuffer out = new WriteBuffer( writer, bufferSize );
+    	SmartBuffer streamed = SmartBuffer.createInstance( out );
+    	TailorState tailorState = new TailorState( 
+    		dom, 
+    		context, 
+    		streamed, 
+    		directives );
+    	
+    	tailor( tailorState );
+    	if( tailorState.getTextBuffer() != streamed )
+    	{   //post-processing directives needed the whole document in memory
+    		out.append( tailorState.getTextBuffer().toString() );
+    	}
+    	out.flush();
+    	return tailorState;
+    }
+    
+    /**
+     * Tailors the {@code Dom} and streams the tailored text (encoded in 
+     * {@code charset}) to the {@code outputStream}  
+     * 
+     * @param dom the dom to tailor
+     * @param context the context containing vars, scripts, etc.
+     * @param outputStream where to write the tailored text (flushed, NOT closed)
+     * @param charset the charset to encode the text
+     * @param directives optional directives
+     * @return the TailorState
+     */
+    public static TailorState write( 
+        Dom dom, 
+        VarContext context, 
+        OutputStream outputStream, 
+        Charset charset, 
+        Directive...directives )
+    {
+    	return write( 
+    		dom, 
+    		context, 
+    		new OutputStreamWriter( outputStream, charset ), 
+    		directives );
+    }
+    
+    /**
+     * Tailors the {@code Dom} and streams the tailored text (encoded in 
+     * {@code charset}) to the {@code channel}  
+     * 
+     * @param dom the dom to tailor
+     * @param context the context containing vars, scripts, etc.
+     * @param channel where to write the tailored text (NOT closed)
+     * @param charset the charset to encode the text
+     * @param directives optional directives
+     * @return the TailorState
+     */
+    public static TailorState write( 
+        Dom dom, 
+        VarContext context, 
+        WritableByteChannel channel, 
+        Charset charset, 
+        Directive...directives )
+    {
+    	return write( 
+    		dom, 
+    		context, 
+    		Channels.newWriter( channel, charset.newEncoder(), -1 ), 
+    		directives );
+    }
+    
+    /** 
+     * @param directives the directives
+     * @return true if no directive post-processes the whole tailored text
+     * (all directives are pre-processors or are streamed)
+     */
+    private static boolean isStreamable( Directive[] directives )
+    {
+    	return StreamingPipeline.fusedCount( directives ) == directives.length;
+    }
+    
+    /**
+     * @param buffer the buffer
+     * @return true if the text written to the buffer is written through 
+     * to a {@code Writer} (and cannot be read back to be post-processed)
+     */
+    private static boolean isWrittenThrough( TextBuffer buffer )
+    {
+    	if( buffer instanceof SmartBuffer )
+    	{
+    		buffer = ( (SmartBuffer)buffer ).getOut();
+    	}
+    	return buffer instanceof WriteBuffer;
+    }
+    
     public static TailorState tailor( Dom dom, VarContext context )
     {
     	TailorState tailorState = new TailorState( 
@@ -61,11 +226,36 @@ public enum Tailor
      * to the output {@code CharSequence}
      * @param tailorState the state used for compiling the Markup
      * and tailoring the source
+     * (if a {@code TailorListener} is bound in the context, each phase
+     * is timed and reported to it, see {@code ListenedTailor})
      * @return the updated TailorState
      */ 
     public static TailorState tailor( 
         TailorState tailorState )
         throws VarException 
+    {
+    	TailorListener listener = tailorState.getContext().getTailorListener();
+    	if( listener != null )
+    	{
+    		return ListenedTailor.tailor( tailorState, listener );
+    	}
+    	initMetadata( tailorState );
+    	initStaticVars( tailorState );
+    	preProcess( tailorState );
+    	deriveInstanceVars( tailorState );
+    	fill( tailorState );
+    	postProcess( tailorState );
+        return tailorState;
+    }
+    
+    /*
+     * NOTE: the phases of tailoring are public so {@code CompiledDom}s 
+     * (generated and loaded at runtime) can call the phases they do not 
+     * specialize
+     */
+    
+    /** 1) merges the {@code Dom}'s metadata into the context's metadata */
+    public static void initMetadata( TailorState tailorState )
     {
     	LOG.trace( "1) Initialize metadata" );
     	Metadata metadata = (Metadata)tailorState.getContext().getMetadata();
@@ -75,12 +265,30 @@ public enum Tailor
     		tailorState.getContext().set( VarContext.METADATA_NAME, metadata );
     	}
     	metadata.merge( tailorState.getDom().getMetadata() );
-
+    }
+    
+    /** 2) binds the {@code Dom}'s static vars in the context */
+    public static void initStaticVars( TailorState tailorState )
+    {
     	LOG.trace( "2) Initialize static vars" );
-        tailorState.getContext()
-        	.getOrCreateBindings( VarScope.STATIC )
-        	.putAll( tailorState.getDom().getStaticBindings() );
-        
+        VarBindings staticBindings = tailorState.getDom().getStaticBindings();
+        if( staticBindings != null && !staticBindings.isEmpty() )
+        {   //(avoid creating the STATIC bindings if there are no static vars)
+        	tailorState.getContext()
+        		.getOrCreateBindings( VarScope.STATIC )
+        		.putAll( staticBindings );
+        }
+    }
+    
+    /** 
+     * 3) pre-processes all directives (then fuses the leading streaming 
+     * directives to post-process the text as it is filled, see
+     * {@code StreamingPipeline}), if the text is written through to a 
+     * {@code Writer} and a (possibly added) directive post-processes the 
+     * whole document, the document is tailored in memory
+     */
+    public static void preProcess( TailorState tailorState )
+    {
         LOG.trace( "3) Pre-process directives" );
         Directive[] allDirectives = tailorState.getAllDirectives( );   
         
@@ -92,27 +300,44 @@ public enum Tailor
         		if( LOG.isTraceEnabled() ) { LOG.trace( "   pre-process [" + i + "]: " + allDirectives[ i ] ); }
         		allDirectives[ i ].preProcess( tailorState );
         	}
+        	if( isWrittenThrough( tailorState.getTextBuffer() ) 
+        		&& !isStreamable( tailorState.getAllDirectives() ) )
+        	{   //(re-read, pre-processing can add directives) 
+        		//post-processing directives need the whole document in memory
+        		if( LOG.isTraceEnabled() ) { LOG.trace( "   post-process directives, tailoring in memory" ); }
+        		tailorState.setTextBuffer( SmartBuffer.createInstance() );
+        	}
+        	StreamingPipeline.install( tailorState );
         }
-        
+    }
+    
+    /** 
+     * 4) derives (and binds) the dynamically defined vars (and derives 
+     * marks that are not blank fillers i.e. input validation scripts)
+     */
+    public static void deriveInstanceVars( TailorState tailorState )
+    {
         LOG.trace( "4) Derive instance vars" );
-        Mark[] marks =  tailorState.getDom().getAllMarks(); 
-        for( int i = 0; i < marks.length; i++ )
-        {   //derive and bind all the dynamically defined Vars in the VarContext
-            if( marks[ i ] instanceof Mark.BoundDynamically )
-            {
-            	if( LOG.isTraceEnabled() ) { LOG.trace( "  derive: \"" + marks[ i ].text + "\"" ); }
-                BoundDynamically dynamicBound = (BoundDynamically)marks[ i ];
-                dynamicBound.bind( tailorState.getContext() ); //this will derive the var, then update the context
+        TailorPlan plan = tailorState.getDom().getTailorPlan();
+        VarContext context = tailorState.getContext();
+        for( int i = 0; i < plan.getInstanceMarkCount(); i++ )
+        {   
+        	Mark.Derived derived = plan.getInstanceMark( i );
+        	if( LOG.isTraceEnabled() ) { LOG.trace( "  derive: \"" + ( (Mark)derived ).text + "\"" ); }
+            if( plan.isBound( i ) )
+            {   //derive and bind the dynamically defined Var in the VarContext
+                ( (BoundDynamically)derived ).bind( context ); 
             }
-            //it might be derived but not bound (i.e. input validation scripts)
-            else if ( marks[ i ] instanceof Mark.Derived 
-                && !( marks[ i ] instanceof BlankFiller ) ) //was Bind
-            {
-            	if( LOG.isTraceEnabled() ) { LOG.trace( "  derive: \"" + marks[ i ].text + "\"" ); }
-                Mark.Derived dd = (Mark.Derived) marks[ i ];
-                dd.derive( tailorState.getContext() );
+            else
+            {   //it might be derived but not bound (i.e. input validation scripts)
+                derived.derive( context );
             }
         }        
+    }
+    
+    /** 5) derives the fill for each blank and fills in the template */
+    public static void fill( TailorState tailorState )
+    {
         LOG.trace( "5) Fill-in template" );
         BlankFiller[] blankFillers = tailorState.getDom().getBlankFillers();
         Object[] fillSequence = new Object[ blankFillers.length ];
@@ -122,23 +347,34 @@ public enum Tailor
             fillSequence[ i ] = blankFillers[ i ].derive( tailorState.getContext() );
         }
         tailorState.getDom().getFillTemplate().fill( tailorState.getTextBuffer(), fillSequence );
-        
-        //5) Post Processing All Directives
-        
+    }
+    
+    /** 6) post-processes all directives (that were not streamed) */
+    public static void postProcess( TailorState tailorState )
+    {
+        StreamingPipeline pipeline = tailorState.getStreamingPipeline();
+        if( pipeline != null )
+        {   //write text held by the filters and restore the text buffer
+        	pipeline.finish( tailorState );
+        	tailorState.setStreamingPipeline( null );
+        }
         //NOTE: one or more Directives COULD have added/removed Directives in the {@code TailorState}
         // so we ask the {@code TailorState} to "get" all the {@code Directives} AGAIN instead
-        // of relying on the predefined {@code allDirectives} from step 2)
+        // of relying on the predefined {@code allDirectives} from step 3)
         LOG.trace( "6) Post-process directives" );
-        allDirectives = tailorState.getAllDirectives( );
+        Directive[] allDirectives = tailorState.getAllDirectives( );
         if( allDirectives.length > 0 )
         {
         	//if( LOG.isTraceEnabled() ) { LOG.trace( "Post-Processing (" + allDirectives.length + ") Directives " ); }
         	for( int i = 0; i < allDirectives.length; i++ )
         	{
+        		if( pipeline != null && pipeline.isFused( i, allDirectives[ i ] ) )
+        		{   //already post-processed (streamed) 
+        			continue;
+        		}
         		if( LOG.isTraceEnabled() ) { LOG.trace( "   post-process[" + i + "]: " + allDirectives[ i ] ); }
         		allDirectives[ i ].postProcess( tailorState );
         	}
         }             
-        return tailorState;
     }
 }
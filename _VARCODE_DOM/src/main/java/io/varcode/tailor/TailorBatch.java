@@ -0,0 +1,407 @@
+package io.varcode.tailor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.varcode.VarException;
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+
+/**
+ * Tailors one {@code Dom} with many {@code VarContext}s (i.e. one
+ * {@code VarContext} per entity) in parallel on an {@code ExecutorService}
+ * (a {@code ThreadPoolExecutor}, {@code ForkJoinPool}, or on newer JVMs,
+ * a virtual thread per task executor).
+ *
+ * <UL>
+ *   <LI>Results are delivered (on the calling thread) in the order of the
+ *   input contexts ({@code Order.INPUT}) or as each completes
+ *   ({@code Order.COMPLETION})
+ *   <LI>At most {@code maxInFlight} contexts are tailored (or waiting to be
+ *   delivered) at a time, the input {@code Iterable} / {@code Stream} is
+ *   only read as results are delivered (backpressure)
+ *   <LI>Exceptions are captured per context (in the {@code Result}), so
+ *   one context that fails (i.e. {@code VarRequiredButNull}) does not abort
+ *   the whole batch
+ * </UL>
+ *
+ * <PRE>
+ * TailorBatch batch = new TailorBatch( executor, 64, TailorBatch.Order.INPUT );
+ * batch.tailor( dom, contexts, new TailorBatch.ResultHandler()
+ * {
+ *     public void onResult( TailorBatch.Result result )
+ *     {
+ *         if( result.isError() ) { ... } else { write( result.getCode() ); }
+ *     }
+ * });
+ * </PRE>
+ *
+ * NOTE: the {@code ExecutorService} is NOT shutdown by the batch; each
+ * {@code VarContext} is only used by one thread (see {@code Tailor})
+ *
+ * NOTE: the executor must run (or reject) every task; a task rejected
+ * by the executor fails its context (the {@code Result} has the
+ * {@code RejectedExecutionException}), but a task silently discarded is 
+ * never delivered and the batch would wait forever; so a
+ * {@code ThreadPoolExecutor} with a {@code DiscardPolicy} or 
+ * {@code DiscardOldestPolicy} is not supported (a {@code VarException} is
+ * thrown), use an {@code AbortPolicy} or {@code CallerRunsPolicy}
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class TailorBatch
+{
+	/*{-?(removeLog==true):*/
+	private static final Logger LOG =
+        LoggerFactory.getLogger( TailorBatch.class );
+	/*-}*/
+
+	/** the order {@code Result}s are delivered to the {@code ResultHandler} */
+	public enum Order
+	{
+		/** in the order of the input contexts */
+		INPUT,
+
+		/** as each context is tailored */
+		COMPLETION;
+	}
+
+	/** receives each {@code Result} (called on the thread calling tailor) */
+	public interface ResultHandler
+	{
+		public void onResult( Result result );
+	}
+
+	/** the result (tailored code or exception) of tailoring one context */
+	public static class Result
+	{
+		/** the index of the context (in the input) */
+		private final int index;
+
+		private final VarContext context;
+
+		/** the tailored code (null if an exception was thrown) */
+		private final String code;
+
+		/** the exception thrown (null if successful) */
+		private final Throwable error;
+
+		public Result( int index, VarContext context, String code, Throwable error )
+		{
+			this.index = index;
+			this.context = context;
+			this.code = code;
+			this.error = error;
+		}
+
+		public int getIndex()
+		{
+			return index;
+		}
+
+		public VarContext getContext()
+		{
+			return context;
+		}
+
+		public String getCode()
+		{
+			return code;
+		}
+
+		public Throwable getError()
+		{
+			return error;
+		}
+
+		public boolean isError()
+		{
+			return error != null;
+		}
+
+		public String toString()
+		{
+			if( isError() )
+			{
+				return "Result [" + index + "] failed: " + error;
+			}
+			return "Result [" + index + "] (" + code.length() + " chars)";
+		}
+	}
+
+	private final ExecutorService executor;
+
+	/** max number of contexts tailored or waiting to be delivered */
+	private final int maxInFlight;
+
+	private final Order order;
+
+	private final Directive[] directives;
+
+	/**
+	 * @param executor tailors the contexts (NOT shutdown by the batch)
+	 * @param maxInFlight max number of contexts tailored (or waiting to be
+	 * delivered) at a time
+	 * @param order the order results are delivered
+	 * @param directives directives applied when tailoring each context
+	 */
+	public TailorBatch(
+		ExecutorService executor,
+		int maxInFlight,
+		Order order,
+		Directive...directives )
+	{
+		if( executor == null )
+		{
+			throw new VarException( "the ExecutorService is null" );
+		}
+		if( maxInFlight < 1 )
+		{
+			throw new VarException(
+				"maxInFlight (" + maxInFlight + ") must be > 0" );
+		}
+		checkRejectionPolicy( executor );
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+		this.order = order;
+		this.directives = directives;
+	}
+
+	/**
+	 * @param executor the executor
+	 * @throws VarException if the executor silently discards tasks it
+	 * rejects (the results of the tasks would never be delivered)
+	 */
+	private static void checkRejectionPolicy( ExecutorService executor )
+		throws VarException
+	{
+		if( executor instanceof ThreadPoolExecutor )
+		{
+			RejectedExecutionHandler policy =
+				((ThreadPoolExecutor)executor).getRejectedExecutionHandler();
+			if( policy instanceof ThreadPoolExecutor.DiscardPolicy
+				|| policy instanceof ThreadPoolExecutor.DiscardOldestPolicy )
+			{
+				throw new VarException(
+					"the executor silently discards rejected tasks ("
+					+ policy.getClass().getSimpleName() + "), use an "
+					+ "AbortPolicy or CallerRunsPolicy" );
+			}
+		}
+	}
+
+	/**
+	 * tailors the {@code dom} with each context and returns all results
+	 * (in input order)
+	 *
+	 * @param dom the dom to tailor
+	 * @param contexts the contexts (one per document)
+	 * @return the results (in the order of the input contexts)
+	 */
+	public List<Result> tailorAll( Dom dom, Iterable<VarContext> contexts )
+	{
+		final List<Result> results = new ArrayList<Result>();
+		new TailorBatch( executor, maxInFlight, Order.INPUT, directives )
+			.tailor( dom, contexts, new ResultHandler()
+			{
+				public void onResult( Result result )
+				{
+					results.add( result );
+				}
+			});
+		return results;
+	}
+
+	/**
+	 * tailors the {@code dom} with each context (read lazily from the
+	 * {@code Stream}) and delivers each result to the {@code handler}
+	 *
+	 * @param dom the dom to tailor
+	 * @param contexts the contexts (one per document)
+	 * @param handler receives each result
+	 * @return the number of contexts tailored
+	 */
+	public int tailor( Dom dom, Stream<VarContext> contexts, ResultHandler handler )
+	{
+		return tailor( dom, contexts.iterator(), handler );
+	}
+
+	/**
+	 * tailors the {@code dom} with each context and delivers each result
+	 * to the {@code handler}
+	 *
+	 * @param dom the dom to tailor
+	 * @param contexts the contexts (one per document)
+	 * @param handler receives each result
+	 * @return the number of contexts tailored
+	 */
+	public int tailor( Dom dom, Iterable<VarContext> contexts, ResultHandler handler )
+	{
+		return tailor( dom, contexts.iterator(), handler );
+	}
+
+	/**
+	 * tailors the {@code dom} with each context and delivers each result
+	 * to the {@code handler}
+	 *
+	 * @param dom the dom to tailor
+	 * @param contexts the contexts (one per document)
+	 * @param handler receives each result
+	 * @return the number of contexts tailored
+	 * @throws VarException if interrupted while waiting for results, or if
+	 * the executor silently discards rejected tasks
+	 */
+	public int tailor(
+		final Dom dom, Iterator<VarContext> contexts, ResultHandler handler )
+		throws VarException
+	{
+		//(the policy can be changed after the batch was created)
+		checkRejectionPolicy( executor );
+		final LinkedBlockingQueue<Result> completed =
+			new LinkedBlockingQueue<Result>();
+		Delivery delivery = new Delivery( order, handler );
+
+		int submitted = 0;
+		while( contexts.hasNext() )
+		{
+			while( submitted - delivery.delivered >= maxInFlight )
+			{   //backpressure: wait for a result before reading more contexts
+				delivery.deliver( take( completed ) );
+			}
+			final int index = submitted;
+			final VarContext context = contexts.next();
+			try
+			{
+				executor.execute( new Runnable()
+				{
+					public void run()
+					{
+						try
+						{
+							completed.add( tailorOne( index, dom, context ) );
+						}
+						catch( Error e )
+						{   //handed to the calling thread (which rethrows it)
+							completed.add( new Result( index, context, null, e ) );
+							throw e;
+						}
+					}
+				});
+			}
+			catch( RejectedExecutionException ree )
+			{   //(i.e. the executor is shutdown) the context failed
+				completed.add( new Result( index, context, null, ree ) );
+			}
+			submitted++;
+		}
+		while( delivery.delivered < submitted )
+		{
+			delivery.deliver( take( completed ) );
+		}
+		/*{-?(removeLog==true):*/
+		if( LOG.isDebugEnabled() )
+		{
+			LOG.debug( "tailored (" + submitted + ") contexts, ("
+				+ delivery.errorCount + ") failed" );
+		}
+		/*-}*/
+		return submitted;
+	}
+
+	private Result tailorOne( int index, Dom dom, VarContext context )
+	{
+		try
+		{
+			return new Result(
+				index, context, Tailor.code( dom, context, directives ), null );
+		}
+		catch( Exception e )
+		{   //captured per context, the other contexts are still tailored
+			return new Result( index, context, null, e );
+		}
+	}
+
+	private static Result take( LinkedBlockingQueue<Result> completed )
+	{
+		try
+		{
+			return completed.take();
+		}
+		catch( InterruptedException e )
+		{
+			Thread.currentThread().interrupt();
+			throw new VarException(
+				"interrupted waiting for tailored results", e );
+		}
+	}
+
+	/** delivers results to the handler (reordering if necessary) */
+	private static class Delivery
+	{
+		private final Order order;
+
+		private final ResultHandler handler;
+
+		/** results completed out of order (waiting for earlier results) */
+		private final Map<Integer, Result> pending =
+			new HashMap<Integer, Result>();
+
+		private int delivered = 0;
+
+		private int errorCount = 0;
+
+		private Delivery( Order order, ResultHandler handler )
+		{
+			this.order = order;
+			this.handler = handler;
+		}
+
+		private void deliver( Result result )
+		{
+			if( result.getError() instanceof Error )
+			{   //Errors (i.e. OutOfMemoryError) are not captured, they abort the batch
+				throw (Error)result.getError();
+			}
+			if( order == Order.COMPLETION )
+			{
+				handle( result );
+				return;
+			}
+			pending.put( result.getIndex(), result );
+			Result next = pending.remove( delivered );
+			while( next != null )
+			{
+				handle( next );
+				next = pending.remove( delivered );
+			}
+		}
+
+		private void handle( Result result )
+		{
+			if( result.isError() )
+			{
+				errorCount++;
+			}
+			delivered++;
+			handler.onResult( result );
+		}
+	}
+
+	public String toString()
+	{
+		return "TailorBatch (" + order + ", max in flight " + maxInFlight
+			+ ") on " + executor;
+	}
+}
@@ -0,0 +1,79 @@
+package io.varcode.tailor;
+
+import io.varcode.dom.mark.Mark;
+
+/**
+ * Listens to (instruments) tailoring; reports the time and allocation of 
+ * each phase of tailoring, of each {@code Mark} (derived or filled) and 
+ * the calls to the {@code VarResolver}, {@code ExpressionEvaluator} and 
+ * {@code ScriptResolver} components.
+ * 
+ * A listener is bound in the {@code VarContext} (by default none is bound
+ * and tailoring is not instrumented):
+ * <PRE>
+ * TailorMetrics metrics = new TailorMetrics();
+ * VarContext context = VarContext.of( "name", "MyClass" );
+ * context.set( VarContext.TAILOR_LISTENER_NAME, metrics, VarScope.CORE );
+ * Tailor.code( dom, context );
+ * </PRE>
+ * 
+ * Listeners are called by the thread tailoring, (a listener shared by 
+ * many threads must be thread-safe).
+ * 
+ * NOTE: allocated bytes are measured per thread 
+ * ({@code com.sun.management.ThreadMXBean}) and are -1 if not supported
+ * 
+ * @see io.varcode.tailor.metrics.TailorMetrics
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public interface TailorListener
+{
+	/** the phases of tailoring (see {@code Tailor.tailor( TailorState )}) */
+	public enum Phase
+	{
+		INIT_METADATA,
+		INIT_STATIC_VARS,
+		PRE_PROCESS,
+		DERIVE_INSTANCE_VARS,
+		FILL,
+		POST_PROCESS;
+	}
+	
+	/** calls to components in the {@code VarContext} */
+	public enum Call
+	{
+		/** {@code VarResolver.resolveVar(...)} */
+		VAR_RESOLVER,
+		
+		/** {@code ExpressionEvaluator.evaluate(...)} */
+		EXPRESSION_EVALUATOR,
+		
+		/** {@code ScriptResolver.resolveScript(...)} */
+		SCRIPT_RESOLVER;
+	}
+	
+	/** 
+	 * the whole {@code Dom} was tailored
+	 * @param tailorState the state
+	 * @param nanos the time to tailor
+	 * @param allocatedBytes the bytes allocated (or -1 if unknown) 
+	 */
+	public void onTailor( TailorState tailorState, long nanos, long allocatedBytes );
+	
+	/** 
+	 * a phase of tailoring completed
+	 * (NOT called for {@code CompiledDom}s, which fuse the phases)
+	 */
+	public void onPhase( 
+		TailorState tailorState, Phase phase, long nanos, long allocatedBytes );
+	
+	/** 
+	 * a {@code Mark} was derived (or bound) 
+	 * (NOT called for {@code CompiledDom}s, which fuse the phases)
+	 */
+	public void onMark( 
+		TailorState tailorState, Mark mark, long nanos, long allocatedBytes );
+	
+	/** a component was called */
+	public void onCall( Call call, long nanos );
+}
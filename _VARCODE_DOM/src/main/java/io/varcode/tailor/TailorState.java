@@ -43,6 +43,12 @@ public class TailorState
      */
     private Directive[] directives; 
     
+    /** 
+     * the streaming directives fused to post-process the text as it is 
+     * written (null if none)
+     */
+    private StreamingPipeline streamingPipeline;
+    
     public TailorState( 
         Dom dom, VarContext tailorContext, TextBuffer out, Directive...directives )
     {
@@ -82,6 +88,16 @@ public class TailorState
 		this.tailorContext = varContext;
 	}
 
+	public StreamingPipeline getStreamingPipeline()
+	{
+		return streamingPipeline;
+	}
+	
+	public void setStreamingPipeline( StreamingPipeline streamingPipeline )
+	{
+		this.streamingPipeline = streamingPipeline;
+	}
+	
 	public TextBuffer getTextBuffer() 
 	{
 		return textBuffer;
@@ -101,6 +117,14 @@ public class TailorState
         
         //need to merge the DomDirectives to the TailorDirectives
         Directive[] tailorDirectives = getDirectives();
+        if( domDirectives.length == 0 )
+        {   //(the common case, no need to copy)
+        	return tailorDirectives;
+        }
+        if( tailorDirectives.length == 0 )
+        {
+        	return domDirectives;
+        }
         
         Directive[] allDirectives = new Directive[ domDirectives.length + tailorDirectives.length ];
         System.arraycopy( domDirectives, 0, allDirectives, 0, domDirectives.length );
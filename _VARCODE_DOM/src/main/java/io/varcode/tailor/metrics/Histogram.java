@@ -0,0 +1,141 @@
+package io.varcode.tailor.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe (lock-free) in-memory histogram of (non-negative) long 
+ * values (i.e. nanoseconds or bytes), recorded in power-of-2 buckets
+ * (so percentiles are approximate, within a factor of 2).
+ * 
+ * Recording does not allocate, (negative values, i.e. "unknown"
+ * allocations, are ignored)
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class Histogram
+{
+	/** bucket[ i ] counts values in [ 2^(i-1), 2^i ), bucket[ 0 ] counts 0 */
+	private final AtomicLongArray buckets = new AtomicLongArray( 64 );
+	
+	private final LongAdder count = new LongAdder();
+	
+	private final LongAdder sum = new LongAdder();
+	
+	private final AtomicLong min = new AtomicLong( Long.MAX_VALUE );
+	
+	private final AtomicLong max = new AtomicLong( Long.MIN_VALUE );
+	
+	/** @param value the value to record (ignored if negative) */
+	public void record( long value )
+	{
+		if( value < 0 )
+		{
+			return;
+		}
+		buckets.incrementAndGet( 64 - Long.numberOfLeadingZeros( value ) );
+		count.increment();
+		sum.add( value );
+		long m = min.get();
+		while( value < m && !min.compareAndSet( m, value ) )
+		{
+			m = min.get();
+		}
+		m = max.get();
+		while( value > m && !max.compareAndSet( m, value ) )
+		{
+			m = max.get();
+		}
+	}
+	
+	public long getCount()
+	{
+		return count.sum();
+	}
+	
+	public long getSum()
+	{
+		return sum.sum();
+	}
+	
+	/** @return the mean value (0 if no values are recorded) */
+	public long getMean()
+	{
+		long c = count.sum();
+		if( c == 0 )
+		{
+			return 0L;
+		}
+		return sum.sum() / c;
+	}
+	
+	/** @return the min value (0 if no values are recorded) */
+	public long getMin()
+	{
+		long m = min.get();
+		return m == Long.MAX_VALUE ? 0L : m;
+	}
+	
+	/** @return the max value (0 if no values are recorded) */
+	public long getMax()
+	{
+		long m = max.get();
+		return m == Long.MIN_VALUE ? 0L : m;
+	}
+	
+	/**
+	 * @param percentile the percentile (0.0 - 100.0)
+	 * @return the (upper bound of the bucket containing the) value at the 
+	 * percentile (capped at the max value recorded, 0 if no values)
+	 */
+	public long getPercentile( double percentile )
+	{
+		if( percentile < 0.0d || percentile > 100.0d )
+		{
+			throw new IllegalArgumentException( 
+				"percentile (" + percentile + ") not in [0.0 - 100.0]" );
+		}
+		long c = count.sum();
+		if( c == 0 )
+		{
+			return 0L;
+		}
+		long rank = (long)Math.ceil( c * percentile / 100.0d );
+		if( rank < 1 )
+		{
+			rank = 1;
+		}
+		long seen = 0;
+		for( int i = 0; i < 64; i++ )
+		{
+			seen += buckets.get( i );
+			if( seen >= rank )
+			{
+				long upper = ( i == 0 ) ? 0L : ( i >= 63 ? Long.MAX_VALUE : ( 1L << i ) - 1 );
+				return Math.min( upper, getMax() );
+			}
+		}
+		return getMax();
+	}
+	
+	/** clears all recorded values */
+	public void reset()
+	{
+		for( int i = 0; i < 64; i++ )
+		{
+			buckets.set( i, 0L );
+		}
+		count.reset();
+		sum.reset();
+		min.set( Long.MAX_VALUE );
+		max.set( Long.MIN_VALUE );
+	}
+	
+	public String toString()
+	{
+		return "count=" + getCount() + " mean=" + getMean() + " min=" 
+			+ getMin() + " p50=" + getPercentile( 50 ) + " p99=" 
+			+ getPercentile( 99 ) + " max=" + getMax();
+	}
+}
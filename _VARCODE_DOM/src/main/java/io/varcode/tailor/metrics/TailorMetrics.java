@@ -0,0 +1,513 @@
+package io.varcode.tailor.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import io.varcode.VarException;
+import io.varcode.dom.Dom;
+import io.varcode.dom.mark.Mark;
+import io.varcode.tailor.TailorListener;
+import io.varcode.tailor.TailorState;
+
+/**
+ * {@code TailorListener} recording (in-memory) histograms of the time and 
+ * allocation of tailoring, per phase, per {@code Mark} class and per 
+ * {@code Mark} location (markup id and line number), and the count (and
+ * time) of calls to the {@code VarResolver}, {@code ExpressionEvaluator} 
+ * and {@code ScriptResolver}.
+ * 
+ * Thread-safe, (one instance can be shared by many threads tailoring)
+ * <PRE>
+ * TailorMetrics metrics = new TailorMetrics().register( "codegen" );
+ * context.set( VarContext.TAILOR_LISTENER_NAME, metrics, VarScope.CORE );
+ * ...
+ * System.out.println( metrics.getReport() );
+ * </PRE>
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class TailorMetrics
+	implements TailorListener, TailorMetricsMXBean
+{
+	/** the max number of mark locations tracked (others are "(other)") */
+	public static final int MAX_LOCATIONS = 1024;
+	
+	/** 
+	 * the number of locations reported by {@code getSlowestMarkLocations()}
+	 * and {@code getMostAllocatingMarkLocations()}
+	 */
+	public static final int SLOWEST_LOCATIONS = 20;
+	
+	private static final String OTHER_LOCATION = "(other)";
+	
+	private final Histogram tailorNanos = new Histogram();
+	
+	private final Histogram tailorBytes = new Histogram();
+	
+	private final EnumMap<Phase, Histogram> phaseNanos = histograms( Phase.class );
+	
+	private final EnumMap<Phase, Histogram> phaseBytes = histograms( Phase.class );
+	
+	private final EnumMap<Call, Histogram> callNanos = histograms( Call.class );
+	
+	/** mark class (simple name) to nanos */
+	private final ConcurrentMap<String, Histogram> markNanos = 
+		new ConcurrentHashMap<String, Histogram>();
+	
+	/** mark class (simple name) to allocated bytes */
+	private final ConcurrentMap<String, Histogram> markBytes = 
+		new ConcurrentHashMap<String, Histogram>();
+	
+	/** 
+	 * location name ("markupId:line (MarkClass)") to location (keyed by 
+	 * name, so the marks of a recompiled Dom share the same location)
+	 */
+	private final ConcurrentMap<String, Location> markLocations = 
+		new ConcurrentHashMap<String, Location>();
+	
+	private final Location otherLocation = new Location( OTHER_LOCATION );
+	
+	private static <E extends Enum<E>> EnumMap<E, Histogram> histograms( 
+		Class<E> enumClass )
+	{
+		EnumMap<E, Histogram> map = new EnumMap<E, Histogram>( enumClass );
+		E[] constants = enumClass.getEnumConstants();
+		for( int i = 0; i < constants.length; i++ )
+		{
+			map.put( constants[ i ], new Histogram() );
+		}
+		return map;
+	}
+	
+	/** 
+	 * a mark location ("markupId:line (MarkClass)") and its nanos and 
+	 * allocated bytes 
+	 */
+	private static final class Location
+	{
+		private final String name;
+		private final Histogram nanos = new Histogram();
+		private final Histogram bytes = new Histogram();
+		
+		Location( String name )
+		{
+			this.name = name;
+		}
+	}
+	
+	/** 
+	 * registers this (MXBean) with the platform MBeanServer as 
+	 * {@code "io.varcode:type=TailorMetrics,name=(name)"}
+	 * @param name the name 
+	 * @return this
+	 */
+	public TailorMetrics register( String name )
+	{
+		try
+		{
+			return register( new ObjectName( 
+				"io.varcode:type=TailorMetrics,name=" + ObjectName.quote( name ) ) );
+		}
+		catch( Exception e )
+		{
+			throw new VarException( 
+				"unable to register TailorMetrics \"" + name + "\"", e );
+		}
+	}
+	
+	/** 
+	 * registers this (MXBean) with the platform MBeanServer
+	 * @param objectName the name
+	 * @return this 
+	 */
+	public TailorMetrics register( ObjectName objectName )
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean( this, objectName );
+			return this;
+		}
+		catch( Exception e )
+		{
+			throw new VarException( 
+				"unable to register TailorMetrics \"" + objectName + "\"", e );
+		}
+	}
+	
+	/** 
+	 * unregisters the MXBean from the platform MBeanServer
+	 * @param objectName the name
+	 */
+	public static void unregister( ObjectName objectName )
+	{
+		try
+		{
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean( objectName );
+		}
+		catch( Exception e )
+		{
+			throw new VarException( 
+				"unable to unregister TailorMetrics \"" + objectName + "\"", e );
+		}
+	}
+	
+	@Override
+	public void onTailor( TailorState tailorState, long nanos, long allocatedBytes )
+	{
+		tailorNanos.record( nanos );
+		tailorBytes.record( allocatedBytes );
+	}
+	
+	@Override
+	public void onPhase( 
+		TailorState tailorState, Phase phase, long nanos, long allocatedBytes )
+	{
+		phaseNanos.get( phase ).record( nanos );
+		phaseBytes.get( phase ).record( allocatedBytes );
+	}
+	
+	@Override
+	public void onMark( 
+		TailorState tailorState, Mark mark, long nanos, long allocatedBytes )
+	{
+		String markClass = mark.getClass().getSimpleName();
+		histogram( markNanos, markClass ).record( nanos );
+		histogram( markBytes, markClass ).record( allocatedBytes );
+		Location location = location( tailorState, mark );
+		location.nanos.record( nanos );
+		location.bytes.record( allocatedBytes );
+	}
+	
+	@Override
+	public void onCall( Call call, long nanos )
+	{
+		callNanos.get( call ).record( nanos );
+	}
+	
+	private static Histogram histogram( 
+		ConcurrentMap<String, Histogram> histograms, String name )
+	{
+		Histogram histogram = histograms.get( name );
+		if( histogram == null )
+		{
+			Histogram created = new Histogram();
+			histogram = histograms.putIfAbsent( name, created );
+			if( histogram == null )
+			{
+				histogram = created;
+			}
+		}
+		return histogram;
+	}
+	
+	private Location location( TailorState tailorState, Mark mark )
+	{
+		Object markupId = null;
+		if( tailorState.getDom().getMetadata() != null )
+		{
+			markupId = tailorState.getDom().getMetadata().get( Dom.MARKUP_ID );
+		}
+		String name = ( markupId == null ? "?" : markupId ) + ":" 
+			+ mark.getLineNumber() + " (" + mark.getClass().getSimpleName() + ")";
+		Location location = markLocations.get( name );
+		if( location != null )
+		{
+			return location;
+		}
+		if( markLocations.size() >= MAX_LOCATIONS )
+		{
+			return otherLocation;
+		}
+		Location created = new Location( name );
+		location = markLocations.putIfAbsent( name, created );
+		if( location == null )
+		{
+			return created;
+		}
+		return location;
+	}
+	
+	public Histogram getTailorNanos()
+	{
+		return tailorNanos;
+	}
+	
+	public Histogram getTailorAllocatedBytes()
+	{
+		return tailorBytes;
+	}
+	
+	public Histogram getPhaseNanos( Phase phase )
+	{
+		return phaseNanos.get( phase );
+	}
+	
+	public Histogram getPhaseAllocatedBytes( Phase phase )
+	{
+		return phaseBytes.get( phase );
+	}
+	
+	/** @return the histogram of call nanos (its count is the number of calls) */
+	public Histogram getCallNanos( Call call )
+	{
+		return callNanos.get( call );
+	}
+	
+	/** @return the histogram of nanos for the mark class (or null) */
+	public Histogram getMarkNanos( Class<? extends Mark> markClass )
+	{
+		return markNanos.get( markClass.getSimpleName() );
+	}
+	
+	/** @return the histogram of allocated bytes for the mark class (or null) */
+	public Histogram getMarkAllocatedBytes( Class<? extends Mark> markClass )
+	{
+		return markBytes.get( markClass.getSimpleName() );
+	}
+	
+	@Override
+	public long getTailorCount()
+	{
+		return tailorNanos.getCount();
+	}
+	
+	@Override
+	public long getMeanTailorNanos()
+	{
+		return tailorNanos.getMean();
+	}
+	
+	@Override
+	public long getP99TailorNanos()
+	{
+		return tailorNanos.getPercentile( 99 );
+	}
+	
+	@Override
+	public long getMeanTailorAllocatedBytes()
+	{
+		return tailorBytes.getMean();
+	}
+	
+	@Override
+	public Map<String, Long> getMeanPhaseNanos()
+	{
+		return means( phaseNanos );
+	}
+	
+	@Override
+	public Map<String, Long> getMeanPhaseAllocatedBytes()
+	{
+		return means( phaseBytes );
+	}
+	
+	@Override
+	public Map<String, Long> getMeanMarkNanos()
+	{
+		return means( markNanos );
+	}
+	
+	@Override
+	public Map<String, Long> getMarkCounts()
+	{
+		Map<String, Long> counts = new TreeMap<String, Long>();
+		Iterator<Map.Entry<String, Histogram>> it = markNanos.entrySet().iterator();
+		while( it.hasNext() )
+		{
+			Map.Entry<String, Histogram> entry = it.next();
+			counts.put( entry.getKey(), entry.getValue().getCount() );
+		}
+		return counts;
+	}
+	
+	@Override
+	public Map<String, Long> getSlowestMarkLocations()
+	{
+		return topLocations( false );
+	}
+	
+	@Override
+	public Map<String, Long> getMostAllocatingMarkLocations()
+	{
+		return topLocations( true );
+	}
+	
+	/** 
+	 * @param byBytes rank by total allocated bytes (otherwise total nanos)
+	 * @return the top locations (name to total)
+	 */
+	private Map<String, Long> topLocations( final boolean byBytes )
+	{
+		List<Location> locations = new ArrayList<Location>( markLocations.values() );
+		if( otherLocation.nanos.getCount() > 0 )
+		{
+			locations.add( otherLocation );
+		}
+		Collections.sort( locations, new Comparator<Location>()
+		{
+			public int compare( Location l1, Location l2 )
+			{
+				return Long.compare( total( l2, byBytes ), total( l1, byBytes ) );
+			}
+		} );
+		Map<String, Long> top = new LinkedHashMap<String, Long>();
+		for( int i = 0; i < locations.size() && i < SLOWEST_LOCATIONS; i++ )
+		{
+			Location location = locations.get( i );
+			top.put( location.name, total( location, byBytes ) );
+		}
+		return top;
+	}
+	
+	private static long total( Location location, boolean byBytes )
+	{
+		if( byBytes )
+		{
+			return location.bytes.getSum();
+		}
+		return location.nanos.getSum();
+	}
+	
+	@Override
+	public Map<String, Long> getCallCounts()
+	{
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		Iterator<Map.Entry<Call, Histogram>> it = callNanos.entrySet().iterator();
+		while( it.hasNext() )
+		{
+			Map.Entry<Call, Histogram> entry = it.next();
+			counts.put( entry.getKey().name(), entry.getValue().getCount() );
+		}
+		return counts;
+	}
+	
+	@Override
+	public Map<String, Long> getCallNanos()
+	{
+		Map<String, Long> nanos = new LinkedHashMap<String, Long>();
+		Iterator<Map.Entry<Call, Histogram>> it = callNanos.entrySet().iterator();
+		while( it.hasNext() )
+		{
+			Map.Entry<Call, Histogram> entry = it.next();
+			nanos.put( entry.getKey().name(), entry.getValue().getSum() );
+		}
+		return nanos;
+	}
+	
+	private static Map<String, Long> means( Map<?, Histogram> histograms )
+	{
+		Map<String, Long> means = new LinkedHashMap<String, Long>();
+		Iterator<? extends Map.Entry<?, Histogram>> it = 
+			histograms.entrySet().iterator();
+		while( it.hasNext() )
+		{
+			Map.Entry<?, Histogram> entry = it.next();
+			if( entry.getValue().getCount() > 0 )
+			{
+				means.put( entry.getKey().toString(), entry.getValue().getMean() );
+			}
+		}
+		return means;
+	}
+	
+	@Override
+	public String getReport()
+	{
+		StringBuilder report = new StringBuilder();
+		String N = System.lineSeparator();
+		report.append( "tailor nanos: " ).append( tailorNanos ).append( N );
+		report.append( "tailor bytes: " ).append( tailorBytes ).append( N );
+		report.append( "phases:" ).append( N );
+		Phase[] phases = Phase.values();
+		for( int i = 0; i < phases.length; i++ )
+		{
+			Histogram nanos = phaseNanos.get( phases[ i ] );
+			if( nanos.getCount() > 0 )
+			{
+				report.append( "  " ).append( phases[ i ] ).append( " nanos: " )
+					.append( nanos ).append( " bytes(mean)=" )
+					.append( phaseBytes.get( phases[ i ] ).getMean() ).append( N );
+			}
+		}
+		report.append( "marks:" ).append( N );
+		Iterator<Map.Entry<String, Histogram>> it = 
+			new TreeMap<String, Histogram>( markNanos ).entrySet().iterator();
+		while( it.hasNext() )
+		{
+			Map.Entry<String, Histogram> entry = it.next();
+			Histogram bytes = markBytes.get( entry.getKey() );
+			report.append( "  " ).append( entry.getKey() ).append( " nanos: " )
+				.append( entry.getValue() ).append( " bytes(mean)=" )
+				.append( bytes == null ? 0L : bytes.getMean() ).append( N );
+		}
+		report.append( "slowest mark locations (total nanos):" ).append( N );
+		Iterator<Map.Entry<String, Long>> slowest = 
+			getSlowestMarkLocations().entrySet().iterator();
+		while( slowest.hasNext() )
+		{
+			Map.Entry<String, Long> entry = slowest.next();
+			report.append( "  " ).append( entry.getKey() ).append( " " )
+				.append( entry.getValue() ).append( N );
+		}
+		report.append( "most allocating mark locations (total bytes):" ).append( N );
+		Iterator<Map.Entry<String, Long>> allocating = 
+			getMostAllocatingMarkLocations().entrySet().iterator();
+		while( allocating.hasNext() )
+		{
+			Map.Entry<String, Long> entry = allocating.next();
+			report.append( "  " ).append( entry.getKey() ).append( " " )
+				.append( entry.getValue() ).append( N );
+		}
+		report.append( "calls:" ).append( N );
+		Call[] calls = Call.values();
+		for( int i = 0; i < calls.length; i++ )
+		{
+			report.append( "  " ).append( calls[ i ] ).append( " nanos: " )
+				.append( callNanos.get( calls[ i ] ) ).append( N );
+		}
+		return report.toString();
+	}
+	
+	@Override
+	public void reset()
+	{
+		tailorNanos.reset();
+		tailorBytes.reset();
+		resetAll( phaseNanos );
+		resetAll( phaseBytes );
+		resetAll( callNanos );
+		markNanos.clear();
+		markBytes.clear();
+		markLocations.clear();
+		otherLocation.nanos.reset();
+		otherLocation.bytes.reset();
+	}
+	
+	private static void resetAll( Map<?, Histogram> histograms )
+	{
+		Iterator<Histogram> it = histograms.values().iterator();
+		while( it.hasNext() )
+		{
+			it.next().reset();
+		}
+	}
+	
+	public String toString()
+	{
+		return "TailorMetrics (" + getTailorCount() + " tailored)";
+	}
+}
@@ -0,0 +1,50 @@
+package io.varcode.tailor.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@code TailorMetrics} 
+ * (i.e. viewed in JConsole / VisualVM under "io.varcode")
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public interface TailorMetricsMXBean
+{
+	public long getTailorCount();
+	
+	public long getMeanTailorNanos();
+	
+	public long getP99TailorNanos();
+	
+	public long getMeanTailorAllocatedBytes();
+	
+	/** @return phase name to mean nanos */
+	public Map<String, Long> getMeanPhaseNanos();
+	
+	/** @return phase name to mean allocated bytes */
+	public Map<String, Long> getMeanPhaseAllocatedBytes();
+	
+	/** @return mark class (simple name) to mean nanos */
+	public Map<String, Long> getMeanMarkNanos();
+	
+	/** @return mark class (simple name) to count */
+	public Map<String, Long> getMarkCounts();
+	
+	/** @return the (20) mark locations with the most total nanos */
+	public Map<String, Long> getSlowestMarkLocations();
+	
+	/** @return the (20) mark locations with the most total allocated bytes */
+	public Map<String, Long> getMostAllocatingMarkLocations();
+	
+	/** @return call (component) name to count */
+	public Map<String, Long> getCallCounts();
+	
+	/** @return call (component) name to total nanos */
+	public Map<String, Long> getCallNanos();
+	
+	/** @return a (multi-line) text report of all metrics */
+	public String getReport();
+	
+	/** clears all metrics */
+	public void reset();
+}
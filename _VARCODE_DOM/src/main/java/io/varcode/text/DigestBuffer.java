@@ -0,0 +1,207 @@
+package io.varcode.text;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import io.varcode.VarException;
+
+/**
+ * A {@code TextBuffer} that updates a {@code MessageDigest} (i.e. "SHA-1")
+ * with the (encoded) bytes of the text as it is appended, and passes the
+ * text through to another {@code TextBuffer} (or only digests the text
+ * if {@code out} is null).
+ *
+ * The text is encoded in small chunks (with a reusable char and byte
+ * buffer), so digesting does not copy the whole text to a {@code String}
+ * or a {@code byte[]}; the digest is the same as digesting
+ * {@code text.getBytes( charset )} (unmappable chars and unpaired
+ * surrogates are replaced, like {@code String.getBytes( charset )})
+ *
+ * <PRE>
+ * DigestBuffer sha1 = new DigestBuffer( out, "SHA-1" );
+ * Tailor.tailor( new TailorState( dom, context, SmartBuffer.createInstance( sha1 ) ) );
+ * String checksum = sha1.getHexDigest();
+ * </PRE>
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class DigestBuffer
+	extends TextFilter
+{
+	/** size of the (reusable) char buffer */
+	private static final int CHUNK_SIZE = 1024;
+
+	private final String algorithm;
+
+	private final MessageDigest messageDigest;
+
+	private final CharsetEncoder encoder;
+
+	/** chars to be encoded (may hold a high surrogate between appends) */
+	private final CharBuffer chars;
+
+	private final ByteBuffer bytes;
+
+	/** the number of bytes digested (since created or digested) */
+	private long byteCount;
+
+	/**
+	 * @param out the buffer to pass the text through to (null to only digest)
+	 * @param algorithm the MessageDigest algorithm (i.e. "SHA-1")
+	 */
+	public DigestBuffer( TextBuffer out, String algorithm )
+	{
+		this( out, algorithm, Charset.defaultCharset() );
+	}
+
+	/**
+	 * @param out the buffer to pass the text through to (null to only digest)
+	 * @param algorithm the MessageDigest algorithm (i.e. "SHA-1")
+	 * @param charset the charset to encode the text
+	 */
+	public DigestBuffer( TextBuffer out, String algorithm, Charset charset )
+	{
+		super( out );
+		this.algorithm = algorithm;
+		try
+		{
+			this.messageDigest = MessageDigest.getInstance( algorithm );
+		}
+		catch( NoSuchAlgorithmException e )
+		{
+			throw new VarException( "Digest algorithm \""
+				+ algorithm + "\" is not valid", e );
+		}
+		this.encoder = charset.newEncoder()
+			.onMalformedInput( CodingErrorAction.REPLACE )
+			.onUnmappableCharacter( CodingErrorAction.REPLACE );
+		this.chars = CharBuffer.allocate( CHUNK_SIZE );
+		this.bytes = ByteBuffer.allocate(
+			(int)Math.ceil( CHUNK_SIZE * encoder.maxBytesPerChar() ) + 16 );
+		this.byteCount = 0L;
+	}
+
+	@Override
+	public TextBuffer append( CharSequence text, int start, int end )
+	{
+		int at = start;
+		while( at < end )
+		{
+			int count = Math.min( end - at, chars.remaining() );
+			if( text instanceof String )
+			{
+				( (String)text ).getChars( at, at + count, chars.array(),
+					chars.arrayOffset() + chars.position() );
+				chars.position( chars.position() + count );
+			}
+			else
+			{
+				for( int i = 0; i < count; i++ )
+				{
+					chars.put( text.charAt( at + i ) );
+				}
+			}
+			at += count;
+			encode( false );
+		}
+		if( out != null )
+		{
+			out.append( text, start, end );
+		}
+		return this;
+	}
+
+	/** encodes the chars in the buffer and digests the bytes */
+	private void encode( boolean endOfInput )
+	{
+		chars.flip();
+		encoder.encode( chars, bytes, endOfInput );
+		if( endOfInput )
+		{
+			encoder.flush( bytes );
+		}
+		//(an unpaired high surrogate remains until the next append)
+		chars.compact();
+		bytes.flip();
+		byteCount += bytes.remaining();
+		messageDigest.update( bytes );
+		bytes.clear();
+	}
+
+	/**
+	 * @return the number of bytes digested (so far, a trailing high 
+	 * surrogate is not encoded until the digest is completed)
+	 */
+	public long getByteCount()
+	{
+		return byteCount;
+	}
+
+	public String getAlgorithm()
+	{
+		return algorithm;
+	}
+
+	/**
+	 * completes the digest of the text appended (and resets the digest)
+	 * @return the digest
+	 */
+	public byte[] digest()
+	{
+		encode( true );
+		encoder.reset();
+		byteCount = 0L;
+		return messageDigest.digest();
+	}
+
+	/**
+	 * completes the digest of the text appended (and resets the digest)
+	 * @return the digest as a (lowercase) hex String
+	 */
+	public String getHexDigest()
+	{
+		return toHex( digest() );
+	}
+
+	/** @return the bytes as a (lowercase) hex String */
+	public static String toHex( byte[] bytes )
+	{
+		char[] hex = new char[ bytes.length * 2 ];
+		for( int i = 0; i < bytes.length; i++ )
+		{
+			hex[ i * 2 ] = Character.forDigit( ( bytes[ i ] >> 4 ) & 0xF, 16 );
+			hex[ i * 2 + 1 ] = Character.forDigit( bytes[ i ] & 0xF, 16 );
+		}
+		return new String( hex );
+	}
+
+	/** resets the digest and clears {@code out} */
+	@Override
+	public TextBuffer clear()
+	{
+		chars.clear();
+		bytes.clear();
+		encoder.reset();
+		messageDigest.reset();
+		byteCount = 0L;
+		if( out != null )
+		{
+			out.clear();
+		}
+		return this;
+	}
+
+	public String toString()
+	{
+		if( out != null )
+		{
+			return out.toString();
+		}
+		return "DigestBuffer (" + algorithm + ", " + byteCount + " bytes)";
+	}
+}
@@ -26,14 +26,35 @@ public class SmartBuffer
 		return new SmartBuffer();
     }
 	
+	public static SmartBuffer createInstance( TextBuffer out )
+    {
+		return new SmartBuffer( out );
+    }
+	
     private final TranslateBuffer buffer;
     
+    /** the (untranslated) target of the translated text */
+    private final TextBuffer out;
+    
     public SmartBuffer()
     {
+    	this( new FillBuffer() );
+    }
+    
+    /**
+     * translates each input (incrementally) as it is appended, and 
+     * appends the translated text to {@code out} 
+     * (i.e. a {@code WriteBuffer} to stream the text to a {@code Writer})
+     * 
+     * @param out the buffer receiving the translated text
+     */
+    public SmartBuffer( TextBuffer out )
+    {
+    	this.out = out;
     	this.buffer =                             
     		new TranslateBuffer(
     			JavaSimpleClassTranslator.INSTANCE, 
-                    new TranslateBuffer( CommentTagTranslator.INSTANCE ) );
+                    new TranslateBuffer( CommentTagTranslator.INSTANCE, out ) );
     }
     
     @Override
@@ -43,6 +64,17 @@ public class SmartBuffer
         {
     		return this;
     	}
+    	if( input instanceof String )
+    	{   //fast path: Strings without '*' do not need to be translated
+    		String string = (String)input;
+    		if( string.indexOf( '*' ) < 0 )
+    		{
+    			out.append( string, 0, string.length() );
+    			return this;
+    		}
+    		buffer.append( string );
+    		return this;
+    	}
         if( input.getClass().isArray() )
         {
         	int len = Array.getLength( input );
@@ -61,6 +93,35 @@ public class SmartBuffer
         return this;
     }
 
+    /** 
+     * appends the range of the text (i.e. static text of a template) 
+     * without copying it (unless it contains a comment tag to translate)
+     */
+    @Override
+    public TextBuffer append( CharSequence text, int start, int end )
+    {
+    	for( int i = start; i < end; i++ )
+    	{
+    		if( text.charAt( i ) == '*' )
+    		{
+    			buffer.append( text.subSequence( start, end ) );
+    			return this;
+    		}
+    	}
+    	out.append( text, start, end );
+    	return this;
+    }
+    
+    /** 
+     * @return the buffer receiving the translated text 
+     * (i.e. to insert a {@code TextFilter} between the translated 
+     * text and the target) 
+     */
+    public TextBuffer getOut()
+    {
+    	return out;
+    }
+    
     public String toString()
     {
     	return buffer.toString();
@@ -74,9 +135,8 @@ public class SmartBuffer
     }
         
     /**
-     * TODO this implementation is SUBOPTIOMAL to say the least
-     * fix later
-     *
+     * Translates the escaped comment tags "/+*" and "*+/" to "/*" and "* /"
+     * (returns the source String as is if it contains no '*')
      */
     public enum CommentTagTranslator
     	implements Translator
@@ -106,6 +166,10 @@ public class SmartBuffer
             int sourceIndex = 0;
             String theString = source.toString();
             int indexOfStar = theString.indexOf( '*' );
+            if( indexOfStar < 0 )
+            {   //nothing to translate
+            	return theString;
+            }
             StringBuilder sb = new StringBuilder();
                 
             while( indexOfStar >= 0 && sourceIndex < theString.length() )
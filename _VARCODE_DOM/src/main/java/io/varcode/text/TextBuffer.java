@@ -1,5 +1,10 @@
 package io.varcode.text;
 
+import java.io.IOException;
+import java.io.Writer;
+
+import io.varcode.VarException;
+
 /**
  * Pluggable Buffer which receives (and optionally translates) input text
  * into an expandable Buffer
@@ -21,6 +26,17 @@ public interface TextBuffer
 	 */
     TextBuffer append( Object input );
     
+    /**
+     * Append the chars of {@code text} from {@code start} (inclusive) to 
+     * {@code end} (exclusive) to the Buffer and return the buffer
+     * (implementations should append the range without creating a 
+     * new String for the range)
+     */
+    default TextBuffer append( CharSequence text, int start, int end )
+    {
+    	return append( text.subSequence( start, end ) );
+    }
+    
     /**
      * Clears the contents of the buffer
      * @return
@@ -49,6 +65,13 @@ public interface TextBuffer
             buffer.append( text );
             return this;
         }
+        
+        @Override
+        public TextBuffer append( CharSequence text, int start, int end )
+        {
+            buffer.append( text, start, end );
+            return this;
+        }
 
         public String toString()
         {
@@ -63,6 +86,153 @@ public interface TextBuffer
         }        
     }
         
+    /** 
+     * Buffer that writes text to a {@code Writer} through a bounded 
+     * (reusable) char buffer, (the text is flushed to the {@code Writer} 
+     * each time the buffer fills), so the memory used is set by the 
+     * buffer size, NOT the size of the text written. 
+     * 
+     * NOTE: text already flushed to the {@code Writer} cannot be read back 
+     * ({@code toString()} does not return the text) or cleared
+     * ({@code clear()} only discards the text not yet flushed)
+     */
+    public static final class WriteBuffer
+        implements TextBuffer
+    {
+        /** the default size of the (char) buffer */
+        public static final int DEFAULT_BUFFER_SIZE = 8192;
+        
+        private final Writer writer;
+        
+        private final char[] buffer;
+        
+        /** the number of chars in the buffer (not yet written) */
+        private int count;
+        
+        /** the total number of chars appended */
+        private long charCount;
+        
+        public WriteBuffer( Writer writer )
+        {
+            this( writer, DEFAULT_BUFFER_SIZE );
+        }
+        
+        public WriteBuffer( Writer writer, int bufferSize )
+        {
+            if( writer == null )
+            {
+                throw new VarException( "the Writer is null" );
+            }
+            if( bufferSize < 1 )
+            {
+                throw new VarException( 
+                    "bufferSize (" + bufferSize + ") must be > 0" );
+            }
+            this.writer = writer;
+            this.buffer = new char[ bufferSize ];
+            this.count = 0;
+            this.charCount = 0L;
+        }
+        
+        @Override
+        public TextBuffer append( Object text )
+        {
+            String string = String.valueOf( text );
+            return append( string, 0, string.length() );
+        }
+        
+        @Override
+        public TextBuffer append( CharSequence text, int start, int end )
+        {
+            charCount += end - start;
+            while( start < end )
+            {
+                if( count == buffer.length )
+                {
+                    writeBuffer();
+                }
+                int chunkEnd = Math.min( end, start + ( buffer.length - count ) );
+                if( text instanceof String )
+                {
+                    ((String)text).getChars( start, chunkEnd, buffer, count );
+                    count += chunkEnd - start;
+                    start = chunkEnd;
+                }
+                else
+                {
+                    while( start < chunkEnd )
+                    {
+                        buffer[ count++ ] = text.charAt( start++ );
+                    }
+                }
+            }
+            return this;
+        }
+        
+        /** writes the buffered chars to the {@code Writer} */
+        private void writeBuffer()
+        {
+            try
+            {
+                writer.write( buffer, 0, count );
+                count = 0;
+            }
+            catch( IOException ioe )
+            {
+                throw new VarException( "Unable to write to Writer", ioe );
+            }
+        }
+        
+        /** 
+         * writes all buffered chars and flushes the {@code Writer} 
+         * (does NOT close the {@code Writer})
+         * @return this
+         */
+        public WriteBuffer flush()
+        {
+            if( count > 0 )
+            {
+                writeBuffer();
+            }
+            try
+            {
+                writer.flush();
+            }
+            catch( IOException ioe )
+            {
+                throw new VarException( "Unable to flush Writer", ioe );
+            }
+            return this;
+        }
+        
+        /** @return the total number of chars appended to the buffer */
+        public long getCharCount()
+        {
+            return charCount;
+        }
+        
+        /** @return the size of the (bounded) char buffer */
+        public int getBufferSize()
+        {
+            return buffer.length;
+        }
+        
+        public String toString()
+        {
+            return "WriteBuffer (" + charCount + " chars, buffer " 
+                + count + " of " + buffer.length + ") to " + writer;
+        }
+        
+        /** discards the buffered chars (NOT yet written to the Writer) */
+        @Override
+        public TextBuffer clear()
+        {
+            charCount -= count;
+            count = 0;
+            return this;
+        }
+    }
+    
     /** Translates some input source text and returns the translated output text*/
     public interface Translator
     {
@@ -0,0 +1,83 @@
+package io.varcode.text;
+
+/**
+ * A {@code TextBuffer} that transforms (or observes) the text appended to
+ * it (as it is appended) and appends the result to another (downstream)
+ * {@code TextBuffer}; {@code TextFilter}s can be chained so the text passes
+ * through many filters in one pass, without being buffered or copied
+ * between them.
+ *
+ * Filters process text incrementally (a line, or a {@code "\r\n"} may span
+ * many appends), any text held back by the filter is written by
+ * {@code finish()} when all text has been appended.
+ *
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public abstract class TextFilter
+	implements TextBuffer
+{
+	/** where the filtered text is written */
+	protected final TextBuffer out;
+
+	protected TextFilter( TextBuffer out )
+	{
+		this.out = out;
+	}
+
+	/** @return the downstream buffer */
+	public TextBuffer getOut()
+	{
+		return out;
+	}
+
+	@Override
+	public TextBuffer append( Object input )
+	{
+		if( input == null )
+		{
+			return this;
+		}
+		String string = input.toString();
+		return append( string, 0, string.length() );
+	}
+
+	@Override
+	public abstract TextBuffer append( CharSequence text, int start, int end );
+
+	/**
+	 * writes any text held back by this filter, then finishes the
+	 * downstream filter (if the downstream buffer is a {@code TextFilter})
+	 * called once, after all text is appended
+	 */
+	public final void finish()
+	{
+		onFinish();
+		if( out instanceof TextFilter )
+		{
+			( (TextFilter)out ).finish();
+		}
+	}
+
+	/** writes any text held back (i.e. a partial line) to {@code out} */
+	protected void onFinish()
+	{
+		//by default, nothing is held back
+	}
+
+	/**
+	 * clears the downstream buffer
+	 * (filters with state should override and reset their state)
+	 */
+	@Override
+	public TextBuffer clear()
+	{
+		out.clear();
+		return this;
+	}
+
+	/** @return the text of the downstream buffer */
+	public String toString()
+	{
+		return out.toString();
+	}
+}
@@ -56,6 +56,24 @@ import io.varcode.tailor.TailorTest;
 import io.varcode.text.SmartBufferTest;
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import io.varcode.context.DirectVarResolverTest;
+import io.varcode.context.ExpressionEvaluator_CompiledJavaScriptTest;
+import io.varcode.tailor.ConcurrentTailorTest;
+import io.varcode.dom.DomCacheTest;
+import io.varcode.text.WriteBufferTest;
+import io.varcode.tailor.TailorBatchTest;
+import io.varcode.java.javac.JavacSessionTest;
+import io.varcode.tailor.SlotTailorTest;
+import io.varcode.context.ExpressionEvaluator_NativeTest;
+import io.varcode.tailor.CompiledDomTest;
+import io.varcode.tailor.PartialEvaluatorTest;
+import io.varcode.dom.TailorPlanTest;
+import io.varcode.tailor.StreamingPipelineTest;
+import io.varcode.context.lib.text.RemoveEmptyLinesTest;
+import io.varcode.text.DigestBufferTest;
+import io.varcode.tailor.metrics.TailorMetricsTest;
+import io.varcode.java.javac.JavacClassCacheTest;
+import io.varcode.java.javac.InMemoryJavaClassLoaderTest;
 
 public class AllTestSuite
 {
@@ -79,6 +97,8 @@ public class AllTestSuite
         suite.addTestSuite( FormTest.class );
                
         suite.addTestSuite( ScriptEvaluator_JavaScriptTest.class );
+        suite.addTestSuite( ExpressionEvaluator_CompiledJavaScriptTest.class );
+        suite.addTestSuite( ExpressionEvaluator_NativeTest.class );
         
         suite.addTestSuite( AddVarExpressionTest.class );
         suite.addTestSuite( AddExpressionResultTest.class );
@@ -112,6 +132,7 @@ public class AllTestSuite
         suite.addTestSuite( FirstCapsTest.class );
         suite.addTestSuite( Indent4SpacesTest.class );
         suite.addTestSuite( PrefixEachLineWithTest.class );
+        suite.addTestSuite( RemoveEmptyLinesTest.class );
         suite.addTestSuite( PrintTest.class );
         suite.addTestSuite( SystemPropertyTest.class );
         
@@ -123,8 +144,11 @@ public class AllTestSuite
         
         suite.addTestSuite( VarBindingsTest.class );
         suite.addTestSuite( VarContextTest.class );
+        suite.addTestSuite( DirectVarResolverTest.class );
         
         suite.addTestSuite( FillInTheBlanksTest.class );
+        suite.addTestSuite( DomCacheTest.class );
+        suite.addTestSuite( TailorPlanTest.class );
         suite.addTestSuite( VarNameAuditTest.class );
         
         
@@ -133,12 +157,24 @@ public class AllTestSuite
         
         suite.addTestSuite( LangNamespaceToMarkupPathTest.class );
         suite.addTestSuite( InMemoryJavaCompilerTest.class );
+        suite.addTestSuite( JavacSessionTest.class );
+        suite.addTestSuite( JavacClassCacheTest.class );
+        suite.addTestSuite( InMemoryJavaClassLoaderTest.class );
         suite.addTestSuite( JavaNamingTest.class );
         
        
         suite.addTestSuite( SmartBufferTest.class );
+        suite.addTestSuite( WriteBufferTest.class );
+        suite.addTestSuite( DigestBufferTest.class );
         
         suite.addTestSuite( TailorTest.class );
+        suite.addTestSuite( ConcurrentTailorTest.class );
+        suite.addTestSuite( TailorBatchTest.class );
+        suite.addTestSuite( SlotTailorTest.class );
+        suite.addTestSuite( CompiledDomTest.class );
+        suite.addTestSuite( PartialEvaluatorTest.class );
+        suite.addTestSuite( StreamingPipelineTest.class );
+        suite.addTestSuite( TailorMetricsTest.class );
         // SLOW
         //suite.addTestSuite( PathWalkTest.class );
         //<JUNIT<
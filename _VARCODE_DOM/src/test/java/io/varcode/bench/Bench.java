@@ -0,0 +1,193 @@
+package io.varcode.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Minimal harness for timing (and measuring the allocation of) 
+ * a piece of work, run from the {@code main} methods of the 
+ * benchmarks in this package.
+ * 
+ * Each benchmark is warmed up before being measured, the results 
+ * (average time per op and bytes allocated per op) are printed 
+ * to System.out.
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public enum Bench
+{
+	;
+	
+	/** A unit of work to be measured (return a value so the JIT 
+	 * cannot eliminate the work) */
+	public interface Op
+	{
+		public Object run();
+	}
+	
+	/** the result of measuring an {@code Op} */
+	public static class Result
+	{
+		public final String name;
+		public final long ops;
+		public final long nanos;
+		public final long bytes;
+		
+		/** the number of garbage collections (while measured) */
+		public final long gcCount;
+		
+		/** the time spent in garbage collection (while measured) */
+		public final long gcMillis;
+		
+		public Result( String name, long ops, long nanos, long bytes )
+		{
+			this( name, ops, nanos, bytes, 0L, 0L );
+		}
+		
+		public Result( String name, long ops, long nanos, long bytes, 
+			long gcCount, long gcMillis )
+		{
+			this.name = name;
+			this.ops = ops;
+			this.nanos = nanos;
+			this.bytes = bytes;
+			this.gcCount = gcCount;
+			this.gcMillis = gcMillis;
+		}
+		
+		public double nanosPerOp()
+		{
+			return (double)nanos / ops;
+		}
+		
+		/** @return the throughput (ops per second) */
+		public double opsPerSecond()
+		{
+			return ops * 1e9d / nanos;
+		}
+		
+		/** 
+		 * @return the allocation rate (MB per second) (or -1 if unknown)
+		 * (like "gc.alloc.rate" reported by JMH's "-prof gc")
+		 */
+		public double allocatedMBPerSecond()
+		{
+			if( bytes < 0 )
+			{
+				return -1;
+			}
+			return ( bytes / ( 1024d * 1024d ) ) * 1e9d / nanos;
+		}
+		
+		/** @return the throughput, allocation rate and GC count and time */
+		public String toRateString()
+		{
+			return String.format( 
+				"%-48s %14.1f ops/s %10.1f MB/s %12.1f B/op %6d gc %6d gc ms", 
+				name, opsPerSecond(), allocatedMBPerSecond(), bytesPerOp(), 
+				gcCount, gcMillis );
+		}
+		
+		/** @return the bytes allocated per op (or -1 if unknown) */
+		public double bytesPerOp()
+		{
+			if( bytes < 0 )
+			{
+				return -1;
+			}
+			return (double)bytes / ops;
+		}
+		
+		public String toString()
+		{
+			return String.format( 
+				"%-48s %14.1f ns/op %14.1f B/op (%d ops)", 
+				name, nanosPerOp(), bytesPerOp(), ops );
+		}
+	}
+	
+	/** volatile sink to consume the results of ops */
+	public static volatile Object sink;
+	
+	public static Result run( String name, Op op )
+	{
+		return run( name, 1000, 1000, op );
+	}
+	
+	public static Result run( 
+		String name, int warmupOps, int measuredOps, Op op )
+	{
+		for( int i = 0; i < warmupOps; i++ )
+		{
+			sink = op.run();
+		}
+		long startGcCount = gcCount();
+		long startGcMillis = gcMillis();
+		long startBytes = allocatedBytes();
+		long start = System.nanoTime();
+		for( int i = 0; i < measuredOps; i++ )
+		{
+			sink = op.run();
+		}
+		long nanos = System.nanoTime() - start;
+		long endBytes = allocatedBytes();
+		long bytes = -1;
+		if( startBytes >= 0 && endBytes >= 0 )
+		{
+			bytes = endBytes - startBytes;
+		}
+		Result result = new Result( name, measuredOps, nanos, bytes, 
+			gcCount() - startGcCount, gcMillis() - startGcMillis );
+		System.out.println( result );
+		return result;
+	}
+	
+	/** @return the number of garbage collections (by all collectors) */
+	public static long gcCount()
+	{
+		long count = 0;
+		List<GarbageCollectorMXBean> gcs = 
+			ManagementFactory.getGarbageCollectorMXBeans();
+		for( int i = 0; i < gcs.size(); i++ )
+		{
+			count += Math.max( 0L, gcs.get( i ).getCollectionCount() );
+		}
+		return count;
+	}
+	
+	/** @return the time spent in garbage collection (by all collectors) */
+	public static long gcMillis()
+	{
+		long millis = 0;
+		List<GarbageCollectorMXBean> gcs = 
+			ManagementFactory.getGarbageCollectorMXBeans();
+		for( int i = 0; i < gcs.size(); i++ )
+		{
+			millis += Math.max( 0L, gcs.get( i ).getCollectionTime() );
+		}
+		return millis;
+	}
+	
+	/** 
+	 * @return the bytes allocated by the current thread 
+	 * (or -1 if the JVM does not support measuring thread allocation) 
+	 */
+	public static long allocatedBytes()
+	{
+		ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+		if( mx instanceof com.sun.management.ThreadMXBean )
+		{
+			com.sun.management.ThreadMXBean hmx = 
+				(com.sun.management.ThreadMXBean)mx;
+			if( hmx.isThreadAllocatedMemorySupported() 
+				&& hmx.isThreadAllocatedMemoryEnabled() )
+			{
+				return hmx.getThreadAllocatedBytes( 
+					Thread.currentThread().getId() );
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,289 @@
+package io.varcode.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.varcode.bench.Corpus.Lang;
+import io.varcode.context.Resolve.SmartVarResolver;
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.dom.codeml.CodeML;
+import io.varcode.dom.form.VarForm;
+import io.varcode.dom.forml.ForML;
+import io.varcode.java.JavaWorkspace;
+import io.varcode.java.JavaWorkspace.SourceWorkspace;
+import io.varcode.java.javac.InMemoryJavaClassLoader;
+import io.varcode.java.javac.InMemoryJavaSource;
+import io.varcode.java.javac.InMemoryJavac;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Runs the benchmarks of the main paths (parse, tailor, resolve, form 
+ * expansion and compile) over a synthetic {@code Corpus}, then prints 
+ * the throughput and allocation rate (and GC count / time) of each.
+ * 
+ * <PRE>
+ * java io.varcode.bench.BenchSuite              (all benchmarks)
+ * java io.varcode.bench.BenchSuite quick        (skip 10 MB / 1000 classes)
+ * java io.varcode.bench.BenchSuite quick parse  (names containing "parse")
+ * </PRE>
+ * 
+ * Run with a fixed heap (i.e. {@code -Xms2g -Xmx2g}) to compare GC counts
+ * between runs.
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public class BenchSuite
+{
+	/** the elements in the form vars (for tailoring form-heavy Doms) */
+	public static final int FORM_ELEMENTS = 100;
+	
+	/** the elements in the form vars (for expanding a VarForm) */
+	public static final int LARGE_FORM_ELEMENTS = 100000;
+	
+	private final boolean quick;
+	
+	/** only run benchmarks with names containing (null for all) */
+	private final String filter;
+	
+	private final List<Bench.Result> results = new ArrayList<Bench.Result>();
+	
+	public BenchSuite( boolean quick, String filter )
+	{
+		this.quick = quick;
+		this.filter = filter;
+	}
+	
+	private void run( String name, int warmupOps, int measuredOps, Bench.Op op )
+	{
+		if( filter != null && !name.contains( filter ) )
+		{
+			return;
+		}
+		results.add( Bench.run( name, warmupOps, measuredOps, op ) );
+	}
+	
+	private static String size( int bytes )
+	{
+		if( bytes >= Corpus.MB )
+		{
+			return ( bytes / Corpus.MB ) + " MB";
+		}
+		return ( bytes / Corpus.KB ) + " KB";
+	}
+	
+	/** warmup, measured ops for a size (to measure each for a similar time) */
+	private static int[] ops( int bytes )
+	{
+		if( bytes >= Corpus.MB )
+		{
+			return new int[]{ 2, 3 };
+		}
+		if( bytes >= 100 * Corpus.KB )
+		{
+			return new int[]{ 50, 100 };
+		}
+		return new int[]{ 2000, 10000 };
+	}
+	
+	public void parse()
+	{
+		int[] sizes = quick 
+			? new int[]{ Corpus.KB, 100 * Corpus.KB }
+			: new int[]{ Corpus.KB, 100 * Corpus.KB, 10 * Corpus.MB };
+		for( int s = 0; s < sizes.length; s++ )
+		{
+			final String codeML = Corpus.markup( Lang.CODEML, sizes[ s ] );
+			final String bindML = Corpus.markup( Lang.BINDML, sizes[ s ] );
+			final String forML = Corpus.markup( Lang.FORML, sizes[ s ] );
+			int[] ops = ops( sizes[ s ] );
+			
+			run( "parse CodeML " + size( sizes[ s ] ), ops[ 0 ], ops[ 1 ], 
+				new Bench.Op()
+				{
+					public Object run()
+					{
+						return CodeML.compile( codeML );
+					}
+				});
+			run( "parse BindML " + size( sizes[ s ] ), ops[ 0 ], ops[ 1 ], 
+				new Bench.Op()
+				{
+					public Object run()
+					{
+						return BindML.compile( bindML );
+					}
+				});
+			run( "parse ForML " + size( sizes[ s ] ), ops[ 0 ], ops[ 1 ], 
+				new Bench.Op()
+				{
+					public Object run()
+					{
+						return ForML.compile( forML );
+					}
+				});
+		}
+	}
+	
+	public void tailor()
+	{
+		final Dom addVars = BindML.compile( Corpus.addVarHeavy( 500 ) );
+		final Dom expressions = BindML.compile( Corpus.expressionHeavy( 500 ) );
+		final Dom forms = BindML.compile( Corpus.formHeavy( 50 ) );
+		final Dom mixed = BindML.compile( 
+			Corpus.markup( Lang.BINDML, 100 * Corpus.KB ) );
+		final VarContext context = Corpus.context( FORM_ELEMENTS );
+		
+		run( "tailor AddVar-heavy (500 marks)", 200, 2000, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( addVars, context );
+				}
+			});
+		run( "tailor expression-heavy (500 marks)", 50, 200, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( expressions, context );
+				}
+			});
+		run( "tailor form-heavy (50 forms x " + FORM_ELEMENTS + ")", 200, 2000, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( forms, context );
+				}
+			});
+		run( "tailor mixed BindML 100 KB", 50, 200, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( mixed, context );
+				}
+			});
+	}
+	
+	public void resolve()
+	{
+		final VarContext context = Corpus.context( FORM_ELEMENTS );
+		
+		run( "resolve SmartVarResolver (4 vars)", 2000, 20000, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					int found = 0;
+					if( SmartVarResolver.INSTANCE.resolveVar( context, "className" ) != null ) found++;
+					if( SmartVarResolver.INSTANCE.resolveVar( context, "v7" ) != null ) found++;
+					if( SmartVarResolver.INSTANCE.resolveVar( context, "count" ) != null ) found++;
+					if( SmartVarResolver.INSTANCE.resolveVar( context, "notBound" ) != null ) found++;
+					return found;
+				}
+			});
+		run( "resolve ScopeBindings (4 lookups)", 20000, 500000, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					int found = 0;
+					if( context.get( "className" ) != null ) found++;
+					if( context.get( "v7" ) != null ) found++;
+					if( context.get( "count" ) != null ) found++;
+					if( context.get( "notBound" ) != null ) found++;
+					return found;
+				}
+			});
+	}
+	
+	public void form()
+	{
+		final VarForm form = (VarForm)ForML.compile( 
+			"{+fieldType+} {+fieldName+} = {+(( count + 1 ))+}, " );
+		final VarContext context = Corpus.context( LARGE_FORM_ELEMENTS );
+		
+		run( "expand VarForm (" + LARGE_FORM_ELEMENTS + " elements)", 3, 10, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return form.derive( context );
+				}
+			});
+	}
+	
+	public void compile()
+	{
+		int[] counts = quick ? new int[]{ 1, 100 } : new int[]{ 1, 100, 1000 };
+		for( int c = 0; c < counts.length; c++ )
+		{
+			final List<InMemoryJavaSource> sources = 
+				Corpus.javaSources( "ex.varcode.bench", counts[ c ] );
+			int measured = counts[ c ] >= 1000 ? 2 : counts[ c ] >= 100 ? 5 : 50;
+			
+			run( "compile InMemoryJavac (" + counts[ c ] + " classes)", 
+				measured, measured, 
+				new Bench.Op()
+				{
+					public Object run()
+					{
+						return InMemoryJavac.compile( 
+							new InMemoryJavaClassLoader(), sources );
+					}
+				});
+			run( "compile JavaWorkspace (" + counts[ c ] + " classes)", 
+				measured, measured, 
+				new Bench.Op()
+				{
+					public Object run()
+					{
+						SourceWorkspace workspace = JavaWorkspace.of( "bench" );
+						for( int i = 0; i < sources.size(); i++ )
+						{
+							workspace.addJavaSource( sources.get( i ) );
+						}
+						return workspace.compile();
+					}
+				});
+		}
+	}
+	
+	/** prints the throughput and allocation rate of each benchmark run */
+	public void report()
+	{
+		System.out.println();
+		for( int i = 0; i < results.size(); i++ )
+		{
+			System.out.println( results.get( i ).toRateString() );
+		}
+	}
+	
+	public static void main( String[] args )
+	{
+		boolean quick = false;
+		String filter = null;
+		for( int i = 0; i < args.length; i++ )
+		{
+			if( args[ i ].equals( "quick" ) )
+			{
+				quick = true;
+			}
+			else
+			{
+				filter = args[ i ];
+			}
+		}
+		BenchSuite suite = new BenchSuite( quick, filter );
+		suite.parse();
+		suite.tailor();
+		suite.resolve();
+		suite.form();
+		suite.compile();
+		suite.report();
+	}
+}
@@ -0,0 +1,46 @@
+package io.varcode.bench;
+
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Measures tailoring a large {@code Dom} with the {@code checksum} 
+ * directive (SHA-1 checksum of the Dom markup and the tailored text)
+ * compared to tailoring the {@code Dom} without it  
+ */
+public class ChecksumBench
+{
+	public static final int LINE_COUNT = 10000;
+	
+	public static void main( String[] args )
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < LINE_COUNT; i++ )
+		{
+			markup.append( "    public static final int {+name+}" + i + " = " 
+				+ i + "; //a comment on the line" + System.lineSeparator() );
+		}
+		final Dom plain = BindML.compile( markup.toString() );
+		final Dom checksummed = BindML.compile( "{$$checksum()$$}" + markup );
+		
+		Bench.run( "tailor (no checksum)", 20, 100,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( plain, VarContext.of( "name", "f" ) );
+				}
+			});
+		
+		Bench.run( "tailor (SHA-1 checksum of Dom and text)", 20, 100,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( checksummed, VarContext.of( "name", "f" ) );
+				}
+			});
+	}
+}
@@ -0,0 +1,42 @@
+package io.varcode.bench;
+
+import java.util.List;
+
+import io.varcode.java.javac.InMemoryJavaClass;
+import io.varcode.java.javac.InMemoryJavaClassLoader;
+import io.varcode.java.javac.InMemoryJavac;
+
+/**
+ * Measures defining (100) compiled classes in a new 
+ * {@code InMemoryJavaClassLoader} (the bytecode is compiled ONCE) 
+ */
+public class ClassLoaderBench
+{
+	public static final int CLASS_COUNT = 100;
+	
+	public static void main( String[] args )
+	{
+		final List<InMemoryJavaClass> classes = InMemoryJavac.compile( 
+			new InMemoryJavaClassLoader(), 
+			Corpus.javaSources( "ex.varcode.loader", CLASS_COUNT ) );
+		
+		Bench.run( "define " + CLASS_COUNT + " classes", 200, 1000, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					InMemoryJavaClassLoader loader = new InMemoryJavaClassLoader();
+					for( int i = 0; i < classes.size(); i++ )
+					{
+						loader.introduce( classes.get( i ) );
+					}
+					Class<?> last = null;
+					for( int i = 0; i < classes.size(); i++ )
+					{
+						last = loader.findClass( classes.get( i ).getName() );
+					}
+					return last;
+				}
+			});
+	}
+}
@@ -0,0 +1,46 @@
+package io.varcode.bench;
+
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.tailor.CompiledDom;
+import io.varcode.tailor.DomJavaCompiler;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Compares tailoring a {@code Dom} with hundreds of AddVar marks 
+ * with {@code Tailor} (interpreted) and as a {@code CompiledDom} 
+ * (a generated class compiled with javac at runtime)
+ */
+public class CompiledDomBench
+{
+	public static final int VAR_COUNT = 500;
+	
+	public static void main( String[] args )
+	{
+		final Dom dom = VarResolverBench.addVarDom( VAR_COUNT );
+		final VarContext context = VarResolverBench.context( VAR_COUNT );
+		
+		long start = System.nanoTime();
+		final CompiledDom compiled = DomJavaCompiler.INSTANCE.compile( dom );
+		System.out.println( "compiled " + compiled + " in " 
+			+ ( ( System.nanoTime() - start ) / 1000000L ) + "ms" );
+		
+		Bench.run( "tailor " + VAR_COUNT + " AddVar (Tailor)", 200, 1000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( dom, context );
+				}
+			});
+		
+		Bench.run( "tailor " + VAR_COUNT + " AddVar (CompiledDom)", 200, 1000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return compiled.code( context );
+				}
+			});
+	}
+}
@@ -0,0 +1,191 @@
+package io.varcode.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.varcode.context.VarContext;
+import io.varcode.java.javac.InMemoryJavaSource;
+
+/**
+ * Generates a synthetic (deterministic) corpus of markup (CodeML, BindML
+ * and ForML) of a given size, {@code Dom}s heavy with a kind of mark, 
+ * and Java sources, for the benchmarks in this package.
+ * 
+ * The markup is a "unit" (a small class / method with a typical mix of
+ * marks) repeated (with a unique suffix) until it is the size requested.
+ * 
+ * @author M. Eric DeFazio eric@varcode.io
+ */
+public enum Corpus
+{
+	;
+	
+	public static final int KB = 1024;
+	
+	public static final int MB = 1024 * 1024;
+	
+	private static final String N = System.lineSeparator();
+	
+	/** the markup languages of the corpus */
+	public enum Lang
+	{
+		CODEML,
+		BINDML,
+		FORML;
+	}
+	
+	/** 
+	 * @param lang the markup language
+	 * @param bytes the (approximate, at least) size of the markup in chars
+	 * @return the markup 
+	 */
+	public static String markup( Lang lang, int bytes )
+	{
+		StringBuilder markup = new StringBuilder( bytes + 512 );
+		for( int i = 0; markup.length() < bytes; i++ )
+		{
+			switch( lang )
+			{
+				case CODEML : codeMLUnit( markup, i ); break;
+				case BINDML : bindMLUnit( markup, i ); break;
+				case FORML : forMLUnit( markup, i ); break;
+			}
+		}
+		return markup.toString();
+	}
+	
+	/** a CodeML "unit" (marks in comments, so the markup is valid Java) */
+	private static void codeMLUnit( StringBuilder markup, int i )
+	{
+		markup.append( "/*{- generated (cut) -}*/" ).append( N )
+			.append( "public class /*{+className*/Base/*+}*/" ).append( i )
+			.append( N ).append( "{" ).append( N )
+			.append( "    private /*{+type*/int/*+}*/ /*{+name*/field/*+}*/" )
+			.append( i ).append( " = /*{+(( count + " ).append( i )
+			.append( " ))*/0/*+}*/;" ).append( N )
+			.append( "    public /*{+type*/int/*+}*/ get" ).append( i )
+			.append( "() { return this./*{+name*/field/*+}*/" ).append( i )
+			.append( "; }" ).append( N )
+			.append( "}" ).append( N );
+	}
+	
+	/** a BindML "unit" (vars, an expression, a script and a form) */
+	private static void bindMLUnit( StringBuilder markup, int i )
+	{
+		markup.append( "public class {+className+}" ).append( i ).append( N )
+			.append( "{" ).append( N )
+			.append( "    private {+type+} {+name+}" ).append( i )
+			.append( " = {+(( count + " ).append( i ).append( " ))+};" ).append( N )
+			.append( "    public {+type+} get{+$firstCap(name)+}" ).append( i )
+			.append( "() { return this.{+name+}" ).append( i )
+			.append( "; }" ).append( N )
+			.append( "    {{+:{+fieldType+} {+fieldName+}; +}}" ).append( N )
+			.append( "}" ).append( N );
+	}
+	
+	/** a ForML "unit" (vars and an expression) */
+	private static void forMLUnit( StringBuilder markup, int i )
+	{
+		markup.append( "    private {+type+} {+name+}" ).append( i )
+			.append( " = {+(( count + " ).append( i ).append( " ))+};" ).append( N );
+	}
+	
+	/** 
+	 * @param marks the number of AddVar marks (over 50 distinct vars) 
+	 * @return BindML with many AddVar marks
+	 */
+	public static String addVarHeavy( int marks )
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < marks; i++ )
+		{
+			markup.append( "field" ).append( i ).append( " = {+v" )
+				.append( i % 50 ).append( "+};" ).append( N );
+		}
+		return markup.toString();
+	}
+	
+	/** 
+	 * @param marks the number of expression marks 
+	 * @return BindML with many (arithmetic) expression marks
+	 */
+	public static String expressionHeavy( int marks )
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < marks; i++ )
+		{
+			markup.append( "field" ).append( i ).append( " = {+(( v" )
+				.append( i % 50 ).append( " * 2 + " ).append( i )
+				.append( " ))+};" ).append( N );
+		}
+		return markup.toString();
+	}
+	
+	/** 
+	 * @param forms the number of form marks 
+	 * @return BindML with many form marks (over {@code fieldType} and
+	 * {@code fieldName})
+	 */
+	public static String formHeavy( int forms )
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < forms; i++ )
+		{
+			markup.append( "class C" ).append( i )
+				.append( " { {{+:{+fieldType+} {+fieldName+}; +}} }" ).append( N );
+		}
+		return markup.toString();
+	}
+	
+	/** 
+	 * @param elements the number of elements in the form vars
+	 * @return a context binding the vars in the corpus
+	 */
+	public static VarContext context( int elements )
+	{
+		VarContext context = VarContext.of( 
+			"className", "Gen", "type", "int", "name", "value", "count", 1 );
+		for( int i = 0; i < 50; i++ )
+		{
+			context.set( "v" + i, i );
+		}
+		String[] fieldTypes = new String[ elements ];
+		String[] fieldNames = new String[ elements ];
+		for( int i = 0; i < elements; i++ )
+		{
+			fieldTypes[ i ] = ( i % 2 == 0 ) ? "int" : "String";
+			fieldNames[ i ] = "f" + i;
+		}
+		context.set( "fieldType", fieldTypes );
+		context.set( "fieldName", fieldNames );
+		return context;
+	}
+	
+	/** 
+	 * @param packageName the package of the classes
+	 * @param count the number of classes (each refers to the previous)
+	 * @return the Java sources
+	 */
+	public static List<InMemoryJavaSource> javaSources( String packageName, int count )
+	{
+		List<InMemoryJavaSource> sources = new ArrayList<InMemoryJavaSource>();
+		for( int i = 0; i < count; i++ )
+		{
+			StringBuilder source = new StringBuilder();
+			source.append( "package " ).append( packageName ).append( ";" ).append( N )
+				.append( "public class C" ).append( i ).append( N )
+				.append( "{" ).append( N )
+				.append( "    private int value = " ).append( i ).append( ";" ).append( N )
+				.append( "    public int getValue() { return value; }" ).append( N );
+			if( i > 0 )
+			{
+				source.append( "    public int sum() { return value + new C" )
+					.append( i - 1 ).append( "().getValue(); }" ).append( N );
+			}
+			source.append( "}" ).append( N );
+			sources.add( new InMemoryJavaSource( 
+				packageName + ".C" + i, source.toString() ) );
+		}
+		return sources;
+	}
+}
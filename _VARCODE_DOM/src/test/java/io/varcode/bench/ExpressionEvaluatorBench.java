@@ -0,0 +1,60 @@
+package io.varcode.bench;
+
+import io.varcode.context.ExpressionEvaluator;
+import io.varcode.context.ExpressionEvaluator_CompiledJavaScript;
+import io.varcode.context.ExpressionEvaluator_JavaScript;
+import io.varcode.context.ExpressionEvaluator_Native;
+import io.varcode.context.VarContext;
+
+/**
+ * Compares evaluating the same (repeated) expressions with the 
+ * {@code ExpressionEvaluator_JavaScript} (which parses the expression
+ * on each evaluation) and the {@code ExpressionEvaluator_CompiledJavaScript}
+ * (which caches the compiled expression) and the 
+ * {@code ExpressionEvaluator_Native} (which evaluates a cached parse tree
+ * without the script engine)
+ */
+public class ExpressionEvaluatorBench
+{
+	public static final String[] EXPRESSIONS = {
+		"a + b", 
+		"(a + b) | 0", 
+		"name.length > 3", 
+		"a > b ? 'a' : 'b'", 
+		"log.equals('debug') || log.equals('info')" 
+	};
+	
+	public static Bench.Result run( 
+		String name, final ExpressionEvaluator ee, final VarContext context )
+	{
+		return Bench.run( name, 1000, 5000, 
+			new Bench.Op()
+			{
+				int i = 0;
+				public Object run()
+				{
+					return ee.evaluate( 
+						context, EXPRESSIONS[ i++ % EXPRESSIONS.length ] );
+				}
+			});
+	}
+	
+	public static void main( String[] args )
+	{
+		VarContext context = VarContext.of( 
+			"a", 1, "b", 2, "name", "eric", "log", "debug" );
+		
+		run( "evaluate (JavaScript)", 
+			ExpressionEvaluator_JavaScript.INSTANCE, context );
+		
+		ExpressionEvaluator_CompiledJavaScript compiled = 
+			ExpressionEvaluator_CompiledJavaScript.INSTANCE; 
+		run( "evaluate (CompiledJavaScript)", compiled, context );
+		System.out.println( compiled );
+		
+		ExpressionEvaluator_Native nativeEvaluator = 
+			ExpressionEvaluator_Native.INSTANCE;
+		run( "evaluate (Native)", nativeEvaluator, context );
+		System.out.println( nativeEvaluator );
+	}
+}
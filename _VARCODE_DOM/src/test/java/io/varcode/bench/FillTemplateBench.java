@@ -0,0 +1,104 @@
+package io.varcode.bench;
+
+import java.util.BitSet;
+
+import io.varcode.dom.FillInTheBlanks;
+import io.varcode.dom.FillInTheBlanks.FillTemplate;
+import io.varcode.text.SmartBuffer;
+import io.varcode.text.TextBuffer;
+import io.varcode.text.TextBuffer.FillBuffer;
+import io.varcode.text.TextBuffer.TranslateBuffer;
+
+/**
+ * Compares the allocation (and time) per fill of a {@code FillTemplate} 
+ * with 500 blanks: 
+ * <UL>
+ *   <LI>the previous path (a {@code substring} for each static segment, 
+ *   appended through the translate buffers)
+ *   <LI>{@code FillTemplate.fill( TextBuffer, Object... )} (appends 
+ *   ranges of the static text)
+ * </UL>
+ * (the buffer is cleared and reused, so only the per fill allocation 
+ * is measured)
+ */
+public class FillTemplateBench
+{
+	/** the previous fill, a substring for each segment between blanks */
+	public static void substringFill( 
+		String text, BitSet blankIndexes, TextBuffer out, Object[] fills )
+	{
+		int currentTextCharAt = 0; 
+		int previousBlankAt = -1; 
+		int nextBlankAt = blankIndexes.nextSetBit( 0 );
+		int fillIndex = 0;
+		int charsBetweenCount = ( nextBlankAt - previousBlankAt ) -1; 
+		while( nextBlankAt >= 0 )
+		{               
+			if( charsBetweenCount > 0 )
+			{   
+				out.append( text.substring( 
+					currentTextCharAt, currentTextCharAt + charsBetweenCount ) );
+				currentTextCharAt += charsBetweenCount;                 
+			}               
+			if( fills[ fillIndex ] != null )
+			{   
+				out.append( fills[ fillIndex ] ); 
+			}
+			fillIndex++;                
+			previousBlankAt = nextBlankAt;
+			nextBlankAt = blankIndexes.nextSetBit( nextBlankAt + 1 );
+			charsBetweenCount = ( nextBlankAt - previousBlankAt ) -1;                
+		}           
+		out.append( text.substring( currentTextCharAt ) );
+	}
+	
+	public static void main( String[] args )
+	{
+		FillInTheBlanks.Builder builder = new FillInTheBlanks.Builder();
+		for( int i = 0; i < 500; i++ )
+		{
+			builder.text( "    public int field" + i + " = " );
+			builder.blank();
+			builder.text( ";" + System.lineSeparator() );
+		}
+		final FillTemplate template = builder.compile();
+		final Object[] fills = new Object[ template.getBlanksCount() ];
+		for( int i = 0; i < fills.length; i++ )
+		{
+			fills[ i ] = String.valueOf( i );
+		}
+		final BitSet blankIndexes = new BitSet();
+		for( int i = 0; i < fills.length; i++ )
+		{
+			blankIndexes.set( template.getCharIndexOfBlank( i ) + i );
+		}
+		final String text = template.getStaticText();
+		
+		final TextBuffer translateBuffer = new TranslateBuffer( 
+			SmartBuffer.JavaSimpleClassTranslator.INSTANCE, 
+			new TranslateBuffer( 
+				SmartBuffer.CommentTagTranslator.INSTANCE, new FillBuffer() ) );
+		Bench.run( "fill (substring per segment)", 2000, 20000, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					translateBuffer.clear();
+					substringFill( text, blankIndexes, translateBuffer, fills );
+					return translateBuffer;
+				}
+			});
+		
+		final SmartBuffer smartBuffer = new SmartBuffer();
+		Bench.run( "fill (ranges of static text)", 2000, 20000, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					smartBuffer.clear();
+					template.fill( smartBuffer, fills );
+					return smartBuffer;
+				}
+			});
+	}
+}
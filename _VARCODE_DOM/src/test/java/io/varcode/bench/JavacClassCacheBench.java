@@ -0,0 +1,66 @@
+package io.varcode.bench;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+
+import io.varcode.java.javac.InMemoryJavaClassLoader;
+import io.varcode.java.javac.InMemoryJavaSource;
+import io.varcode.java.javac.JavacClassCache;
+import io.varcode.java.javac.JavacSession;
+
+/**
+ * Compares compiling (and loading) unchanged classes with javac and 
+ * loading them from the (on-disk) {@code JavacClassCache}
+ */
+public class JavacClassCacheBench
+{
+	public static void main( String[] args )
+		throws Exception
+	{
+		final File dir = Files.createTempDirectory( "varcode-javac-cache" ).toFile();
+		final int[] counts = { 1, 100 };
+		for( int c = 0; c < counts.length; c++ )
+		{
+			final List<InMemoryJavaSource> sources = 
+				Corpus.javaSources( "ex.varcode.cache", counts[ c ] );
+			
+			final JavacSession javac = new JavacSession().setClassCache( null );
+			final JavacSession cached = 
+				new JavacSession().setClassCache( new JavacClassCache( dir ) );
+			try
+			{
+				Bench.run( "compile (" + counts[ c ] + " classes, javac)", 10, 20, 
+					new Bench.Op()
+					{
+						public Object run()
+						{
+							return javac.compileLoadClasses( 
+								new InMemoryJavaClassLoader(), sources );
+						}
+					});
+				Bench.run( "compile (" + counts[ c ] + " classes, cache hit)", 10, 20, 
+					new Bench.Op()
+					{
+						public Object run()
+						{
+							return cached.compileLoadClasses( 
+								new InMemoryJavaClassLoader(), sources );
+						}
+					});
+				System.out.println( cached.getClassCache() );
+			}
+			finally
+			{
+				javac.close();
+				cached.close();
+			}
+		}
+		File[] files = dir.listFiles();
+		for( int i = 0; i < files.length; i++ )
+		{
+			files[ i ].delete();
+		}
+		dir.delete();
+	}
+}
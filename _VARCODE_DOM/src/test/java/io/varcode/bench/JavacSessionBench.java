@@ -0,0 +1,54 @@
+package io.varcode.bench;
+
+import io.varcode.java.javac.InMemoryJavaClassLoader;
+import io.varcode.java.javac.InMemoryJavaSource;
+import io.varcode.java.javac.InMemoryJavac;
+import io.varcode.java.javac.JavacSession;
+
+/**
+ * Compares compiling small tailored classes with {@code InMemoryJavac}
+ * (a new file manager per compilation) and a (reused) {@code JavacSession}
+ */
+public class JavacSessionBench
+{
+	public static InMemoryJavaSource source( int i )
+	{
+		return new InMemoryJavaSource( "ex.varcode.C" + i, 
+			"package ex.varcode;" + System.lineSeparator() 
+			+ "public class C" + i + " { public int value() { return " + i + "; } }" );
+	}
+	
+	public static void main( String[] args )
+	{
+		Bench.run( "compile (InMemoryJavac)", 20, 100, 
+			new Bench.Op()
+			{
+				int i = 0;
+				public Object run()
+				{
+					return InMemoryJavac.compile( 
+						new InMemoryJavaClassLoader(), source( i++ ) );
+				}
+			});
+		
+		final JavacSession session = new JavacSession();
+		try
+		{
+			Bench.run( "compile (JavacSession)", 20, 100, 
+				new Bench.Op()
+				{
+					int i = 0;
+					public Object run()
+					{
+						return session.compile( 
+							new InMemoryJavaClassLoader(), source( i++ ) );
+					}
+				});
+		}
+		finally
+		{
+			session.close();
+		}
+		System.out.println( session );
+	}
+}
@@ -0,0 +1,81 @@
+package io.varcode.bench;
+
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.PartialEvaluator;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Compares tailoring a {@code Dom} where most marks depend on "project"
+ * vars (the same for every entity) with tailoring the {@code Dom} 
+ * specialized (once) against the project vars by {@code PartialEvaluator}
+ */
+public class PartialEvaluatorBench
+{
+	public static final int PROJECT_VAR_COUNT = 450;
+	
+	public static final int ENTITY_VAR_COUNT = 50;
+	
+	public static void main( String[] args )
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < PROJECT_VAR_COUNT; i++ )
+		{
+			markup.append( "    {+?log:LOG.debug( \"p\" );+} String p" + i 
+				+ " = \"{+p" + i + "+}\";" + System.lineSeparator() );
+		}
+		for( int i = 0; i < ENTITY_VAR_COUNT; i++ )
+		{
+			markup.append( "    String e" + i + " = \"{+e" + i + "+}\";" 
+				+ System.lineSeparator() );
+		}
+		final Dom dom = BindML.compile( markup.toString() );
+		
+		final VarContext project = new VarContext();
+		project.set( "log", true );
+		for( int i = 0; i < PROJECT_VAR_COUNT; i++ )
+		{
+			project.set( "p" + i, i );
+		}
+		long start = System.nanoTime();
+		final Dom specialized = PartialEvaluator.INSTANCE.specialize( 
+			dom, project );
+		System.out.println( "specialized (" + dom.getAllMarks().length + ") to (" 
+			+ specialized.getAllMarks().length + ") marks in " 
+			+ ( ( System.nanoTime() - start ) / 1000 ) + " us" );
+		
+		Bench.run( "tailor full Dom", 50, 200,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					VarContext context = new VarContext();
+					context.set( "log", true );
+					for( int i = 0; i < PROJECT_VAR_COUNT; i++ )
+					{
+						context.set( "p" + i, i );
+					}
+					for( int i = 0; i < ENTITY_VAR_COUNT; i++ )
+					{
+						context.set( "e" + i, i );
+					}
+					return Tailor.code( dom, context );
+				}
+			});
+		
+		Bench.run( "tailor specialized Dom", 50, 200,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					VarContext context = new VarContext();
+					for( int i = 0; i < ENTITY_VAR_COUNT; i++ )
+					{
+						context.set( "e" + i, i );
+					}
+					return Tailor.code( specialized, context );
+				}
+			});
+	}
+}
@@ -0,0 +1,66 @@
+package io.varcode.bench;
+
+import io.varcode.context.VarContext;
+import io.varcode.context.VarScope;
+
+/**
+ * Measures looking up names in a {@code VarContext} (over the LOOP, 
+ * INSTANCE, CORE_LIBRARY and CORE scopes) the way a form loop does
+ * (binding the LOOP vars for each element, then looking up the vars,
+ * scripts and names that are not bound)
+ */
+public class ScopeBindingsBench
+{
+	public static final int ELEMENTS = 1000;
+	
+	public static void main( String[] args )
+	{
+		final VarContext context = VarContext.of( 
+			"className", "MyClass", "packageName", "ex.varcode" );
+		for( int i = 0; i < 20; i++ )
+		{
+			context.set( "static" + i, i, VarScope.STATIC );
+		}
+		
+		Bench.run( "form loop (" + ELEMENTS + " elements, 8 lookups each)", 200, 2000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					int found = 0;
+					for( int i = 0; i < ELEMENTS; i++ )
+					{
+						context.set( "type", "int", VarScope.LOOP );
+						context.set( "name", "f" + ( i & 7 ), VarScope.LOOP );
+						if( context.get( "type" ) != null ) found++;
+						if( context.get( "name" ) != null ) found++;
+						if( context.get( "className" ) != null ) found++;
+						if( context.get( "packageName" ) != null ) found++;
+						if( context.get( "static7" ) != null ) found++;
+						if( context.getVarScript( "count" ) != null ) found++;
+						if( context.get( "notBound" ) != null ) found++;
+						if( context.getScopeOf( "alsoNotBound" ) != -1 ) found++;
+					}
+					return found;
+				}
+			});
+		
+		Bench.run( "lookups (no writes, 8 lookups)", 20000, 200000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					int found = 0;
+					if( context.get( "type" ) != null ) found++;
+					if( context.get( "name" ) != null ) found++;
+					if( context.get( "className" ) != null ) found++;
+					if( context.get( "packageName" ) != null ) found++;
+					if( context.get( "static7" ) != null ) found++;
+					if( context.getVarScript( "count" ) != null ) found++;
+					if( context.get( "notBound" ) != null ) found++;
+					if( context.getScopeOf( "alsoNotBound" ) != -1 ) found++;
+					return found;
+				}
+			});
+	}
+}
@@ -0,0 +1,85 @@
+package io.varcode.bench;
+
+import io.varcode.context.Resolve.SmartScriptResolver;
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Compares tailoring a {@code Dom} with hundreds of marks calling a 
+ * static method (i.e. "{+$io.varcode.bench.ScriptResolverBench.toConst(name)+}")
+ * resolving the class / method for every call (the cache cleared) and 
+ * resolving ONCE (cached {@code MethodHandle})
+ */
+public class ScriptResolverBench
+{
+	public static final int MARK_COUNT = 500;
+	
+	public static String toConst( VarContext context, String varName )
+	{
+		return context.get( varName ).toString().toUpperCase();
+	}
+	
+	public static Dom staticMethodDom( int markCount )
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < markCount; i++ )
+		{
+			markup.append( "field" ).append( i ).append( " = {+$" )
+				.append( ScriptResolverBench.class.getName() )
+				.append( ".toConst(name)+};" )
+				.append( System.lineSeparator() );
+		}
+		return BindML.compile( markup.toString() );
+	}
+	
+	private static Object resolveAndEval( VarContext context, boolean clearCache )
+	{
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < MARK_COUNT; i++ )
+		{
+			if( clearCache )
+			{   //resolve the class / method from scratch
+				SmartScriptResolver.clearCache();
+			}
+			sb.append( context.resolveScript( 
+				ScriptResolverBench.class.getName() + ".toConst", "name" )
+					.eval( context, "name" ) );
+		}
+		return sb;
+	}
+	
+	public static void main( String[] args )
+	{
+		final Dom dom = staticMethodDom( MARK_COUNT );
+		final VarContext context = VarContext.of( "name", "eric" );
+		
+		Bench.run( "resolve & eval " + MARK_COUNT + " static method scripts (uncached)", 20, 100,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return resolveAndEval( context, true );
+				}
+			});
+		
+		Bench.run( "resolve & eval " + MARK_COUNT + " static method scripts (cached)", 20, 100,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return resolveAndEval( context, false );
+				}
+			});
+		
+		Bench.run( "tailor " + MARK_COUNT + " static method marks (cached)", 20, 100,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( dom, context );
+				}
+			});
+	}
+}
@@ -0,0 +1,56 @@
+package io.varcode.bench;
+
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.tailor.SlotTailor;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Compares tailoring a {@code Dom} with hundreds of AddVar marks 
+ * by name (with a new {@code VarContext} for each document) and by 
+ * slot (with a {@code SlotTailor} and an {@code Object[]} of values)
+ */
+public class SlotTailorBench
+{
+	public static final int VAR_COUNT = 500;
+	
+	public static void main( String[] args )
+	{
+		final Dom dom = VarResolverBench.addVarDom( VAR_COUNT );
+		final SlotTailor slotTailor = SlotTailor.of( dom );
+		
+		final int[] slots = new int[ 50 ];
+		for( int i = 0; i < 50; i++ )
+		{
+			slots[ i ] = slotTailor.slotOf( "v" + i );
+		}
+		
+		Bench.run( "tailor " + VAR_COUNT + " AddVar (VarContext)", 50, 200,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					VarContext context = new VarContext();
+					for( int i = 0; i < 50; i++ )
+					{
+						context.set( "v" + i, i );
+					}
+					return Tailor.code( dom, context );
+				}
+			});
+		
+		Bench.run( "tailor " + VAR_COUNT + " AddVar (SlotTailor)", 50, 200,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					Object[] values = new Object[ slotTailor.getSlotCount() ];
+					for( int i = 0; i < 50; i++ )
+					{
+						values[ slots[ i ] ] = i;
+					}
+					return slotTailor.code( values );
+				}
+			});
+	}
+}
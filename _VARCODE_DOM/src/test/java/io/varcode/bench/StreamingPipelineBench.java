@@ -0,0 +1,85 @@
+package io.varcode.bench;
+
+import java.io.StringWriter;
+
+import io.varcode.context.VarContext;
+import io.varcode.context.lib.text.Indent4Spaces;
+import io.varcode.context.lib.text.RemoveEmptyLines;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Directive;
+import io.varcode.tailor.Tailor;
+import io.varcode.tailor.TailorState;
+
+/**
+ * Compares post-processing a large tailored document with text directives 
+ * ({@code RemoveEmptyLines}, {@code Indent4Spaces}) on the whole document
+ * (each directive re-reading and rebuilding the text) with the fused 
+ * streaming pipeline (one pass as the text is written)
+ */
+public class StreamingPipelineBench
+{
+	public static final int LINE_COUNT = 5000;
+	
+	/** post-processes the whole document (not streamed) */
+	private static Directive wholeDocument( final Directive directive )
+	{
+		return new Directive.PostProcessor()
+		{
+			public void postProcess( TailorState tailorState )
+			{
+				directive.postProcess( tailorState );
+			}
+		};
+	}
+	
+	public static void main( String[] args )
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < LINE_COUNT; i++ )
+		{
+			markup.append( "    int {+name+}" + i + " = " + i + ";" 
+				+ System.lineSeparator() + System.lineSeparator() );
+		}
+		final Dom dom = BindML.compile( markup.toString() );
+		
+		final Directive[] whole = { 
+			wholeDocument( RemoveEmptyLines.INSTANCE ), 
+			wholeDocument( Indent4Spaces.INSTANCE ), 
+			wholeDocument( Indent4Spaces.INSTANCE ) };
+		
+		final Directive[] streamed = { 
+			RemoveEmptyLines.INSTANCE, 
+			Indent4Spaces.INSTANCE, 
+			Indent4Spaces.INSTANCE };
+		
+		Bench.run( "post-process whole document (3 directives)", 20, 100,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( dom, VarContext.of( "name", "f" ), whole );
+				}
+			});
+		
+		Bench.run( "streamed (3 directives fused)", 20, 100,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( dom, VarContext.of( "name", "f" ), streamed );
+				}
+			});
+		
+		Bench.run( "streamed to Writer (3 directives fused)", 20, 100,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					StringWriter writer = new StringWriter();
+					Tailor.write( dom, VarContext.of( "name", "f" ), writer, streamed );
+					return writer;
+				}
+			});
+	}
+}
@@ -0,0 +1,45 @@
+package io.varcode.bench;
+
+import io.varcode.context.VarContext;
+import io.varcode.context.VarScope;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Tailor;
+import io.varcode.tailor.metrics.TailorMetrics;
+
+/**
+ * Measures the overhead of instrumenting tailoring: with no 
+ * {@code TailorListener} bound (the default) vs. with {@code TailorMetrics}
+ */
+public class TailorMetricsBench
+{
+	public static void main( String[] args )
+	{
+		final Dom getter = BindML.compile( 
+			"public {+type+} get{+name+}() { return this.{+name+}; }" );
+		final TailorMetrics metrics = new TailorMetrics();
+		
+		Bench.run( "tailor getter (no listener)", 20000, 200000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( getter, 
+						VarContext.of( "type", "int", "name", "count" ) );
+				}
+			});
+		
+		Bench.run( "tailor getter (TailorMetrics)", 20000, 200000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					VarContext context = 
+						VarContext.of( "type", "int", "name", "count" );
+					context.set( VarContext.TAILOR_LISTENER_NAME, metrics, VarScope.CORE );
+					return Tailor.code( getter, context );
+				}
+			});
+		System.out.println( metrics.getReport() );
+	}
+}
@@ -0,0 +1,42 @@
+package io.varcode.bench;
+
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Measures the per-call overhead of tailoring small (hot) {@code Dom}s
+ * (where the cost of partitioning the marks and resolving directives on 
+ * each call is significant relative to filling the blanks)  
+ */
+public class TailorPlanBench
+{
+	public static void main( String[] args )
+	{
+		final Dom field = BindML.compile( 
+			"private {+type+} {+name+};" );
+		final Dom getter = BindML.compile( 
+			"public {+type+} get{+name+}() { return this.{+name+}; }" );
+		
+		Bench.run( "tailor field (2 marks)", 20000, 200000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( field, 
+						VarContext.of( "type", "int", "name", "count" ) );
+				}
+			});
+		
+		Bench.run( "tailor getter (3 marks)", 20000, 200000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( getter, 
+						VarContext.of( "type", "int", "name", "count" ) );
+				}
+			});
+	}
+}
@@ -0,0 +1,47 @@
+package io.varcode.bench;
+
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.dom.codeml.CodeMLCompiler;
+
+/**
+ * Measures the time and allocation of creating a {@code VarContext} 
+ * (the CORE and CORE_LIBRARY bindings are shared, not rebuilt for each 
+ * context) and of creating a per-request context and parsing small
+ * CodeML markup (which creates a new context for each parse)
+ */
+public class VarContextBench
+{
+	public static void main( String[] args )
+	{
+		Bench.run( "new VarContext()", 20000, 100000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return new VarContext();
+				}
+			});
+		
+		Bench.run( "VarContext.of( name, value, count, 3 )", 20000, 100000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return VarContext.of( "name", "value", "count", 3 );
+				}
+			});
+		
+		final String codeML = 
+			"public class /*{+className*/Eric/*+}*/ {}";
+		Bench.run( "CodeMLCompiler.fromString (small markup)", 5000, 20000,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					Dom dom = CodeMLCompiler.fromString( codeML );
+					return dom;
+				}
+			});
+	}
+}
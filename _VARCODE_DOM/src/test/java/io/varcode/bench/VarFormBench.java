@@ -0,0 +1,62 @@
+package io.varcode.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Expands a form over 100k elements (each var is an array, a 
+ * {@code RandomAccess} {@code ArrayList}, a {@code LinkedList} or a 
+ * {@code LinkedHashSet}), (each var is resolved and indexed ONCE 
+ * per form, rather than copied for each form instance)
+ */
+public class VarFormBench
+{
+	public static final int ELEMENT_COUNT = 100000;
+	
+	public static void run( String name, final Dom dom, final VarContext context )
+	{
+		Bench.run( name, 3, 10, 
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( dom, context );
+				}
+			});
+	}
+	
+	public static void main( String[] args )
+	{
+		Dom dom = BindML.compile( "{{+:{+type+} {+name+}, +}}" );
+		
+		String[] types = new String[ ELEMENT_COUNT ];
+		String[] names = new String[ ELEMENT_COUNT ];
+		for( int i = 0; i < ELEMENT_COUNT; i++ )
+		{
+			types[ i ] = "int";
+			names[ i ] = "f" + i;
+		}
+		List<String> typeList = Arrays.asList( types );
+		List<String> nameList = Arrays.asList( names );
+		
+		run( "form of 100k (array)", dom, 
+			VarContext.of( "type", types, "name", names ) );
+		run( "form of 100k (ArrayList)", dom, 
+			VarContext.of( "type", new ArrayList<String>( typeList ), 
+				"name", new ArrayList<String>( nameList ) ) );
+		run( "form of 100k (LinkedList)", dom, 
+			VarContext.of( "type", new LinkedList<String>( typeList ), 
+				"name", new LinkedList<String>( nameList ) ) );
+		run( "form of 100k (LinkedHashSet)", dom, 
+			VarContext.of( "type", "int", 
+				"name", new LinkedHashSet<String>( nameList ) ) );
+	}
+}
@@ -0,0 +1,78 @@
+package io.varcode.bench;
+
+import io.varcode.context.Resolve.DirectVarResolver;
+import io.varcode.context.Resolve.SmartVarResolver;
+import io.varcode.context.VarContext;
+import io.varcode.context.VarScope;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Tailor;
+
+/**
+ * Compares tailoring a {@code Dom} with hundreds of AddVar marks
+ * using the {@code SmartVarResolver} (which evaluates each var 
+ * through the {@code ExpressionEvaluator}) and the 
+ * {@code DirectVarResolver} (which looks up the var in the 
+ * {@code ScopeBindings}) 
+ */
+public class VarResolverBench
+{
+	public static final int VAR_COUNT = 500;
+	
+	public static Dom addVarDom( int varCount )
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < varCount; i++ )
+		{
+			markup.append( "field" ).append( i ).append( " = {+v" )
+				.append( i % 50 ).append( "+};" )
+				.append( System.lineSeparator() );
+		}
+		return BindML.compile( markup.toString() );
+	}
+	
+	public static VarContext context( int varCount )
+	{
+		VarContext context = new VarContext();
+		for( int i = 0; i < 50; i++ )
+		{
+			context.set( "v" + i, i );
+		}
+		return context;
+	}
+	
+	public static void main( String[] args )
+	{
+		final Dom dom = addVarDom( VAR_COUNT );
+		
+		final VarContext smart = context( VAR_COUNT );
+		smart.set( 
+			VarContext.VAR_RESOLVER_NAME, 
+			SmartVarResolver.INSTANCE, 
+			VarScope.CORE );
+		
+		final VarContext direct = context( VAR_COUNT );
+		direct.set( 
+			VarContext.VAR_RESOLVER_NAME, 
+			DirectVarResolver.INSTANCE, 
+			VarScope.CORE );
+		
+		Bench.run( "tailor " + VAR_COUNT + " AddVar (SmartVarResolver)", 50, 200,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( dom, smart );
+				}
+			});
+		
+		Bench.run( "tailor " + VAR_COUNT + " AddVar (DirectVarResolver)", 50, 200,
+			new Bench.Op()
+			{
+				public Object run()
+				{
+					return Tailor.code( dom, direct );
+				}
+			});
+	}
+}
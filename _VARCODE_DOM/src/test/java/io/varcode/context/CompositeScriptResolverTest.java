@@ -1,10 +1,18 @@
 package io.varcode.context;
 
+import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.UUID;
 
 import io.varcode.context.Resolve.SmartScriptResolver;
 import io.varcode.context.lib.text.FirstCap;
+import io.varcode.dom.Dom;
 import io.varcode.dom.VarNameAudit;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.java.javac.InMemoryJavaClassLoader;
+import io.varcode.java.javac.InMemoryJavaSource;
+import io.varcode.java.javac.InMemoryJavac;
+import io.varcode.tailor.Tailor;
 import junit.framework.TestCase;
 
 public class CompositeScriptResolverTest
@@ -156,4 +164,133 @@ public class CompositeScriptResolverTest
 		assertEquals( FirstCap.INSTANCE, 
 			csr.resolveScript( context , "^", null ) );		
 	}
+	
+	//USED BELOW
+	public static final class Names
+	{
+		public static String toConst( String input )
+		{
+			return input.toUpperCase();
+		}
+		
+		public static int length( Object input )
+		{
+			return input.toString().length();
+		}
+		
+		public static void nothing()
+		{			
+		}
+		
+		public static Object fail( String input )
+		{
+			throw new IllegalStateException( input );
+		}
+	}
+	
+	public void testStaticMethodResolvedOnce()
+	{
+		SmartScriptResolver.clearCache();
+		VarContext vc = new VarContext();
+		String name = Names.class.getName() + ".toConst";
+		VarScript vs = csr.resolveScript( vc, name, "abc" );
+		assertEquals( "ABC", vs.eval( vc, null ) );
+		int cached = SmartScriptResolver.getCachedCount();
+		assertEquals( 1, cached );
+		
+		VarContext other = VarContext.of( "a", 1 );
+		vs = csr.resolveScript( other, name, "def" );
+		assertEquals( "DEF", vs.eval( other, null ) );
+		assertEquals( cached, SmartScriptResolver.getCachedCount() );
+	}
+	
+	public void testPrimitiveAndVoidResults()
+	{
+		VarContext vc = new VarContext();
+		assertEquals( 3, csr.resolveScript( 
+			vc, Names.class.getName() + ".length", "abc" ).eval( vc, null ) );
+		assertNull( csr.resolveScript( 
+			vc, Names.class.getName() + ".nothing", "abc" ).eval( vc, null ) );
+	}
+	
+	public void testExceptionWrapped()
+	{
+		VarContext vc = new VarContext();
+		VarScript vs = csr.resolveScript( 
+			vc, Names.class.getName() + ".fail", "oops" );
+		try
+		{
+			vs.eval( vc, null );
+			fail( "expected exception" );
+		}
+		catch( EvalException e )
+		{
+			assertTrue( e.getCause() instanceof IllegalStateException );
+		}
+	}
+	
+	public void testUnresolvedIsCached()
+	{
+		SmartScriptResolver.clearCache();
+		VarContext vc = new VarContext();
+		assertNull( csr.resolveScript( vc, "com.acme.DoesNotExist.toConst", null ) );
+		assertNull( csr.resolveScript( vc, Names.class.getName() + ".noSuchMethod", null ) );
+		assertEquals( 2, SmartScriptResolver.getCachedCount() );
+		assertNull( csr.resolveScript( vc, "com.acme.DoesNotExist.toConst", null ) );
+		assertEquals( 2, SmartScriptResolver.getCachedCount() );
+	}
+	
+	public void testClassLoaderNotRetained()
+		throws Exception
+	{
+		InMemoryJavaClassLoader loader = new InMemoryJavaClassLoader();
+		InMemoryJavac.compile( loader, Collections.singletonList( 
+			new InMemoryJavaSource( "ex.varcode.Loaded", 
+				"package ex.varcode; public class Loaded { "
+			  + "public static String toConst( String s ){ return s.toUpperCase(); } }" ) ) );
+		
+		Thread thread = Thread.currentThread();
+		ClassLoader tccl = thread.getContextClassLoader();
+		thread.setContextClassLoader( loader );
+		try
+		{
+			VarContext vc = new VarContext();
+			assertEquals( "ABC", csr.resolveScript( 
+				vc, "ex.varcode.Loaded.toConst", "abc" ).eval( vc, null ) );
+		}
+		finally
+		{
+			thread.setContextClassLoader( tccl );
+		}
+		WeakReference<ClassLoader> ref = new WeakReference<ClassLoader>( loader );
+		loader = null;
+		for( int i = 0; i < 20 && ref.get() != null; i++ )
+		{
+			System.gc();
+			Thread.sleep( 10 );
+		}
+		assertNull( "the cache retained the ClassLoader", ref.get() );
+	}
+	
+	//USED BELOW (called from the template)
+	public static Object toConst( VarContext context, String varName )
+	{
+		templateCalls++;
+		return context.get( varName ).toString().toUpperCase();
+	}
+	
+	private static int templateCalls = 0;
+	
+	public void testStaticMethodInTemplate()
+	{
+		templateCalls = 0;
+		Dom dom = BindML.compile( 
+			"{+$" + CompositeScriptResolverTest.class.getName() + ".toConst(name)+}" );
+		for( int i = 0; i < 100; i++ )
+		{
+			assertEquals( "N" + i, 
+				Tailor.code( dom, VarContext.of( "name", "n" + i ) ) );
+		}
+		assertEquals( 100, templateCalls );
+	}
 }
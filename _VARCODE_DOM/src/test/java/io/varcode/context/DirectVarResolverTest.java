@@ -0,0 +1,75 @@
+package io.varcode.context;
+
+import io.varcode.context.Resolve.DirectVarResolver;
+import io.varcode.context.Resolve.SmartVarResolver;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.dom.codeml.CodeML;
+import io.varcode.tailor.Tailor;
+import junit.framework.TestCase;
+
+public class DirectVarResolverTest
+	extends TestCase
+{
+	private static final DirectVarResolver dvr = DirectVarResolver.INSTANCE;
+	
+	public void testBootstrapped()
+	{
+		VarContext vc = new VarContext();
+		assertEquals( DirectVarResolver.INSTANCE, vc.getVarResolver() );
+	}
+	
+	public void testResolveBound()
+	{
+		VarContext vc = VarContext.of( "a", 1, "name", "eric" );
+		assertEquals( 1, dvr.resolveVar( vc, "a" ) );
+		assertEquals( "eric", dvr.resolveVar( vc, "name" ) );
+		assertNull( dvr.resolveVar( vc, "unknown" ) );
+		assertNull( dvr.resolveVar( vc, null ) );
+		assertNull( dvr.resolveVar( vc, " " ) );
+	}
+	
+	public void testResolveByScope()
+	{
+		VarContext vc = new VarContext();
+		vc.set( "a", "static", VarScope.STATIC );
+		assertEquals( "static", dvr.resolveVar( vc, "a" ) );
+		vc.set( "a", "instance", VarScope.INSTANCE );
+		assertEquals( "instance", dvr.resolveVar( vc, "a" ) );
+	}
+	
+	/** vars defined in script expressions fall back to the ExpressionEvaluator */
+	public void testResolveExpressionVar()
+	{
+		VarContext vc = VarContext.of( "name", "eric" );
+		vc.evaluate( "var b = 100;" );
+		assertEquals( 
+			SmartVarResolver.INSTANCE.resolveVar( vc, "b" ), 
+			dvr.resolveVar( vc, "b" ) );
+		assertEquals( 
+			SmartVarResolver.INSTANCE.resolveVar( vc, "name.length" ),
+			dvr.resolveVar( vc, "name.length" ) );
+	}
+	
+	public void testSelectResolver()
+	{
+		VarContext vc = VarContext.of( "name", "eric" );
+		vc.set( 
+			VarContext.VAR_RESOLVER_NAME, 
+			SmartVarResolver.INSTANCE, 
+			VarScope.CORE );
+		assertEquals( SmartVarResolver.INSTANCE, vc.getVarResolver() );
+		assertEquals( "eric", Tailor.code( BindML.compile( "{+name+}" ), vc ) );
+		
+		vc.set( 
+			VarContext.VAR_RESOLVER_NAME, 
+			DirectVarResolver.INSTANCE, 
+			VarScope.CORE );
+		assertEquals( "eric", Tailor.code( BindML.compile( "{+name+}" ), vc ) );
+	}
+	
+	public void testTailorExpressionVar()
+	{
+		assertEquals( "100", 
+			Tailor.code( CodeML.compile( "/*{((var a = 100;))}*//*{+a+}*/" ) ) );
+	}
+}
@@ -0,0 +1,141 @@
+package io.varcode.context;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.varcode.VarException;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Tailor;
+import junit.framework.TestCase;
+
+public class ExpressionEvaluator_CompiledJavaScriptTest
+	extends TestCase
+{
+	public void testBootstrapped()
+	{
+		assertEquals( 
+			ExpressionEvaluator_CompiledJavaScript.INSTANCE, 
+			new VarContext().getExpressionEvaluator() );
+	}
+	
+	public void testEvaluateCached()
+	{
+		//(1) engine, so both contexts use the same compiled expression cache
+		ExpressionEvaluator_CompiledJavaScript ee = 
+			new ExpressionEvaluator_CompiledJavaScript( 
+				new ScriptEnginePool( "JavaScript", 1 ), 10 );
+		
+		VarContext vc = VarContext.of( "a", 1, "b", 2 );
+		assertEquals( 3, ((Number)ee.evaluate( vc, "a + b" )).intValue() );
+		assertEquals( 0, ee.getHitCount() );
+		assertEquals( 1, ee.getMissCount() );
+		
+		//the compiled expression is evaluated against the (new) bindings 
+		vc = VarContext.of( "a", 10, "b", 20 );
+		assertEquals( 30, ((Number)ee.evaluate( vc, "a + b" )).intValue() );
+		assertEquals( 1, ee.getHitCount() );
+		assertEquals( 1, ee.getMissCount() );
+		assertEquals( 1, ee.getCachedCount() );
+		
+		ee.clearCache();
+		assertEquals( 0, ee.getCachedCount() );
+		assertEquals( 0, ee.getHitCount() );
+		assertEquals( 0, ee.getMissCount() );
+	}
+	
+	public void testSharedEngineConcurrent()
+		throws InterruptedException
+	{
+		//(1) engine shared by all threads (each with its own Bindings)
+		final ScriptEnginePool pool = new ScriptEnginePool( "JavaScript", 1 );
+		assertFalse( pool.isMultithreaded( 0 ) );
+		final ExpressionEvaluator_CompiledJavaScript ee = 
+			new ExpressionEvaluator_CompiledJavaScript( pool, 10 );
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] threads = new Thread[ 4 ];
+		for( int i = 0; i < threads.length; i++ )
+		{
+			final int id = i;
+			threads[ i ] = new Thread()
+			{
+				public void run()
+				{
+					try
+					{
+						VarContext vc = VarContext.of( "id", id );
+						for( int j = 0; j < 200; j++ )
+						{
+							assertEquals( id * 2 + j, ((Number)ee.evaluate( 
+								vc, "var x = id * 2; x + " + ( j % 3 ) + " + " 
+								+ ( j - ( j % 3 ) ) ) ).intValue() );
+						}
+					}
+					catch( Throwable t )
+					{
+						failure.compareAndSet( null, t );
+					}
+				}
+			};
+			threads[ i ].start();
+		}
+		for( int i = 0; i < threads.length; i++ )
+		{
+			threads[ i ].join();
+		}
+		assertNull( String.valueOf( failure.get() ), failure.get() );
+	}
+	
+	public void testCacheBounded()
+	{
+		ExpressionEvaluator_CompiledJavaScript ee = 
+			new ExpressionEvaluator_CompiledJavaScript( 2 );
+		VarContext vc = new VarContext();
+		ee.evaluate( vc, "1 + 1" );
+		ee.evaluate( vc, "1 + 2" );
+		ee.evaluate( vc, "1 + 1" ); //hit, now the most recently used
+		ee.evaluate( vc, "1 + 3" ); //evicts "1 + 2"
+		assertEquals( 2, ee.getCachedCount() );
+		assertEquals( 1, ee.getHitCount() );
+		
+		ee.evaluate( vc, "1 + 1" );
+		assertEquals( 2, ee.getHitCount() );
+		ee.evaluate( vc, "1 + 2" );
+		assertEquals( 4, ee.getMissCount() );
+	}
+	
+	public void testInvalidMaxCached()
+	{
+		try
+		{
+			new ExpressionEvaluator_CompiledJavaScript( 0 );
+			fail( "expected exception for 0 max cached" );
+		}
+		catch( VarException e )
+		{
+			//expected
+		}
+	}
+	
+	public void testEvalException()
+	{
+		ExpressionEvaluator_CompiledJavaScript ee = 
+			new ExpressionEvaluator_CompiledJavaScript( 10 );
+		try
+		{
+			ee.evaluate( new VarContext(), "a +* /" );
+			fail( "expected exception for invalid expression" );
+		}
+		catch( VarException e )
+		{
+			//expected
+		}
+		assertEquals( 0, ee.getCachedCount() );
+	}
+	
+	public void testTailorExpression()
+	{
+		assertEquals( "9", 
+			Tailor.code( BindML.compile( "{+((5 + 4))+}" ) ) );
+		assertEquals( "eric", 
+			Tailor.code( BindML.compile( "{+((name))+}" ), "name", "eric" ) );
+	}
+}
@@ -0,0 +1,166 @@
+package io.varcode.context;
+
+import io.varcode.VarException;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Tailor;
+import junit.framework.TestCase;
+
+public class ExpressionEvaluator_NativeTest
+	extends TestCase
+{
+	private static ExpressionEvaluator_Native newNative()
+	{
+		return new ExpressionEvaluator_Native(
+			ExpressionEvaluator_CompiledJavaScript.INSTANCE, 100 );
+	}
+
+	public void testArithmetic()
+	{
+		ExpressionEvaluator_Native ee = newNative();
+		VarContext vc = VarContext.of( "a", 1, "b", 2, "d", 2.5 );
+		assertEquals( 3, ee.evaluate( vc, "a + b" ) );
+		assertEquals( 9, ee.evaluate( vc, "5 + 4" ) );
+		assertEquals( 2.5, ee.evaluate( vc, "5 / 2" ) );
+		assertEquals( 2, ee.evaluate( vc, "4 / 2" ) );
+		assertEquals( 5, ee.evaluate( vc, "d * b" ) );
+		assertEquals( -1, ee.evaluate( vc, "-7 % 3" ) );
+		assertEquals( 7, ee.evaluate( vc, "1 + 2 * 3" ) );
+		assertEquals( 9, ee.evaluate( vc, "(1 + 2) * 3" ) );
+		assertEquals( 3, ee.evaluate( vc, "(a + b) | 0" ) );
+		assertEquals( 2, ee.evaluate( vc, "d | 0" ) );
+		assertEquals( 255, ee.evaluate( vc, "0xFF" ) );
+		assertEquals( -1, ee.evaluate( vc, "~0" ) );
+		assertEquals( 8, ee.evaluate( vc, "1 << 3" ) );
+		assertEquals( 2147483647, ee.evaluate( vc, "-1 >>> 1" ) );
+		assertEquals( 4294967295.0, ee.evaluate( vc, "-1 >>> 0" ) );
+		assertEquals( Double.POSITIVE_INFINITY, ee.evaluate( vc, "1 / 0" ) );
+		assertEquals( 0, ee.getFallbackCount() );
+	}
+
+	public void testStrings()
+	{
+		ExpressionEvaluator_Native ee = newNative();
+		VarContext vc = VarContext.of( "name", "eric", "a", 1, "d", 0.5 );
+		assertEquals( "eric1", ee.evaluate( vc, "name + a" ) );
+		assertEquals( "12", ee.evaluate( vc, "'1' + 2" ) );
+		assertEquals( "3x", ee.evaluate( vc, "1 + 2 + 'x'" ) );
+		assertEquals( "x0.5", ee.evaluate( vc, "\"x\" + d" ) );
+		assertEquals( "xnulltrue", ee.evaluate( vc, "'x' + null + true" ) );
+		assertEquals( "it's", ee.evaluate( vc, "'it\\'s'" ) );
+		assertEquals( 4, ee.evaluate( vc, "name.length" ) );
+		assertEquals( true, ee.evaluate( vc, "name.length > 3" ) );
+		assertEquals( true, ee.evaluate( vc, "name.equals('eric')" ) );
+		assertEquals( false, ee.evaluate( vc, "name.equals(1)" ) );
+		assertEquals( 0, ee.getFallbackCount() );
+	}
+
+	public void testLogic()
+	{
+		ExpressionEvaluator_Native ee = newNative();
+		VarContext vc = VarContext.of(
+			"bitCount", 32, "log", "debug", "empty", "", "n", null );
+		assertEquals( true, ee.evaluate( vc, "bitCount > 0 && bitCount <= 64" ) );
+		assertEquals( false, ee.evaluate( vc, "bitCount > 0 && bitCount <= 16" ) );
+		assertEquals( true,
+			ee.evaluate( vc, "log.equals('debug') || log.equals('info')" ) );
+		assertEquals( "dflt", ee.evaluate( vc, "empty || 'dflt'" ) );
+		assertEquals( "", ee.evaluate( vc, "empty && 'x'" ) );
+		assertEquals( "b", ee.evaluate( vc, "1 > 2 ? 'a' : 'b'" ) );
+		assertEquals( "c", ee.evaluate( vc, "false ? 'a' : n ? 'b' : 'c'" ) );
+		assertEquals( true, ee.evaluate( vc, "!n" ) );
+		assertEquals( true, ee.evaluate( vc, "'1' == 1" ) );
+		assertEquals( false, ee.evaluate( vc, "'1' === 1" ) );
+		assertEquals( true, ee.evaluate( vc, "1 === 1.0" ) );
+		assertEquals( true, ee.evaluate( vc, "n == null" ) );
+		assertEquals( false, ee.evaluate( vc, "n == 0" ) );
+		assertEquals( true, ee.evaluate( vc, "true == 1" ) );
+		assertEquals( true, ee.evaluate( vc, "'a' < 'b'" ) );
+		assertEquals( true, ee.evaluate( vc, "'10' < 9 == false" ) );
+		assertEquals( false, ee.evaluate( vc, "'x' < 1 || 'x' >= 1" ) );
+		assertEquals( 0, ee.getFallbackCount() );
+	}
+
+	public void testFallback()
+	{
+		ExpressionEvaluator_Native ee = newNative();
+		VarContext vc = VarContext.of( "a", 1, "b", 2, "big", 5L );
+
+		assertFalse( ee.isNative( "Math.max( a, b )" ) );
+		assertEquals( 2, ((Number)ee.evaluate( vc, "Math.max( a, b )" )).intValue() );
+		assertEquals( 1, ee.getFallbackCount() );
+
+		assertFalse( ee.isNative( "typeof a" ) );
+		assertEquals( "number", ee.evaluate( vc, "typeof a" ) );
+		assertEquals( 2, ee.getFallbackCount() );
+
+		//parsed natively, but evaluated by the fallback (Long operand)
+		assertTrue( ee.isNative( "big + 1" ) );
+		assertEquals( 6, ((Number)ee.evaluate( vc, "big + 1" )).intValue() );
+		assertEquals( 3, ee.getFallbackCount() );
+
+		//not bound in the context
+		try
+		{
+			ee.evaluate( vc, "notBound + 1" );
+			fail( "expected exception for unbound var" );
+		}
+		catch( VarException e )
+		{
+			//expected
+		}
+		assertEquals( 0, ee.getNativeCount() );
+	}
+
+	public void testCacheBounded()
+	{
+		ExpressionEvaluator_Native ee = new ExpressionEvaluator_Native(
+			ExpressionEvaluator_CompiledJavaScript.INSTANCE, 2 );
+		VarContext vc = new VarContext();
+		ee.evaluate( vc, "1 + 1" );
+		ee.evaluate( vc, "1 + 2" );
+		ee.evaluate( vc, "1 + 3" );
+		assertEquals( 2, ee.getCachedCount() );
+		assertEquals( 3, ee.getNativeCount() );
+		ee.clearCache();
+		assertEquals( 0, ee.getCachedCount() );
+		assertEquals( 0, ee.getNativeCount() );
+	}
+
+	public void testSameAsJavaScript()
+	{
+		ExpressionEvaluator_Native ee = newNative();
+		VarContext vc = VarContext.of(
+			"a", 7, "b", 3, "name", "eric", "log", "info", "flag", true );
+		String[] expressions = {
+			"a + b", "a - b * 2", "(a + b) | 0", "a % b", "a > b ? 'a' : 'b'",
+			"name + '_' + a", "name.length", "!flag || a < b", "a & b",
+			"a ^ b", "-a >> 1", "a == '7'", "log.equals('debug') || log.equals('info')" };
+		for( int i = 0; i < expressions.length; i++ )
+		{
+			Object expected = ExpressionEvaluator_JavaScript.INSTANCE.evaluate(
+				vc, expressions[ i ] );
+			Object actual = ee.evaluate( vc, expressions[ i ] );
+			if( expected instanceof Number )
+			{   //(the engine may return 10.0 where native returns 10)
+				assertEquals( expressions[ i ],
+					((Number)expected).doubleValue(), ((Number)actual).doubleValue() );
+			}
+			else
+			{
+				assertEquals( expressions[ i ], expected, actual );
+			}
+		}
+		assertEquals( 0, ee.getFallbackCount() );
+	}
+
+	public void testTailorExpression()
+	{
+		VarContext vc = VarContext.of( "name", "eric", "bitCount", 8 );
+		vc.set( VarContext.EXPRESSION_EVALUATOR_NAME,
+			ExpressionEvaluator_Native.INSTANCE, VarScope.CORE );
+		assertEquals( "9 eric 8",
+			Tailor.code(
+				BindML.compile( "{+((5 + 4))+} {+((name))+} {+bitCount:((bitCount > 0 && bitCount <= 64))+}" ),
+				vc ) );
+	}
+}
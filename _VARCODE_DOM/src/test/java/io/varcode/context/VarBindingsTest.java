@@ -2,6 +2,7 @@ package io.varcode.context;
 
 import java.util.Date;
 
+import io.varcode.VarException;
 import junit.framework.TestCase;
 
 public class VarBindingsTest
@@ -177,4 +178,36 @@ public class VarBindingsTest
         //assertEquals( ((String[])vb.get( "^name^"))[4], "DANTE" );
         
     }
+    
+    public void testFreeze()
+    {
+        VarBindings vb = new VarBindings();
+        vb.put( "name", "eric" );
+        assertSame( vb, vb.freeze() );
+        assertTrue( vb.isFrozen() );
+        assertEquals( "eric", vb.get( "name" ) );
+        try
+        {
+            vb.put( "name", "dom" );
+            fail( "expected exception, frozen" );
+        }
+        catch( VarException ve )
+        {
+            //expected
+        }
+        try
+        {
+            vb.keySet().remove( "name" );
+            fail( "expected exception, frozen" );
+        }
+        catch( UnsupportedOperationException uoe )
+        {
+            //expected
+        }
+        VarBindings copy = vb.copy();
+        assertFalse( copy.isFrozen() );
+        copy.put( "name", "dom" );
+        assertEquals( "dom", copy.get( "name" ) );
+        assertEquals( "eric", vb.get( "name" ) );
+    }
 }
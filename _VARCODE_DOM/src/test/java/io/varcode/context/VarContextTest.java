@@ -4,6 +4,7 @@ import java.text.SimpleDateFormat;
 import java.util.List;
 import java.util.UUID;
 
+import io.varcode.dom.VarNameAudit;
 import junit.framework.TestCase;
 
 public class VarContextTest
@@ -258,4 +259,23 @@ public class VarContextTest
         assertEquals( "9", fn.eval( vc, "" ) );        
     }
     
+    public void testCoreBindingsNotShared()
+    {
+        VarContext a = new VarContext();
+        VarContext b = new VarContext();
+        
+        a.set( VarContext.VAR_NAME_AUDIT_NAME, "changed", VarScope.CORE );
+        assertEquals( "changed", a.get( VarContext.VAR_NAME_AUDIT_NAME ) );
+        assertEquals( VarNameAudit.BASE, b.get( VarContext.VAR_NAME_AUDIT_NAME ) );
+        assertEquals( VarNameAudit.BASE, 
+            new VarContext().get( VarContext.VAR_NAME_AUDIT_NAME ) );
+        
+        a.getBindings( VarScope.CORE_LIBRARY ).clear();
+        assertNull( a.getVarScript( "count" ) );
+        assertNotNull( b.getVarScript( "count" ) );
+        
+        //each context has its own Metadata
+        assertNotSame( a.get( VarContext.METADATA_NAME ), 
+            b.get( VarContext.METADATA_NAME ) );
+    }
 }
@@ -38,4 +38,133 @@ public class VarScopeBindingsTest
         assertEquals( "eric", vsb.get( "name", VarScope.GLOBAL ) );        
     }
     
+    public void testSharedBindingsCopiedOnWrite()
+    {
+        VarBindings shared = new VarBindings();
+        shared.put( "name", "eric" );
+        shared.freeze();
+        
+        ScopeBindings a = new ScopeBindings();
+        ScopeBindings b = new ScopeBindings();
+        a.shareBindings( shared, VarScope.CORE.getValue() );
+        b.shareBindings( shared, VarScope.CORE.getValue() );
+        
+        assertEquals( "eric", a.get( "name" ) );
+        assertEquals( "eric", b.get( "name", VarScope.CORE ) );
+        
+        //removing a name that isnt bound doesnt copy
+        assertNull( a.remove( "nope", VarScope.CORE.getValue() ) );
+        
+        a.put( "name", "dom", VarScope.CORE );
+        assertEquals( "dom", a.get( "name" ) );
+        assertEquals( "eric", b.get( "name" ) );
+        assertEquals( "eric", shared.get( "name" ) );
+        
+        //getBindings returns a (mutable) copy
+        b.getBindings( VarScope.CORE ).clear();
+        assertNull( b.get( "name" ) );
+        assertEquals( "eric", shared.get( "name" ) );
+    }
+    
+    public void testLookupIndexInvalidated()
+    {
+        ScopeBindings sb = new ScopeBindings();
+        //not bound (memoized)
+        assertNull( sb.get( "name" ) );
+        assertEquals( -1, sb.getScopeOf( "name" ) );
+        assertFalse( sb.containsKey( "name" ) );
+        
+        sb.put( "name", "global", VarScope.GLOBAL );
+        assertEquals( "global", sb.get( "name" ) );
+        assertEquals( VarScope.GLOBAL.getValue(), sb.getScopeOf( "name" ) );
+        
+        //modify the VarBindings directly
+        VarBindings instance = sb.getOrCreateBindings( VarScope.INSTANCE );
+        instance.put( "name", "instance" );
+        assertEquals( "instance", sb.get( "name" ) );
+        assertEquals( VarScope.INSTANCE.getValue(), sb.getScopeOf( "name" ) );
+        
+        //LOOP scope writes take precedence
+        for( int i = 0; i < 10; i++ )
+        {
+            sb.put( "name", "loop" + i, VarScope.LOOP );
+            assertEquals( "loop" + i, sb.get( "name" ) );
+            assertEquals( VarScope.LOOP.getValue(), sb.getScopeOf( "name" ) );
+        }
+        sb.getBindings( VarScope.LOOP ).clear();
+        assertEquals( "instance", sb.get( "name" ) );
+        
+        instance.remove( "name" );
+        assertEquals( "global", sb.get( "name" ) );
+        
+        //replace the bindings at a scope
+        VarBindings replaced = new VarBindings();
+        replaced.put( "name", "replaced" );
+        sb.setBindings( replaced, VarScope.INSTANCE.getValue() );
+        assertEquals( "replaced", sb.get( "name" ) );
+        
+        //the old bindings no longer affect the lookup
+        instance.put( "name", "old" );
+        assertEquals( "replaced", sb.get( "name" ) );
+    }
+    
+    public void testContainsKeyBoundToNull()
+    {
+        ScopeBindings sb = new ScopeBindings();
+        sb.put( "name", null, VarScope.INSTANCE );
+        assertTrue( sb.containsKey( "name" ) );
+        assertNull( sb.get( "name" ) );
+        assertEquals( -1, sb.getScopeOf( "name" ) );
+        
+        sb.remove( "name" );
+        assertFalse( sb.containsKey( "name" ) );
+    }
+    
+    public void testSharedMutableBindingsNotObserved()
+    {
+        VarBindings shared = new VarBindings();
+        shared.put( "name", "shared" );
+        ScopeBindings[] contexts = new ScopeBindings[ 100 ];
+        for( int i = 0; i < contexts.length; i++ )
+        {
+            contexts[ i ] = new ScopeBindings();
+            contexts[ i ].setBindings( shared, VarScope.GLOBAL.getValue() );
+            assertEquals( "shared", contexts[ i ].get( "name" ) );
+        }
+        //the shared bindings are not owned by (do not reference) any context
+        assertTrue( shared.isOwner( null ) );
+        //but each context sees changes to the shared bindings
+        shared.put( "name", "changed" );
+        shared.put( "other", "o" );
+        for( int i = 0; i < contexts.length; i++ )
+        {
+            assertEquals( "changed", contexts[ i ].get( "name" ) );
+            assertEquals( VarScope.GLOBAL.getValue(), contexts[ i ].getScopeOf( "other" ) );
+        }
+        shared.remove( "name" );
+        assertNull( contexts[ 0 ].get( "name" ) );
+        assertFalse( contexts[ 0 ].containsKey( "name" ) );
+    }
+    
+    public void testModifyThroughViews()
+    {
+        ScopeBindings sb = new ScopeBindings();
+        sb.put( "a", "A", VarScope.INSTANCE );
+        sb.put( "b", "B", VarScope.INSTANCE );
+        assertEquals( "A", sb.get( "a" ) );
+        assertEquals( "B", sb.get( "b" ) );
+        
+        VarBindings instance = sb.getBindings( VarScope.INSTANCE );
+        assertTrue( instance.keySet().remove( "a" ) );
+        assertNull( sb.get( "a" ) );
+        assertFalse( sb.containsKey( "a" ) );
+        
+        instance.entrySet().iterator().next().setValue( "changed" );
+        assertEquals( "changed", instance.get( "b" ) );
+        assertEquals( "changed", sb.get( "b" ) );
+        
+        instance.values().clear();
+        assertTrue( instance.isEmpty() );
+        assertNull( sb.get( "b" ) );
+    }
 }
@@ -4,11 +4,15 @@ import java.io.ByteArrayInputStream;
 
 import io.varcode.Metadata;
 import io.varcode.context.VarContext;
+import io.varcode.context.VarScope;
+import io.varcode.context.lib.text.Indent4Spaces;
 import io.varcode.context.lib.math.SHA1Checksum;
 import io.varcode.dom.Dom;
 import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Directive;
 import io.varcode.tailor.Tailor;
 import io.varcode.tailor.TailorState;
+import io.varcode.text.SmartBuffer;
 import junit.framework.TestCase;
 
 public class SHA1ChecksumTest
@@ -16,7 +20,46 @@ public class SHA1ChecksumTest
 {
 	public void testDomAndTailorChecksum()
 	{
+		Dom dom = BindML.compile( 
+			"{$$checksum()$$}{$$indent$$}class {+name+}" + System.lineSeparator() + "{}" );
+		String domChecksum = SHA1Checksum.INSTANCE.generateChecksum( 
+			new ByteArrayInputStream( dom.getMarkupText().getBytes() ) ); 
 		
+		//computed when compiled
+		assertEquals( domChecksum, dom.getMetadata().get( Dom.DOM_CHECKSUM_SHA1 ) );
+		assertEquals( domChecksum, dom.getChecksumSHA1() );
+		
+		VarContext vc = VarContext.of( "name", "A" );
+		vc.set( "indent", Indent4Spaces.INSTANCE, VarScope.STATIC );
+		TailorState ts = Tailor.tailor( dom, vc );
+		String tailored = ts.getTextBuffer().toString();
+		assertEquals( "    class A" + System.lineSeparator() + "    {}", tailored );
+		
+		//the checksum was streamed BEFORE indent, after indent it is not
+		Metadata md = ts.getContext().getMetadata();
+		assertEquals( domChecksum, md.get( SHA1Checksum.DOM_CHECKSUM_SHA1_NAME ) );
+		assertEquals( 
+			SHA1Checksum.INSTANCE.generateChecksum( new ByteArrayInputStream( 
+				( "class A" + System.lineSeparator() + "{}" ).getBytes() ) ), 
+			md.get( SHA1Checksum.TAILOR_CHECKSUM_SHA1_NAME ) );
+		
+		//post-processed (not streamed) after a whole-document directive 
+		vc = VarContext.of( "name", "A" );
+		ts = new TailorState( dom, vc, SmartBuffer.createInstance(), 
+			new Directive.PostProcessor() 
+			{
+				public void postProcess( TailorState tailorState )
+				{
+					tailorState.getTextBuffer().append( "//end" );
+				}
+			}, 
+			SHA1Checksum.INSTANCE );
+		vc.set( "indent", Indent4Spaces.INSTANCE, VarScope.STATIC );
+		Tailor.tailor( ts );
+		assertEquals( 
+			SHA1Checksum.INSTANCE.generateChecksum( new ByteArrayInputStream( 
+				ts.getTextBuffer().toString().getBytes() ) ), 
+			ts.getContext().getMetadata().get( SHA1Checksum.TAILOR_CHECKSUM_SHA1_NAME ) );
 	}
 	public void testChecksum()
 	{
@@ -1,7 +1,13 @@
 package io.varcode.context.lib.text;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
 import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
+import io.varcode.text.TextBuffer.FillBuffer;
 import junit.framework.TestCase;
 
 public class PrefixEachLineWithTest
@@ -33,4 +39,57 @@ public class PrefixEachLineWithTest
 				vc,  
 				"name,prefix ") );
 	}
+	
+	/** the (whole document) implementation the Filter must match */
+	private static String readLines( String input, String prefix ) 
+		throws IOException
+	{
+		StringBuilder fb = new StringBuilder();
+		BufferedReader br = new BufferedReader( new StringReader( input ) );
+		String line = br.readLine();
+		boolean firstLine = true;
+		while( line != null )
+		{
+			if(! firstLine )
+			{
+				fb.append( System.lineSeparator() );					
+			}
+			fb.append( prefix );
+			fb.append( line );
+			firstLine = false;
+			line = br.readLine();
+		}
+		return fb.toString();
+	}
+	
+	public void testFilterSameAsReadLines()
+		throws IOException
+	{
+		Random random = new Random( 7 );
+		char[] chars = { 'a', 'b', ' ', '\r', '\n' };
+		for( int i = 0; i < 5000; i++ )
+		{
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt( 10 );
+			for( int j = 0; j < length; j++ )
+			{
+				sb.append( chars[ random.nextInt( chars.length ) ] );
+			}
+			String text = sb.toString();
+			
+			FillBuffer out = new FillBuffer();
+			PrefixEachLineWith.Filter filter = new PrefixEachLineWith.Filter( out, "//" );
+			int start = 0;
+			while( start < text.length() )
+			{   //stream in chunks
+				int end = Math.min( text.length(), start + 1 + random.nextInt( 3 ) );
+				filter.append( text, start, end );
+				start = end;
+			}
+			filter.finish();
+			assertEquals( text, readLines( text, "//" ), out.toString() );
+			assertEquals( text, readLines( text, "//" ), 
+				PrefixEachLineWith.INSTANCE.doPrefix( text, "//" ) );
+		}
+	}
 }
@@ -0,0 +1,83 @@
+package io.varcode.context.lib.text;
+
+import java.util.Random;
+
+import io.varcode.dom.ParseState.Lines;
+import io.varcode.text.TextBuffer.FillBuffer;
+import junit.framework.TestCase;
+
+public class RemoveEmptyLinesTest
+	extends TestCase
+{
+	private static final String N = System.lineSeparator();
+	
+	/** the (whole document) implementation the Filter must match */
+	private static String splitAndJoin( String sourceCode )
+	{
+		String[] lines = sourceCode.isEmpty() ? 
+			new String[ 0 ] : sourceCode.split( "\\r?\\n" );
+		StringBuilder sb = new StringBuilder();
+		for( int i = 0; i < lines.length; i++ )
+		{
+			if( !( lines[ i ].trim().length() == 0 ) )
+			{
+				sb.append( lines[ i ] );
+				if( i < lines.length - 1)
+				{
+					sb.append( N );
+				}
+			}
+		}
+		String res = sb.toString(); 
+		if( ( lines.length > 1 ) && Lines.countTotal( res ) == 1 )
+		{
+			return res + N;
+		}
+		return res;
+	}
+	
+	/** streams the text through the filter (in chunks of random size) */
+	private static String filter( String text, Random random )
+	{
+		FillBuffer out = new FillBuffer();
+		RemoveEmptyLines.Filter filter = new RemoveEmptyLines.Filter( out );
+		int start = 0;
+		while( start < text.length() )
+		{
+			int end = Math.min( text.length(), start + 1 + random.nextInt( 4 ) );
+			filter.append( text, start, end );
+			start = end;
+		}
+		filter.finish();
+		return out.toString();
+	}
+	
+	public void testFrom()
+	{
+		assertEquals( "", RemoveEmptyLines.from( "" ) );
+		assertEquals( "", RemoveEmptyLines.from( "\n\n" ) );
+		assertEquals( "a", RemoveEmptyLines.from( "a\n" ) );
+		assertEquals( "a" + N, RemoveEmptyLines.from( "a\n  \n" ) );
+		assertEquals( "a" + N, RemoveEmptyLines.from( "\na" ) );
+		assertEquals( "a" + N + "b", RemoveEmptyLines.from( "a\r\n\r\n  \nb" ) );
+		assertEquals( " a" + N + "\tb", RemoveEmptyLines.from( " a\r\n\n\tb" ) );
+	}
+	
+	public void testSameAsSplitAndJoin()
+	{
+		Random random = new Random( 42 );
+		char[] chars = { 'a', 'b', ' ', '\t', '\r', '\n', '\n' };
+		for( int i = 0; i < 5000; i++ )
+		{
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt( 12 );
+			for( int j = 0; j < length; j++ )
+			{
+				sb.append( chars[ random.nextInt( chars.length ) ] );
+			}
+			String text = sb.toString();
+			assertEquals( text, splitAndJoin( text ), filter( text, random ) );
+			assertEquals( text, splitAndJoin( text ), RemoveEmptyLines.from( text ) );
+		}
+	}
+}
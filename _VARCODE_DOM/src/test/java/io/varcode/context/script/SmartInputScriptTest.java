@@ -1,6 +1,8 @@
 package io.varcode.context.script;
 
 import io.varcode.context.VarContext;
+import io.varcode.context.VarScript;
+import io.varcode.context.VarScript.ScriptInputParser;
 import io.varcode.context.VarScript.SmartInputScript;
 import junit.framework.TestCase;
 
@@ -50,4 +52,29 @@ public class SmartInputScriptTest
 				VarContext.of( "A", 1 ), 
 			"{+$quote($count(a))" ) );
 	}
+	
+	public void testInputPlans()
+	{
+		//the input is parsed once into a plan (evaluated for each context)
+		ScriptInputParser.InputPlan plan = VarScript.SMART_INPUT.plan( "{+A+}_{+B+}" );
+		assertTrue( plan instanceof ScriptInputParser.FormInput );
+		assertEquals( "1_2", plan.parse( VarContext.of( "A", 1, "B", 2 ) ) );
+		assertEquals( "3_4", plan.parse( VarContext.of( "A", 3, "B", 4 ) ) );
+		
+		plan = VarScript.SMART_INPUT.plan( "A" );
+		assertTrue( plan instanceof ScriptInputParser.VarOrLiteralInput );
+		assertEquals( "value", plan.parse( VarContext.of( "A", "value" ) ) );
+		assertEquals( "A", plan.parse( new VarContext() ) );
+		
+		assertEquals( "", VarScript.SMART_INPUT.plan( "  " ).parse( new VarContext() ) );
+		assertEquals( "", VarScript.SMART_INPUT.plan( null ).parse( new VarContext() ) );
+		
+		plan = VarScript.SMART_INPUT.plan( "$count(a)" );
+		assertTrue( plan instanceof ScriptInputParser.ChainedInput );
+		assertTrue( VarScript.CHAIN_INPUT.plan( "$count(a)" ) instanceof ScriptInputParser.ChainedInput );
+		assertEquals( 3, plan.parse( VarContext.of( "a", new int[]{ 1, 2, 3 } ) ) );
+		
+		assertEquals( "notChained", 
+			VarScript.CHAIN_INPUT.plan( "notChained" ).parse( new VarContext() ) );
+	}
 }
@@ -80,4 +80,35 @@ public class StripMarksTest
 		
 		LOG.info( StripMarks.stripFrom( allMarks ) );
 	}
+	
+	public void testStripWrappedContent()
+	{
+		Dom dom = CodeMLCompiler.fromString( 
+			"String name = \"/*{+name*/eric/*+}*/\"; /*{+type+}*/" );
+		assertEquals( "String name = \"eric\"; ", StripMarks.stripFrom( dom ) );
+		assertEquals( 
+			"String name = \"/*{+name*/eric/*+}*/\"; /*{+type+}*/", 
+			dom.getMarkupText() );
+	}
+	
+	public void testStripManyMarks()
+	{
+		StringBuilder markup = new StringBuilder();
+		StringBuilder stripped = new StringBuilder();
+		for( int i = 0; i < 5000; i++ )
+		{
+			if( i > 0 )
+			{
+				markup.append( N );
+				stripped.append( N );
+			}
+			markup.append( "int f" + i + " = /*{+f" + i + "*/" + i + "/*+}*/;" );
+			stripped.append( "int f" + i + " = " + i + ";" );
+		}
+		Dom dom = CodeMLCompiler.fromString( markup.toString() );
+		assertEquals( 5000, dom.getAllMarks().length );
+		assertEquals( stripped.toString(), StripMarks.stripFrom( dom ) );
+		assertEquals( stripped.toString(), StripMarks.stripAndCut( dom ) );
+		assertEquals( markup.toString(), dom.getMarkupText() );
+	}
 }
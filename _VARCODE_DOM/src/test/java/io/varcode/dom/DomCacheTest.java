@@ -0,0 +1,169 @@
+package io.varcode.dom;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.varcode.VarException;
+import io.varcode.markup.MarkupRepo;
+import io.varcode.markup.MarkupRepo.MarkupStream;
+import io.varcode.tailor.Tailor;
+import junit.framework.TestCase;
+
+public class DomCacheTest
+	extends TestCase
+{
+	/** in memory markup repo (markupId to markup text) */
+	public static class MapRepo
+		implements MarkupRepo
+	{
+		public final Map<String,String> idToMarkup = new HashMap<String,String>();
+		
+		public MarkupStream markupStream( final String markupId ) 
+		{
+			final String markup = idToMarkup.get( markupId );
+			if( markup == null )
+			{
+				return null;
+			}
+			return new MarkupStream()
+			{
+				public InputStream getInputStream() 
+				{
+					return new ByteArrayInputStream( 
+						markup.getBytes( StandardCharsets.UTF_8 ) );
+				}
+
+				public String getMarkupId() 
+				{
+					return markupId;
+				}
+
+				public String describe() 
+				{
+					return "Map";
+				}				
+			};
+		}
+
+		public String describe() 
+		{
+			return "MapRepo";
+		}
+	}
+	
+	public void testCacheHitMiss()
+	{
+		MapRepo repo = new MapRepo();
+		repo.idToMarkup.put( "A.java", "class /*{+name*/A/*+}*/ {}" );
+		
+		DomCache cache = new DomCache( DomCache.Compiler.CODEML, 10 );
+		Dom dom = cache.dom( repo, "A.java" );
+		assertEquals( "class B {}", Tailor.code( dom, "name", "B" ) );
+		assertEquals( 0, cache.getHitCount() );
+		assertEquals( 1, cache.getMissCount() );
+		assertTrue( cache.getTotalLoadNanos() > 0 );
+		assertEquals( "A.java", dom.getMetadata().get( Dom.MARKUP_ID ) );
+		
+		//the same (cached) Dom is returned
+		assertSame( dom, cache.dom( repo, "A.java" ) );
+		assertEquals( 1, cache.getHitCount() );
+		assertEquals( 1, cache.getMissCount() );
+		assertEquals( 1, cache.getSize() );
+	}
+	
+	public void testContentChanged()
+	{
+		MapRepo repo = new MapRepo();
+		repo.idToMarkup.put( "A", "{+name+}" );
+		DomCache cache = new DomCache( DomCache.Compiler.BINDML, 10 );
+		
+		Dom dom = cache.dom( repo, "A" );
+		assertEquals( "B", Tailor.code( dom, "name", "B" ) );
+		
+		//change the content of the markup
+		repo.idToMarkup.put( "A", "_{+name+}_" );
+		Dom changed = cache.dom( repo, "A" );
+		assertNotSame( dom, changed );
+		assertEquals( "_B_", Tailor.code( changed, "name", "B" ) );
+		assertEquals( 2, cache.getMissCount() );
+		//(the previous version is evicted when least recently used)
+		assertEquals( 2, cache.getSize() );
+		assertTrue( cache.invalidate( "A" ) );
+		assertEquals( 0, cache.getSize() );
+	}
+	
+	public void testSameIdDifferentRepos()
+	{
+		MapRepo repo1 = new MapRepo();
+		repo1.idToMarkup.put( "A", "1{+name+}" );
+		MapRepo repo2 = new MapRepo();
+		repo2.idToMarkup.put( "A", "2{+name+}" );
+		DomCache cache = new DomCache( DomCache.Compiler.BINDML, 10 );
+		
+		Dom dom1 = cache.dom( repo1, "A" );
+		Dom dom2 = cache.dom( repo2, "A" );
+		assertEquals( "1B", Tailor.code( dom1, "name", "B" ) );
+		assertEquals( "2B", Tailor.code( dom2, "name", "B" ) );
+		
+		//the repos do not evict each other's Doms
+		assertSame( dom1, cache.dom( repo1, "A" ) );
+		assertSame( dom2, cache.dom( repo2, "A" ) );
+		assertEquals( 2, cache.getMissCount() );
+		assertEquals( 2, cache.getHitCount() );
+	}
+	
+	public void testEvictLeastRecentlyUsed()
+	{
+		MapRepo repo = new MapRepo();
+		repo.idToMarkup.put( "A", "{+a+}" );
+		repo.idToMarkup.put( "B", "{+b+}" );
+		repo.idToMarkup.put( "C", "{+c+}" );
+		DomCache cache = new DomCache( DomCache.Compiler.BINDML, 2 );
+		Dom a = cache.dom( repo, "A" );
+		cache.dom( repo, "B" );
+		assertSame( a, cache.dom( repo, "A" ) ); //A is most recently used
+		cache.dom( repo, "C" ); //evicts B
+		
+		assertEquals( 2, cache.getSize() );
+		assertEquals( 1, cache.getEvictionCount() );
+		assertSame( a, cache.dom( repo, "A" ) );
+		
+		cache.dom( repo, "B" );
+		assertEquals( 4, cache.getMissCount() );
+		assertEquals( 2, cache.getHitCount() );
+	}
+	
+	public void testWeighByChars()
+	{
+		MapRepo repo = new MapRepo();
+		repo.idToMarkup.put( "A", "0123456789{+a+}" );
+		repo.idToMarkup.put( "B", "01234{+b+}" );
+		DomCache cache = new DomCache( 
+			DomCache.Compiler.BINDML, 20, DomCache.Weigh.MARKUP_CHARS );
+		cache.dom( repo, "A" );
+		assertEquals( 15, cache.getWeight() );
+		cache.dom( repo, "B" ); //exceeds 20 chars, evicts A
+		assertEquals( 1, cache.getSize() );
+		assertEquals( 10, cache.getWeight() );
+		
+		assertTrue( cache.invalidate( "B" ) );
+		assertEquals( 0, cache.getSize() );
+		assertEquals( 0, cache.getWeight() );
+	}
+	
+	public void testMarkupNotFound()
+	{
+		try
+		{
+			DomCache.BINDML.dom( new MapRepo(), "NotFound" );
+			fail( "expected exception" );
+		}
+		catch( VarException e )
+		{
+			//expected
+		}
+	}
+}
@@ -48,6 +48,41 @@ public class FillInTheBlanksTest
         //assertTrue( replaceJdocComment.getStaticText().equals( "/** javadoc comment */" ) );
     }
     
+    /** static text with comment tags is still translated when filled */
+    public void testFillTranslatesStaticText()
+    {
+        FillTemplate ft = new FillInTheBlanks.Builder()
+            .text( "/+* " ).blank().text( " *+/" ).blank().text( " int x;" ).compile();
+        assertEquals( "/* a */b int x;", ft.fill( "a", "b" ) );
+        assertEquals( "/*  */ int x;", ft.fill( new Object[]{ null, null } ) );
+        
+        ft = new FillInTheBlanks.Builder()
+            .blank().blank().text( "ab" ).blank().compile();
+        assertEquals( "12ab3", ft.fill( "1", "2", "3" ) );
+        assertEquals( 0, ft.getCharIndexOfBlank( 0 ) );
+        assertEquals( 0, ft.getCharIndexOfBlank( 1 ) );
+        assertEquals( 2, ft.getCharIndexOfBlank( 2 ) );
+    }
+    
+    public void testSegments()
+    {
+        FillTemplate ft = new Builder()
+            .blank().text( " sells " ).blank().text( " shells" ).compile();
+        FillInTheBlanks.SegmentIterator it = ft.segments();
+        assertTrue( it.hasNext() );
+        assertEquals( "", it.next().getText() );
+        assertTrue( it.isBeforeBlank() );
+        assertEquals( " sells ", it.next().getText() );
+        assertEquals( 1, it.getIndex() );
+        assertEquals( " shells", it.next().getText() );
+        assertFalse( it.isBeforeBlank() );
+        assertFalse( it.hasNext() );
+        
+        it = new Builder().text( "abc" ).compile().segments();
+        assertEquals( "abc", it.next().getText() );
+        assertFalse( it.hasNext() );
+    }
+    
     public void testNoBlanks()
     {
         String alpha = "abcdefghijklmnopqrstuvwxyz";
@@ -0,0 +1,51 @@
+package io.varcode.dom;
+
+import io.varcode.VarException;
+import io.varcode.context.VarContext;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Directive;
+import io.varcode.tailor.Tailor;
+import junit.framework.TestCase;
+
+public class TailorPlanTest
+	extends TestCase
+{
+	public void testNoInstanceMarks()
+	{
+		Dom dom = BindML.compile( "class {+name+} {}" );
+		TailorPlan plan = dom.getTailorPlan();
+		assertEquals( 0, plan.getInstanceMarkCount() );
+		assertFalse( plan.hasDirectiveMarks() );
+		assertSame( TailorPlan.NO_DIRECTIVES, dom.getDirectives( new VarContext() ) );
+	}
+	
+	public void testInstanceMarksInOrder()
+	{
+		Dom dom = BindML.compile( 
+			"{#count:$count(fieldName)#}{##version:1##}{+count+}{#size:$count(x)#}" );
+		TailorPlan plan = dom.getTailorPlan();
+		assertEquals( 2, plan.getInstanceMarkCount() );
+		assertTrue( plan.isBound( 0 ) );
+		assertTrue( plan.isBound( 1 ) );
+		assertTrue( plan.getInstanceMark( 0 ).toString().contains( "count" ) );
+		assertEquals( "2", Tailor.code( dom, "fieldName", new int[] { 1, 2 } ) );
+	}
+	
+	public void testDirectives()
+	{
+		Dom dom = BindML.compile( "{$$removeEmptyLines$$}A" );
+		assertTrue( dom.getTailorPlan().hasDirectiveMarks() );
+		Directive[] directives = dom.getDirectives( new VarContext() );
+		assertEquals( 1, directives.length );
+		
+		try
+		{
+			BindML.compile( "{$$notADirective$$}A" ).getDirectives( new VarContext() );
+			fail( "expected exception" );
+		}
+		catch( VarException ve )
+		{
+			//expected
+		}
+	}
+}
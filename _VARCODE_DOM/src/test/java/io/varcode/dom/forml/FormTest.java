@@ -125,6 +125,33 @@ public class FormTest
     	 }    	 
     }
     
+    public void testCollectionCardinality()
+    {
+    	String form = "{+type+} {+name+}, ";
+    	VarForm f = (VarForm)ForMLCompiler.INSTANCE.compile( form );
+    	
+    	java.util.LinkedList<String> types = new java.util.LinkedList<String>();
+    	types.add( "int" );
+    	types.add( "String" );
+    	types.add( "long" );
+    	Set<String> names = new java.util.LinkedHashSet<String>();
+    	names.add( "a" );
+    	names.add( "b" );
+    	names.add( "c" );
+    	assertEquals( "int a, String b, long c", 
+    		f.derive( VarContext.of( "type", types, "name", names ) ) );
+    	
+    	//shorter (optional) vars are filled with ""
+    	assertEquals( "int a, String , long ", 
+    		f.derive( VarContext.of( 
+    			"type", types, "name", java.util.Arrays.asList( "a" ) ) ) );
+    	
+    	//loop vars do not bleed through to the context
+    	VarContext context = VarContext.of( "type", types, "name", names );
+    	f.derive( context );
+    	assertEquals( types, context.get( "type" ) );
+    }
+    
     public void testManyAndNoneCardinality()
     {
     	
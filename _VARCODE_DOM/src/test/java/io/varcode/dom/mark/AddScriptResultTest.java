@@ -1,5 +1,7 @@
 package io.varcode.dom.mark;
 
+import java.util.Set;
+
 import io.varcode.context.VarContext;
 import io.varcode.context.VarScript;
 import io.varcode.dom.forml.ForMLParser;
@@ -62,4 +64,58 @@ public class AddScriptResultTest
         assertEquals( fac.getScriptInput(), "name=this   is  tab separated   ");
         
     }
+    
+    /** counts the plans created (parsing with the SMART_INPUT) */
+    private static class CountingPlanner
+        implements VarScript.ScriptInputParser.InputPlanner
+    {
+        int planCount;
+        
+        public VarScript.ScriptInputParser.InputPlan plan( String scriptInput )
+        {
+            planCount++;
+            return VarScript.SMART_INPUT.plan( scriptInput );
+        }
+        
+        public Object parse( VarContext context, String scriptInput )
+        {
+            return plan( scriptInput ).parse( context );
+        }
+        
+        public Set<String> getAllVarNames( String input )
+        {
+            return VarScript.SMART_INPUT.getAllVarNames( input );
+        }
+    }
+    
+    public void testInputParsedOnce()
+    {
+        final CountingPlanner planner = new CountingPlanner();
+        VarScript upper = new VarScript.ParsedInputScript()
+        {
+            public Object eval( VarContext context, String input )
+            {
+                return evalParsed( context, getInputParser().parse( context, input ) );
+            }
+            
+            public Object evalParsed( VarContext context, Object parsedInput )
+            {
+                return parsedInput.toString().toUpperCase();
+            }
+            
+            public ScriptInputParser getInputParser()
+            {
+                return planner;
+            }
+        };
+        AddScriptResult asr = 
+            ForMLParser.AddScriptResultMark.of( "{+$upper({+a+}_{+b+})+}", 0 );
+        assertEquals( 0, planner.planCount );
+        for( int i = 0; i < 5; i++ )
+        {
+            assertEquals( "A" + i + "_B", asr.derive( 
+                VarContext.of( "upper", upper, "a", "a" + i, "b", "b" ) ) );
+        }
+        assertEquals( 1, planner.planCount );
+    }
 }
@@ -0,0 +1,108 @@
+package io.varcode.java.javac;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+public class InMemoryJavaClassLoaderTest
+	extends TestCase
+{
+	private static InMemoryJavaClassLoader compile( int count )
+	{
+		InMemoryJavaClassLoader loader = new InMemoryJavaClassLoader();
+		List<InMemoryJavaSource> sources = new ArrayList<InMemoryJavaSource>();
+		for( int i = 0; i < count; i++ )
+		{
+			sources.add( new InMemoryJavaSource( "ex.varcode.L" + i, 
+				"package ex.varcode; public class L" + i + " { }" ) );
+		}
+		InMemoryJavac.compile( loader, sources );
+		return loader;
+	}
+	
+	public void testParallelCapable()
+		throws Exception
+	{
+		InMemoryJavaClassLoader loader = new InMemoryJavaClassLoader();
+		Method getClassLoadingLock = 
+			ClassLoader.class.getDeclaredMethod( "getClassLoadingLock", String.class );
+		getClassLoadingLock.setAccessible( true );
+		//(parallel capable loaders lock per class name, not on the loader)
+		assertNotSame( loader, getClassLoadingLock.invoke( loader, "ex.varcode.L0" ) );
+	}
+	
+	public void testDefineOnce()
+		throws Exception
+	{
+		InMemoryJavaClassLoader loader = compile( 1 );
+		Class<?> found = loader.findClass( "ex.varcode.L0" );
+		assertSame( found, loader.findClass( "ex.varcode.L0" ) );
+		assertSame( found, loader.loadClass( "ex.varcode.L0" ) );
+		assertSame( loader, found.getClassLoader() );
+	}
+	
+	public void testConcurrentLoad()
+		throws Exception
+	{
+		final int classCount = 50;
+		final InMemoryJavaClassLoader loader = compile( classCount );
+		final CountDownLatch start = new CountDownLatch( 1 );
+		ExecutorService threads = Executors.newFixedThreadPool( 8 );
+		try
+		{
+			List<Future<Class<?>[]>> results = new ArrayList<Future<Class<?>[]>>();
+			for( int t = 0; t < 8; t++ )
+			{
+				final boolean find = ( t % 2 == 0 );
+				results.add( threads.submit( new Callable<Class<?>[]>()
+				{
+					public Class<?>[] call()
+						throws Exception
+					{
+						start.await();
+						Class<?>[] classes = new Class<?>[ classCount ];
+						for( int i = 0; i < classCount; i++ )
+						{
+							classes[ i ] = find 
+								? loader.findClass( "ex.varcode.L" + i )
+								: loader.loadClass( "ex.varcode.L" + i );
+						}
+						return classes;
+					}
+				} ) );
+			}
+			start.countDown();
+			Class<?>[] first = results.get( 0 ).get();
+			for( int t = 1; t < results.size(); t++ )
+			{
+				Class<?>[] classes = results.get( t ).get();
+				for( int i = 0; i < classCount; i++ )
+				{
+					assertSame( first[ i ], classes[ i ] );
+				}
+			}
+		}
+		finally
+		{
+			threads.shutdown();
+		}
+	}
+	
+	public void testBytecodeNotCopied()
+		throws Exception
+	{
+		InMemoryJavaClassLoader loader = compile( 1 );
+		InMemoryJavaClass inMemClass = loader.getClassMap().get( "ex.varcode.L0" );
+		//(a heap buffer backed by an array is defined without a copy)
+		assertTrue( inMemClass.toByteBuffer().hasArray() );
+		assertEquals( inMemClass.toByteArray().length, 
+			inMemClass.toByteBuffer().remaining() );
+	}
+}
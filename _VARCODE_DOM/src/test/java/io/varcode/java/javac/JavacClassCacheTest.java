@@ -0,0 +1,152 @@
+package io.varcode.java.javac;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.varcode.java.javac.JavacOptions.JavaSourceVersion;
+import junit.framework.TestCase;
+
+public class JavacClassCacheTest
+	extends TestCase
+{
+	private File dir;
+	
+	@Override
+	protected void setUp()
+		throws Exception
+	{
+		dir = Files.createTempDirectory( "varcode-javac-cache" ).toFile();
+	}
+	
+	@Override
+	protected void tearDown()
+	{
+		File[] files = dir.listFiles();
+		for( int i = 0; files != null && i < files.length; i++ )
+		{
+			files[ i ].delete();
+		}
+		dir.delete();
+	}
+	
+	private static List<InMemoryJavaSource> sources( int value )
+	{
+		List<InMemoryJavaSource> sources = new ArrayList<InMemoryJavaSource>();
+		sources.add( new InMemoryJavaSource( "ex.varcode.A", 
+			"package ex.varcode; public class A { public int value() { return new B().value(); } }" ) );
+		sources.add( new InMemoryJavaSource( "ex.varcode.B", 
+			"package ex.varcode; public class B { public int value() { return " + value + "; } }" ) );
+		return sources;
+	}
+	
+	private static Object value( JavacSession session, List<InMemoryJavaSource> sources )
+		throws Exception
+	{
+		Class<?> a = session.compileLoadClasses( 
+			new InMemoryJavaClassLoader(), sources ).get( "ex.varcode.A" );
+		return a.getMethod( "value" ).invoke( a.newInstance() );
+	}
+	
+	public void testHitDoesNotCompile()
+		throws Exception
+	{
+		JavacClassCache cache = new JavacClassCache( dir );
+		JavacSession session = new JavacSession().setClassCache( cache );
+		try
+		{
+			assertEquals( 1, value( session, sources( 1 ) ) );
+			assertEquals( 1, session.getCompileCount() );
+			assertEquals( 0, session.getCacheHitCount() );
+			assertEquals( 1, dir.listFiles().length );
+			
+			//same sources (in another session)
+			JavacSession other = new JavacSession().setClassCache( cache );
+			try
+			{
+				assertEquals( 1, value( other, sources( 1 ) ) );
+				assertEquals( 0, other.getCompileCount() );
+				assertEquals( 1, other.getCacheHitCount() );
+			}
+			finally
+			{
+				other.close();
+			}
+			
+			//changed source
+			assertEquals( 2, value( session, sources( 2 ) ) );
+			assertEquals( 2, session.getCompileCount() );
+			assertEquals( 1, cache.getHitCount() );
+			assertEquals( 2, cache.getMissCount() );
+		}
+		finally
+		{
+			session.close();
+		}
+	}
+	
+	public void testKey()
+	{
+		JavacClassCache cache = new JavacClassCache( dir );
+		String key = cache.keyOf( sources( 1 ), null );
+		assertEquals( 40, key.length() );
+		assertEquals( key, cache.keyOf( sources( 1 ), null ) );
+		assertFalse( key.equals( cache.keyOf( sources( 2 ), null ) ) );
+		assertFalse( key.equals( cache.keyOf( sources( 1 ), 
+			JavacOptions.optionsFrom( JavaSourceVersion.MajorVersion._1_7 ) ) ) );
+	}
+	
+	public void testCorruptArchiveIsMiss()
+		throws Exception
+	{
+		JavacClassCache cache = new JavacClassCache( dir );
+		String key = cache.keyOf( sources( 3 ), null );
+		File archive = new File( dir, key + JavacClassCache.EXTENSION );
+		FileOutputStream out = new FileOutputStream( archive );
+		out.write( new byte[]{ 'V', 'C', 'C', '1', 0, 0, 0, 2, 0 } );
+		out.close();
+		
+		assertNull( cache.load( key, sources( 3 ) ) );
+		assertFalse( archive.exists() );
+		
+		JavacSession session = new JavacSession().setClassCache( cache );
+		try
+		{
+			assertEquals( 3, value( session, sources( 3 ) ) );
+			assertEquals( 1, session.getCompileCount() );
+			assertEquals( 2, cache.load( key, sources( 3 ) ).size() );
+		}
+		finally
+		{
+			session.close();
+		}
+	}
+	
+	public void testDefault()
+	{
+		String previous = System.getProperty( JavacClassCache.CACHE_DIR_PROPERTY );
+		try
+		{
+			System.clearProperty( JavacClassCache.CACHE_DIR_PROPERTY );
+			assertNull( JavacClassCache.getDefault() );
+			assertNull( new JavacSession().getClassCache() );
+			
+			System.setProperty( JavacClassCache.CACHE_DIR_PROPERTY, dir.getPath() );
+			assertEquals( dir, JavacClassCache.getDefault().getDir() );
+			assertSame( JavacClassCache.getDefault(), JavacClassCache.getDefault() );
+		}
+		finally
+		{
+			if( previous == null )
+			{
+				System.clearProperty( JavacClassCache.CACHE_DIR_PROPERTY );
+			}
+			else
+			{
+				System.setProperty( JavacClassCache.CACHE_DIR_PROPERTY, previous );
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package io.varcode.java.javac;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.varcode.java.JavaWorkspace;
+import io.varcode.java.JavaWorkspace.CompiledWorkspace;
+import junit.framework.TestCase;
+
+public class JavacSessionTest
+	extends TestCase
+{
+	public void testReuseSession()
+	{
+		JavacSession session = new JavacSession();
+		try
+		{
+			for( int i = 0; i < 5; i++ )
+			{
+				InMemoryJavaClassLoader loader = new InMemoryJavaClassLoader();
+				List<InMemoryJavaSource> sources = new ArrayList<InMemoryJavaSource>();
+				sources.add( new InMemoryJavaSource( 
+					"A" + i, "public class A" + i + " { B" + i + " b; }" ) );
+				sources.add( new InMemoryJavaSource( 
+					"B" + i, "public class B" + i + " { }" ) );
+				Map<String, Class<?>> classes = 
+					session.compileLoadClasses( loader, sources );
+				assertEquals( 2, classes.size() );
+				assertEquals( "A" + i, classes.get( "A" + i ).getName() );
+			}
+			assertEquals( 5, session.getCompileCount() );
+			assertEquals( 10, session.getSourceCount() );
+		}
+		finally
+		{
+			session.close();
+		}
+		assertTrue( session.isClosed() );
+		try
+		{
+			session.compile( new InMemoryJavaClassLoader(), 
+				new InMemoryJavaSource( "C", "public class C {}" ) );
+			fail( "expected exception for closed session" );
+		}
+		catch( JavacException e )
+		{
+			//expected
+		}
+	}
+	
+	public void testFailureDoesNotCloseSession()
+	{
+		JavacSession session = new JavacSession();
+		try
+		{
+			try
+			{
+				session.compile( new InMemoryJavaClassLoader(), 
+					new InMemoryJavaSource( "A", "asdfklhjasdjklf" ) );
+				fail( "expected compiler exception" );
+			}
+			catch( JavacException e )
+			{
+				//expected
+			}
+			InMemoryJavaClass c = session.compile( new InMemoryJavaClassLoader(), 
+				new InMemoryJavaSource( "A", "public class A {}" ) );
+			assertTrue( c.toByteArray().length > 0 );
+		}
+		finally
+		{
+			session.close();
+		}
+	}
+	
+	public void testWorkspaceInSession()
+	{
+		JavacSession session = new JavacSession();
+		try
+		{
+			CompiledWorkspace cw = JavaWorkspace.of( "ws" )
+				.addJavaSource( "A", "public class A {}" )
+				.compile( session );
+			assertNotNull( cw.getClass( "A" ) );
+			cw = JavaWorkspace.of( "ws2" )
+				.addJavaSource( "A", "public class A { int x; }" )
+				.compile( session );
+			assertNotNull( cw.getClass( "A" ) );
+		}
+		finally
+		{
+			session.close();
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package io.varcode.tailor;
+
+import io.varcode.context.VarContext;
+import io.varcode.context.VarRequiredButNull;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.dom.codeml.CodeMLCompiler;
+import io.varcode.tailor.Directive.PostProcessor;
+import junit.framework.TestCase;
+
+public class CompiledDomTest
+	extends TestCase
+{
+	private static void assertSameAsTailor( Dom dom, Object...keyValuePairs )
+	{
+		CompiledDom compiled = DomJavaCompiler.INSTANCE.compile( dom );
+		assertTrue( compiled.isCompiled() );
+		assertEquals( 
+			Tailor.code( dom, VarContext.of( keyValuePairs ) ), 
+			compiled.code( VarContext.of( keyValuePairs ) ) );
+	}
+	
+	public void testBindML()
+	{
+		Dom dom = BindML.compile( 
+			"{#fieldCount:$count(fieldName)#}"
+		  + "public class {+className*+} {{##version:1##}}" 
+		  + "{" + System.lineSeparator() 
+		  + "    String v = \"{+version+}\"; //\\ \t \u00e9 \u0001 " + System.lineSeparator() 
+		  + "    {{+:{+fieldType+} {+fieldName+};+}}" + System.lineSeparator() 
+		  + "    {+?debug: boolean debug = true;+}" + System.lineSeparator()
+		  + "    int count = {+((count | 0))+}; //{+fieldCount+} fields" + System.lineSeparator()
+		  + "}" );
+		assertSameAsTailor( dom, 
+			"className", "MyImpl", "fieldType", new String[] { "int", "String" }, 
+			"fieldName", new String[] { "x", "y" }, "debug", true, "count", 3 );
+		assertSameAsTailor( dom, "className", "A", "count", 4 );
+		
+		CompiledDom compiled = DomJavaCompiler.INSTANCE.compile( dom );
+		assertTrue( compiled.code( "className", "MyImpl", "count", 1 )
+			.startsWith( "public class MyImpl {" ) );
+		assertEquals( 
+			compiled.code( "className", "MyImpl", "count", 1 ), 
+			Tailor.code( compiled, VarContext.of( "className", "MyImpl", "count", 1 ) ) );
+	}
+	
+	public void testCodeML()
+	{
+		Dom dom = CodeMLCompiler.fromString( 
+			"public class /*{+className*/Eric/*+}*/" + System.lineSeparator()
+		  + "{ /*{+field|count+}*/ }" );
+		assertSameAsTailor( dom, "className", "MyClass" );
+		assertSameAsTailor( dom, "className", "A", "field", "f" );
+	}
+	
+	public void testRequired()
+	{
+		CompiledDom compiled = 
+			DomJavaCompiler.INSTANCE.compile( BindML.compile( "class {+name*+} {}" ) );
+		try
+		{
+			compiled.code( new VarContext() );
+			fail( "expected exception for missing required var" );
+		}
+		catch( VarRequiredButNull e )
+		{
+			//expected
+		}
+	}
+	
+	public void testVarsInlined()
+	{
+		Dom dom = CodeMLCompiler.fromString( 
+			"class /*{+name*/A/*+}*/ /*{+ext|Object+}*/ { /*{+field*+}*/ }" 
+		  + "/*{#type:int#}*/ /*{+type+}*/" );
+		CompiledDom compiled = DomJavaCompiler.INSTANCE.compile( dom );
+		assertTrue( compiled.getJavaSource().contains( 
+			"context.resolveVar( \"name\" )" ) );
+		assertFalse( compiled.getJavaSource().contains( ".derive( context )" ) );
+		assertSameAsTailor( dom, "field", "f" );
+		assertSameAsTailor( dom, "name", "B", "ext", "Base", "field", "f", "type", "long" );
+		try
+		{
+			compiled.code( "name", "B" );
+			fail( "expected exception for missing required var" );
+		}
+		catch( VarRequiredButNull e )
+		{
+			//expected
+		}
+	}
+	
+	public void testClose()
+	{
+		Dom dom = BindML.compile( "{+name+}" );
+		CompiledDom compiled = DomJavaCompiler.INSTANCE.compile( dom );
+		assertTrue( DomJavaCompiler.INSTANCE.isOpen() );
+		DomJavaCompiler.INSTANCE.close();
+		assertFalse( DomJavaCompiler.INSTANCE.isOpen() );
+		DomJavaCompiler.INSTANCE.close();
+		
+		//already compiled Doms are not affected
+		assertEquals( "eric", compiled.code( "name", "eric" ) );
+		//a new session is created
+		assertEquals( "eric", 
+			DomJavaCompiler.INSTANCE.compile( dom ).code( "name", "eric" ) );
+		assertTrue( DomJavaCompiler.INSTANCE.isOpen() );
+	}
+	
+	public void testLargeDom()
+	{
+		StringBuilder markup = new StringBuilder();
+		for( int i = 0; i < 1000; i++ )
+		{
+			markup.append( "field" ).append( i ).append( " = {+v" )
+				.append( i % 50 ).append( "+};" ).append( System.lineSeparator() );
+		}
+		//static text longer than a single String constant
+		for( int i = 0; i < 40 * 1024; i++ )
+		{
+			markup.append( (char)( 'a' + ( i % 26 ) ) );
+		}
+		Dom dom = BindML.compile( markup.toString() );
+		Object[] keyValuePairs = new Object[ 100 ];
+		for( int i = 0; i < 50; i++ )
+		{
+			keyValuePairs[ i * 2 ] = "v" + i;
+			keyValuePairs[ i * 2 + 1 ] = i;
+		}
+		assertSameAsTailor( dom, keyValuePairs );
+	}
+	
+	public void testDirectives()
+	{
+		Dom dom = BindML.compile( "{+name+}" );
+		CompiledDom compiled = DomJavaCompiler.INSTANCE.compile( dom );
+		PostProcessor upper = new PostProcessor()
+		{
+			public void postProcess( TailorState tailorState )
+			{
+				String text = tailorState.getTextBuffer().toString();
+				tailorState.getTextBuffer().clear();
+				tailorState.getTextBuffer().append( text.toUpperCase() );
+			}
+		};
+		assertEquals( "ERIC", compiled.code( VarContext.of( "name", "eric" ), upper ) );
+	}
+}
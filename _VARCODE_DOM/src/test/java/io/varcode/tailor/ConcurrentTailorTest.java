@@ -0,0 +1,131 @@
+package io.varcode.tailor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.varcode.context.VarContext;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import junit.framework.TestCase;
+
+/**
+ * Verifies many threads can tailor the same (shared) {@code Dom} 
+ * concurrently (each with its own {@code VarContext}) and produce the 
+ * same output as tailoring on a single thread 
+ */
+public class ConcurrentTailorTest
+	extends TestCase
+{
+	public static final String N = System.lineSeparator();
+	
+	public static final Dom DOM = BindML.compile( 
+		"{##prefix:field##}" + N +
+		"public class {+className*+}" + N +
+		"{" + N +
+		"{#count:$count(name)#}" + N +
+		"    {{+:public {+type+} {+prefix+}_{+name+};" + N + "+}}" + N + 
+		"    public static final int COUNT = {+count+};" + N + 
+		"    public static final String NAME = \"{+$^(className)+}\";" + N +
+		"    {+?debug:public static final boolean DEBUG = true;+}" + N +
+		"    public int sum() { return {+(( (a + b + c) | 0 ))+}; }" + N + 
+		"}" );
+	
+	public static VarContext context( int i )
+	{
+		return VarContext.of( 
+			"className", "c" + i,
+			"type", new String[] { "int", "String", "double" }, 
+			"name", new String[] { "a" + i, "b" + i, "c" + i },
+			"a", i,
+			"b", i * 2, 
+			"c", i * 3,
+			"debug", ( i % 2 == 0 ) ? true : null );
+	}
+	
+	public void testConcurrentTailor() 
+		throws Exception
+	{
+		final int threads = 8;
+		final int contextsPerThread = 40;
+		final int contextCount = threads * contextsPerThread;
+		
+		//tailor all on a single thread
+		final String[] expected = new String[ contextCount ];
+		for( int i = 0; i < contextCount; i++ )
+		{
+			expected[ i ] = Tailor.code( DOM, context( i ) );
+		}
+		assertTrue( expected[ 2 ].contains( "public int sum() { return 12; }" ) );
+		assertTrue( expected[ 2 ].contains( "DEBUG" ) );
+		assertFalse( expected[ 3 ].contains( "DEBUG" ) );
+		
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try
+		{
+			final CountDownLatch start = new CountDownLatch( 1 );
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+			for( int t = 0; t < threads; t++ )
+			{
+				final int thread = t;
+				futures.add( executor.submit( new Callable<String>()
+				{
+					public String call() 
+						throws Exception
+					{
+						start.await();
+						for( int i = 0; i < contextsPerThread; i++ )
+						{
+							//each thread interleaves tailoring contexts
+							int index = ( i * threads ) + thread;
+							String code = Tailor.code( DOM, context( index ) );
+							if( !expected[ index ].equals( code ) )
+							{
+								return "MISMATCH for context [" + index + "]" 
+									+ N + code + N + "expected:" + N 
+									+ expected[ index ];
+							}
+						}
+						return null;
+					}
+				}) );
+			}
+			start.countDown();
+			for( int i = 0; i < futures.size(); i++ )
+			{
+				assertNull( futures.get( i ).get( 60, TimeUnit.SECONDS ) );
+			}
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+	
+	/** a context that defines vars in expressions (is pinned to an engine) */
+	public void testExpressionVarsPerContext()
+	{
+		VarContext a = VarContext.of( "x", 1 );
+		VarContext b = VarContext.of( "x", 2 );
+		a.evaluate( "var y = x * 10;" );
+		b.evaluate( "var y = x * 100;" );
+		assertEquals( "10", Tailor.code( BindML.compile( "{+((y | 0))+}" ), a ) );
+		assertEquals( "200", Tailor.code( BindML.compile( "{+((y | 0))+}" ), b ) );
+	}
+	
+	/** a nested form does not clear the loop vars of the outer form */
+	public void testFormLoopBindingsRestored()
+	{
+		VarContext vc = VarContext.of( 
+			"name", new String[] { "a", "b" } );
+		String code = Tailor.code( 
+			BindML.compile( "{{+:{+name+} +}}" ), vc );
+		assertEquals( "a b ", code );
+		assertNull( vc.getOrCreateBindings( io.varcode.context.VarScope.LOOP ).get( "name" ) );
+	}
+}
@@ -0,0 +1,124 @@
+package io.varcode.tailor;
+
+import io.varcode.context.ExpressionEvaluator_Native;
+import io.varcode.context.VarContext;
+import io.varcode.context.VarRequiredButNull;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.dom.codeml.CodeMLCompiler;
+import junit.framework.TestCase;
+
+public class PartialEvaluatorTest
+	extends TestCase
+{
+	private static final String N = System.lineSeparator();
+	
+	public void testFoldKnownVars()
+	{
+		Dom dom = BindML.compile( 
+			"package {+packageName+};" + N
+		  + "{+?log:import org.slf4j.Logger;+}" + N
+		  + "public class {+className*+}" + N
+		  + "{" + N
+		  + "    {+?log:static Logger LOG;+}" + N
+		  + "    {{+:{+fieldType+} {+fieldName+};+}}" + N
+		  + "    int max = {+((maxSize * 2))+};" + N
+		  + "}" );
+		
+		Dom specialized = PartialEvaluator.INSTANCE.specialize( dom,  
+			VarContext.of( "packageName", "ex.varcode", "log", true, "maxSize", 8 ) );
+		
+		//only the className and form marks remain
+		assertEquals( 2, specialized.getAllMarks().length );
+		assertTrue( specialized.allMarksTemplate.getStaticText().startsWith( 
+			"package ex.varcode;" + N + "import org.slf4j.Logger;" ) );
+		
+		assertEquals( 
+			Tailor.code( dom, VarContext.of( 
+				"packageName", "ex.varcode", "log", true, "maxSize", 8, 
+				"className", "A", "fieldType", new String[] { "int", "String" }, 
+				"fieldName", new String[] { "x", "y" } ) ),
+			Tailor.code( specialized, VarContext.of( 
+				"className", "A", "fieldType", new String[] { "int", "String" }, 
+				"fieldName", new String[] { "x", "y" } ) ) );
+	}
+	
+	public void testDeadBranches()
+	{
+		Dom dom = BindML.compile( 
+			"A{+?log:LOG+}B{+(( level > 2 ? 'VERBOSE' : '' ))+}C{+name+}" );
+		Dom specialized = PartialEvaluator.INSTANCE.specialize( dom,  
+			VarContext.of( "level", 1 ) );
+		//log is unknown, the expression is known (and false)
+		assertEquals( 2, specialized.getAllMarks().length );
+		assertEquals( "ALOGBCn", 
+			Tailor.code( specialized, VarContext.of( "log", true, "name", "n" ) ) );
+		assertEquals( "ABCn", 
+			Tailor.code( specialized, VarContext.of( "name", "n" ) ) );
+	}
+	
+	public void testCodeML()
+	{
+		Dom dom = CodeMLCompiler.fromString( 
+			"package /*{+packageName*/io.varcode/*+}*/;" + N
+		  + "public class /*{+className*/Eric/*+}*/" + N
+		  + "{ /*{+field|count+}*/ }" );
+		Dom specialized = PartialEvaluator.INSTANCE.specialize( dom,  
+			VarContext.of( "packageName", "ex" ) );
+		assertEquals( dom.getAllMarks().length - 1, specialized.getAllMarks().length );
+		assertEquals( 
+			Tailor.code( dom, VarContext.of( "packageName", "ex", "className", "B" ) ),
+			Tailor.code( specialized, VarContext.of( "className", "B" ) ) );
+	}
+	
+	public void testDynamicVarsNotFolded()
+	{
+		Dom dom = BindML.compile( 
+			"{#fieldCount:$count(fieldName)#}{##version:1##}"
+		  + "v{+version+} {+fieldCount+} fields {+pkg+}" );
+		Dom specialized = PartialEvaluator.INSTANCE.specialize( dom,  
+			VarContext.of( "pkg", "p", "fieldCount", 100 ) );
+		
+		assertEquals( "v1 2 fields p", 
+			Tailor.code( specialized, VarContext.of( 
+				"fieldName", new String[] { "a", "b" } ) ) );
+		assertEquals( 
+			Tailor.code( dom, VarContext.of( 
+				"pkg", "p", "fieldName", new String[] { "a", "b" } ) ),
+			Tailor.code( specialized, VarContext.of( 
+				"fieldName", new String[] { "a", "b" } ) ) );
+	}
+	
+	public void testNothingKnown()
+	{
+		Dom dom = BindML.compile( "class {+name+} {}" );
+		assertSame( dom, 
+			PartialEvaluator.INSTANCE.specialize( dom, new VarContext() ) );
+	}
+	
+	public void testRequiredNotFolded()
+	{
+		Dom dom = BindML.compile( "{+pkg+} class {+name*+} {}" );
+		Dom specialized = PartialEvaluator.INSTANCE.specialize( dom,  
+			VarContext.of( "pkg", "p", "name", null ) );
+		try
+		{
+			Tailor.code( specialized, VarContext.of( "name", null ) );
+			fail( "expected exception" );
+		}
+		catch( VarRequiredButNull e )
+		{
+			//expected
+		}
+		assertEquals( "p class A {}", 
+			Tailor.code( specialized, VarContext.of( "name", "A" ) ) );
+	}
+	
+	public void testExpressionVarNames()
+	{
+		assertEquals( "[a, b, name]", 
+			ExpressionEvaluator_Native.getVarNames( 
+				"a + b > 2 ? name.length : name.equals('x')" ).toString() );
+		assertNull( ExpressionEvaluator_Native.getVarNames( "Math.max( a, b )" ) );
+	}
+}
@@ -0,0 +1,114 @@
+package io.varcode.tailor;
+
+import io.varcode.context.VarContext;
+import io.varcode.context.VarRequiredButNull;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.dom.codeml.CodeMLCompiler;
+import junit.framework.TestCase;
+
+public class SlotTailorTest
+	extends TestCase
+{
+	public void testCompiledBindML()
+	{
+		Dom dom = BindML.compile( 
+			"{+access+}{+?isStatic: static +} class {+className*+} {{##version:1##}}"
+		  + "{ String v = \"{+version+}\"; String name = \"{+className+}\"; }" );
+		
+		SlotTailor slotTailor = SlotTailor.of( dom );
+		assertTrue( slotTailor.isCompiled() );
+		assertEquals( 4, slotTailor.getSlotCount() );
+		
+		Object[] values = new Object[ slotTailor.getSlotCount() ];
+		values[ slotTailor.slotOf( "access" ) ] = "public";
+		values[ slotTailor.slotOf( "isStatic" ) ] = true;
+		values[ slotTailor.slotOf( "className" ) ] = "MyClass";
+		
+		assertEquals( 
+			Tailor.code( dom, 
+				VarContext.of( "access", "public", "isStatic", true, "className", "MyClass" ) ), 
+			slotTailor.code( values ) );
+		
+		//static var
+		assertTrue( slotTailor.code( values ).contains( "String v = \"1\"" ) );
+		
+		//the value in the slot overrides the static var
+		values[ slotTailor.slotOf( "version" ) ] = "2";
+		assertTrue( slotTailor.code( values ).contains( "String v = \"2\"" ) );
+	}
+	
+	public void testCompiledCodeML()
+	{
+		Dom dom = CodeMLCompiler.fromString( 
+			"public class /*{+className*/Eric/*+}*/ { /*{+field|count+}*/ }" );
+		SlotTailor slotTailor = SlotTailor.of( dom );
+		assertTrue( slotTailor.isCompiled() );
+		
+		SlotTailor.Slots slots = slotTailor.slots( "className", "MyClass" );
+		assertEquals( 
+			Tailor.code( dom, VarContext.of( "className", "MyClass" ) ), 
+			slotTailor.code( slots ) );
+		assertEquals( "public class MyClass { count }", slotTailor.code( slots ) );
+		
+		slots.clear().set( slotTailor.slotOf( "className" ), "A" ).set( "field", "f" );
+		assertEquals( "public class A { f }", slotTailor.code( slots ) );
+	}
+	
+	public void testRequired()
+	{
+		SlotTailor slotTailor = SlotTailor.of( 
+			BindML.compile( "class {+className*+} {}" ) );
+		try
+		{
+			slotTailor.code( slotTailor.newSlots() );
+			fail( "expected exception" );
+		}
+		catch( VarRequiredButNull e )
+		{
+			//expected
+		}
+	}
+	
+	public void testNotCompiled()
+	{
+		Dom dom = BindML.compile( 
+			"class {+className+} { {{+:{+type+} {+name+};+}} {+$count(name)+} }" );
+		SlotTailor slotTailor = SlotTailor.of( dom );
+		assertFalse( slotTailor.isCompiled() );
+		assertTrue( slotTailor.slotOf( "type" ) >= 0 );
+		assertTrue( slotTailor.slotOf( "name" ) >= 0 );
+		
+		SlotTailor.Slots slots = slotTailor.slots( 
+			"className", "C", 
+			"type", new String[] { "int", "String" }, 
+			"name", new String[] { "a", "b" } );
+		assertEquals( 
+			Tailor.code( dom, slots.toContext() ), 
+			slotTailor.code( slots ) );
+	}
+	
+	public void testUnknownVar()
+	{
+		SlotTailor slotTailor = SlotTailor.of( BindML.compile( "{+a+}" ) );
+		assertEquals( -1, slotTailor.slotOf( "b" ) );
+		try
+		{
+			slotTailor.newSlots().set( "b", 1 );
+			fail( "expected exception" );
+		}
+		catch( io.varcode.VarException e )
+		{
+			//expected
+		}
+		try
+		{
+			slotTailor.code( new Object[ 2 ] );
+			fail( "expected exception" );
+		}
+		catch( io.varcode.VarException e )
+		{
+			//expected
+		}
+	}
+}
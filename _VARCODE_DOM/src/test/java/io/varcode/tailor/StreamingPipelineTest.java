@@ -0,0 +1,107 @@
+package io.varcode.tailor;
+
+import java.io.StringWriter;
+
+import io.varcode.context.VarContext;
+import io.varcode.context.lib.text.Indent4Spaces;
+import io.varcode.context.lib.text.RemoveEmptyLines;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.tailor.Directive.PostProcessor;
+import junit.framework.TestCase;
+
+public class StreamingPipelineTest
+	extends TestCase
+{
+	private static final String N = System.lineSeparator();
+	
+	private static final Dom DOM = BindML.compile( 
+		"class {+name+}" + N + N + "{" + N + "  " + N 
+	  + "    /+* comment *+/" + N + N + "    int {+field+};" + N + "}" + N );
+	
+	/** post-processes the whole document (appends a comment) */
+	private static class AppendComment
+		extends PostProcessor
+	{
+		String textBefore;
+		
+		public void postProcess( TailorState tailorState )
+		{
+			textBefore = tailorState.getTextBuffer().toString();
+			tailorState.getTextBuffer().append( N + "//end" );
+		}
+	}
+	
+	public void testFused()
+	{
+		String plain = Tailor.code( DOM, VarContext.of( "name", "A", "field", "x" ) );
+		assertTrue( plain.contains( "/* comment */" ) );
+		
+		assertEquals( 
+			Indent4Spaces.INSTANCE.doIndent( RemoveEmptyLines.from( plain ) ).toString(),
+			Tailor.code( DOM, VarContext.of( "name", "A", "field", "x" ), 
+				RemoveEmptyLines.INSTANCE, Indent4Spaces.INSTANCE ) );
+		
+		assertEquals( 
+			RemoveEmptyLines.from( Indent4Spaces.INSTANCE.doIndent( plain ).toString() ),
+			Tailor.code( DOM, VarContext.of( "name", "A", "field", "x" ), 
+				Indent4Spaces.INSTANCE, RemoveEmptyLines.INSTANCE ) );
+	}
+	
+	public void testStreamedBeforePostProcessor()
+	{
+		String plain = Tailor.code( DOM, VarContext.of( "name", "A", "field", "x" ) );
+		AppendComment append = new AppendComment();
+		String tailored = Tailor.code( DOM, VarContext.of( "name", "A", "field", "x" ), 
+			Indent4Spaces.INSTANCE, append, Indent4Spaces.INSTANCE );
+		
+		//the text was indented (streamed) before the post processor
+		String indented = Indent4Spaces.INSTANCE.doIndent( plain ).toString();
+		assertEquals( indented, append.textBefore );
+		assertEquals( 
+			Indent4Spaces.INSTANCE.doIndent( indented + N + "//end" ).toString(), 
+			tailored );
+	}
+	
+	public void testDomDirective()
+	{
+		Dom dom = BindML.compile( "{$$removeEmptyLines$$}A" + N + N + N + "{+b+}" );
+		VarContext vc = VarContext.of( 
+			"b", "B", "removeEmptyLines", RemoveEmptyLines.INSTANCE );
+		assertEquals( "A" + N + "B", Tailor.code( dom, vc ) );
+		assertEquals( "A" + N + "B", 
+			DomJavaCompiler.INSTANCE.compile( dom ).code( VarContext.of( 
+				"b", "B", "removeEmptyLines", RemoveEmptyLines.INSTANCE ) ) );
+	}
+	
+	public void testWriteStreamed()
+	{
+		String expected = Tailor.code( DOM, VarContext.of( "name", "A", "field", "x" ), 
+			RemoveEmptyLines.INSTANCE, Indent4Spaces.INSTANCE );
+		StringWriter writer = new StringWriter();
+		Tailor.write( DOM, VarContext.of( "name", "A", "field", "x" ), writer, 4,
+			RemoveEmptyLines.INSTANCE, Indent4Spaces.INSTANCE );
+		assertEquals( expected, writer.toString() );
+	}
+	
+	public void testWritePreProcessorAddsPostProcessor()
+	{
+		final AppendComment append = new AppendComment();
+		Directive addAppend = new Directive.PreProcessor()
+		{
+			public void preProcess( TailorState tailorState )
+			{
+				tailorState.setDirectives( new Directive[] { 
+					this, Indent4Spaces.INSTANCE, append } );
+			}
+		};
+		String plain = Tailor.code( DOM, VarContext.of( "name", "A", "field", "x" ) );
+		String indented = Indent4Spaces.INSTANCE.doIndent( plain ).toString();
+		StringWriter writer = new StringWriter();
+		Tailor.write( DOM, VarContext.of( "name", "A", "field", "x" ), writer, 4, 
+			addAppend );
+		//the post processor (added while pre-processing) sees the text
+		assertEquals( indented, append.textBefore );
+		assertEquals( indented + N + "//end", writer.toString() );
+	}
+}
@@ -0,0 +1,253 @@
+package io.varcode.tailor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import io.varcode.VarException;
+import io.varcode.context.VarContext;
+import io.varcode.context.VarRequiredButNull;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import junit.framework.TestCase;
+
+public class TailorBatchTest
+	extends TestCase
+{
+	private static List<VarContext> contexts( int count )
+	{
+		List<VarContext> contexts = new ArrayList<VarContext>();
+		for( int i = 0; i < count; i++ )
+		{
+			contexts.add( VarContext.of( "name", "C" + i, "value", i ) );
+		}
+		return contexts;
+	}
+
+	public void testInputOrder()
+	{
+		Dom dom = BindML.compile( "class {+name*+} { int v = {+value+}; }" );
+		ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try
+		{
+			List<TailorBatch.Result> results =
+				new TailorBatch( executor, 8, TailorBatch.Order.INPUT )
+					.tailorAll( dom, contexts( 200 ) );
+			assertEquals( 200, results.size() );
+			for( int i = 0; i < results.size(); i++ )
+			{
+				assertEquals( i, results.get( i ).getIndex() );
+				assertFalse( results.get( i ).isError() );
+				assertEquals( "class C" + i + " { int v = " + i + "; }",
+					results.get( i ).getCode() );
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	public void testErrorsCapturedPerContext()
+	{
+		Dom dom = BindML.compile( "class {+name*+} {}" );
+		List<VarContext> contexts = contexts( 50 );
+		contexts.set( 10, new VarContext() ); //missing required "name"
+
+		final List<TailorBatch.Result> results =
+			new ArrayList<TailorBatch.Result>();
+		int count = new TailorBatch(
+			ForkJoinPool.commonPool(), 4, TailorBatch.Order.COMPLETION )
+				.tailor( dom, contexts, new TailorBatch.ResultHandler()
+				{
+					public void onResult( TailorBatch.Result result )
+					{
+						results.add( result );
+					}
+				});
+		assertEquals( 50, count );
+		assertEquals( 50, results.size() );
+		int errors = 0;
+		for( int i = 0; i < results.size(); i++ )
+		{
+			if( results.get( i ).isError() )
+			{
+				errors++;
+				assertEquals( 10, results.get( i ).getIndex() );
+				assertTrue( results.get( i ).getError() instanceof VarRequiredButNull );
+			}
+		}
+		assertEquals( 1, errors );
+	}
+
+	public void testBackpressure()
+	{
+		Dom dom = BindML.compile( "{+name+}" );
+		final int maxInFlight = 3;
+		final int[] read = { 0 };
+		final int[] delivered = { 0 };
+		final int[] maxAhead = { 0 };
+		final Iterator<VarContext> it = contexts( 100 ).iterator();
+
+		ExecutorService executor = Executors.newFixedThreadPool( 2 );
+		try
+		{
+			new TailorBatch( executor, maxInFlight, TailorBatch.Order.INPUT )
+				.tailor( dom,
+					new Iterator<VarContext>()
+					{
+						public boolean hasNext()
+						{
+							return it.hasNext();
+						}
+
+						public VarContext next()
+						{
+							read[ 0 ]++;
+							maxAhead[ 0 ] = Math.max( maxAhead[ 0 ], read[ 0 ] - delivered[ 0 ] );
+							return it.next();
+						}
+					},
+					new TailorBatch.ResultHandler()
+					{
+						public void onResult( TailorBatch.Result result )
+						{
+							assertEquals( delivered[ 0 ], result.getIndex() );
+							delivered[ 0 ]++;
+						}
+					});
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		assertEquals( 100, delivered[ 0 ] );
+		assertTrue( maxAhead[ 0 ] <= maxInFlight );
+	}
+
+	public void testStream()
+	{
+		Dom dom = BindML.compile( "{+name+}" );
+		Stream<VarContext> contexts =
+			IntStream.range( 0, 20 ).mapToObj( i -> VarContext.of( "name", "n" + i ) );
+		final StringBuilder sb = new StringBuilder();
+		ExecutorService executor = Executors.newFixedThreadPool( 3 );
+		try
+		{
+			new TailorBatch( executor, 5, TailorBatch.Order.INPUT )
+				.tailor( dom, contexts, new TailorBatch.ResultHandler()
+				{
+					public void onResult( TailorBatch.Result result )
+					{
+						sb.append( result.getCode() ).append( "," );
+					}
+				});
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		StringBuilder expected = new StringBuilder();
+		for( int i = 0; i < 20; i++ )
+		{
+			expected.append( "n" + i + "," );
+		}
+		assertEquals( expected.toString(), sb.toString() );
+	}
+
+	public void testErrorIsNotCaptured()
+	{
+		Dom dom = BindML.compile( "{+name+}" );
+		Directive overflow = new Directive.PreProcessor()
+		{
+			public void preProcess( TailorState tailorState )
+			{
+				if( "C3".equals( tailorState.getContext().get( "name" ) ) )
+				{
+					throw new StackOverflowError( "C3" );
+				}
+			}
+		};
+		ExecutorService executor = Executors.newFixedThreadPool( 2 );
+		try
+		{
+			new TailorBatch( executor, 4, TailorBatch.Order.INPUT, overflow )
+				.tailorAll( dom, contexts( 10 ) );
+			fail( "expected StackOverflowError" );
+		}
+		catch( StackOverflowError e )
+		{
+			assertEquals( "C3", e.getMessage() );
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
+	public void testRejectedIsCaptured()
+	{
+		Dom dom = BindML.compile( "{+name+}" );
+		ExecutorService executor = Executors.newFixedThreadPool( 2 );
+		executor.shutdown();
+		List<TailorBatch.Result> results =
+			new TailorBatch( executor, 4, TailorBatch.Order.INPUT )
+				.tailorAll( dom, contexts( 10 ) );
+		assertEquals( 10, results.size() );
+		for( int i = 0; i < results.size(); i++ )
+		{
+			assertEquals( i, results.get( i ).getIndex() );
+			assertTrue( results.get( i ).getError() 
+				instanceof RejectedExecutionException );
+		}
+	}
+	
+	public void testDiscardPolicyNotSupported()
+	{
+		Dom dom = BindML.compile( "{+name+}" );
+		ThreadPoolExecutor executor = new ThreadPoolExecutor( 
+			1, 1, 0L, TimeUnit.MILLISECONDS, 
+			new ArrayBlockingQueue<Runnable>( 1 ), 
+			new ThreadPoolExecutor.DiscardPolicy() );
+		try
+		{
+			new TailorBatch( executor, 4, TailorBatch.Order.INPUT );
+			fail( "expected exception for DiscardPolicy" );
+		}
+		catch( VarException e )
+		{
+			//expected
+		}
+		
+		executor.setRejectedExecutionHandler( 
+			new ThreadPoolExecutor.CallerRunsPolicy() );
+		TailorBatch batch = new TailorBatch( executor, 4, TailorBatch.Order.INPUT );
+		assertEquals( 10, batch.tailorAll( dom, contexts( 10 ) ).size() );
+		
+		//the policy changed after the batch was created
+		executor.setRejectedExecutionHandler( 
+			new ThreadPoolExecutor.DiscardOldestPolicy() );
+		try
+		{
+			batch.tailorAll( dom, contexts( 10 ) );
+			fail( "expected exception for DiscardOldestPolicy" );
+		}
+		catch( VarException e )
+		{
+			//expected
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
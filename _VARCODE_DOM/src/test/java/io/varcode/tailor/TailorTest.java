@@ -1,5 +1,10 @@
 package io.varcode.tailor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+
 import io.varcode.context.VarContext;
 import io.varcode.context.lib.text.Indent4Spaces;
 import io.varcode.dom.Dom;
@@ -41,4 +46,53 @@ public class TailorTest
 	
 	
 
+	public void testWriteStreamsToWriter()
+	{
+		Dom dom = BindML.compile( 
+			"/+* {+name+} *+/" + N + "{{+:{+type+} {+name+}, +}}" );
+		VarContext context = VarContext.of( 
+			"type", new Class[]{ int.class, String.class }, 
+			"name", new String[]{ "a", "b" } );
+		
+		String expected = Tailor.code( dom, context ); 
+		
+		StringWriter writer = new StringWriter();
+		Tailor.write( dom, context, writer );
+		assertEquals( expected, writer.toString() );
+		
+		//very small buffer (flushed many times)
+		writer = new StringWriter();
+		Tailor.write( dom, context, writer, 3 );
+		assertEquals( expected, writer.toString() );		
+	}
+	
+	public void testWriteStreamsToOutputStreamAndChannel()
+	{
+		Charset utf8 = Charset.forName( "UTF-8" );
+		Dom dom = BindML.compile( "cafe {+name+}" );
+		
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		Tailor.write( dom, VarContext.of( "name", "\u00e9ric" ), baos, utf8 );
+		assertEquals( "cafe \u00e9ric", new String( baos.toByteArray(), utf8 ) );
+		
+		baos = new ByteArrayOutputStream();
+		Tailor.write( dom, VarContext.of( "name", "\u00e9ric" ), 
+			Channels.newChannel( baos ), utf8 );
+		assertEquals( "cafe \u00e9ric", new String( baos.toByteArray(), utf8 ) );
+	}
+	
+	public void testWritePostProcessDirectives()
+	{
+		//directives that post-process the tailored text are still applied
+		Dom dom = BindML.compile( "{$$indent$$}{+name+}"+ N + "{+name+}"   );
+		StringWriter writer = new StringWriter();
+		Tailor.write( dom, VarContext.of( "name", "eric" ), writer, 2 );
+		assertEquals( "    eric" + N + "    eric", writer.toString() );
+		
+		dom = BindML.compile( "{+name+}"+ N + "{+name+}"   );
+		writer = new StringWriter();
+		Tailor.write( dom, VarContext.of( "name", "eric" ), writer, 
+			Indent4Spaces.INSTANCE );
+		assertEquals( "    eric" + N + "    eric", writer.toString() );
+	}
 }
@@ -0,0 +1,155 @@
+package io.varcode.tailor.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import io.varcode.context.VarContext;
+import io.varcode.context.VarScope;
+import io.varcode.dom.Dom;
+import io.varcode.dom.bindml.BindML;
+import io.varcode.dom.mark.AddExpressionResult;
+import io.varcode.dom.mark.AddScriptResult;
+import io.varcode.tailor.CompiledDom;
+import io.varcode.tailor.DomJavaCompiler;
+import io.varcode.tailor.Tailor;
+import io.varcode.tailor.TailorListener.Call;
+import io.varcode.tailor.TailorListener.Phase;
+import junit.framework.TestCase;
+
+public class TailorMetricsTest
+	extends TestCase
+{
+	private static final Dom DOM = BindML.compile( 
+		"class {+name+}" + System.lineSeparator() 
+	  + "{ int count = {+(( count + 1 ))+}; String s = {+$quote(name)+}; }" 
+	  + System.lineSeparator() + "//{+$java.lang.String.valueOf(name)+}" );
+	
+	private static VarContext context( TailorMetrics metrics )
+	{
+		VarContext context = VarContext.of( "name", "A", "count", 1 );
+		context.set( VarContext.TAILOR_LISTENER_NAME, metrics, VarScope.CORE );
+		return context;
+	}
+	
+	public void testHistogram()
+	{
+		Histogram h = new Histogram();
+		assertEquals( 0, h.getCount() );
+		assertEquals( 0, h.getMean() );
+		assertEquals( 0, h.getPercentile( 99 ) );
+		
+		for( int i = 1; i <= 100; i++ )
+		{
+			h.record( i );
+		}
+		h.record( -1 ); //ignored (unknown)
+		assertEquals( 100, h.getCount() );
+		assertEquals( 5050, h.getSum() );
+		assertEquals( 50, h.getMean() );
+		assertEquals( 1, h.getMin() );
+		assertEquals( 100, h.getMax() );
+		//(power of 2 buckets, within a factor of 2)
+		assertEquals( 63, h.getPercentile( 50 ) );
+		assertEquals( 100, h.getPercentile( 99 ) );
+		assertEquals( 1, h.getPercentile( 0 ) );
+		
+		h.record( 0 );
+		assertEquals( 0, h.getMin() );
+		h.record( Long.MAX_VALUE );
+		assertEquals( Long.MAX_VALUE, h.getPercentile( 100 ) );
+		
+		h.reset();
+		assertEquals( 0, h.getCount() );
+		assertEquals( 0, h.getMax() );
+	}
+	
+	public void testNoListener()
+	{
+		VarContext context = VarContext.of( "name", "A", "count", 1 );
+		assertNull( context.getTailorListener() );
+	}
+	
+	public void testTailorMetrics()
+	{
+		TailorMetrics metrics = new TailorMetrics();
+		String plain = Tailor.code( DOM, VarContext.of( "name", "A", "count", 1 ) );
+		VarContext context = context( metrics );
+		
+		assertEquals( plain, Tailor.code( DOM, context ) );
+		assertEquals( plain, Tailor.code( DOM, context ) );
+		
+		assertEquals( 2, metrics.getTailorCount() );
+		Phase[] phases = Phase.values();
+		for( int i = 0; i < phases.length; i++ )
+		{
+			assertEquals( 2, metrics.getPhaseNanos( phases[ i ] ).getCount() );
+		}
+		assertEquals( 2, metrics.getMarkNanos( AddExpressionResult.class ).getCount() );
+		assertEquals( 4, metrics.getMarkNanos( AddScriptResult.class ).getCount() );
+		assertEquals( Long.valueOf( 4 ), metrics.getMarkCounts().get( "AddScriptResult" ) );
+		
+		assertTrue( metrics.getCallNanos( Call.VAR_RESOLVER ).getCount() > 0 );
+		assertTrue( metrics.getCallNanos( Call.EXPRESSION_EVALUATOR ).getCount() >= 2 );
+		assertTrue( metrics.getCallNanos( Call.SCRIPT_RESOLVER ).getCount() >= 2 );
+		
+		//the counting components are removed after tailoring
+		assertNull( context.get( VarContext.VAR_RESOLVER_NAME, VarScope.INSTANCE ) );
+		assertNull( context.get( VarContext.EXPRESSION_EVALUATOR_NAME, VarScope.INSTANCE ) );
+		assertNull( context.get( VarContext.SCRIPT_RESOLVER_NAME, VarScope.INSTANCE ) );
+		
+		Map<String, Long> slowest = metrics.getSlowestMarkLocations();
+		assertEquals( 4, slowest.size() );
+		assertTrue( slowest.keySet().iterator().next().contains( ":" ) );
+		assertTrue( metrics.getReport().contains( "AddScriptResult" ) );
+		assertEquals( slowest.keySet(), 
+			metrics.getMostAllocatingMarkLocations().keySet() );
+		
+		//the marks of a recompiled Dom are in the same locations
+		Dom recompiled = BindML.compile( 
+			"class {+name+}" + System.lineSeparator() 
+		  + "{ int count = {+(( count + 1 ))+}; String s = {+$quote(name)+}; }" 
+		  + System.lineSeparator() + "//{+$java.lang.String.valueOf(name)+}" );
+		assertEquals( plain, Tailor.code( recompiled, context ) );
+		assertEquals( 4, metrics.getSlowestMarkLocations().size() );
+		
+		metrics.reset();
+		assertEquals( 0, metrics.getTailorCount() );
+		assertTrue( metrics.getMarkCounts().isEmpty() );
+	}
+	
+	public void testCompiledDom()
+	{
+		TailorMetrics metrics = new TailorMetrics();
+		CompiledDom compiled = DomJavaCompiler.INSTANCE.compile( DOM );
+		
+		assertEquals( 
+			Tailor.code( DOM, VarContext.of( "name", "A", "count", 1 ) ), 
+			compiled.code( context( metrics ) ) );
+		
+		assertEquals( 1, metrics.getTailorCount() );
+		//the phases are fused in the generated class
+		assertEquals( 0, metrics.getPhaseNanos( Phase.FILL ).getCount() );
+		assertTrue( metrics.getCallNanos( Call.SCRIPT_RESOLVER ).getCount() >= 1 );
+	}
+	
+	public void testRegisterMXBean()
+		throws Exception
+	{
+		TailorMetrics metrics = new TailorMetrics().register( "TailorMetricsTest" );
+		ObjectName name = new ObjectName( 
+			"io.varcode:type=TailorMetrics,name=" + ObjectName.quote( "TailorMetricsTest" ) );
+		try
+		{
+			Tailor.code( DOM, context( metrics ) );
+			assertEquals( 1L, ManagementFactory.getPlatformMBeanServer()
+				.getAttribute( name, "TailorCount" ) );
+		}
+		finally
+		{
+			TailorMetrics.unregister( name );
+		}
+		assertFalse( ManagementFactory.getPlatformMBeanServer().isRegistered( name ) );
+	}
+}
@@ -0,0 +1,88 @@
+package io.varcode.text;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import io.varcode.VarException;
+import io.varcode.text.TextBuffer.FillBuffer;
+import junit.framework.TestCase;
+
+public class DigestBufferTest
+	extends TestCase
+{
+	private static String sha1( byte[] bytes ) 
+		throws Exception
+	{
+		return DigestBuffer.toHex( MessageDigest.getInstance( "SHA-1" ).digest( bytes ) );
+	}
+	
+	public void testSameAsGetBytes()
+		throws Exception
+	{
+		Random random = new Random( 3 );
+		char[] chars = { 'a', 'Z', ' ', '\n', '\u00e9', '\u4e2d', '\ud83d', '\ude00' };
+		Charset[] charsets = { 
+			StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16 };
+		for( int i = 0; i < 2000; i++ )
+		{
+			StringBuilder sb = new StringBuilder();
+			int length = random.nextInt( 3000 );
+			for( int j = 0; j < length; j++ )
+			{   //(includes pairs, split pairs and unpaired surrogates)
+				sb.append( chars[ random.nextInt( chars.length ) ] );
+			}
+			String text = sb.toString();
+			Charset charset = charsets[ i % charsets.length ];
+			
+			FillBuffer out = new FillBuffer();
+			DigestBuffer digest = new DigestBuffer( out, "SHA-1", charset );
+			int start = 0;
+			while( start < text.length() )
+			{
+				int end = Math.min( text.length(), start + 1 + random.nextInt( 1500 ) );
+				if( random.nextBoolean() )
+				{
+					digest.append( text, start, end );
+				}
+				else
+				{
+					digest.append( new StringBuilder( text.substring( start, end ) ) );
+				}
+				start = end;
+			}
+			//(a trailing high surrogate is not encoded until the digest)
+			assertTrue( text.getBytes( charset ).length - digest.getByteCount() <= 4 );
+			assertEquals( sha1( text.getBytes( charset ) ), digest.getHexDigest() );
+			assertEquals( text, out.toString() );
+		}
+	}
+	
+	public void testReset()
+		throws Exception
+	{
+		DigestBuffer digest = new DigestBuffer( null, "SHA-1" );
+		digest.append( "ABC" );
+		assertEquals( sha1( "ABC".getBytes() ), digest.getHexDigest() );
+		//(digest resets)
+		digest.append( "DEF" );
+		assertEquals( sha1( "DEF".getBytes() ), digest.getHexDigest() );
+		digest.append( "GHI" );
+		digest.clear();
+		assertEquals( sha1( new byte[ 0 ] ), digest.getHexDigest() );
+	}
+	
+	public void testInvalidAlgorithm()
+	{
+		try
+		{
+			new DigestBuffer( null, "NOT-A-DIGEST" );
+			fail( "expected exception" );
+		}
+		catch( VarException e )
+		{
+			//expected
+		}
+	}
+}
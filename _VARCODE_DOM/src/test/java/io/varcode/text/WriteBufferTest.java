@@ -0,0 +1,47 @@
+package io.varcode.text;
+
+import java.io.StringWriter;
+
+import io.varcode.text.TextBuffer.WriteBuffer;
+import junit.framework.TestCase;
+
+public class WriteBufferTest
+	extends TestCase
+{
+	public void testWrite()
+	{
+		StringWriter writer = new StringWriter();
+		WriteBuffer wb = new WriteBuffer( writer, 4 );
+		wb.append( "ab" );
+		assertEquals( "", writer.toString() ); //still buffered
+		wb.append( "cdefghij" );
+		assertEquals( "abcdefgh", writer.toString() );
+		wb.flush();
+		assertEquals( "abcdefghij", writer.toString() );
+		assertEquals( 10, wb.getCharCount() );
+		assertEquals( 4, wb.getBufferSize() );
+	}
+	
+	public void testClearDiscardsBuffered()
+	{
+		StringWriter writer = new StringWriter();
+		WriteBuffer wb = new WriteBuffer( writer, 4 );
+		wb.append( "abcde" );
+		wb.clear();
+		wb.flush();
+		assertEquals( "abcd", writer.toString() );
+		assertEquals( 4, wb.getCharCount() );
+	}
+	
+	public void testSmartBufferTranslatesIncrementally()
+	{
+		StringWriter writer = new StringWriter();
+		WriteBuffer wb = new WriteBuffer( writer, 3 );
+		SmartBuffer sb = new SmartBuffer( wb );
+		sb.append( "/+* comment *+/ " );
+		sb.append( new Class[]{ int.class, String.class, java.util.Map.class } );
+		sb.append( null );
+		wb.flush();
+		assertEquals( "/* comment */ int, String, java.util.Map", writer.toString() );
+	}
+}